@@ -0,0 +1,88 @@
+package com.swann.common.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Measures how far the read replica trails the primary. Reads are only sent to
+ * the replica while its lag is within the configured staleness bound; an
+ * unreachable replica, or one disconnected from the primary, counts as
+ * infinitely stale. Probes on the application's scheduler, so scheduling must
+ * be enabled.
+ */
+@Slf4j
+public class ReplicaLagMonitor implements SchedulingConfigurer {
+
+    // A replica streaming from the primary that has replayed everything it received is current, however old
+    // its last replayed commit. One that is not streaming has nothing new to replay whatever the primary did,
+    // so its lag is unknown (null). The receiver's status is hidden without pg_read_all_stats, in which case
+    // a running receiver has to do.
+    static final String LAG_QUERY = "SELECT CASE"
+            + " WHEN NOT pg_is_in_recovery() THEN 0"
+            + " WHEN NOT EXISTS (SELECT 1 FROM pg_stat_wal_receiver WHERE COALESCE(status, 'streaming') = 'streaming') THEN NULL"
+            + " WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0"
+            + " ELSE CAST(EXTRACT(EPOCH FROM (now() - pg_last_xact_replay_timestamp())) * 1000 AS bigint) END";
+
+    private final JdbcTemplate replica;
+    private final long maxStalenessMillis;
+    private final Duration checkInterval;
+    // Unknown until the first probe, so reads start on the primary
+    private volatile long lagMillis = Long.MAX_VALUE;
+
+    /**
+     * @param checkInterval delay between the end of one probe and the next
+     * @param metricPrefix prefix of the meter names, the service's name
+     */
+    public ReplicaLagMonitor(DataSource replica, Duration maxStaleness, Duration checkInterval, String metricPrefix,
+                             MeterRegistry meterRegistry) {
+        this.replica = new JdbcTemplate(replica);
+        this.replica.setQueryTimeout(2);
+        this.maxStalenessMillis = maxStaleness.toMillis();
+        this.checkInterval = checkInterval;
+        Gauge.builder(metricPrefix + ".datasource.replica.lag", this, monitor -> monitor.lagMillis == Long.MAX_VALUE ? Double.NaN : monitor.lagMillis)
+                .description("Replication lag of the read replica")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        taskRegistrar.addFixedDelayTask(this::probe, checkInterval);
+    }
+
+    public void probe() {
+        try {
+            Long lag = replica.queryForObject(LAG_QUERY, Long.class);
+            if (lag == null && lagMillis != Long.MAX_VALUE) {
+                log.warn("Read replica is not streaming from the primary, reading from the primary");
+            }
+            lagMillis = lag != null ? lag : Long.MAX_VALUE;
+        } catch (DataAccessException e) {
+            if (lagMillis != Long.MAX_VALUE) {
+                log.warn("Read replica unavailable, reading from the primary: {}", e.getMessage());
+            }
+            lagMillis = Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Whether the replica is current enough to serve reads
+     *
+     * @return true if the last measured lag is within the staleness bound
+     */
+    public boolean isWithinStaleness() {
+        return lagMillis <= maxStalenessMillis;
+    }
+
+    public long getLagMillis() {
+        return lagMillis;
+    }
+}
@@ -0,0 +1,51 @@
+package com.swann.common.datasource;
+
+/**
+ * Workload of the code running on the current thread, set by {@link Workload}.
+ */
+public final class WorkloadContext {
+
+    private static final ThreadLocal<WorkloadType> CURRENT = new ThreadLocal<>();
+
+    private WorkloadContext() {
+    }
+
+    /**
+     * Get the workload declared for the current thread
+     *
+     * @return the workload, or null if none was declared
+     */
+    public static WorkloadType current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Run an action under the given workload, as code annotated with
+     * {@link Workload} would. For handing a workload over to another thread.
+     *
+     * @param workload the workload, or null for none
+     * @param action the action to run on the current thread
+     */
+    public static void runAs(WorkloadType workload, Runnable action) {
+        WorkloadType previous = set(workload);
+        try {
+            action.run();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    static WorkloadType set(WorkloadType workload) {
+        WorkloadType previous = CURRENT.get();
+        CURRENT.set(workload);
+        return previous;
+    }
+
+    static void restore(WorkloadType previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
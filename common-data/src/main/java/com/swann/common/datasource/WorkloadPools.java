@@ -0,0 +1,98 @@
+package com.swann.common.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The Hikari pools of each {@link WorkloadType}, one set per shard, all
+ * connected to that shard's primary. An unsharded service has a single shard.
+ * Owns the pools and closes them on shutdown.
+ */
+public class WorkloadPools implements DisposableBean {
+
+    private final List<Map<WorkloadType, HikariDataSource>> shards;
+
+    /**
+     * @param shards pool per workload, in shard order
+     */
+    public WorkloadPools(List<Map<WorkloadType, HikariDataSource>> shards) {
+        this.shards = shards.stream()
+                .map(pools -> (Map<WorkloadType, HikariDataSource>) new EnumMap<>(pools))
+                .toList();
+    }
+
+    /**
+     * Open a pool per workload on each primary. Pools are named after their
+     * workload, prefixed with the shard when there is more than one.
+     *
+     * @param urls JDBC URL of each shard's primary, in shard order
+     * @param sizes maximum pool size per workload
+     * @param meterRegistry records hikaricp.connections.acquire and friends tagged with the pool name
+     */
+    public static WorkloadPools create(List<String> urls, String username, String password, long connectionTimeoutMillis,
+                                       Map<WorkloadType, Integer> sizes, MeterRegistry meterRegistry) {
+        HikariConfig base = new HikariConfig();
+        base.setUsername(username);
+        base.setPassword(password);
+        base.setConnectionTimeout(connectionTimeoutMillis);
+        base.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+
+        List<Map<WorkloadType, HikariDataSource>> shards = new ArrayList<>();
+        for (int shard = 0; shard < urls.size(); shard++) {
+            String prefix = urls.size() == 1 ? "" : "shard" + shard + "-";
+            Map<WorkloadType, HikariDataSource> pools = new EnumMap<>(WorkloadType.class);
+            for (WorkloadType workload : WorkloadType.values()) {
+                HikariDataSource dataSource = new HikariDataSource();
+                base.copyStateTo(dataSource);
+                dataSource.setJdbcUrl(urls.get(shard));
+                dataSource.setPoolName(prefix + workload.name().toLowerCase(Locale.ROOT));
+                dataSource.setMaximumPoolSize(sizes.get(workload));
+                pools.put(workload, dataSource);
+            }
+            shards.add(pools);
+        }
+        return new WorkloadPools(shards);
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    public HikariDataSource get(int shard, WorkloadType workload) {
+        return shards.get(shard).get(workload);
+    }
+
+    /**
+     * Pool of the first shard, the only one of an unsharded service
+     */
+    public HikariDataSource get(WorkloadType workload) {
+        return get(0, workload);
+    }
+
+    public Map<WorkloadType, DataSource> asMap(int shard) {
+        return Collections.unmodifiableMap(new EnumMap<WorkloadType, DataSource>(shards.get(shard)));
+    }
+
+    /**
+     * Pools of the first shard, the only one of an unsharded service
+     */
+    public Map<WorkloadType, DataSource> asMap() {
+        return asMap(0);
+    }
+
+    @Override
+    public void destroy() {
+        shards.forEach(pools -> pools.values().forEach(HikariDataSource::close));
+    }
+}
@@ -0,0 +1,37 @@
+package com.swann.common.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Picks the connection pool of the current thread's workload. Consumer and
+ * batch work keep their own pools; everything else is split by whether the
+ * transaction is read-only.
+ */
+public class WorkloadRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final WorkloadType defaultWorkload;
+
+    /**
+     * @param targets pool per workload
+     * @param readOnly whether this routes read-only connections
+     */
+    public WorkloadRoutingDataSource(Map<WorkloadType, DataSource> targets, boolean readOnly) {
+        this.defaultWorkload = readOnly ? WorkloadType.INTERACTIVE : WorkloadType.WRITE;
+        setTargetDataSources(new HashMap<>(targets));
+        setDefaultTargetDataSource(targets.get(defaultWorkload));
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        WorkloadType workload = WorkloadContext.current();
+        if (workload == WorkloadType.CONSUMER || workload == WorkloadType.BATCH) {
+            return workload;
+        }
+        return defaultWorkload;
+    }
+}
@@ -0,0 +1,16 @@
+package com.swann.common.datasource;
+
+/**
+ * Traffic classes that get their own connection pool, so one class running
+ * out of connections cannot make another wait.
+ */
+public enum WorkloadType {
+    // Read-only transactions of API requests
+    INTERACTIVE,
+    // Read-write transactions of API requests and anything not classified
+    WRITE,
+    // Kafka listeners
+    CONSUMER,
+    // Scheduled jobs, startup backfills and other bulk work
+    BATCH
+}
@@ -0,0 +1,34 @@
+package com.swann.common.kafka;
+
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.springframework.kafka.core.KafkaAdmin;
+
+/**
+ * Lists a topic's partitions for a listener that is assigned all of them
+ * explicitly, without a consumer group, e.g.
+ * {@code partitions = "#{@topicPartitionFinder.partitions('payment-processed')}"}.
+ * Such a listener sees every record on every instance and commits nothing.
+ */
+public class TopicPartitionFinder {
+
+    private final KafkaAdmin kafkaAdmin;
+
+    public TopicPartitionFinder(KafkaAdmin kafkaAdmin) {
+        this.kafkaAdmin = kafkaAdmin;
+    }
+
+    /**
+     * Listener endpoints are resolved before the admin creates the declared
+     * topics, so this creates them first
+     *
+     * @param topic the topic
+     * @return its partition numbers
+     */
+    public String[] partitions(String topic) {
+        kafkaAdmin.initialize();
+        TopicDescription description = kafkaAdmin.describeTopics(topic).get(topic);
+        return description.partitions().stream()
+                .map(partition -> Integer.toString(partition.partition()))
+                .toArray(String[]::new);
+    }
+}
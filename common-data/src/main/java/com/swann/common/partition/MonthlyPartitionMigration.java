@@ -0,0 +1,38 @@
+package com.swann.common.partition;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Flyway migration that turns plain tables into monthly range-partitioned
+ * ones. Existing rows become a single partition ending with the current
+ * month and next month's partition is created; from there each service's
+ * partition maintenance job creates partitions ahead. Runs once, inside the
+ * migration's transaction, and is recorded like any other migration.
+ */
+public abstract class MonthlyPartitionMigration extends BaseJavaMigration {
+
+    private final List<PartitionedTable> tables;
+
+    protected MonthlyPartitionMigration(List<PartitionedTable> tables) {
+        this.tables = tables;
+    }
+
+    @Override
+    public void migrate(Context context) {
+        // Suppress close: the connection belongs to Flyway
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(context.getConnection(), true));
+        PartitionManager partitions = new PartitionManager(jdbcTemplate);
+        LocalDate firstPartition = YearMonth.now().plusMonths(1).atDay(1);
+        for (PartitionedTable table : tables) {
+            partitions.convert(table, firstPartition);
+            partitions.createPartitions(table, firstPartition, firstPartition);
+        }
+    }
+}
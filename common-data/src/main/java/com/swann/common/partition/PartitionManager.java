@@ -0,0 +1,177 @@
+package com.swann.common.partition;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Monthly range partitions of PostgreSQL tables, managed with plain DDL.
+ * Partitions are named {@code <table>_pYYYYMM}; partitions that have left the
+ * hot window are detached and moved to the {@value #ARCHIVE_SCHEMA} schema.
+ * Every method must run inside a transaction.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class PartitionManager {
+
+    static final String ARCHIVE_SCHEMA = "archive";
+
+    private static final long LOCK_KEY = 0x7061727469L;
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('(\\d{4}-\\d{2}-\\d{2})[^']*'\\)");
+    private static final Pattern INDEX_TABLE = Pattern.compile(" ON (ONLY )?\\S+ USING ");
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Take the maintenance lock for the rest of the transaction
+     *
+     * @return false if another instance holds it
+     */
+    public boolean tryLock() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, LOCK_KEY));
+    }
+
+    /**
+     * Turn a plain table into a partitioned one. The existing rows stay where
+     * they are and become a single partition holding everything before
+     * {@code until}; the table's indexes are recreated on the parent.
+     *
+     * @param table the table
+     * @param until first day not covered by the existing rows' partition
+     * @return false if the table does not exist or is partitioned already
+     */
+    public boolean convert(PartitionedTable table, LocalDate until) {
+        List<String> kind = jdbcTemplate.queryForList(
+                "SELECT relkind::text FROM pg_class WHERE oid = to_regclass(?)", String.class, table.name());
+        if (kind.isEmpty() || "p".equals(kind.get(0))) {
+            return false;
+        }
+        String legacy = table.name() + "_legacy";
+        table.preparation().forEach(jdbcTemplate::execute);
+        jdbcTemplate.execute("ALTER TABLE " + table.name() + " RENAME TO " + legacy);
+
+        // Keys of a partitioned table must include the partition column; CASCADE also drops foreign keys to it
+        for (String constraint : jdbcTemplate.queryForList(
+                "SELECT conname::text FROM pg_constraint WHERE conrelid = to_regclass(?) AND contype IN ('p', 'u', 'f')",
+                String.class, legacy)) {
+            jdbcTemplate.execute("ALTER TABLE " + legacy + " DROP CONSTRAINT IF EXISTS \"" + constraint + "\" CASCADE");
+        }
+        jdbcTemplate.execute("CREATE TABLE " + table.name() + " (LIKE " + legacy + " INCLUDING DEFAULTS)"
+                + " PARTITION BY RANGE (" + table.partitionColumn() + ")");
+        jdbcTemplate.execute("ALTER TABLE " + table.name() + " ADD CONSTRAINT " + table.name() + "_pkey"
+                + " PRIMARY KEY (" + String.join(", ", table.primaryKey()) + ")");
+
+        // Recreate the remaining indexes on the parent; attaching reuses the legacy ones instead of building new
+        for (var index : jdbcTemplate.queryForList(
+                "SELECT c.relname::text AS name, pg_get_indexdef(i.indexrelid) AS definition FROM pg_index i"
+                        + " JOIN pg_class c ON c.oid = i.indexrelid WHERE i.indrelid = to_regclass(?)", legacy)) {
+            String name = (String) index.get("name");
+            jdbcTemplate.execute("ALTER INDEX \"" + name + "\" RENAME TO \"" + legacyIndexName(name) + "\"");
+            jdbcTemplate.execute(INDEX_TABLE.matcher((String) index.get("definition"))
+                    .replaceFirst(Matcher.quoteReplacement(" ON " + table.name() + " USING ")));
+        }
+        jdbcTemplate.execute("ALTER TABLE " + table.name() + " ATTACH PARTITION " + legacy
+                + " FOR VALUES FROM (MINVALUE) TO ('" + until + "')");
+        log.info("Converted {} to a partitioned table; existing rows are partition {}", table.name(), legacy);
+        return true;
+    }
+
+    /**
+     * Create the monthly partitions that follow the last existing one
+     *
+     * @param table the table
+     * @param from first day of the first month to cover if the table has no partitions yet
+     * @param through first day of the last month to cover
+     * @return names of the partitions created
+     */
+    public List<String> createPartitions(PartitionedTable table, LocalDate from, LocalDate through) {
+        LocalDate next = partitions(table).stream()
+                .map(Partition::upperBound)
+                .max(Comparator.naturalOrder())
+                .orElse(from);
+        List<String> created = new ArrayList<>();
+        while (!next.isAfter(through)) {
+            LocalDate end = next.plusMonths(1);
+            String partition = table.name() + "_p" + SUFFIX.format(next);
+            jdbcTemplate.execute("CREATE TABLE " + partition + " PARTITION OF " + table.name()
+                    + " FOR VALUES FROM ('" + next + "') TO ('" + end + "')");
+            created.add(partition);
+            next = end;
+        }
+        if (!created.isEmpty()) {
+            log.info("Created partitions {}", created);
+        }
+        return created;
+    }
+
+    /**
+     * Detach every partition that ends on or before a cutoff and move it to
+     * the archive schema, without its secondary indexes
+     *
+     * @param table the table
+     * @param cutoff partitions ending on or before this day are archived
+     * @param tablespace tablespace for archived partitions, or blank to leave them in place
+     * @return names of the partitions archived
+     */
+    public List<String> archivePartitions(PartitionedTable table, LocalDate cutoff, String tablespace) {
+        List<String> archived = new ArrayList<>();
+        for (Partition partition : partitions(table)) {
+            if (partition.upperBound().isAfter(cutoff)) {
+                continue;
+            }
+            jdbcTemplate.execute("ALTER TABLE " + table.name() + " DETACH PARTITION " + partition.name());
+            jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS " + ARCHIVE_SCHEMA);
+            jdbcTemplate.execute("ALTER TABLE " + partition.name() + " SET SCHEMA " + ARCHIVE_SCHEMA);
+            String archivedName = ARCHIVE_SCHEMA + "." + partition.name();
+
+            // Archived rows are read rarely and in bulk; only the primary key is worth its space
+            for (String index : jdbcTemplate.queryForList(
+                    "SELECT i.indexrelid::regclass::text FROM pg_index i WHERE i.indrelid = to_regclass(?)"
+                            + " AND NOT EXISTS (SELECT 1 FROM pg_constraint c WHERE c.conindid = i.indexrelid)",
+                    String.class, archivedName)) {
+                jdbcTemplate.execute("DROP INDEX " + index);
+            }
+            if (tablespace != null && !tablespace.isBlank()) {
+                // Rewrites the table, which also leaves it free of dead space
+                jdbcTemplate.execute("ALTER TABLE " + archivedName + " SET TABLESPACE " + tablespace);
+            }
+            archived.add(archivedName);
+        }
+        if (!archived.isEmpty()) {
+            log.info("Archived partitions {}", archived);
+        }
+        return archived;
+    }
+
+    List<Partition> partitions(PartitionedTable table) {
+        return jdbcTemplate.query(
+                "SELECT c.relname::text, pg_get_expr(c.relpartbound, c.oid) FROM pg_inherits i"
+                        + " JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = to_regclass(?)",
+                (rs, rowNum) -> {
+                    Matcher bound = UPPER_BOUND.matcher(rs.getString(2));
+                    if (!bound.find()) {
+                        throw new IllegalStateException("Unexpected bound for partition " + rs.getString(1) + ": " + rs.getString(2));
+                    }
+                    return new Partition(rs.getString(1), LocalDate.parse(bound.group(1)));
+                },
+                table.name());
+    }
+
+    private static String legacyIndexName(String name) {
+        String suffix = "_legacy";
+        // Identifiers are cut at 63 bytes
+        return (name.length() + suffix.length() > 63 ? name.substring(0, 63 - suffix.length()) : name) + suffix;
+    }
+
+    record Partition(String name, LocalDate upperBound) {
+    }
+}
@@ -0,0 +1,14 @@
+package com.swann.common.partition;
+
+import java.util.List;
+
+/**
+ * A table range-partitioned by month on a timestamp column.
+ *
+ * @param name the table name
+ * @param partitionColumn the timestamp column partitions are split on
+ * @param primaryKey primary key columns; must include the partition column
+ * @param preparation statements that make an existing plain table ready to be partitioned
+ */
+public record PartitionedTable(String name, String partitionColumn, List<String> primaryKey, List<String> preparation) {
+}
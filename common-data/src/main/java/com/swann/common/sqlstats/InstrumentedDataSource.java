@@ -0,0 +1,113 @@
+package com.swann.common.sqlstats;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * Times every statement run through the wrapped data source and hands it to
+ * {@link StatementStatistics}. A batch counts as one statement, being one
+ * round trip. Statistics are looked up on first use, as this wraps the data
+ * source before the meter registry exists.
+ */
+public class InstrumentedDataSource extends DelegatingDataSource {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    private final ObjectProvider<StatementStatistics> statisticsProvider;
+    private volatile StatementStatistics statistics;
+
+    public InstrumentedDataSource(DataSource targetDataSource, ObjectProvider<StatementStatistics> statisticsProvider) {
+        super(targetDataSource);
+        this.statisticsProvider = statisticsProvider;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return instrument(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return instrument(super.getConnection(username, password));
+    }
+
+    private Connection instrument(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object identity = identity(proxy, method, args);
+                    if (identity != null) {
+                        return identity;
+                    }
+                    Object result = invoke(connection, method, args);
+                    // prepareStatement and prepareCall; the return type tells which
+                    if (result instanceof PreparedStatement statement && args != null && args[0] instanceof String sql) {
+                        return instrument(statement, method.getReturnType(), sql);
+                    }
+                    if (result instanceof Statement statement && "createStatement".equals(method.getName())) {
+                        return instrument(statement, Statement.class, null);
+                    }
+                    return result;
+                });
+    }
+
+    private Statement instrument(Statement statement, Class<?> type, String preparedSql) {
+        return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    Object identity = identity(proxy, method, args);
+                    if (identity != null) {
+                        return identity;
+                    }
+                    if (!EXECUTE_METHODS.contains(method.getName())) {
+                        return invoke(statement, method, args);
+                    }
+                    String sql = preparedSql != null ? preparedSql
+                            : args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                    long started = System.nanoTime();
+                    try {
+                        return invoke(statement, method, args);
+                    } finally {
+                        // Batches of plain statements carry no single SQL and go unrecorded
+                        if (sql != null) {
+                            statistics().record(sql, System.nanoTime() - started);
+                        }
+                    }
+                });
+    }
+
+    private StatementStatistics statistics() {
+        StatementStatistics current = statistics;
+        if (current == null) {
+            current = statisticsProvider.getObject();
+            statistics = current;
+        }
+        return current;
+    }
+
+    // Proxies are only equal to themselves, so Spring still recognises a connection it handed out
+    private static Object identity(Object proxy, Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "equals" -> args.length == 1 ? proxy == args[0] : null;
+            case "hashCode" -> args == null ? System.identityHashCode(proxy) : null;
+            default -> null;
+        };
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.swann.common.sqlstats;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Instant;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Latency of each statement shape and statements per request route. SQL is
+ * normalized so the same query with other literals or IN-list lengths counts
+ * as one. A request running one statement many times, the usual sign of an
+ * N+1 access pattern, is logged, counted and kept for /actuator/sqlstatements.
+ */
+@Slf4j
+public class StatementStatistics {
+
+    static final String OTHER = "other";
+    private static final int MAX_SQL_LENGTH = 1000;
+    private static final int MAX_RECENT_REPEATS = 50;
+    private static final Set<String> OPERATIONS = Set.of("select", "insert", "update", "delete", "with", "merge");
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER = Pattern.compile("(?<![\\w$.])\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\?(?:\\s*,\\s*\\?)+");
+    // Rows of a multi-row VALUES, allowing one level of nested parentheses such as CAST(? AS uuid)
+    private static final Pattern REPEATED_GROUP = Pattern.compile("(\\([^()]*(?:\\([^()]*\\)[^()]*)*\\))(?:\\s*,\\s*\\1)+");
+
+    private final MeterRegistry meterRegistry;
+    private final int maxQueries;
+    private final int repeatThreshold;
+    private final Map<String, Query> queries = new ConcurrentHashMap<>();
+    private final Map<String, Route> routes = new ConcurrentHashMap<>();
+    private final Deque<RepeatedStatement> recentRepeats = new ConcurrentLinkedDeque<>();
+
+    /**
+     * @param maxQueries statement shapes timed separately before the rest count as {@value #OTHER}
+     * @param repeatThreshold runs of one statement in a request that get it reported
+     */
+    public StatementStatistics(MeterRegistry meterRegistry, int maxQueries, int repeatThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.maxQueries = maxQueries;
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    /**
+     * Record a statement that ran, and add it to the thread's open traces
+     *
+     * @param sql the SQL as sent to the driver
+     * @param nanos time the statement took to execute
+     */
+    public void record(String sql, long nanos) {
+        String normalized = normalize(sql);
+        query(normalized).timer().record(nanos, TimeUnit.NANOSECONDS);
+        StatementTrace trace = StatementTrace.current();
+        if (trace != null) {
+            trace.add(normalized);
+        }
+    }
+
+    /**
+     * Record the statements a request ran and report any that repeated
+     *
+     * @param method the HTTP method
+     * @param uri the matched route pattern, not the raw path
+     * @param trace the request's trace
+     */
+    public void recordRequest(String method, String uri, StatementTrace trace) {
+        routes.computeIfAbsent(method + " " + uri, key -> new Route(method, uri,
+                DistributionSummary.builder("db.request.statements")
+                        .description("Statements run per request")
+                        .tag("method", method)
+                        .tag("uri", uri)
+                        .register(meterRegistry)))
+                .statements().record(trace.getCount());
+        trace.getCounts().forEach((sql, count) -> {
+            if (count >= repeatThreshold) {
+                Query query = query(sql);
+                Counter.builder("db.repeated.statements")
+                        .description("Requests that ran one statement at least the repeat threshold times")
+                        .tag("method", method)
+                        .tag("uri", uri)
+                        .tag("query", query.id())
+                        .register(meterRegistry)
+                        .increment();
+                log.warn("{} {} ran the same statement {} times, likely an N+1: {}", method, uri, count, sql);
+                recentRepeats.addFirst(new RepeatedStatement(method, uri, query.id(), sql, count, Instant.now()));
+                while (recentRepeats.size() > MAX_RECENT_REPEATS) {
+                    recentRepeats.pollLast();
+                }
+            }
+        });
+    }
+
+    public List<Query> getQueries() {
+        return List.copyOf(queries.values());
+    }
+
+    public List<Route> getRoutes() {
+        return List.copyOf(routes.values());
+    }
+
+    public List<RepeatedStatement> getRecentRepeats() {
+        return List.copyOf(recentRepeats);
+    }
+
+    static String normalize(String sql) {
+        String normalized = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        normalized = STRING_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = NUMBER.matcher(normalized).replaceAll("?");
+        normalized = PARAMETER_LIST.matcher(normalized).replaceAll("?, ...");
+        normalized = REPEATED_GROUP.matcher(normalized).replaceAll("$1, ...");
+        return normalized.length() > MAX_SQL_LENGTH ? normalized.substring(0, MAX_SQL_LENGTH) : normalized;
+    }
+
+    private Query query(String sql) {
+        Query query = queries.get(sql);
+        if (query != null) {
+            return query;
+        }
+        // Bounds the number of timers if something builds SQL with inlined values
+        String key = queries.size() < maxQueries ? sql : OTHER;
+        return queries.computeIfAbsent(key, this::newQuery);
+    }
+
+    private Query newQuery(String sql) {
+        String id = OTHER.equals(sql) ? OTHER : String.format("%08x", sql.hashCode());
+        String operation = sql.split(" ", 2)[0].toLowerCase(Locale.ROOT);
+        Timer timer = Timer.builder("db.statements")
+                .description("Execution time of each statement shape")
+                .tag("query", id)
+                .tag("operation", OPERATIONS.contains(operation) ? operation : OTHER)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        return new Query(id, sql, timer);
+    }
+
+    public record Query(String id, String sql, Timer timer) {
+    }
+
+    public record Route(String method, String uri, DistributionSummary statements) {
+    }
+
+    public record RepeatedStatement(String method, String uri, String queryId, String sql, int count, Instant detectedAt) {
+    }
+}
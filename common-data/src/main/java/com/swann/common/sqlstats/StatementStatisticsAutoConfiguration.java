@@ -0,0 +1,65 @@
+package com.swann.common.sqlstats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Role;
+
+import javax.sql.DataSource;
+
+/**
+ * Times every statement the application runs and traces statements per
+ * request (see {@link StatementStatistics}). This replaces spring.jpa.show-sql,
+ * which logs each statement on the request thread. Applies to every service
+ * depending on common-data; tuned by sql-statistics.max-queries and
+ * sql-statistics.repeat-threshold.
+ */
+@AutoConfiguration
+public class StatementStatisticsAutoConfiguration {
+
+    /**
+     * Wraps the bean named dataSource, the service's primary data source, so
+     * Hibernate, JdbcTemplate and Flyway statements on all of its pools are
+     * seen.
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static BeanPostProcessor statementStatisticsDataSourceWrapper(ObjectProvider<StatementStatistics> statistics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if ("dataSource".equals(beanName) && bean instanceof DataSource dataSource) {
+                    return new InstrumentedDataSource(dataSource, statistics);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public StatementStatistics statementStatistics(MeterRegistry meterRegistry,
+                                                   @Value("${sql-statistics.max-queries:500}") int maxQueries,
+                                                   @Value("${sql-statistics.repeat-threshold:5}") int repeatThreshold) {
+        return new StatementStatistics(meterRegistry, maxQueries, repeatThreshold);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public StatementStatisticsEndpoint statementStatisticsEndpoint(StatementStatistics statistics) {
+        return new StatementStatisticsEndpoint(statistics);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public StatementTraceFilter statementTraceFilter(StatementStatistics statistics) {
+        return new StatementTraceFilter(statistics);
+    }
+}
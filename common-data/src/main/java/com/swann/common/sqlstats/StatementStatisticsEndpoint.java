@@ -0,0 +1,67 @@
+package com.swann.common.sqlstats;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code /actuator/sqlstatements}: statement shapes by total time spent,
+ * statements per request route, and the latest requests that repeated a
+ * statement.
+ */
+@RequiredArgsConstructor
+@Endpoint(id = "sqlstatements")
+public class StatementStatisticsEndpoint {
+
+    private final StatementStatistics statistics;
+
+    @ReadOperation
+    public Map<String, Object> statements() {
+        List<Map<String, Object>> queries = statistics.getQueries().stream()
+                .sorted(Comparator.comparingDouble((StatementStatistics.Query query) ->
+                        query.timer().totalTime(TimeUnit.MILLISECONDS)).reversed())
+                .map(StatementStatisticsEndpoint::describe)
+                .toList();
+        List<Map<String, Object>> routes = statistics.getRoutes().stream()
+                .sorted(Comparator.comparing(StatementStatistics.Route::uri).thenComparing(StatementStatistics.Route::method))
+                .map(StatementStatisticsEndpoint::describe)
+                .toList();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("queries", queries);
+        body.put("requests", routes);
+        body.put("repeatedStatements", statistics.getRecentRepeats());
+        return body;
+    }
+
+    private static Map<String, Object> describe(StatementStatistics.Query query) {
+        Timer timer = query.timer();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("id", query.id());
+        body.put("operation", timer.getId().getTag("operation"));
+        body.put("sql", query.sql());
+        body.put("count", timer.count());
+        body.put("totalMs", timer.totalTime(TimeUnit.MILLISECONDS));
+        body.put("meanMs", timer.mean(TimeUnit.MILLISECONDS));
+        body.put("maxMs", timer.max(TimeUnit.MILLISECONDS));
+        return body;
+    }
+
+    private static Map<String, Object> describe(StatementStatistics.Route route) {
+        DistributionSummary statements = route.statements();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("method", route.method());
+        body.put("uri", route.uri());
+        body.put("requests", statements.count());
+        body.put("meanStatements", statements.mean());
+        body.put("maxStatements", statements.max());
+        return body;
+    }
+}
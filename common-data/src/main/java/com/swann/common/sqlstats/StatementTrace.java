@@ -0,0 +1,66 @@
+package com.swann.common.sqlstats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Statements run on the current thread between {@link #start()} and
+ * {@link #stop()}, by normalized SQL. Traces nest; statements count towards
+ * every trace that is open.
+ */
+public final class StatementTrace {
+
+    private static final ThreadLocal<StatementTrace> CURRENT = new ThreadLocal<>();
+
+    private final StatementTrace enclosing;
+    private final Map<String, Integer> counts = new LinkedHashMap<>();
+    private int count;
+
+    private StatementTrace(StatementTrace enclosing) {
+        this.enclosing = enclosing;
+    }
+
+    /**
+     * Start tracing statements on the current thread
+     *
+     * @return the trace, to be stopped on the same thread
+     */
+    public static StatementTrace start() {
+        StatementTrace trace = new StatementTrace(CURRENT.get());
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    static StatementTrace current() {
+        return CURRENT.get();
+    }
+
+    public void stop() {
+        if (enclosing == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(enclosing);
+        }
+    }
+
+    void add(String sql) {
+        count++;
+        counts.merge(sql, 1, Integer::sum);
+        if (enclosing != null) {
+            enclosing.add(sql);
+        }
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Times each statement ran, in order of first run
+     *
+     * @return normalized SQL and the number of times it ran
+     */
+    public Map<String, Integer> getCounts() {
+        return new LinkedHashMap<>(counts);
+    }
+}
@@ -0,0 +1,40 @@
+package com.swann.common.sqlstats;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Traces the statements each request runs on its own thread and records them
+ * by route. Statements of asynchronous or streamed responses run after the
+ * request thread lets go and are not counted.
+ */
+public class StatementTraceFilter extends OncePerRequestFilter {
+
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private final StatementStatistics statistics;
+
+    public StatementTraceFilter(StatementStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        StatementTrace trace = StatementTrace.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            trace.stop();
+            // The route pattern, so /orders/{orderId} is one series rather than one per order
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            statistics.recordRequest(request.getMethod(), pattern != null ? pattern.toString() : UNKNOWN_URI, trace);
+        }
+    }
+}
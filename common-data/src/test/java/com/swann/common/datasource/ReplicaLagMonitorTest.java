@@ -0,0 +1,66 @@
+package com.swann.common.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaLagMonitorTest {
+
+    private ResultSet resultSet;
+    private ReplicaLagMonitor monitor;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DataSource replica = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        resultSet = mock(ResultSet.class);
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(replica.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(ReplicaLagMonitor.LAG_QUERY)).thenReturn(resultSet);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnCount()).thenReturn(1);
+        when(resultSet.next()).thenReturn(true, false);
+        monitor = new ReplicaLagMonitor(replica, Duration.ofSeconds(2), Duration.ofSeconds(1), "order",
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void probe_WhenReplicaStreamingWithinBound_ShouldServeReads() throws Exception {
+        // Given
+        when(resultSet.getLong(1)).thenReturn(500L);
+
+        // When
+        monitor.probe();
+
+        // Then
+        assertEquals(500, monitor.getLagMillis());
+        assertTrue(monitor.isWithinStaleness());
+    }
+
+    @Test
+    void probe_WhenReplicaNotStreaming_ShouldCountAsStale() throws Exception {
+        // Given - the lag query returns null for a replica disconnected from the primary
+        when(resultSet.getLong(1)).thenReturn(0L);
+        when(resultSet.wasNull()).thenReturn(true);
+
+        // When
+        monitor.probe();
+
+        // Then
+        assertEquals(Long.MAX_VALUE, monitor.getLagMillis());
+        assertFalse(monitor.isWithinStaleness());
+    }
+}
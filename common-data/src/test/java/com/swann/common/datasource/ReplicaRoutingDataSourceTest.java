@@ -0,0 +1,88 @@
+package com.swann.common.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private ReplicaLagMonitor lagMonitor;
+
+    private ReplicaRoutingDataSource routingDataSource;
+    private ReadYourWritesFilter filter;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        routingDataSource = new ReplicaRoutingDataSource(mock(DataSource.class), mock(DataSource.class), lagMonitor, "order", new SimpleMeterRegistry());
+        now = 1_000_000;
+        filter = new ReadYourWritesFilter(Duration.ofSeconds(5), () -> now);
+    }
+
+    @Test
+    void shouldReadFromReplicaWhenCurrentEnough() {
+        // Given
+        when(lagMonitor.isWithinStaleness()).thenReturn(true);
+
+        // When & Then
+        assertEquals(ReplicaRoutingDataSource.Target.REPLICA, routingDataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    void shouldFallBackToPrimaryWhenReplicaIsStale() {
+        // Given
+        when(lagMonitor.isWithinStaleness()).thenReturn(false);
+
+        // When & Then
+        assertEquals(ReplicaRoutingDataSource.Target.PRIMARY, routingDataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    void shouldKeepClientOnPrimaryForTheWindowAfterItsWrite() throws Exception {
+        // Given a write, which hands the client a cookie
+        MockHttpServletResponse writeResponse = new MockHttpServletResponse();
+        AtomicReference<Object> duringWrite = new AtomicReference<>();
+        filter.doFilter(new MockHttpServletRequest("POST", "/orders"), writeResponse,
+                (request, response) -> duringWrite.set(routingDataSource.determineCurrentLookupKey()));
+        Cookie cookie = writeResponse.getCookie(ReadYourWritesFilter.COOKIE_NAME);
+        assertNotNull(cookie);
+
+        // When the client reads inside the window, and again after it
+        AtomicReference<Object> insideWindow = new AtomicReference<>();
+        MockHttpServletRequest read = new MockHttpServletRequest("GET", "/orders/1");
+        read.setCookies(cookie);
+        now += 4_000;
+        filter.doFilter(read, new MockHttpServletResponse(),
+                (request, response) -> insideWindow.set(routingDataSource.determineCurrentLookupKey()));
+
+        when(lagMonitor.isWithinStaleness()).thenReturn(true);
+        AtomicReference<Object> afterWindow = new AtomicReference<>();
+        MockHttpServletRequest laterRead = new MockHttpServletRequest("GET", "/orders/1");
+        laterRead.setCookies(cookie);
+        now += 2_000;
+        filter.doFilter(laterRead, new MockHttpServletResponse(),
+                (request, response) -> afterWindow.set(routingDataSource.determineCurrentLookupKey()));
+
+        // Then
+        assertEquals(ReplicaRoutingDataSource.Target.PRIMARY, duringWrite.get());
+        assertEquals(ReplicaRoutingDataSource.Target.PRIMARY, insideWindow.get());
+        assertEquals(ReplicaRoutingDataSource.Target.REPLICA, afterWindow.get());
+        assertFalse(ReadYourWritesFilter.isPinnedToPrimary());
+    }
+}
@@ -0,0 +1,64 @@
+package com.swann.common.datasource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+
+import javax.sql.DataSource;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class WorkloadRoutingDataSourceTest {
+
+    private WorkloadRoutingDataSource writeRouter;
+    private WorkloadRoutingDataSource readRouter;
+
+    @BeforeEach
+    void setUp() {
+        Map<WorkloadType, DataSource> pools = new EnumMap<>(WorkloadType.class);
+        for (WorkloadType workload : WorkloadType.values()) {
+            pools.put(workload, mock(DataSource.class));
+        }
+        writeRouter = new WorkloadRoutingDataSource(pools, false);
+        readRouter = new WorkloadRoutingDataSource(pools, true);
+    }
+
+    @Test
+    void shouldSplitUnclassifiedWorkByTransactionReadOnlyFlag() {
+        assertEquals(WorkloadType.WRITE, writeRouter.determineCurrentLookupKey());
+        assertEquals(WorkloadType.INTERACTIVE, readRouter.determineCurrentLookupKey());
+    }
+
+    @Test
+    void shouldKeepAnnotatedWorkOnItsOwnPoolAndRestoreAfterwards() {
+        // Given
+        ProxyFactory factory = new ProxyFactory(new Jobs());
+        factory.addAdvice(new WorkloadInterceptor());
+        Jobs jobs = (Jobs) factory.getProxy();
+
+        // When
+        Object[] duringBatch = jobs.batch(readRouter, writeRouter);
+        Object[] duringConsumer = jobs.consume(readRouter, writeRouter);
+
+        // Then
+        assertArrayEquals(new Object[]{WorkloadType.BATCH, WorkloadType.BATCH}, duringBatch);
+        assertArrayEquals(new Object[]{WorkloadType.CONSUMER, WorkloadType.CONSUMER}, duringConsumer);
+        assertNull(WorkloadContext.current());
+    }
+
+    @Workload(WorkloadType.CONSUMER)
+    static class Jobs {
+
+        @Workload(WorkloadType.BATCH)
+        public Object[] batch(WorkloadRoutingDataSource read, WorkloadRoutingDataSource write) {
+            return new Object[]{read.determineCurrentLookupKey(), write.determineCurrentLookupKey()};
+        }
+
+        public Object[] consume(WorkloadRoutingDataSource read, WorkloadRoutingDataSource write) {
+            return new Object[]{read.determineCurrentLookupKey(), write.determineCurrentLookupKey()};
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.swann.common.kafka;
+
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaAdmin;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TopicPartitionFinderTest {
+
+    @Test
+    void partitions_ShouldCreateDeclaredTopicsAndListEveryPartition() {
+        // Given
+        KafkaAdmin kafkaAdmin = mock(KafkaAdmin.class);
+        List<TopicPartitionInfo> partitions = IntStream.range(0, 3)
+                .mapToObj(partition -> new TopicPartitionInfo(partition, null, List.of(), List.of()))
+                .toList();
+        when(kafkaAdmin.describeTopics("order-created"))
+                .thenReturn(Map.of("order-created", new TopicDescription("order-created", false, partitions)));
+
+        // When
+        String[] found = new TopicPartitionFinder(kafkaAdmin).partitions("order-created");
+
+        // Then
+        assertArrayEquals(new String[]{"0", "1", "2"}, found);
+        verify(kafkaAdmin).initialize();
+    }
+}
@@ -0,0 +1,166 @@
+package com.swann.common.partition;
+
+import org.flywaydb.core.api.migration.Context;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Testcontainers
+class PartitionManagerTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>(DockerImageName.parse("postgres:latest"));
+
+    private static final PartitionedTable ORDERS =
+            new PartitionedTable("orders", "created_at", List.of("order_id", "created_at"), List.of());
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private PartitionManager partitionManager;
+    private LocalDate nextMonth;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        partitionManager = new PartitionManager(jdbcTemplate);
+        nextMonth = YearMonth.now().plusMonths(1).atDay(1);
+
+        jdbcTemplate.execute("DROP SCHEMA IF EXISTS archive CASCADE");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS orders CASCADE");
+        jdbcTemplate.execute("CREATE TABLE orders (order_id uuid PRIMARY KEY, customer_id uuid NOT NULL,"
+                + " created_at timestamp(6) NOT NULL)");
+        jdbcTemplate.execute("CREATE INDEX idx_orders_customer_id ON orders (customer_id)");
+        insertOrder(YearMonth.now().minusMonths(14).atDay(3));
+        insertOrder(YearMonth.now().atDay(1));
+    }
+
+    @Test
+    void convert_ShouldKeepExistingRowsAsOnePartition() {
+        // When
+        boolean converted = inTransaction(() -> partitionManager.convert(ORDERS, nextMonth));
+        boolean convertedAgain = inTransaction(() -> partitionManager.convert(ORDERS, nextMonth));
+
+        // Then
+        assertTrue(converted);
+        assertFalse(convertedAgain);
+        assertEquals("p", jdbcTemplate.queryForObject("SELECT relkind::text FROM pg_class WHERE oid = 'orders'::regclass", String.class));
+        assertEquals(2, count("SELECT count(*) FROM orders"));
+        assertEquals(1, count("SELECT count(*) FROM pg_indexes WHERE tablename = 'orders' AND indexname = 'idx_orders_customer_id'"));
+        assertEquals(List.of(new PartitionManager.Partition("orders_legacy", nextMonth)), partitionManager.partitions(ORDERS));
+    }
+
+    @Test
+    void createPartitions_ShouldContinueAfterTheLastPartitionAndReceiveNewRows() {
+        // Given
+        inTransaction(() -> partitionManager.convert(ORDERS, nextMonth));
+
+        // When
+        List<String> created = inTransaction(() -> partitionManager.createPartitions(ORDERS, nextMonth, nextMonth.plusMonths(2)));
+        List<String> createdAgain = inTransaction(() -> partitionManager.createPartitions(ORDERS, nextMonth, nextMonth.plusMonths(2)));
+        insertOrder(nextMonth.plusMonths(1).plusDays(4));
+
+        // Then
+        assertEquals(3, created.size());
+        assertTrue(createdAgain.isEmpty());
+        String partition = created.get(1);
+        assertEquals(1, count("SELECT count(*) FROM orders WHERE tableoid = '" + partition + "'::regclass"));
+        String plan = String.join("\n", jdbcTemplate.queryForList(
+                "EXPLAIN SELECT * FROM orders WHERE created_at >= '" + nextMonth.plusMonths(1) + "'", String.class));
+        assertTrue(plan.contains(partition));
+        assertFalse(plan.contains("orders_legacy"), plan);
+    }
+
+    @Test
+    void archivePartitions_ShouldDetachOldPartitionsIntoArchiveSchema() {
+        // Given
+        inTransaction(() -> partitionManager.convert(ORDERS, nextMonth));
+        inTransaction(() -> partitionManager.createPartitions(ORDERS, nextMonth, nextMonth));
+
+        // When
+        List<String> archived = inTransaction(() -> partitionManager.archivePartitions(ORDERS, nextMonth, ""));
+
+        // Then
+        assertEquals(List.of("archive.orders_legacy"), archived);
+        assertEquals(0, count("SELECT count(*) FROM orders"));
+        assertEquals(2, count("SELECT count(*) FROM archive.orders_legacy"));
+        assertEquals(0, count("SELECT count(*) FROM pg_indexes WHERE schemaname = 'archive' AND indexname LIKE 'idx_%'"));
+        assertEquals(1, partitionManager.partitions(ORDERS).size());
+    }
+
+    @Test
+    void monthlyPartitionMigration_ShouldConvertAndCreateNextMonth() throws Exception {
+        // Given
+        MonthlyPartitionMigration migration = new MonthlyPartitionMigration(List.of(ORDERS)) {
+        };
+        Context context = mock(Context.class);
+
+        // When
+        try (Connection connection = jdbcTemplate.getDataSource().getConnection()) {
+            when(context.getConnection()).thenReturn(connection);
+            migration.migrate(context);
+        }
+
+        // Then
+        assertEquals(List.of("orders_legacy", "orders_p" + nextMonth.format(DateTimeFormatter.ofPattern("yyyyMM"))),
+                partitionManager.partitions(ORDERS).stream().map(PartitionManager.Partition::name).sorted().toList());
+        assertEquals(2, count("SELECT count(*) FROM orders"));
+    }
+
+    @Test
+    void tryLock_ShouldAdmitOneTransactionAtATime() {
+        // When
+        boolean[] secondGotLock = new boolean[1];
+        boolean firstGotLock = inTransaction(() -> {
+            boolean acquired = partitionManager.tryLock();
+            Thread other = new Thread(() -> secondGotLock[0] = inTransaction(partitionManager::tryLock));
+            other.start();
+            try {
+                other.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return acquired;
+        });
+
+        // Then
+        assertTrue(firstGotLock);
+        assertFalse(secondGotLock[0]);
+        assertTrue(inTransaction(partitionManager::tryLock));
+    }
+
+    private <T> T inTransaction(Supplier<T> action) {
+        return transactionTemplate.execute(status -> action.get());
+    }
+
+    private void insertOrder(LocalDate createdAt) {
+        jdbcTemplate.update("INSERT INTO orders (order_id, customer_id, created_at) VALUES (?, ?, ?)",
+                UUID.randomUUID(), UUID.randomUUID(), Timestamp.valueOf(createdAt.atStartOfDay()));
+    }
+
+    private int count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Integer.class);
+    }
+}
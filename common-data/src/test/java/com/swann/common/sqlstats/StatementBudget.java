@@ -0,0 +1,41 @@
+package com.swann.common.sqlstats;
+
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Fails a test when an action runs more statements than its budget, listing
+ * what ran. Needs the application's data source, so use it in tests that
+ * start the context.
+ */
+public final class StatementBudget {
+
+    private StatementBudget() {
+    }
+
+    public static <T> T assertAtMost(int budget, Supplier<T> action) {
+        StatementTrace trace = StatementTrace.start();
+        T result;
+        try {
+            result = action.get();
+        } finally {
+            trace.stop();
+        }
+        if (trace.getCount() > budget) {
+            fail("Expected at most " + budget + " statement(s) but ran " + trace.getCount() + ":\n"
+                    + trace.getCounts().entrySet().stream()
+                    .map(entry -> entry.getValue() + " x " + entry.getKey())
+                    .collect(Collectors.joining("\n")));
+        }
+        return result;
+    }
+
+    public static void assertAtMost(int budget, Runnable action) {
+        assertAtMost(budget, () -> {
+            action.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,32 @@
+package com.swann.common.sqlstats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class StatementStatisticsAutoConfigurationTest {
+
+    private final WebApplicationContextRunner contextRunner = new WebApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(StatementStatisticsAutoConfiguration.class))
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+            .withBean("dataSource", DataSource.class, () -> mock(DataSource.class))
+            .withBean("otherDataSource", DataSource.class, () -> mock(DataSource.class));
+
+    @Test
+    void shouldInstrumentThePrimaryDataSourceOnly() {
+        contextRunner.run(context -> {
+            // Then
+            assertInstanceOf(InstrumentedDataSource.class, context.getBean("dataSource"));
+            assertFalse(context.getBean("otherDataSource") instanceof InstrumentedDataSource);
+            assertNotNull(context.getBean(StatementStatisticsEndpoint.class));
+            assertNotNull(context.getBean(StatementTraceFilter.class));
+        });
+    }
+}
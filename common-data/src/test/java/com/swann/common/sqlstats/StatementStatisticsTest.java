@@ -0,0 +1,97 @@
+package com.swann.common.sqlstats;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatementStatisticsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private StatementStatistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        statistics = new StatementStatistics(meterRegistry, 3, 3);
+    }
+
+    @Test
+    void normalize_ShouldFoldLiteralsInListsAndValueRows() {
+        // When
+        String inList = StatementStatistics.normalize("select o1_0.order_id from orders_p202401 o1_0\n  where o1_0.status = 'PAID' and o1_0.order_id in (?, ?, ?) limit 10");
+        String shorterInList = StatementStatistics.normalize("select o1_0.order_id from orders_p202401 o1_0 where o1_0.status = 'FAILED' and o1_0.order_id in (?, ?) limit 20");
+        String values = StatementStatistics.normalize("update orders set status = v.status from (values (CAST(? AS uuid), ?), (CAST(? AS uuid), ?)) v(order_id, status)");
+
+        // Then
+        assertEquals("select o1_0.order_id from orders_p202401 o1_0 where o1_0.status = ? and o1_0.order_id in (?, ...) limit ?", inList);
+        assertEquals(inList, shorterInList);
+        assertEquals("update orders set status = v.status from (values (CAST(? AS uuid), ?), ...) v(order_id, status)", values);
+    }
+
+    @Test
+    void record_ShouldTimeEachShapeAndFoldExtraShapesIntoOther() {
+        // When
+        statistics.record("select * from orders where order_id = ?", 1_000_000);
+        statistics.record("select * from orders where order_id = ?", 3_000_000);
+        statistics.record("select * from order_items where order_id = ?", 1_000_000);
+        statistics.record("select * from order_views where order_id = ?", 1_000_000);
+        statistics.record("select * from order_idempotency_keys where customer_id = ?", 1_000_000);
+        statistics.record("select * from order_status_updates where order_id = ?", 1_000_000);
+
+        // Then
+        assertEquals(4, statistics.getQueries().size());
+        StatementStatistics.Query orders = statistics.getQueries().stream()
+                .filter(query -> query.sql().equals("select * from orders where order_id = ?"))
+                .findFirst().orElseThrow();
+        assertEquals(2, orders.timer().count());
+        assertEquals("select", orders.timer().getId().getTag("operation"));
+        assertEquals(2, meterRegistry.get("db.statements").tag("query", StatementStatistics.OTHER).timer().count());
+    }
+
+    @Test
+    void recordRequest_WhenStatementRepeats_ShouldReportLikelyNPlusOne() {
+        // Given
+        StatementTrace trace = StatementTrace.start();
+        try {
+            statistics.record("select * from orders where customer_id = ?", 1_000);
+            for (int i = 0; i < 3; i++) {
+                statistics.record("select * from order_items where order_id = '" + i + "'", 1_000);
+            }
+        } finally {
+            trace.stop();
+        }
+
+        // When
+        statistics.recordRequest("GET", "/orders/customer/{customerId}", trace);
+
+        // Then
+        assertEquals(4, trace.getCount());
+        assertEquals(4.0, meterRegistry.get("db.request.statements").tag("uri", "/orders/customer/{customerId}").summary().totalAmount());
+        assertEquals(1, statistics.getRecentRepeats().size());
+        StatementStatistics.RepeatedStatement repeat = statistics.getRecentRepeats().get(0);
+        assertEquals("select * from order_items where order_id = ?", repeat.sql());
+        assertEquals(3, repeat.count());
+        assertEquals(1.0, meterRegistry.get("db.repeated.statements").tag("query", repeat.queryId()).counter().count());
+    }
+
+    @Test
+    void trace_WhenNested_ShouldCountTowardsEnclosingTrace() {
+        // Given
+        StatementTrace outer = StatementTrace.start();
+        StatementTrace inner = StatementTrace.start();
+
+        // When
+        statistics.record("select 1", 1_000);
+        inner.stop();
+        statistics.record("select 2", 1_000);
+        outer.stop();
+        statistics.record("select 3", 1_000);
+
+        // Then
+        assertEquals(1, inner.getCount());
+        assertEquals(2, outer.getCount());
+        assertNull(StatementTrace.current());
+    }
+}
@@ -0,0 +1,15 @@
+#!/bin/sh
+# Local stand-in read replica: clones the primary once, then follows it as a hot standby
+set -e
+
+if [ ! -s "$PGDATA/PG_VERSION" ]; then
+    until PGPASSWORD="$REPLICATION_PASSWORD" pg_basebackup -h "$PRIMARY_HOST" -U "$REPLICATION_USER" \
+            -D "$PGDATA" -Fp -Xs -R; do
+        echo "Waiting for primary $PRIMARY_HOST"
+        rm -rf "${PGDATA:?}"/*
+        sleep 2
+    done
+    chmod 0700 "$PGDATA"
+fi
+
+exec postgres -c hot_standby=on
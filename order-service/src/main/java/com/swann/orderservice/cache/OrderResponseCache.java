@@ -0,0 +1,156 @@
+package com.swann.orderservice.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.swann.orderservice.dto.OrderResponse;
+import com.swann.orderservice.event.OrderStatusChangedEvent;
+import com.swann.orderservice.model.OrderStatus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Serialized JSON of orders in a final status, which never change once
+ * written. Responses are cached as bytes together with a strong ETag derived
+ * from the order ID and updatedAt, so a hit needs neither the database nor
+ * Jackson. Memory is bounded by the total size of the cached bodies.
+ * Local status changes evict entries after commit; the TTL bounds how long
+ * another instance's change can go unseen.
+ */
+@Component
+public class OrderResponseCache implements MeterBinder {
+
+    // Rough per-entry overhead of the key, entry record and ETag string
+    private static final int ENTRY_OVERHEAD_BYTES = 160;
+
+    private final ObjectMapper objectMapper;
+    private final Cache<UUID, CachedOrderResponse> cache;
+
+    @Autowired
+    public OrderResponseCache(ObjectMapper objectMapper,
+                              @Value("${order.response-cache.maximum-bytes:67108864}") long maximumBytes,
+                              @Value("${order.response-cache.ttl-ms:600000}") long ttlMillis) {
+        this(objectMapper, maximumBytes, Duration.ofMillis(ttlMillis));
+    }
+
+    public OrderResponseCache(ObjectMapper objectMapper, long maximumBytes, Duration ttl) {
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumBytes)
+                .weigher((UUID orderId, CachedOrderResponse entry) -> entry.body().length + ENTRY_OVERHEAD_BYTES)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Get the cached response of an order
+     *
+     * @param orderId the order ID
+     * @return the serialized response, or empty if not cached
+     */
+    public Optional<CachedOrderResponse> get(UUID orderId) {
+        return Optional.ofNullable(cache.getIfPresent(orderId));
+    }
+
+    /**
+     * Serialize a response, caching the bytes when the order can no longer change
+     *
+     * @param response the order response
+     * @return the serialized response with its ETag
+     */
+    public CachedOrderResponse serialize(OrderResponse response) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(response);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        CachedOrderResponse entry = new CachedOrderResponse(response.getUpdatedAt(), etag(response, body), body);
+        if (OrderStatus.isFinal(response.getStatus())) {
+            // Never replace a newer version that another request cached meanwhile
+            cache.asMap().merge(response.getOrderId(), entry,
+                    (current, candidate) -> candidate.isNewerThan(current) ? candidate : current);
+        }
+        return entry;
+    }
+
+    /**
+     * Drop the cached responses of orders whose status changed
+     *
+     * @param event the committed status change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        cache.invalidateAll(event.getOrderIds());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "orderResponse");
+        Gauge.builder("order.response-cache.bytes", cache,
+                        c -> c.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L))
+                .description("Weighted size of the cached order responses")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    private static String etag(OrderResponse response, byte[] body) {
+        LocalDateTime updatedAt = response.getUpdatedAt();
+        String version = updatedAt != null
+                ? Long.toHexString(ChronoUnit.MICROS.between(LocalDateTime.of(1970, 1, 1, 0, 0), updatedAt))
+                : Integer.toHexString(Arrays.hashCode(body));
+        return "\"" + response.getOrderId() + "-" + version + "\"";
+    }
+
+    /**
+     * Serialized order response
+     *
+     * @param updatedAt the order's updatedAt, used as its version
+     * @param etag strong entity tag, already quoted
+     * @param body the JSON bytes
+     */
+    public record CachedOrderResponse(LocalDateTime updatedAt, String etag, byte[] body) {
+
+        boolean isNewerThan(CachedOrderResponse other) {
+            return other.updatedAt == null || (updatedAt != null && updatedAt.isAfter(other.updatedAt));
+        }
+
+        /**
+         * Whether an If-None-Match header matches this response
+         *
+         * @param ifNoneMatch the header value, may be null
+         * @return true if the client already has this representation
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.swann.orderservice.config;
+
+import com.swann.common.datasource.ReadYourWritesFilter;
+import com.swann.common.datasource.ReplicaLagMonitor;
+import com.swann.common.datasource.ReplicaRoutingDataSource;
+import com.swann.common.datasource.Workload;
+import com.swann.common.datasource.WorkloadInterceptor;
+import com.swann.common.datasource.WorkloadPools;
+import com.swann.common.datasource.WorkloadRoutingDataSource;
+import com.swann.common.datasource.WorkloadType;
+import com.swann.orderservice.sharding.OrderShards;
+import com.swann.orderservice.sharding.ShardRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Role;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Connection pools per workload on the primary of each shard, plus an optional
+ * read replica. With order.sharding.urls unset there is one shard at
+ * spring.datasource.url. Statements go to the shard chosen for the thread (see
+ * {@link OrderShards}). Read-only transactions go to the interactive pool, or
+ * to the replica when order.datasource.replica.url is set; writes to the write
+ * pool; code marked {@link Workload} to its own pool. The lazy proxy defers
+ * fetching a connection until the first statement, by which time the
+ * transaction has marked it read-only.
+ */
+@Configuration
+@EnableScheduling
+public class DataSourceConfig {
+
+    @Bean
+    public OrderShards orderShards(@Value("${order.sharding.urls:}") List<String> shardUrls) {
+        return new OrderShards(Math.max(1, shardUrls.size()));
+    }
+
+    @Bean
+    public WorkloadPools workloadPools(DataSourceProperties properties,
+                                       ObjectProvider<JdbcConnectionDetails> connectionDetails,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${order.sharding.urls:}") List<String> shardUrls,
+                                       @Value("${spring.datasource.hikari.connection-timeout:30000}") long connectionTimeoutMillis,
+                                       @Value("${order.datasource.pools.interactive:4}") int interactiveSize,
+                                       @Value("${order.datasource.pools.write:3}") int writeSize,
+                                       @Value("${order.datasource.pools.consumer:2}") int consumerSize,
+                                       @Value("${order.datasource.pools.batch:1}") int batchSize) {
+        // Connection details from a service connection (e.g. Testcontainers) win over spring.datasource
+        JdbcConnectionDetails details = connectionDetails.getIfAvailable();
+        List<String> urls = !shardUrls.isEmpty() ? shardUrls
+                : List.of(details != null ? details.getJdbcUrl() : properties.determineUrl());
+        Map<WorkloadType, Integer> sizes = Map.of(WorkloadType.INTERACTIVE, interactiveSize, WorkloadType.WRITE, writeSize,
+                WorkloadType.CONSUMER, consumerSize, WorkloadType.BATCH, batchSize);
+        return WorkloadPools.create(urls,
+                details != null ? details.getUsername() : properties.determineUsername(),
+                details != null ? details.getPassword() : properties.determinePassword(),
+                connectionTimeoutMillis, sizes, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "order.datasource.replica", name = "url")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Value("${order.datasource.replica.url}") String url,
+                                              @Value("${order.datasource.replica.maximum-pool-size:5}") int maximumPoolSize) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(properties.determineUsername());
+        dataSource.setPassword(properties.determinePassword());
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        dataSource.setConnectionTimeout(Duration.ofSeconds(5).toMillis());
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "order.datasource.replica", name = "url")
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                               @Value("${order.datasource.replica.max-staleness-ms:2000}") long maxStalenessMillis,
+                                               @Value("${order.datasource.replica.lag-check-interval-ms:1000}") long checkIntervalMillis,
+                                               MeterRegistry meterRegistry) {
+        return new ReplicaLagMonitor(replicaDataSource, Duration.ofMillis(maxStalenessMillis),
+                Duration.ofMillis(checkIntervalMillis), "order", meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(WorkloadPools workloadPools,
+                                 @Qualifier("replicaDataSource") ObjectProvider<DataSource> replicaDataSource,
+                                 ObjectProvider<ReplicaLagMonitor> replicaLagMonitor,
+                                 MeterRegistry meterRegistry) {
+        ReplicaLagMonitor lagMonitor = replicaLagMonitor.getIfAvailable();
+        if (lagMonitor != null && workloadPools.getShardCount() > 1) {
+            throw new IllegalStateException("order.datasource.replica.url cannot be combined with order.sharding.urls");
+        }
+        List<DataSource> writeTargets = new ArrayList<>();
+        List<DataSource> readTargets = new ArrayList<>();
+        for (int shard = 0; shard < workloadPools.getShardCount(); shard++) {
+            Map<WorkloadType, DataSource> readPools = new EnumMap<>(workloadPools.asMap(shard));
+            if (lagMonitor != null) {
+                // The interactive pool stays the fallback while the replica is stale
+                readPools.put(WorkloadType.INTERACTIVE, new ReplicaRoutingDataSource(
+                        workloadPools.get(shard, WorkloadType.INTERACTIVE), replicaDataSource.getObject(), lagMonitor, "order", meterRegistry));
+            }
+            writeTargets.add(new WorkloadRoutingDataSource(workloadPools.asMap(shard), false));
+            readTargets.add(new WorkloadRoutingDataSource(readPools, true));
+        }
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(writeTargets));
+        dataSource.setReadOnlyDataSource(new ShardRoutingDataSource(readTargets));
+        return dataSource;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "order.datasource.replica", name = "url")
+    public ReadYourWritesFilter readYourWritesFilter(@Value("${order.datasource.replica.read-your-writes-ms:5000}") long windowMillis) {
+        return new ReadYourWritesFilter(Duration.ofMillis(windowMillis));
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor workloadAdvisor() {
+        return WorkloadInterceptor.advisor();
+    }
+}
@@ -0,0 +1,42 @@
+package com.swann.orderservice.config;
+
+import com.swann.orderservice.deadline.DeadlineInterceptor;
+import com.swann.orderservice.deadline.DeadlineTransactionManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+/**
+ * Request deadlines for the order API (see {@link DeadlineInterceptor}),
+ * enforced on transactions by {@link DeadlineTransactionManager}, which
+ * replaces Spring Boot's JpaTransactionManager.
+ */
+@Configuration
+public class DeadlineConfig implements WebMvcConfigurer {
+
+    @Value("${order.deadline.default-ms:5000}")
+    private long defaultTimeoutMillis;
+
+    @Value("${order.deadline.max-ms:30000}")
+    private long maxTimeoutMillis;
+
+    @Bean
+    public PlatformTransactionManager transactionManager(ObjectProvider<TransactionManagerCustomizers> customizers) {
+        DeadlineTransactionManager transactionManager = new DeadlineTransactionManager();
+        customizers.ifAvailable(c -> c.customize(transactionManager));
+        return transactionManager;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new DeadlineInterceptor(Duration.ofMillis(defaultTimeoutMillis), Duration.ofMillis(maxTimeoutMillis)))
+                .addPathPatterns("/orders/**");
+    }
+}
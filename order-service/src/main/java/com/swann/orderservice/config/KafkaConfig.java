@@ -1,15 +1,27 @@
 package com.swann.orderservice.config;
 
+import com.swann.common.kafka.TopicPartitionFinder;
+import com.swann.orderservice.event.PaymentProcessedEvent;
+import com.swann.orderservice.event.SummaryHeadersProducerInterceptor;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.HashMap;
@@ -22,21 +34,37 @@ public class KafkaConfig {
     private String bootstrapServers;
 
     public static final String ORDER_CREATED_TOPIC = "order-created";
+    public static final String PAYMENT_PROCESSED_TOPIC = "payment-processed";
+
+    @Value("${order.projection.max-poll-records:500}")
+    private int maxPollRecords;
+
+    @Value("${order.deadline.kafka-max-block-ms:5000}")
+    private long maxBlockMillis;
 
     @Bean
     public NewTopic orderCreatedTopic() {
+        // Keyed by order ID, so per-order ordering holds; partitions cap payment-service consumer threads
         return TopicBuilder.name(ORDER_CREATED_TOPIC)
-                .partitions(1)
+                .partitions(6)
                 .replicas(1)
                 .build();
     }
 
+    @Bean
+    public TopicPartitionFinder topicPartitionFinder(KafkaAdmin kafkaAdmin) {
+        return new TopicPartitionFinder(kafkaAdmin);
+    }
+
     @Bean
     public ProducerFactory<String, Object> producerFactory() {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
         configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        configProps.put(ProducerConfig.INTERCEPTOR_CLASSES_CONFIG, SummaryHeadersProducerInterceptor.class.getName());
+        // send() blocks the request thread while metadata or buffer space is missing; the default is a minute
+        configProps.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, maxBlockMillis);
         return new DefaultKafkaProducerFactory<>(configProps);
     }
 
@@ -44,4 +72,45 @@ public class KafkaConfig {
     public KafkaTemplate<String, Object> kafkaTemplate() {
         return new KafkaTemplate<>(producerFactory());
     }
-}
\ No newline at end of file
+
+    @Bean
+    public ConsumerFactory<String, PaymentProcessedEvent> paymentEventConsumerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, "order-service-group");
+        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        configProps.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class);
+        // The producer's type header names a payment-service class; always bind to ours
+        configProps.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
+        configProps.put(JsonDeserializer.VALUE_DEFAULT_TYPE, PaymentProcessedEvent.class.getName());
+        return new DefaultKafkaConsumerFactory<>(configProps);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, PaymentProcessedEvent> batchListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, PaymentProcessedEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(paymentEventConsumerFactory());
+        factory.setBatchListener(true);
+        return factory;
+    }
+
+    /**
+     * For the order ID filter, which reads only the key of order-created
+     * records. Its consumers have no group.id, so with partitions assigned
+     * explicitly the container commits nothing. The consumer factory is not a
+     * bean, so the payment event consumer factory stays the only one.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> orderIdListenerContainerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(configProps));
+        return factory;
+    }
+}
@@ -0,0 +1,30 @@
+package com.swann.orderservice.config;
+
+import com.swann.orderservice.ratelimit.CustomerRateLimitInterceptor;
+import com.swann.orderservice.ratelimit.CustomerRateLimiter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Per-customer request rate limits on the order API (see
+ * {@link CustomerRateLimiter}). They run first, so a customer over the limit
+ * costs neither a deadline nor a database connection.
+ */
+@Configuration
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "order.rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitConfig implements WebMvcConfigurer {
+
+    private final CustomerRateLimiter rateLimiter;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new CustomerRateLimitInterceptor(rateLimiter))
+                .addPathPatterns("/orders/**")
+                .order(Ordered.HIGHEST_PRECEDENCE);
+    }
+}
@@ -0,0 +1,58 @@
+package com.swann.orderservice.consumer;
+
+import com.swann.orderservice.config.KafkaConfig;
+import com.swann.orderservice.lookup.OrderIdFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Adds orders created by other instances to this instance's
+ * {@link OrderIdFilter}. The listener is assigned every partition directly,
+ * without a consumer group, so each instance sees every order and nothing is
+ * committed. Only the record key, the order ID, is read.
+ * Each partition is first read from a little before this instance started
+ * rather than from its end: an order created after the startup scan read its
+ * shard, but before the partition was assigned, would otherwise never reach
+ * the filter.
+ */
+@Component
+@Slf4j
+public class OrderCreatedEventConsumer implements ConsumerSeekAware {
+
+    private final OrderIdFilter orderIdFilter;
+    private final long replayFromMillis;
+
+    public OrderCreatedEventConsumer(OrderIdFilter orderIdFilter,
+                                     @Value("${order.id-filter.replay-margin-ms:60000}") long replayMarginMillis) {
+        this.orderIdFilter = orderIdFilter;
+        // Record timestamps come from the producers' clocks; the margin covers their skew against ours
+        this.replayFromMillis = System.currentTimeMillis() - replayMarginMillis;
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        // Nothing is committed, so a restarted container would otherwise start from the end too
+        log.info("Reading order IDs on {} from {}", assignments.keySet(), replayFromMillis);
+        callback.seekToTimestamp(assignments.keySet(), replayFromMillis);
+    }
+
+    @KafkaListener(topicPartitions = @org.springframework.kafka.annotation.TopicPartition(
+            topic = KafkaConfig.ORDER_CREATED_TOPIC,
+            partitions = "#{@topicPartitionFinder.partitions('" + KafkaConfig.ORDER_CREATED_TOPIC + "')}"),
+            containerFactory = "orderIdListenerContainerFactory")
+    public void handleOrderCreated(ConsumerRecord<String, byte[]> record) {
+        try {
+            orderIdFilter.add(UUID.fromString(record.key()));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            log.warn("Ignoring order created record without an order ID key at offset {}", record.offset());
+        }
+    }
+}
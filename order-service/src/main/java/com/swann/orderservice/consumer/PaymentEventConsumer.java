@@ -0,0 +1,35 @@
+package com.swann.orderservice.consumer;
+
+import com.swann.common.datasource.Workload;
+import com.swann.common.datasource.WorkloadType;
+import com.swann.orderservice.config.KafkaConfig;
+import com.swann.orderservice.event.PaymentProcessedEvent;
+import com.swann.orderservice.service.OrderStatusProjectionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Objects;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@Workload(WorkloadType.CONSUMER)
+public class PaymentEventConsumer {
+
+    private final OrderStatusProjectionService orderStatusProjectionService;
+
+    @KafkaListener(id = "paymentProcessedListener", topics = KafkaConfig.PAYMENT_PROCESSED_TOPIC,
+            groupId = "order-service-group", containerFactory = "batchListenerContainerFactory")
+    public void handlePaymentProcessedEvents(List<PaymentProcessedEvent> events) {
+        // Records that failed to deserialize arrive as null and are skipped
+        List<PaymentProcessedEvent> valid = events.stream().filter(Objects::nonNull).toList();
+        if (valid.size() < events.size()) {
+            log.warn("Skipping {} undecodable payment processed record(s)", events.size() - valid.size());
+        }
+        log.debug("Received {} payment processed event(s)", valid.size());
+        orderStatusProjectionService.applyPaymentOutcomes(valid);
+    }
+}
@@ -1,10 +1,22 @@
 package com.swann.orderservice.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swann.orderservice.cache.OrderResponseCache;
+import com.swann.orderservice.cache.OrderResponseCache.CachedOrderResponse;
+import com.swann.orderservice.deadline.RequestTimeout;
+import com.swann.orderservice.dto.BulkOrderLookupRequest;
+import com.swann.orderservice.dto.BulkOrderResponse;
 import com.swann.orderservice.dto.CreateOrderRequest;
 import com.swann.orderservice.dto.OrderResponse;
+import com.swann.orderservice.idempotency.IdempotencyKeyMismatchException;
+import com.swann.orderservice.idempotency.RequestInProgressException;
+import com.swann.orderservice.lookup.OrderIdFilter;
 import com.swann.orderservice.service.OrderService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -12,11 +24,25 @@ import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @RestController
@@ -26,33 +52,81 @@ import java.util.UUID;
 @Tag(name = "Order Management", description = "APIs for managing orders in the e-commerce system")
 public class OrderController {
 
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+    static final int MAX_PRODUCT_ORDERS = 1000;
+
     private final OrderService orderService;
+    private final OrderResponseCache orderResponseCache;
+    private final OrderIdFilter orderIdFilter;
+    private final ObjectMapper objectMapper;
+
+    @Value("${order.bulk-lookup.stream-threshold:200}")
+    private int bulkLookupStreamThreshold;
 
-    @Operation(summary = "Create a new order", description = "Creates a new order for a customer with the specified items")
+    @Operation(summary = "Create a new order", description = "Creates a new order for a customer with the specified items. "
+            + "Requests repeated with the same Idempotency-Key return the original order instead of creating another.")
     @ApiResponses(value = {
-        @ApiResponse(responseCode = "201", description = "Order created successfully"),
+        @ApiResponse(responseCode = "201", description = "Order created successfully, or the order created earlier with the same key"),
         @ApiResponse(responseCode = "400", description = "Invalid request data"),
-        @ApiResponse(responseCode = "500", description = "Internal server error")
+        @ApiResponse(responseCode = "409", description = "A request with the same Idempotency-Key is still in progress"),
+        @ApiResponse(responseCode = "422", description = "The Idempotency-Key was already used for a different request"),
+        @ApiResponse(responseCode = "429", description = "Too many requests for the customer; retry after the Retry-After seconds"),
+        @ApiResponse(responseCode = "500", description = "Internal server error"),
+        @ApiResponse(responseCode = "504", description = "Deadline from X-Request-Timeout-Ms or the endpoint default passed")
     })
     @PostMapping
-    public ResponseEntity<OrderResponse> createOrder(@Valid @RequestBody CreateOrderRequest request) {
+    public ResponseEntity<OrderResponse> createOrder(
+            @Valid @RequestBody CreateOrderRequest request,
+            @Parameter(description = "Client-generated key that makes retries of this request safe")
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         log.info("Received request to create order for customer: {}", request.getCustomerId());
-        OrderResponse response = orderService.createOrder(request);
-        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        if (idempotencyKey == null) {
+            return ResponseEntity.status(HttpStatus.CREATED).body(orderService.createOrder(request));
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            OrderResponse response = orderService.createOrder(request, idempotencyKey);
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (RequestInProgressException e) {
+            log.warn("Request with idempotency key {} still in progress", idempotencyKey);
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IdempotencyKeyMismatchException e) {
+            log.warn("Idempotency key {} reused for a different request", idempotencyKey);
+            return ResponseEntity.unprocessableEntity().build();
+        }
     }
 
-    @Operation(summary = "Get order by ID", description = "Retrieves a specific order by its unique identifier")
+    @Operation(summary = "Get order by ID", description = "Retrieves a specific order by its unique identifier. "
+            + "Responses carry a strong ETag; send it back in If-None-Match to get 304 when the order is unchanged.")
     @ApiResponses(value = {
-        @ApiResponse(responseCode = "200", description = "Order found and returned"),
+        @ApiResponse(responseCode = "200", description = "Order found and returned",
+                content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = OrderResponse.class))),
+        @ApiResponse(responseCode = "304", description = "Order unchanged since the given ETag"),
         @ApiResponse(responseCode = "404", description = "Order not found"),
-        @ApiResponse(responseCode = "500", description = "Internal server error")
+        @ApiResponse(responseCode = "500", description = "Internal server error"),
+        @ApiResponse(responseCode = "504", description = "Deadline from X-Request-Timeout-Ms or the endpoint default passed")
     })
     @GetMapping("/{orderId}")
-    public ResponseEntity<OrderResponse> getOrderById(@Parameter(description = "Unique identifier of the order") @PathVariable UUID orderId) {
+    @RequestTimeout(millis = 2_000)
+    public ResponseEntity<byte[]> getOrderById(
+            @Parameter(description = "Unique identifier of the order") @PathVariable UUID orderId,
+            @Parameter(description = "ETag from an earlier response")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("Received request to get order with ID: {}", orderId);
+        if (!orderIdFilter.mightExist(orderId)) {
+            log.debug("Order ID not in filter: {}", orderId);
+            return ResponseEntity.notFound().build();
+        }
+        Optional<CachedOrderResponse> cached = orderResponseCache.get(orderId);
+        if (cached.isPresent()) {
+            return toResponse(cached.get(), ifNoneMatch);
+        }
         try {
             OrderResponse response = orderService.getOrderById(orderId);
-            return ResponseEntity.ok(response);
+            return toResponse(orderResponseCache.serialize(response), ifNoneMatch);
         } catch (EntityNotFoundException e) {
             log.warn("Order not found with ID: {}", orderId);
             return ResponseEntity.notFound().build();
@@ -63,9 +137,12 @@ public class OrderController {
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Orders found and returned"),
         @ApiResponse(responseCode = "404", description = "No orders found for the customer"),
-        @ApiResponse(responseCode = "500", description = "Internal server error")
+        @ApiResponse(responseCode = "429", description = "Too many requests for the customer; retry after the Retry-After seconds"),
+        @ApiResponse(responseCode = "500", description = "Internal server error"),
+        @ApiResponse(responseCode = "504", description = "Deadline from X-Request-Timeout-Ms or the endpoint default passed")
     })
     @GetMapping("/customer/{customerId}")
+    @RequestTimeout(millis = 3_000)
     public ResponseEntity<List<OrderResponse>> getOrdersByCustomerId(@Parameter(description = "Unique identifier of the customer") @PathVariable UUID customerId) {
         log.info("Received request to get orders for customer: {}", customerId);
         List<OrderResponse> orders = orderService.getOrdersByCustomerId(customerId);
@@ -77,4 +154,103 @@ public class OrderController {
         
         return ResponseEntity.ok(orders);
     }
-}
\ No newline at end of file
+
+    @Operation(summary = "Get orders containing a product", description = "Retrieves the newest orders with an item for the product, "
+            + "up to " + MAX_PRODUCT_ORDERS + " orders")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Orders found and returned, possibly none"),
+        @ApiResponse(responseCode = "500", description = "Internal server error"),
+        @ApiResponse(responseCode = "504", description = "Deadline from X-Request-Timeout-Ms or the endpoint default passed")
+    })
+    @GetMapping("/product/{productId}")
+    public ResponseEntity<List<OrderResponse>> getOrdersContainingProduct(
+            @Parameter(description = "Unique identifier of the product") @PathVariable UUID productId,
+            @Parameter(description = "Maximum number of orders to return") @RequestParam(defaultValue = "100") int limit) {
+        log.info("Received request to get orders containing product: {}", productId);
+        int boundedLimit = Math.max(1, Math.min(limit, MAX_PRODUCT_ORDERS));
+        return ResponseEntity.ok(orderService.getOrdersContainingProduct(productId, boundedLimit));
+    }
+
+    @Operation(summary = "Look up many orders by ID", description = "Resolves up to "
+            + BulkOrderLookupRequest.MAX_ORDER_IDS + " order IDs in chunked queries. Found orders are keyed by ID; "
+            + "IDs without an order are listed under missing. Large lookups are streamed as each chunk is read.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Lookup completed",
+                content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = BulkOrderResponse.class))),
+        @ApiResponse(responseCode = "400", description = "No IDs, or too many IDs"),
+        @ApiResponse(responseCode = "500", description = "Internal server error"),
+        @ApiResponse(responseCode = "504", description = "Deadline from X-Request-Timeout-Ms or the endpoint default passed")
+    })
+    @PostMapping("/lookup")
+    @RequestTimeout(millis = 10_000)
+    public ResponseEntity<StreamingResponseBody> lookupOrders(@Valid @RequestBody BulkOrderLookupRequest request) {
+        List<UUID> requested = new ArrayList<>(new LinkedHashSet<>(request.getOrderIds()));
+        log.info("Received request to look up {} order(s)", requested.size());
+        // IDs the filter rules out are misses without a query
+        List<UUID> candidates = requested.stream().filter(orderIdFilter::mightExist).toList();
+
+        // The body type is declared so Spring streams it; small lookups are read here and only written out
+        StreamingResponseBody body;
+        if (requested.size() <= bulkLookupStreamThreshold) {
+            BulkOrderResponse response = lookupAll(requested, candidates);
+            body = outputStream -> objectMapper.writeValue(outputStream, response);
+        } else {
+            body = outputStream -> writeBulkResponse(outputStream, requested, candidates);
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    private BulkOrderResponse lookupAll(List<UUID> requested, List<UUID> candidates) {
+        Map<UUID, OrderResponse> found = orderService.getOrdersByIds(candidates);
+        Map<UUID, OrderResponse> orders = new LinkedHashMap<>();
+        List<UUID> missing = new ArrayList<>();
+        for (UUID orderId : requested) {
+            OrderResponse order = found.get(orderId);
+            if (order != null) {
+                orders.put(orderId, order);
+            } else {
+                missing.add(orderId);
+            }
+        }
+        return new BulkOrderResponse(orders, missing);
+    }
+
+    private void writeBulkResponse(OutputStream outputStream, List<UUID> requested, List<UUID> candidates) throws IOException {
+        Set<UUID> found = new HashSet<>();
+        try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+            generator.writeStartObject();
+            generator.writeObjectFieldStart("orders");
+            orderService.streamOrdersByIds(candidates, chunk -> {
+                try {
+                    for (OrderResponse order : chunk) {
+                        generator.writeFieldName(order.getOrderId().toString());
+                        generator.writeObject(order);
+                        found.add(order.getOrderId());
+                    }
+                    generator.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndObject();
+            generator.writeArrayFieldStart("missing");
+            for (UUID orderId : requested) {
+                if (!found.contains(orderId)) {
+                    generator.writeString(orderId.toString());
+                }
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    private ResponseEntity<byte[]> toResponse(CachedOrderResponse response, String ifNoneMatch) {
+        if (response.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(response.etag()).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(response.etag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(response.body());
+    }
+}
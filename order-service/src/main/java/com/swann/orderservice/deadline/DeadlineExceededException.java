@@ -0,0 +1,14 @@
+package com.swann.orderservice.deadline;
+
+/**
+ * Thrown when a request's deadline passes before its work is done. The work
+ * is abandoned and any open transaction rolls back; the client has stopped
+ * waiting. Work already committed, such as an order whose event was not
+ * acknowledged in time, stays.
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
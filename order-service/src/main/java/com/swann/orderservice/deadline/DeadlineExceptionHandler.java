@@ -0,0 +1,35 @@
+package com.swann.orderservice.deadline;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Answers 504 for requests abandoned at their deadline: refused before a
+ * transaction began, timed out inside one, or cancelled mid-query.
+ */
+@RestControllerAdvice
+@Slf4j
+public class DeadlineExceptionHandler {
+
+    private final Counter exceeded;
+
+    public DeadlineExceptionHandler(MeterRegistry meterRegistry) {
+        this.exceeded = Counter.builder("order.deadline.exceeded")
+                .description("Requests abandoned because their deadline passed")
+                .register(meterRegistry);
+    }
+
+    @ExceptionHandler({DeadlineExceededException.class, TransactionTimedOutException.class, QueryTimeoutException.class})
+    public ResponseEntity<Void> deadlineExceeded(RuntimeException e) {
+        exceeded.increment();
+        log.warn("Request abandoned at its deadline: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).build();
+    }
+}
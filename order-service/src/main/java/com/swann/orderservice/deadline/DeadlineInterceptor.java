@@ -0,0 +1,68 @@
+package com.swann.orderservice.deadline;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Gives each request a deadline: the client's X-Request-Timeout-Ms, capped at
+ * order.deadline.max-ms, or else the handler's {@link RequestTimeout}, or else
+ * order.deadline.default-ms. A request arriving with no time left is refused.
+ * Work handed to another thread, such as a streamed response, has no deadline.
+ */
+@Slf4j
+public class DeadlineInterceptor implements AsyncHandlerInterceptor {
+
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout-Ms";
+
+    private final Duration defaultTimeout;
+    private final Duration maxTimeout;
+
+    public DeadlineInterceptor(Duration defaultTimeout, Duration maxTimeout) {
+        this.defaultTimeout = defaultTimeout;
+        this.maxTimeout = maxTimeout;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        long timeoutMillis = defaultTimeout.toMillis();
+        if (handler instanceof HandlerMethod method) {
+            RequestTimeout timeout = method.getMethodAnnotation(RequestTimeout.class);
+            if (timeout != null) {
+                timeoutMillis = timeout.millis();
+            }
+        }
+        String header = request.getHeader(TIMEOUT_HEADER);
+        if (header != null) {
+            try {
+                timeoutMillis = Math.min(Long.parseLong(header.trim()), maxTimeout.toMillis());
+            } catch (NumberFormatException e) {
+                response.sendError(HttpStatus.BAD_REQUEST.value(), TIMEOUT_HEADER + " must be a number of milliseconds");
+                return false;
+            }
+        }
+        if (timeoutMillis <= 0) {
+            log.debug("Refusing {} {}: no time left before its deadline", request.getMethod(), request.getRequestURI());
+            response.sendError(HttpStatus.GATEWAY_TIMEOUT.value());
+            return false;
+        }
+        RequestDeadline.start(Duration.ofMillis(timeoutMillis));
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestDeadline.clear();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        RequestDeadline.clear();
+    }
+}
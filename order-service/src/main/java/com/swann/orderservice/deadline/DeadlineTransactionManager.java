@@ -0,0 +1,32 @@
+package com.swann.orderservice.deadline;
+
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+/**
+ * Fits transactions into the request deadline. A transaction no longer
+ * starts once the deadline passed, and otherwise times out when it does:
+ * Spring and Hibernate turn the timeout into each statement's JDBC query
+ * timeout, so the driver cancels a query still running at the deadline and
+ * its connection goes back to the pool. Timeouts are whole seconds, rounded
+ * up. Transactions outside a request keep their own timeout.
+ */
+public class DeadlineTransactionManager extends JpaTransactionManager {
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        // Before an EntityManager or connection is taken
+        RequestDeadline.checkNotExpired();
+        super.doBegin(transaction, definition);
+    }
+
+    @Override
+    protected int determineTimeout(TransactionDefinition definition) {
+        int timeout = super.determineTimeout(definition);
+        if (!RequestDeadline.isActive()) {
+            return timeout;
+        }
+        int remainingSeconds = (int) Math.min(Integer.MAX_VALUE, Math.max(1, (RequestDeadline.remainingMillis() + 999) / 1000));
+        return timeout == TransactionDefinition.TIMEOUT_DEFAULT ? remainingSeconds : Math.min(timeout, remainingSeconds);
+    }
+}
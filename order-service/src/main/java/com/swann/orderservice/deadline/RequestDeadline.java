@@ -0,0 +1,77 @@
+package com.swann.orderservice.deadline;
+
+import java.time.Duration;
+
+/**
+ * Deadline of the request served on the current thread, set by
+ * {@link DeadlineInterceptor}. Code outside a request has no deadline and
+ * every check passes.
+ */
+public final class RequestDeadline {
+
+    private static final ThreadLocal<Long> DEADLINE_NANOS = new ThreadLocal<>();
+
+    private RequestDeadline() {
+    }
+
+    /**
+     * Set the deadline of the current thread's work
+     *
+     * @param timeout time from now until the deadline
+     */
+    public static void start(Duration timeout) {
+        DEADLINE_NANOS.set(System.nanoTime() + timeout.toNanos());
+    }
+
+    public static void clear() {
+        DEADLINE_NANOS.remove();
+    }
+
+    /**
+     * Whether the current thread serves a request with a deadline
+     *
+     * @return true inside a request
+     */
+    public static boolean isActive() {
+        return DEADLINE_NANOS.get() != null;
+    }
+
+    /**
+     * Get the time left before the deadline
+     *
+     * @return milliseconds left, zero or less once it passed, or Long.MAX_VALUE without a deadline
+     */
+    public static long remainingMillis() {
+        Long deadline = DEADLINE_NANOS.get();
+        if (deadline == null) {
+            return Long.MAX_VALUE;
+        }
+        return Duration.ofNanos(deadline - System.nanoTime()).toMillis();
+    }
+
+    /**
+     * Stop work whose result nobody is waiting for any more
+     *
+     * @throws DeadlineExceededException if the deadline has passed
+     */
+    public static void checkNotExpired() {
+        if (remainingMillis() <= 0) {
+            throw new DeadlineExceededException("Request deadline passed");
+        }
+    }
+
+    /**
+     * Shorten a wait so it ends by the deadline
+     *
+     * @param millis the wait wanted
+     * @return the wait, or the time left before the deadline if that is shorter
+     * @throws DeadlineExceededException if the deadline has passed
+     */
+    public static long bound(long millis) {
+        long remaining = remainingMillis();
+        if (remaining <= 0) {
+            throw new DeadlineExceededException("Request deadline passed");
+        }
+        return Math.min(millis, remaining);
+    }
+}
@@ -0,0 +1,22 @@
+package com.swann.orderservice.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderLookupRequest {
+    public static final int MAX_ORDER_IDS = 5000;
+
+    @NotEmpty
+    @Size(max = MAX_ORDER_IDS)
+    private List<@NotNull UUID> orderIds;
+}
@@ -0,0 +1,19 @@
+package com.swann.orderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderResponse {
+    // Found orders keyed by order ID
+    private Map<UUID, OrderResponse> orders;
+    // Requested IDs with no order
+    private List<UUID> missing;
+}
@@ -0,0 +1,15 @@
+package com.swann.orderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Getter
+@AllArgsConstructor
+public class OrderStatusUpdate {
+    private UUID orderId;
+    private String status;
+    private LocalDateTime eventAt;
+}
@@ -0,0 +1,19 @@
+package com.swann.orderservice.event;
+
+/**
+ * Kafka header names carrying an event's routing and summary fields, so
+ * consumers can act on them without decoding the payload. Values are UTF-8
+ * strings. Must match the names used by the consuming services.
+ */
+public final class EventHeaders {
+
+    public static final String EVENT_TYPE = "x-event-type";
+    public static final String ORDER_ID = "x-order-id";
+    public static final String CUSTOMER_ID = "x-customer-id";
+    public static final String TOTAL_AMOUNT = "x-total-amount";
+    public static final String STATUS = "x-status";
+    public static final String ITEM_COUNT = "x-item-count";
+
+    private EventHeaders() {
+    }
+}
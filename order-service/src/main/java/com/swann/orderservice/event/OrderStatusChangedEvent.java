@@ -0,0 +1,17 @@
+package com.swann.orderservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * In-process notification that the status of some orders changed. Published
+ * inside the updating transaction; caches of order views listen after commit.
+ */
+@Getter
+@AllArgsConstructor
+public class OrderStatusChangedEvent {
+    private Collection<UUID> orderIds;
+}
@@ -0,0 +1,18 @@
+package com.swann.orderservice.event;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class PaymentProcessedEvent extends BaseEvent {
+    private UUID paymentId;
+    private UUID orderId;
+    private BigDecimal amount;
+    private String status;
+}
@@ -0,0 +1,49 @@
+package com.swann.orderservice.event;
+
+import org.apache.kafka.clients.producer.ProducerInterceptor;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Copies the summary fields of outgoing order events into {@link EventHeaders}
+ * before the value is serialized, so every send path gets them.
+ */
+public class SummaryHeadersProducerInterceptor implements ProducerInterceptor<String, Object> {
+
+    @Override
+    public ProducerRecord<String, Object> onSend(ProducerRecord<String, Object> record) {
+        if (record.value() instanceof OrderCreatedEvent event) {
+            Headers headers = record.headers();
+            put(headers, EventHeaders.EVENT_TYPE, event.getEventType());
+            put(headers, EventHeaders.ORDER_ID, event.getOrderId());
+            put(headers, EventHeaders.CUSTOMER_ID, event.getCustomerId());
+            put(headers, EventHeaders.TOTAL_AMOUNT, event.getTotalAmount() == null ? null : event.getTotalAmount().toPlainString());
+            put(headers, EventHeaders.STATUS, event.getStatus());
+            put(headers, EventHeaders.ITEM_COUNT, event.getItems() == null ? 0 : event.getItems().size());
+        }
+        return record;
+    }
+
+    private static void put(Headers headers, String name, Object value) {
+        headers.remove(name);
+        if (value != null) {
+            headers.add(name, value.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Override
+    public void onAcknowledgement(RecordMetadata metadata, Exception exception) {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.swann.orderservice.idempotency;
+
+/**
+ * Thrown when an idempotency key is reused with a different request. The
+ * client must send a new request with a new key.
+ */
+public class IdempotencyKeyMismatchException extends RuntimeException {
+
+    public IdempotencyKeyMismatchException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,116 @@
+package com.swann.orderservice.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.swann.orderservice.deadline.RequestDeadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Recently seen idempotency keys of this instance and the result each one
+ * produced. The first request for a key runs; concurrent duplicates wait for
+ * it and get the same result, later ones get it straight from memory. A key
+ * reused for a different request is refused. A failed attempt is forgotten so
+ * the client can retry. The unique database column stays the source of truth
+ * across instances and restarts.
+ */
+@Component
+@Slf4j
+public class IdempotencyRegistry {
+
+    private final Cache<String, Attempt> recent;
+    private final Duration waitTimeout;
+    private final Counter replays;
+
+    public IdempotencyRegistry(MeterRegistry meterRegistry,
+                               @Value("${order.idempotency.maximum-size:100000}") long maximumSize,
+                               @Value("${order.idempotency.ttl-ms:86400000}") long ttlMillis,
+                               @Value("${order.idempotency.wait-timeout-ms:10000}") long waitTimeoutMillis) {
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .build();
+        this.waitTimeout = Duration.ofMillis(waitTimeoutMillis);
+        this.replays = Counter.builder("order.idempotency.replays").register(meterRegistry);
+    }
+
+    /**
+     * Run an action at most once per key while the key is remembered
+     *
+     * @param key the idempotency key, scoped by the caller
+     * @param action produces the result on first use of the key
+     * @return the result of the first successful run for the key
+     * @throws RequestInProgressException if the first run is still going after the wait timeout
+     * @throws com.swann.orderservice.deadline.DeadlineExceededException if the caller's deadline passes first
+     */
+    public <T> T execute(String key, Supplier<T> action) {
+        return execute(key, null, action);
+    }
+
+    /**
+     * Run an action at most once per key while the key is remembered, refusing
+     * the key for a request other than the one it was first used for
+     *
+     * @param key the idempotency key, scoped by the caller
+     * @param fingerprint identifies the request, see {@link RequestFingerprint}; null skips the check
+     * @param action produces the result on first use of the key
+     * @return the result of the first successful run for the key
+     * @throws IdempotencyKeyMismatchException if the key was first used with another fingerprint
+     * @throws RequestInProgressException if the first run is still going after the wait timeout
+     * @throws com.swann.orderservice.deadline.DeadlineExceededException if the caller's deadline passes first
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, String fingerprint, Supplier<T> action) {
+        while (true) {
+            Attempt mine = new Attempt(fingerprint, new CompletableFuture<>());
+            Attempt existing = recent.asMap().putIfAbsent(key, mine);
+            if (existing == null) {
+                return run(key, mine, action);
+            }
+            if (fingerprint != null && existing.fingerprint() != null && !fingerprint.equals(existing.fingerprint())) {
+                throw new IdempotencyKeyMismatchException("Idempotency key " + key + " was used for a different request");
+            }
+            try {
+                // No longer than the caller's own deadline
+                Object result = existing.result().get(RequestDeadline.bound(waitTimeout.toMillis()), TimeUnit.MILLISECONDS);
+                replays.increment();
+                log.debug("Replaying result for idempotency key {}", key);
+                return (T) result;
+            } catch (ExecutionException e) {
+                // The first attempt failed and was forgotten; try again ourselves
+                recent.asMap().remove(key, existing);
+            } catch (TimeoutException e) {
+                RequestDeadline.checkNotExpired();
+                throw new RequestInProgressException("Request with idempotency key " + key + " is still in progress");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for request with the same idempotency key", e);
+            }
+        }
+    }
+
+    private <T> T run(String key, Attempt mine, Supplier<T> action) {
+        try {
+            T result = action.get();
+            mine.result().complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            recent.asMap().remove(key, mine);
+            mine.result().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private record Attempt(String fingerprint, CompletableFuture<Object> result) {
+    }
+}
@@ -0,0 +1,47 @@
+package com.swann.orderservice.idempotency;
+
+import com.swann.orderservice.dto.CreateOrderRequest;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 of the fields of a create-order request, stored with its idempotency
+ * key so a retry can be told apart from a different request under the same key.
+ * Amounts are compared by value, so 10.0 and 10.00 hash the same.
+ */
+public final class RequestFingerprint {
+
+    private RequestFingerprint() {
+    }
+
+    /**
+     * @param request the create-order request
+     * @return 64 hex characters
+     */
+    public static String of(CreateOrderRequest request) {
+        StringBuilder canonical = new StringBuilder()
+                .append(request.getCustomerId()).append('|')
+                .append(amount(request.getTotalAmount()));
+        if (request.getItems() != null) {
+            for (CreateOrderRequest.OrderItemRequest item : request.getItems()) {
+                canonical.append('|').append(item.getProductId())
+                        .append(':').append(item.getQuantity())
+                        .append(':').append(amount(item.getUnitPrice()));
+            }
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String amount(BigDecimal amount) {
+        return amount == null ? "null" : amount.stripTrailingZeros().toPlainString();
+    }
+}
@@ -0,0 +1,12 @@
+package com.swann.orderservice.idempotency;
+
+/**
+ * Thrown when a request with the same idempotency key did not finish within the
+ * wait timeout. The client should retry later with the same key.
+ */
+public class RequestInProgressException extends RuntimeException {
+
+    public RequestInProgressException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,101 @@
+package com.swann.orderservice.lookup;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter of the IDs of existing orders, used to answer lookups of
+ * unknown IDs with 404 before touching the database. Until the startup load
+ * has finished every ID is treated as possibly existing.
+ */
+@Component
+@Slf4j
+public class OrderIdFilter {
+
+    private final ScalableBloomFilter filter;
+    private final Counter rejections;
+    private volatile boolean loaded;
+
+    public OrderIdFilter(MeterRegistry meterRegistry,
+                         @Value("${order.id-filter.initial-capacity:1000000}") long initialCapacity,
+                         @Value("${order.id-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.filter = new ScalableBloomFilter(initialCapacity, falsePositiveRate);
+        this.rejections = Counter.builder("order.id-filter.rejections")
+                .description("Order lookups answered 404 by the filter without a query")
+                .register(meterRegistry);
+        Gauge.builder("order.id-filter.expected-fpp", filter, ScalableBloomFilter::expectedFalsePositiveRate)
+                .description("Estimated false-positive rate of the order ID filter")
+                .register(meterRegistry);
+        Gauge.builder("order.id-filter.bytes", filter, f -> f.getBitSize() / 8.0)
+                .description("Memory used by the order ID filter's bit arrays")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("order.id-filter.elements", filter, ScalableBloomFilter::getApproximateElementCount)
+                .description("Order IDs added to the filter")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Record an order ID
+     *
+     * @param orderId the order ID
+     */
+    public void add(UUID orderId) {
+        filter.add(orderId);
+    }
+
+    /**
+     * Add every existing order ID and start rejecting unknown ones
+     *
+     * @param orderIds IDs of all stored orders
+     */
+    public void load(Stream<UUID> orderIds) {
+        addAll(orderIds);
+        markLoaded();
+    }
+
+    /**
+     * Add existing order IDs, e.g. those of one shard
+     *
+     * @param orderIds IDs of stored orders
+     * @return how many IDs were read
+     */
+    public long addAll(Stream<UUID> orderIds) {
+        long[] count = new long[1];
+        orderIds.forEach(orderId -> {
+            filter.add(orderId);
+            count[0]++;
+        });
+        return count[0];
+    }
+
+    /**
+     * Start rejecting unknown IDs, once every existing ID has been added
+     */
+    public void markLoaded() {
+        loaded = true;
+        log.info("Loaded {} order ID(s) into the filter; {} stage(s), {} bytes, expected false-positive rate {}",
+                filter.getApproximateElementCount(), filter.getStageCount(), filter.getBitSize() / 8, filter.expectedFalsePositiveRate());
+    }
+
+    /**
+     * Whether an order with this ID may exist
+     *
+     * @param orderId the order ID
+     * @return false only if the order definitely does not exist
+     */
+    public boolean mightExist(UUID orderId) {
+        if (!loaded || filter.mightContain(orderId)) {
+            return true;
+        }
+        rejections.increment();
+        return false;
+    }
+}
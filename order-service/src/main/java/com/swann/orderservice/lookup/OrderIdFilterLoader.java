@@ -0,0 +1,44 @@
+package com.swann.orderservice.lookup;
+
+import com.swann.common.datasource.Workload;
+import com.swann.common.datasource.WorkloadType;
+import com.swann.orderservice.repository.OrderViewRepository;
+import com.swann.orderservice.sharding.OrderShards;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Streams the IDs of all orders, shard by shard, into the {@link OrderIdFilter}
+ * on startup.
+ * Orders created meanwhile are added by the service, or by the order-created
+ * listener, which starts reading from before this instance started (see
+ * {@link com.swann.orderservice.consumer.OrderCreatedEventConsumer}), so no
+ * order falls between the scan and the listener's first assignment.
+ */
+@Component
+@RequiredArgsConstructor
+@Workload(WorkloadType.BATCH)
+public class OrderIdFilterLoader implements ApplicationRunner {
+
+    private final OrderViewRepository orderViewRepository;
+    private final OrderIdFilter orderIdFilter;
+    private final OrderShards orderShards;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        orderShards.runOnEachShard(() -> transactionTemplate.executeWithoutResult(status -> {
+            // Not read-only, so the scan runs on the primary and sees orders a replica has not replayed yet
+            try (Stream<UUID> orderIds = orderViewRepository.streamAllOrderIds()) {
+                orderIdFilter.addAll(orderIds);
+            }
+        }));
+        orderIdFilter.markLoaded();
+    }
+}
@@ -0,0 +1,182 @@
+package com.swann.orderservice.lookup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter of UUIDs that grows as elements are added.
+ * Each full stage is followed by a larger one with a tighter error rate, so the
+ * overall false-positive rate stays below the configured target however many
+ * IDs are added. Stages are only ever appended, and bits are only ever set.
+ */
+public class ScalableBloomFilter {
+
+    private static final int GROWTH_FACTOR = 2;
+    private static final double TIGHTENING_RATIO = 0.5;
+
+    private final double targetFalsePositiveRate;
+    private volatile List<Stage> stages;
+
+    /**
+     * @param initialCapacity elements the first stage holds at its error rate
+     * @param falsePositiveRate upper bound for the overall false-positive rate
+     */
+    public ScalableBloomFilter(long initialCapacity, double falsePositiveRate) {
+        if (initialCapacity <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Capacity must be positive and the error rate between 0 and 1");
+        }
+        this.targetFalsePositiveRate = falsePositiveRate;
+        // Stage error rates form a geometric series that sums to the target
+        this.stages = List.of(new Stage(initialCapacity, falsePositiveRate * (1 - TIGHTENING_RATIO)));
+    }
+
+    /**
+     * Add an ID
+     *
+     * @param id the ID
+     */
+    public void add(UUID id) {
+        long h1 = mix(id.getMostSignificantBits());
+        long h2 = mix(id.getLeastSignificantBits() ^ h1);
+        if (mightContain(h1, h2)) {
+            // Already present, or a false positive that answers the same way; keeps counts honest
+            return;
+        }
+        currentStage().add(h1, h2);
+    }
+
+    /**
+     * Whether the ID may have been added. False means it definitely was not.
+     *
+     * @param id the ID
+     * @return false if the ID was never added
+     */
+    public boolean mightContain(UUID id) {
+        long h1 = mix(id.getMostSignificantBits());
+        long h2 = mix(id.getLeastSignificantBits() ^ h1);
+        return mightContain(h1, h2);
+    }
+
+    private boolean mightContain(long h1, long h2) {
+        for (Stage stage : stages) {
+            if (stage.mightContain(h1, h2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Estimated chance that an ID never added is reported as present, based on
+     * how many bits are set in each stage
+     *
+     * @return the estimated false-positive rate
+     */
+    public double expectedFalsePositiveRate() {
+        double allMiss = 1.0;
+        for (Stage stage : stages) {
+            allMiss *= 1.0 - stage.expectedFalsePositiveRate();
+        }
+        return 1.0 - allMiss;
+    }
+
+    public double getTargetFalsePositiveRate() {
+        return targetFalsePositiveRate;
+    }
+
+    public long getApproximateElementCount() {
+        return stages.stream().mapToLong(stage -> stage.count.get()).sum();
+    }
+
+    public long getBitSize() {
+        return stages.stream().mapToLong(stage -> stage.bitCount).sum();
+    }
+
+    public int getStageCount() {
+        return stages.size();
+    }
+
+    private Stage currentStage() {
+        List<Stage> snapshot = stages;
+        Stage last = snapshot.get(snapshot.size() - 1);
+        if (last.count.get() < last.capacity) {
+            return last;
+        }
+        synchronized (this) {
+            snapshot = stages;
+            last = snapshot.get(snapshot.size() - 1);
+            if (last.count.get() < last.capacity) {
+                return last;
+            }
+            Stage next = new Stage(last.capacity * GROWTH_FACTOR, last.falsePositiveRate * TIGHTENING_RATIO);
+            List<Stage> grown = new ArrayList<>(snapshot);
+            grown.add(next);
+            stages = List.copyOf(grown);
+            return next;
+        }
+    }
+
+    // Final step of MurmurHash3; UUIDs are already random, this just spreads sequential ones
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    private static final class Stage {
+        private final long capacity;
+        private final double falsePositiveRate;
+        private final long bitCount;
+        private final int hashCount;
+        private final AtomicLongArray words;
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong bitsSet = new AtomicLong();
+
+        private Stage(long capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            long bits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int wordCount = Math.toIntExact(Math.max(1, (bits + 63) / 64));
+            this.bitCount = wordCount * 64L;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+            this.words = new AtomicLongArray(wordCount);
+        }
+
+        private void add(long h1, long h2) {
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                int index = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long word = words.get(index);
+                while ((word & mask) == 0) {
+                    if (words.compareAndSet(index, word, word | mask)) {
+                        bitsSet.incrementAndGet();
+                        break;
+                    }
+                    word = words.get(index);
+                }
+            }
+            count.incrementAndGet();
+        }
+
+        private boolean mightContain(long h1, long h2) {
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private double expectedFalsePositiveRate() {
+            return Math.pow((double) bitsSet.get() / bitCount, hashCount);
+        }
+    }
+}
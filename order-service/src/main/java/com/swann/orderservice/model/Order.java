@@ -1,8 +1,11 @@
 package com.swann.orderservice.model;
 
+import com.swann.orderservice.dto.OrderResponse;
+import com.swann.orderservice.sharding.ShardedOrderId;
 import jakarta.persistence.*;
 import lombok.*;
-import org.hibernate.annotations.UuidGenerator;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -11,7 +14,11 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
-@Table(name = "orders")
+// Partitioned by created_at month (see db/migration V4), so unique keys would have to
+// include created_at; idempotency keys are kept unique in order_idempotency_keys instead
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_customer_idempotency_key", columnList = "customer_id, idempotency_key")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -19,19 +26,28 @@ import java.util.UUID;
 @Builder
 public class Order {
     @Id
-    @UuidGenerator(style = UuidGenerator.Style.TIME)
+    // Time-ordered, and names the shard the order is stored on
+    @ShardedOrderId
     @Column(name = "order_id", updatable = false, nullable = false)
     private UUID orderId;
 
     @Column(name = "customer_id", nullable = false)
     private UUID customerId;
 
+    // Client-supplied Idempotency-Key of the request that created the order, if any
+    @Column(name = "idempotency_key")
+    private String idempotencyKey;
+
     @Column(name = "total_amount", nullable = false)
     private BigDecimal totalAmount;
 
     @Column(name = "status", nullable = false)
     private String status;
 
+    // Timestamp of the payment event that last set the status; older events are ignored
+    @Column(name = "payment_event_at")
+    private LocalDateTime paymentEventAt;
+
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
@@ -41,6 +57,12 @@ public class Order {
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<OrderItem> orderItems = new ArrayList<>();
 
+    // Items of orders stored with order.items.storage=embedded; null while they are rows in order_items.
+    // GIN-indexed by idx_orders_items (see db/migration), which @Index cannot declare.
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "items", columnDefinition = "jsonb")
+    private List<OrderResponse.OrderItemResponse> items;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -0,0 +1,72 @@
+package com.swann.orderservice.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Claim of an Idempotency-Key by a customer. The orders table is partitioned
+ * by month and cannot hold a unique key without created_at, so this small
+ * unpartitioned table keeps keys unique across instances. Rows older than the
+ * hot partitions are removed by partition maintenance.
+ */
+@Entity
+@Table(name = "order_idempotency_keys", indexes = {
+        @Index(name = "idx_order_idempotency_keys_created_at", columnList = "created_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderIdempotencyKey implements Persistable<OrderIdempotencyKey.Key> {
+    @EmbeddedId
+    private Key key;
+
+    @Column(name = "order_id", nullable = false)
+    private UUID orderId;
+
+    // SHA-256 of the request that claimed the key; null for keys claimed before it was recorded
+    @Column(name = "request_hash", length = 64)
+    private String requestHash;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // A key is only ever inserted; a second claim must fail on the primary key rather than merge
+    @Transient
+    @Builder.Default
+    private boolean newKey = true;
+
+    @Override
+    public Key getId() {
+        return key;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newKey;
+    }
+
+    @PostLoad
+    @PostPersist
+    protected void markNotNew() {
+        newKey = false;
+    }
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        @Column(name = "customer_id", nullable = false)
+        private UUID customerId;
+
+        @Column(name = "idempotency_key", nullable = false)
+        private String idempotencyKey;
+    }
+}
@@ -5,10 +5,14 @@ import lombok.*;
 import org.hibernate.annotations.UuidGenerator;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "order_items")
+@Table(name = "order_items", indexes = {
+        @Index(name = "idx_order_items_order_id", columnList = "order_id"),
+        @Index(name = "idx_order_items_product_id", columnList = "product_id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -20,8 +24,9 @@ public class OrderItem {
     @Column(name = "order_item_id", updatable = false, nullable = false)
     private UUID orderItemId;
 
+    // No foreign key: orders is partitioned, and its keys include created_at
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "order_id", nullable = false)
+    @JoinColumn(name = "order_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private Order order;
 
     @Column(name = "product_id", nullable = false)
@@ -32,4 +37,13 @@ public class OrderItem {
 
     @Column(name = "unit_price", nullable = false)
     private BigDecimal unitPrice;
+
+    // Copy of the order's created_at, which order_items is partitioned by
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = order.getCreatedAt() != null ? order.getCreatedAt() : LocalDateTime.now();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.swann.orderservice.model;
+
+/**
+ * Values of {@link Order#getStatus()}.
+ */
+public final class OrderStatus {
+
+    public static final String PENDING = "PENDING";
+    public static final String PAID = "PAID";
+    public static final String PAYMENT_FAILED = "PAYMENT_FAILED";
+
+    private OrderStatus() {
+    }
+
+    /**
+     * Map a payment-service payment status to the order status it implies
+     *
+     * @param paymentStatus the payment status
+     * @return the order status, or null if the payment is not final yet
+     */
+    public static String fromPaymentStatus(String paymentStatus) {
+        if (paymentStatus == null) {
+            return null;
+        }
+        return switch (paymentStatus) {
+            case "COMPLETED" -> PAID;
+            case "DECLINED", "FAILED", "REJECTED" -> PAYMENT_FAILED;
+            default -> null;
+        };
+    }
+
+    /**
+     * Whether an order in this status can no longer change
+     *
+     * @param status the order status
+     * @return true once payment has succeeded or failed
+     */
+    public static boolean isFinal(String status) {
+        return PAID.equals(status) || PAYMENT_FAILED.equals(status);
+    }
+}
@@ -0,0 +1,74 @@
+package com.swann.orderservice.model;
+
+import com.swann.orderservice.dto.OrderResponse;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import org.springframework.data.domain.Persistable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Denormalized read model of an order: one row per order with the items
+ * embedded as JSONB, so reads are a single indexed lookup without joins.
+ * Written in the same transaction as the order and kept in step by the
+ * status projection; never updated through the write model's entities.
+ */
+@Entity
+@Table(name = "order_views", indexes = {
+        @Index(name = "idx_order_views_customer_id", columnList = "customer_id, created_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderView implements Persistable<UUID> {
+    @Id
+    @Column(name = "order_id", updatable = false, nullable = false)
+    private UUID orderId;
+
+    @Column(name = "customer_id", nullable = false)
+    private UUID customerId;
+
+    @Column(name = "total_amount", nullable = false)
+    private BigDecimal totalAmount;
+
+    @Column(name = "status", nullable = false)
+    private String status;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "items", nullable = false, columnDefinition = "jsonb")
+    private List<OrderResponse.OrderItemResponse> items;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // The ID is the order's, so tell Spring Data to insert rather than merge
+    @Transient
+    @Builder.Default
+    private boolean newView = true;
+
+    @Override
+    public UUID getId() {
+        return orderId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newView;
+    }
+
+    @PostLoad
+    @PostPersist
+    protected void markNotNew() {
+        newView = false;
+    }
+}
@@ -0,0 +1,106 @@
+package com.swann.orderservice.partition;
+
+import com.swann.common.datasource.Workload;
+import com.swann.common.datasource.WorkloadType;
+import com.swann.common.partition.PartitionManager;
+import com.swann.common.partition.PartitionedTable;
+import com.swann.orderservice.repository.OrderIdempotencyKeyRepository;
+import com.swann.orderservice.sharding.OrderShards;
+import com.swann.orderservice.sharding.ShardContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Keeps orders and order_items partitioned by created_at month on every shard.
+ * The tables are converted by a Flyway migration; this job only creates
+ * partitions a few months ahead, on startup and nightly, and nightly archives
+ * partitions that have left the hot window, so the indexes new rows go into
+ * stay small however much history there is. One instance does the work;
+ * others skip.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "order.partitioning.enabled", havingValue = "true", matchIfMissing = true)
+@Workload(WorkloadType.BATCH)
+public class PartitionMaintenanceJob implements ApplicationRunner {
+
+    // Converted from plain tables by the V4 migration
+    public static final List<PartitionedTable> TABLES = List.of(
+            new PartitionedTable("orders", "created_at", List.of("order_id", "created_at"), List.of()),
+            new PartitionedTable("order_items", "created_at", List.of("order_item_id", "created_at"), List.of(
+                    "UPDATE order_items i SET created_at = o.created_at FROM orders o"
+                            + " WHERE o.order_id = i.order_id AND i.created_at IS NULL",
+                    "ALTER TABLE order_items ALTER COLUMN created_at SET NOT NULL")));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderShards orderShards;
+    private final OrderIdempotencyKeyRepository orderIdempotencyKeyRepository;
+
+    @Value("${order.partitioning.premake-months:3}")
+    private int premakeMonths;
+
+    @Value("${order.partitioning.hot-months:12}")
+    private int hotMonths;
+
+    @Value("${order.partitioning.archive-tablespace:}")
+    private String archiveTablespace;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        // Only creates partitions, so a restart never detaches anything
+        maintainPartitions(false);
+    }
+
+    @Scheduled(cron = "${order.partitioning.cron:0 30 1 * * *}")
+    public void maintainPartitions() {
+        maintainPartitions(true);
+    }
+
+    private void maintainPartitions(boolean archive) {
+        YearMonth month = YearMonth.now();
+        orderShards.runOnEachShard(() -> {
+            try {
+                transactionTemplate.executeWithoutResult(status -> maintainShard(month, archive));
+            } catch (RuntimeException e) {
+                log.error("Partition maintenance failed on shard {}, retrying next run", ShardContext.current(), e);
+            }
+        });
+    }
+
+    private void maintainShard(YearMonth month, boolean archive) {
+        PartitionManager partitions = new PartitionManager(jdbcTemplate);
+        if (!partitions.tryLock()) {
+            log.info("Partition maintenance running elsewhere, skipping shard {}", ShardContext.current());
+            return;
+        }
+        LocalDate nextMonth = month.plusMonths(1).atDay(1);
+        LocalDate cutoff = month.minusMonths(hotMonths - 1L).atDay(1);
+        for (PartitionedTable table : TABLES) {
+            partitions.createPartitions(table, nextMonth, month.plusMonths(premakeMonths).atDay(1));
+            if (archive) {
+                partitions.archivePartitions(table, cutoff, archiveTablespace);
+            }
+        }
+        if (!archive) {
+            return;
+        }
+        int expiredKeys = orderIdempotencyKeyRepository.deleteByCreatedAtBefore(cutoff.atStartOfDay());
+        if (expiredKeys > 0) {
+            log.info("Deleted {} idempotency key(s) older than {}", expiredKeys, cutoff);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.swann.orderservice.ratelimit;
+
+import com.swann.orderservice.dto.CreateOrderRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import java.lang.reflect.Type;
+import java.time.Duration;
+
+/**
+ * Limits POST /orders by the customer in the request body, once the body is
+ * read and before validation or the controller run.
+ */
+@ControllerAdvice
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "order.rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class CustomerRateLimitBodyAdvice extends RequestBodyAdviceAdapter {
+
+    private final CustomerRateLimiter rateLimiter;
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        return methodParameter.getParameterType() == CreateOrderRequest.class;
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                Class<? extends HttpMessageConverter<?>> converterType) {
+        if (body instanceof CreateOrderRequest request && request.getCustomerId() != null) {
+            long waitNanos = rateLimiter.tryAcquire(request.getCustomerId());
+            if (waitNanos > 0) {
+                throw new CustomerRateLimitedException(Duration.ofNanos(waitNanos));
+            }
+        }
+        return body;
+    }
+}
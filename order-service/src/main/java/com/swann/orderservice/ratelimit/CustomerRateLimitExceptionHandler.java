@@ -0,0 +1,26 @@
+package com.swann.orderservice.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Answers 429 with Retry-After, in whole seconds rounded up, for customers
+ * over their request rate.
+ */
+@RestControllerAdvice
+@Slf4j
+public class CustomerRateLimitExceptionHandler {
+
+    @ExceptionHandler(CustomerRateLimitedException.class)
+    public ResponseEntity<Void> rateLimited(CustomerRateLimitedException e) {
+        long retryAfterSeconds = Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000);
+        log.debug("Customer over request rate, retry after {}s", retryAfterSeconds);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .build();
+    }
+}
@@ -0,0 +1,48 @@
+package com.swann.orderservice.ratelimit;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Limits requests whose path names a customer, such as
+ * GET /orders/customer/{customerId}, before the controller runs. Requests
+ * naming the customer in their body go through {@link CustomerRateLimitBodyAdvice}.
+ */
+public class CustomerRateLimitInterceptor implements HandlerInterceptor {
+
+    private static final String CUSTOMER_ID_VARIABLE = "customerId";
+
+    private final CustomerRateLimiter rateLimiter;
+
+    public CustomerRateLimitInterceptor(CustomerRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        @SuppressWarnings("unchecked")
+        Map<String, String> variables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String customerId = variables != null ? variables.get(CUSTOMER_ID_VARIABLE) : null;
+        if (customerId == null) {
+            return true;
+        }
+        UUID parsed;
+        try {
+            parsed = UUID.fromString(customerId);
+        } catch (IllegalArgumentException e) {
+            // Not a customer ID; binding the path variable rejects it with 400
+            return true;
+        }
+        long waitNanos = rateLimiter.tryAcquire(parsed);
+        if (waitNanos > 0) {
+            throw new CustomerRateLimitedException(Duration.ofNanos(waitNanos));
+        }
+        return true;
+    }
+}
@@ -0,0 +1,22 @@
+package com.swann.orderservice.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a customer has no token left for a request. The client should
+ * retry after {@link #getRetryAfter()}.
+ */
+public class CustomerRateLimitedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public CustomerRateLimitedException(Duration retryAfter) {
+        // Thrown on every rejected request; the stack trace would be the costliest part
+        super("Customer request rate exceeded", null, false, false);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
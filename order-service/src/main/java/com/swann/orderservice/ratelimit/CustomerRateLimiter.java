@@ -0,0 +1,81 @@
+package com.swann.orderservice.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket per customer: a burst of requests, refilled at a steady rate.
+ * Each bucket is one AtomicLong holding the time at which it would be full
+ * again (the generic cell rate algorithm), so taking a token is a single
+ * compare-and-set and allocates nothing once the customer has a bucket.
+ * A bucket left alone long enough to refill is no different from a new one,
+ * so buckets expire after that long, and the number kept is capped.
+ */
+@Component
+@ConditionalOnProperty(name = "order.rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class CustomerRateLimiter {
+
+    private static final Function<UUID, AtomicLong> NEW_BUCKET = customerId -> new AtomicLong(Long.MIN_VALUE);
+
+    private final Cache<UUID, AtomicLong> buckets;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final LongSupplier clock;
+    private final Counter rejected;
+
+    @Autowired
+    public CustomerRateLimiter(MeterRegistry meterRegistry,
+                               @Value("${order.rate-limit.requests-per-second:20}") double requestsPerSecond,
+                               @Value("${order.rate-limit.burst:40}") int burst,
+                               @Value("${order.rate-limit.maximum-customers:100000}") long maximumCustomers) {
+        this(meterRegistry, requestsPerSecond, burst, maximumCustomers, System::nanoTime);
+    }
+
+    CustomerRateLimiter(MeterRegistry meterRegistry, double requestsPerSecond, int burst, long maximumCustomers, LongSupplier clock) {
+        this.intervalNanos = (long) (Duration.ofSeconds(1).toNanos() / requestsPerSecond);
+        this.burstNanos = intervalNanos * burst;
+        this.clock = clock;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumCustomers)
+                .expireAfterAccess(Duration.ofNanos(burstNanos))
+                .build();
+        this.rejected = Counter.builder("order.rate-limit.rejected")
+                .description("Requests refused because the customer ran out of tokens")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Take a token from the customer's bucket
+     *
+     * @param customerId the customer making the request
+     * @return 0 if the request may proceed, otherwise nanoseconds until a token is available
+     */
+    public long tryAcquire(UUID customerId) {
+        AtomicLong bucket = buckets.get(customerId, NEW_BUCKET);
+        long now = clock.getAsLong();
+        while (true) {
+            long fullAt = bucket.get();
+            long next = Math.max(fullAt, now) + intervalNanos;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                rejected.increment();
+                return wait;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.swann.orderservice.readmodel;
+
+import com.swann.common.datasource.Workload;
+import com.swann.common.datasource.WorkloadType;
+import com.swann.orderservice.repository.OrderViewRepository;
+import com.swann.orderservice.sharding.OrderShards;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Creates read-model rows for orders that predate the order_views table.
+ * Idempotent, so every instance can run it on startup. Runs on each shard in turn.
+ */
+@Component
+// Before the ID filter is loaded from the views and before partitions are archived
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+@Slf4j
+@Workload(WorkloadType.BATCH)
+public class OrderViewBackfill implements ApplicationRunner {
+
+    private final OrderViewRepository orderViewRepository;
+    private final OrderShards orderShards;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        orderShards.runOnEachShard(() -> {
+            Integer created = transactionTemplate.execute(status -> orderViewRepository.backfillMissingViews());
+            if (created != null && created > 0) {
+                log.info("Backfilled {} order view(s)", created);
+            }
+        });
+    }
+}
@@ -0,0 +1,24 @@
+package com.swann.orderservice.repository;
+
+import com.swann.orderservice.model.OrderIdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface OrderIdempotencyKeyRepository extends JpaRepository<OrderIdempotencyKey, OrderIdempotencyKey.Key> {
+
+    /**
+     * Delete key claims made before a point in time
+     * 
+     * @param createdBefore the cutoff
+     * @return number of claims deleted
+     */
+    @Modifying
+    @Query("delete from OrderIdempotencyKey k where k.createdAt < :createdBefore")
+    int deleteByCreatedAtBefore(@Param("createdBefore") LocalDateTime createdBefore);
+}
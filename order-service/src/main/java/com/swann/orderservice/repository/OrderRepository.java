@@ -2,9 +2,12 @@ package com.swann.orderservice.repository;
 
 import com.swann.orderservice.model.Order;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -17,4 +20,33 @@ public interface OrderRepository extends JpaRepository<Order, UUID> {
      * @return list of orders for the customer
      */
     List<Order> findByCustomerId(UUID customerId);
-}
\ No newline at end of file
+
+    /**
+     * Find the order a customer created with an idempotency key
+     * 
+     * @param customerId the customer ID
+     * @param idempotencyKey the idempotency key
+     * @return optional order
+     */
+    Optional<Order> findByCustomerIdAndIdempotencyKey(UUID customerId, String idempotencyKey);
+
+    /**
+     * Find the IDs of the newest orders with an item for a product. Embedded
+     * items are matched through the GIN index on orders.items; orders whose
+     * items are still rows in order_items are matched by scanning those rows.
+     * Only IDs are read, so callers load the orders from order_views without
+     * touching the items of each order.
+     * 
+     * @param productId the product ID, as text
+     * @param limit the maximum number of orders
+     * @return IDs of matching orders, newest first
+     */
+    @Query(value = "SELECT order_id FROM ("
+            + "SELECT order_id, created_at FROM orders"
+            + " WHERE items @> jsonb_build_array(jsonb_build_object('productId', CAST(:productId AS text)))"
+            + " UNION ALL"
+            + " SELECT o.order_id, o.created_at FROM orders o WHERE o.items IS NULL"
+            + " AND o.order_id IN (SELECT i.order_id FROM order_items i WHERE i.product_id = CAST(:productId AS uuid))"
+            + " ORDER BY created_at DESC LIMIT :limit) matches", nativeQuery = true)
+    List<UUID> findIdsContainingProduct(@Param("productId") String productId, @Param("limit") int limit);
+}
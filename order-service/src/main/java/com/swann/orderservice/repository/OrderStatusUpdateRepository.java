@@ -0,0 +1,81 @@
+package com.swann.orderservice.repository;
+
+import com.swann.orderservice.dto.OrderStatusUpdate;
+import com.swann.orderservice.sharding.OrderIds;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+@RequiredArgsConstructor
+public class OrderStatusUpdateRepository {
+
+    private static final Duration CREATED_AT_MARGIN = Duration.ofMinutes(1);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Apply status updates to many orders, and their read-model rows, in one
+     * statement. An update is skipped when the order already reflects a newer
+     * event or has that status already.
+     *
+     * @param updates at most one update per order
+     * @return IDs of the orders that changed
+     */
+    public List<UUID> updateStatuses(List<OrderStatusUpdate> updates) {
+        if (updates.isEmpty()) {
+            return List.of();
+        }
+        StringBuilder sql = new StringBuilder(
+                "WITH changed AS (UPDATE orders o SET status = v.status, payment_event_at = v.event_at, updated_at = ? FROM (VALUES ");
+        List<Object> args = new ArrayList<>(updates.size() * 3 + 2);
+        // The JVM clock, as for entity updates, so ETags and "newer wins" compare like with like
+        args.add(Timestamp.valueOf(LocalDateTime.now()));
+        for (int i = 0; i < updates.size(); i++) {
+            OrderStatusUpdate update = updates.get(i);
+            sql.append(i == 0 ? "" : ", ").append("(CAST(? AS uuid), CAST(? AS varchar), CAST(? AS timestamp))");
+            args.add(update.getOrderId().toString());
+            args.add(update.getStatus());
+            args.add(Timestamp.valueOf(update.getEventAt()));
+        }
+        sql.append(") AS v(order_id, status, event_at) WHERE o.order_id = v.order_id");
+        LocalDateTime createdFrom = earliestCreatedAt(updates);
+        if (createdFrom != null) {
+            // Lets the planner skip partitions older than every order in the batch
+            sql.append(" AND o.created_at >= ?");
+            args.add(Timestamp.valueOf(createdFrom));
+        }
+        sql.append(" AND (o.payment_event_at IS NULL OR o.payment_event_at < v.event_at)")
+                .append(" AND o.status <> v.status")
+                .append(" RETURNING o.order_id, o.status, o.updated_at)")
+                .append(", views AS (UPDATE order_views ov SET status = c.status, updated_at = c.updated_at")
+                .append(" FROM changed c WHERE ov.order_id = c.order_id)")
+                .append(" SELECT order_id FROM changed");
+        return jdbcTemplate.queryForList(sql.toString(), UUID.class, args.toArray());
+    }
+
+    // Order IDs carry their creation time; created_at is set a moment later, in the server's time zone
+    private static LocalDateTime earliestCreatedAt(List<OrderStatusUpdate> updates) {
+        Instant earliest = null;
+        for (OrderStatusUpdate update : updates) {
+            Optional<Instant> createdAt = OrderIds.createdAt(update.getOrderId());
+            if (createdAt.isEmpty()) {
+                return null;
+            }
+            if (earliest == null || createdAt.get().isBefore(earliest)) {
+                earliest = createdAt.get();
+            }
+        }
+        return LocalDateTime.ofInstant(earliest.minus(CREATED_AT_MARGIN), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,62 @@
+package com.swann.orderservice.repository;
+
+import com.swann.orderservice.model.OrderView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+@Repository
+public interface OrderViewRepository extends JpaRepository<OrderView, UUID> {
+    
+    /**
+     * Find the order views of a customer, newest first
+     * 
+     * @param customerId the customer ID
+     * @return list of order views for the customer
+     */
+    List<OrderView> findByCustomerIdOrderByCreatedAtDesc(UUID customerId);
+
+    /**
+     * Find the order views with the given IDs
+     * 
+     * @param orderIds the order IDs
+     * @return the order views found, in no particular order
+     */
+    List<OrderView> findByOrderIdIn(Collection<UUID> orderIds);
+
+    /**
+     * Stream the IDs of all orders, including those whose partitions were
+     * archived. Must be consumed inside a transaction and closed.
+     * 
+     * @return stream of order IDs, fetched from a server-side cursor
+     */
+    @Query("select v.orderId from OrderView v")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"))
+    Stream<UUID> streamAllOrderIds();
+
+    /**
+     * Create views for orders that have none, e.g. orders written before the read
+     * model existed. Items come from orders.items or, if not embedded, order_items.
+     * 
+     * @return the number of views created
+     */
+    @Modifying
+    @Query(value = "INSERT INTO order_views (order_id, customer_id, total_amount, status, items, created_at, updated_at) "
+            + "SELECT o.order_id, o.customer_id, o.total_amount, o.status, "
+            + "COALESCE(o.items, (SELECT jsonb_agg(jsonb_build_object('orderItemId', i.order_item_id, 'productId', i.product_id, "
+            + "'quantity', i.quantity, 'unitPrice', i.unit_price)) FROM order_items i WHERE i.order_id = o.order_id), '[]'::jsonb), "
+            + "o.created_at, o.updated_at "
+            + "FROM orders o "
+            + "WHERE NOT EXISTS (SELECT 1 FROM order_views v WHERE v.order_id = o.order_id) "
+            + "ON CONFLICT (order_id) DO NOTHING", nativeQuery = true)
+    int backfillMissingViews();
+}
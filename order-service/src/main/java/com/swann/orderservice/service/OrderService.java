@@ -3,8 +3,11 @@ package com.swann.orderservice.service;
 import com.swann.orderservice.dto.CreateOrderRequest;
 import com.swann.orderservice.dto.OrderResponse;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface OrderService {
     
@@ -16,6 +19,17 @@ public interface OrderService {
      */
     OrderResponse createOrder(CreateOrderRequest request);
     
+    /**
+     * Create a new order once per idempotency key. Repeating the request with the
+     * same key returns the order created the first time without creating another.
+     * 
+     * @param request the order creation request
+     * @param idempotencyKey the client-supplied key, scoped to the customer
+     * @return the created or previously created order response
+     * @throws com.swann.orderservice.idempotency.IdempotencyKeyMismatchException if the key was used for a different request
+     */
+    OrderResponse createOrder(CreateOrderRequest request, String idempotencyKey);
+    
     /**
      * Get an order by ID
      * 
@@ -31,4 +45,30 @@ public interface OrderService {
      * @return list of order responses
      */
     List<OrderResponse> getOrdersByCustomerId(UUID customerId);
-}
\ No newline at end of file
+    
+    /**
+     * Get many orders by ID in chunked queries
+     * 
+     * @param orderIds the order IDs; duplicates are looked up once
+     * @return the orders found, keyed by order ID
+     */
+    Map<UUID, OrderResponse> getOrdersByIds(Collection<UUID> orderIds);
+    
+    /**
+     * Look up many orders by ID one chunk at a time, handing each chunk's
+     * results over before the next query runs
+     * 
+     * @param orderIds the order IDs; duplicates are looked up once
+     * @param chunkHandler receives the orders found in each chunk
+     */
+    void streamOrdersByIds(Collection<UUID> orderIds, Consumer<List<OrderResponse>> chunkHandler);
+    
+    /**
+     * Get the newest orders with an item for a product, across all shards
+     * 
+     * @param productId the product ID
+     * @param limit the maximum number of orders
+     * @return list of order responses, newest first
+     */
+    List<OrderResponse> getOrdersContainingProduct(UUID productId, int limit);
+}
@@ -0,0 +1,16 @@
+package com.swann.orderservice.service;
+
+import com.swann.orderservice.event.PaymentProcessedEvent;
+
+import java.util.List;
+
+public interface OrderStatusProjectionService {
+
+    /**
+     * Apply a batch of payment outcomes to the orders they belong to
+     *
+     * @param events payment processed events, in any order, possibly repeated
+     * @return the number of orders whose status changed
+     */
+    int applyPaymentOutcomes(List<PaymentProcessedEvent> events);
+}
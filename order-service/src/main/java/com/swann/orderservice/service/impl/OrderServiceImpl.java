@@ -1,112 +1,319 @@
 package com.swann.orderservice.service.impl;
 
 import com.swann.orderservice.config.KafkaConfig;
+import com.swann.orderservice.deadline.DeadlineExceededException;
+import com.swann.orderservice.deadline.RequestDeadline;
 import com.swann.orderservice.dto.CreateOrderRequest;
 import com.swann.orderservice.dto.OrderResponse;
 import com.swann.orderservice.event.OrderCreatedEvent;
+import com.swann.orderservice.idempotency.IdempotencyKeyMismatchException;
+import com.swann.orderservice.idempotency.IdempotencyRegistry;
+import com.swann.orderservice.idempotency.RequestFingerprint;
+import com.swann.orderservice.lookup.OrderIdFilter;
 import com.swann.orderservice.model.Order;
+import com.swann.orderservice.model.OrderIdempotencyKey;
 import com.swann.orderservice.model.OrderItem;
+import com.swann.orderservice.model.OrderStatus;
+import com.swann.orderservice.model.OrderView;
+import com.swann.orderservice.repository.OrderIdempotencyKeyRepository;
 import com.swann.orderservice.repository.OrderRepository;
+import com.swann.orderservice.repository.OrderViewRepository;
 import com.swann.orderservice.service.OrderService;
+import com.swann.orderservice.sharding.OrderShards;
+import com.swann.orderservice.storage.OrderItemStorage;
 import jakarta.persistence.EntityNotFoundException;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class OrderServiceImpl implements OrderService {
 
     private final OrderRepository orderRepository;
+    private final OrderIdempotencyKeyRepository orderIdempotencyKeyRepository;
+    private final OrderViewRepository orderViewRepository;
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final IdempotencyRegistry idempotencyRegistry;
+    private final TransactionTemplate transactionTemplate;
+    // Reads run read-only, so they use the interactive pool or the replica rather than the write pool
+    private final TransactionTemplate readTransaction;
+    private final OrderIdFilter orderIdFilter;
+    private final OrderShards orderShards;
+
+    @Value("${order.bulk-lookup.chunk-size:500}")
+    private int bulkLookupChunkSize;
+
+    @Value("${order.items.storage:table}")
+    private OrderItemStorage itemStorage;
+
+    public OrderServiceImpl(OrderRepository orderRepository,
+                            OrderIdempotencyKeyRepository orderIdempotencyKeyRepository,
+                            OrderViewRepository orderViewRepository,
+                            KafkaTemplate<String, Object> kafkaTemplate,
+                            IdempotencyRegistry idempotencyRegistry,
+                            TransactionTemplate transactionTemplate,
+                            OrderIdFilter orderIdFilter,
+                            OrderShards orderShards) {
+        this.orderRepository = orderRepository;
+        this.orderIdempotencyKeyRepository = orderIdempotencyKeyRepository;
+        this.orderViewRepository = orderViewRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.idempotencyRegistry = idempotencyRegistry;
+        this.transactionTemplate = transactionTemplate;
+        this.readTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readTransaction.setReadOnly(true);
+        this.orderIdFilter = orderIdFilter;
+        this.orderShards = orderShards;
+    }
 
     @Override
-    @Transactional
     public OrderResponse createOrder(CreateOrderRequest request) {
+        return orderShards.callOnShard(orderShards.shardOfCustomer(request.getCustomerId()),
+                () -> publishCommitted(transactionTemplate.execute(status -> saveNewOrder(request, null, null))));
+    }
+
+    @Override
+    public OrderResponse createOrder(CreateOrderRequest request, String idempotencyKey) {
+        UUID customerId = request.getCustomerId();
+        int shard = orderShards.shardOfCustomer(customerId);
+        String requestHash = RequestFingerprint.of(request);
+        return idempotencyRegistry.execute(customerId + ":" + idempotencyKey, requestHash, () -> orderShards.callOnShard(shard, () -> {
+            try {
+                return publishCommitted(transactionTemplate.execute(status -> {
+                    Optional<Order> existing = orderRepository.findByCustomerIdAndIdempotencyKey(customerId, idempotencyKey);
+                    if (existing.isPresent()) {
+                        checkSameRequest(customerId, idempotencyKey, requestHash);
+                        log.info("Returning order {} for repeated idempotency key", existing.get().getOrderId());
+                        return new CommittedOrder(mapToOrderResponse(existing.get()), null);
+                    }
+                    return saveNewOrder(request, idempotencyKey, requestHash);
+                }));
+            } catch (DataIntegrityViolationException e) {
+                // Another instance stored the same key first; return its order
+                return transactionTemplate.execute(status -> {
+                    checkSameRequest(customerId, idempotencyKey, requestHash);
+                    return orderRepository.findByCustomerIdAndIdempotencyKey(customerId, idempotencyKey)
+                            .map(this::mapToOrderResponse)
+                            .orElseThrow(() -> e);
+                });
+            }
+        }));
+    }
+
+    private void checkSameRequest(UUID customerId, String idempotencyKey, String requestHash) {
+        orderIdempotencyKeyRepository.findById(new OrderIdempotencyKey.Key(customerId, idempotencyKey))
+                .map(OrderIdempotencyKey::getRequestHash)
+                .filter(stored -> !stored.equals(requestHash))
+                .ifPresent(stored -> {
+                    throw new IdempotencyKeyMismatchException("Idempotency key " + idempotencyKey + " was used for a different request");
+                });
+    }
+
+    private CommittedOrder saveNewOrder(CreateOrderRequest request, String idempotencyKey, String requestHash) {
         log.info("Creating order for customer: {}", request.getCustomerId());
         
         // Create order entity
         Order order = Order.builder()
                 .customerId(request.getCustomerId())
+                .idempotencyKey(idempotencyKey)
                 .totalAmount(request.getTotalAmount())
-                .status("PENDING") // Initial status
+                .status(OrderStatus.PENDING) // Initial status
                 .orderItems(new ArrayList<>())
                 .build();
         
-        // Create order items
-        List<OrderItem> orderItems = request.getItems().stream()
-                .map(itemRequest -> OrderItem.builder()
-                        .order(order)
-                        .productId(itemRequest.getProductId())
-                        .quantity(itemRequest.getQuantity())
-                        .unitPrice(itemRequest.getUnitPrice())
-                        .build())
-                .collect(Collectors.toList());
-        
-        order.setOrderItems(orderItems);
+        if (itemStorage == OrderItemStorage.EMBEDDED) {
+            // Items go into the order row itself: one INSERT however many lines there are
+            order.setItems(request.getItems().stream()
+                    .map(itemRequest -> OrderResponse.OrderItemResponse.builder()
+                            .orderItemId(UUID.randomUUID())
+                            .productId(itemRequest.getProductId())
+                            .quantity(itemRequest.getQuantity())
+                            .unitPrice(itemRequest.getUnitPrice())
+                            .build())
+                    .collect(Collectors.toList()));
+        } else {
+            // Create order items
+            List<OrderItem> orderItems = request.getItems().stream()
+                    .map(itemRequest -> OrderItem.builder()
+                            .order(order)
+                            .productId(itemRequest.getProductId())
+                            .quantity(itemRequest.getQuantity())
+                            .unitPrice(itemRequest.getUnitPrice())
+                            .build())
+                    .collect(Collectors.toList());
+            
+            order.setOrderItems(orderItems);
+        }
         
         // Save order
         Order savedOrder = orderRepository.save(order);
+        if (idempotencyKey != null) {
+            orderIdempotencyKeyRepository.save(OrderIdempotencyKey.builder()
+                    .key(new OrderIdempotencyKey.Key(request.getCustomerId(), idempotencyKey))
+                    .orderId(savedOrder.getOrderId())
+                    .requestHash(requestHash)
+                    .createdAt(LocalDateTime.now())
+                    .build());
+            // Surface a duplicate key now, as the DataIntegrityViolationException handled in createOrder
+            orderRepository.flush();
+        }
         
-        // Publish order created event
-        publishOrderCreatedEvent(savedOrder);
+        // Write the read model in the same transaction so reads never miss a committed order
+        orderViewRepository.save(mapToOrderView(savedOrder));
+        orderIdFilter.add(savedOrder.getOrderId());
         
-        return mapToOrderResponse(savedOrder);
+        // Past the deadline the client has gone: roll back rather than commit an order nobody hears of
+        RequestDeadline.checkNotExpired();
+        
+        // The event is published once the transaction has committed, see publishCommitted
+        return new CommittedOrder(mapToOrderResponse(savedOrder), toOrderCreatedEvent(savedOrder));
     }
 
     @Override
-    @Transactional(readOnly = true)
     public OrderResponse getOrderById(UUID orderId) {
         log.info("Getting order by ID: {}", orderId);
         
-        Order order = orderRepository.findById(orderId)
+        OrderView view = orderShards.findOnShardOfOrder(orderId,
+                () -> readTransaction.execute(status -> orderViewRepository.findById(orderId)))
                 .orElseThrow(() -> new EntityNotFoundException("Order not found with ID: " + orderId));
         
-        return mapToOrderResponse(order);
+        return mapToOrderResponse(view);
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<OrderResponse> getOrdersByCustomerId(UUID customerId) {
         log.info("Getting orders for customer: {}", customerId);
         
-        List<Order> orders = orderRepository.findByCustomerId(customerId);
+        List<OrderView> views = orderShards.callOnShard(orderShards.shardOfCustomer(customerId),
+                () -> readTransaction.execute(status -> orderViewRepository.findByCustomerIdOrderByCreatedAtDesc(customerId)));
         
-        return orders.stream()
+        return views.stream()
                 .map(this::mapToOrderResponse)
                 .collect(Collectors.toList());
     }
     
-    private void publishOrderCreatedEvent(Order order) {
-        List<OrderCreatedEvent.OrderItemDto> itemDtos = order.getOrderItems().stream()
+    @Override
+    public Map<UUID, OrderResponse> getOrdersByIds(Collection<UUID> orderIds) {
+        Map<UUID, OrderResponse> found = new HashMap<>();
+        streamOrdersByIds(orderIds, chunk -> chunk.forEach(order -> found.put(order.getOrderId(), order)));
+        return found;
+    }
+
+    @Override
+    public void streamOrdersByIds(Collection<UUID> orderIds, Consumer<List<OrderResponse>> chunkHandler) {
+        List<UUID> distinct = new ArrayList<>(new LinkedHashSet<>(orderIds));
+        log.info("Looking up {} order(s) in chunks of {}", distinct.size(), bulkLookupChunkSize);
+        
+        // One query per chunk and shard; items are embedded in the view, so no second query
+        orderShards.groupByShard(distinct).forEach((shard, shardIds) -> {
+            for (int from = 0; from < shardIds.size(); from += bulkLookupChunkSize) {
+                List<UUID> chunk = shardIds.subList(from, Math.min(shardIds.size(), from + bulkLookupChunkSize));
+                List<OrderView> views = orderShards.callOnShard(shard,
+                        () -> readTransaction.execute(status -> orderViewRepository.findByOrderIdIn(chunk)));
+                chunkHandler.accept(views.stream()
+                        .map(this::mapToOrderResponse)
+                        .collect(Collectors.toList()));
+            }
+        });
+    }
+    
+    @Override
+    public List<OrderResponse> getOrdersContainingProduct(UUID productId, int limit) {
+        log.info("Getting up to {} order(s) containing product: {}", limit, productId);
+        
+        // Match on orders, then read the matches from the views so items come embedded in one query
+        List<OrderResponse> orders = new ArrayList<>();
+        orderShards.runOnEachShard(() -> readTransaction.executeWithoutResult(status -> {
+            List<UUID> ids = orderRepository.findIdsContainingProduct(productId.toString(), limit);
+            if (!ids.isEmpty()) {
+                orderViewRepository.findByOrderIdIn(ids).stream()
+                        .map(this::mapToOrderResponse)
+                        .forEach(orders::add);
+            }
+        }));
+        
+        // Each shard returned its newest; keep the newest overall
+        return orders.stream()
+                .sorted(Comparator.comparing(OrderResponse::getCreatedAt).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+    
+    private OrderCreatedEvent toOrderCreatedEvent(Order order) {
+        List<OrderCreatedEvent.OrderItemDto> itemDtos = itemsOf(order).stream()
                 .map(item -> new OrderCreatedEvent.OrderItemDto(
                         item.getProductId(),
                         item.getQuantity(),
                         item.getUnitPrice()))
                 .collect(Collectors.toList());
         
-        OrderCreatedEvent event = new OrderCreatedEvent(
+        return new OrderCreatedEvent(
                 order.getOrderId(),
                 order.getCustomerId(),
                 order.getTotalAmount(),
                 order.getStatus(),
                 itemDtos
         );
-        
-        log.info("Publishing order created event for order: {}", order.getOrderId());
-        kafkaTemplate.send(KafkaConfig.ORDER_CREATED_TOPIC, order.getOrderId().toString(), event);
     }
     
-    private OrderResponse mapToOrderResponse(Order order) {
-        List<OrderResponse.OrderItemResponse> itemResponses = order.getOrderItems().stream()
+    private OrderResponse publishCommitted(CommittedOrder committed) {
+        if (committed.event() != null) {
+            publishOrderCreatedEvent(committed.event());
+        }
+        return committed.response();
+    }
+    
+    private void publishOrderCreatedEvent(OrderCreatedEvent event) {
+        log.info("Publishing order created event for order: {}", event.getOrderId());
+        // The order is committed, so the event is sent whatever the deadline; only the wait is bounded
+        CompletableFuture<?> sent = kafkaTemplate.send(KafkaConfig.ORDER_CREATED_TOPIC, event.getOrderId().toString(), event);
+        if (RequestDeadline.isActive()) {
+            // The client is waiting: report an event not acknowledged by the deadline. The order stays,
+            // the send carries on, and a retry with the same idempotency key returns the order.
+            awaitSend(sent, event.getOrderId());
+        }
+    }
+
+    private void awaitSend(CompletableFuture<?> sent, UUID orderId) {
+        try {
+            sent.get(RequestDeadline.bound(Long.MAX_VALUE), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException("Order created event for order " + orderId + " not acknowledged before the deadline");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not publish order created event for order " + orderId, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while publishing order created event for order " + orderId, e);
+        }
+    }
+    
+    private List<OrderResponse.OrderItemResponse> itemsOf(Order order) {
+        // Orders written in either storage mode stay readable
+        if (order.getItems() != null) {
+            return order.getItems();
+        }
+        return order.getOrderItems().stream()
                 .map(item -> OrderResponse.OrderItemResponse.builder()
                         .orderItemId(item.getOrderItemId())
                         .productId(item.getProductId())
@@ -114,6 +321,10 @@ public class OrderServiceImpl implements OrderService {
                         .unitPrice(item.getUnitPrice())
                         .build())
                 .collect(Collectors.toList());
+    }
+    
+    private OrderResponse mapToOrderResponse(Order order) {
+        List<OrderResponse.OrderItemResponse> itemResponses = itemsOf(order);
         
         return OrderResponse.builder()
                 .orderId(order.getOrderId())
@@ -125,4 +336,33 @@ public class OrderServiceImpl implements OrderService {
                 .items(itemResponses)
                 .build();
     }
-}
\ No newline at end of file
+    
+    private OrderView mapToOrderView(Order order) {
+        return OrderView.builder()
+                .orderId(order.getOrderId())
+                .customerId(order.getCustomerId())
+                .totalAmount(order.getTotalAmount())
+                .status(order.getStatus())
+                .items(itemsOf(order))
+                .createdAt(order.getCreatedAt())
+                .updatedAt(order.getUpdatedAt())
+                .build();
+    }
+    
+    private OrderResponse mapToOrderResponse(OrderView view) {
+        return OrderResponse.builder()
+                .orderId(view.getOrderId())
+                .customerId(view.getCustomerId())
+                .totalAmount(view.getTotalAmount())
+                .status(view.getStatus())
+                .createdAt(view.getCreatedAt())
+                .updatedAt(view.getUpdatedAt())
+                .items(view.getItems())
+                .build();
+    }
+
+    // An order as committed, with its created event if this call created it; the event is
+    // published after the transaction so no connection is held while Kafka acknowledges it
+    private record CommittedOrder(OrderResponse response, OrderCreatedEvent event) {
+    }
+}
@@ -0,0 +1,63 @@
+package com.swann.orderservice.service.impl;
+
+import com.swann.orderservice.dto.OrderStatusUpdate;
+import com.swann.orderservice.event.OrderStatusChangedEvent;
+import com.swann.orderservice.event.PaymentProcessedEvent;
+import com.swann.orderservice.model.OrderStatus;
+import com.swann.orderservice.repository.OrderStatusUpdateRepository;
+import com.swann.orderservice.service.OrderStatusProjectionService;
+import com.swann.orderservice.sharding.OrderShards;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderStatusProjectionServiceImpl implements OrderStatusProjectionService {
+
+    private final OrderStatusUpdateRepository orderStatusUpdateRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderShards orderShards;
+
+    @Override
+    public int applyPaymentOutcomes(List<PaymentProcessedEvent> events) {
+        // Collapse to the newest final outcome per order, so the batch becomes one statement per shard
+        Map<UUID, OrderStatusUpdate> latest = new LinkedHashMap<>();
+        for (PaymentProcessedEvent event : events) {
+            String status = OrderStatus.fromPaymentStatus(event.getStatus());
+            if (event.getOrderId() == null || status == null) {
+                continue;
+            }
+            LocalDateTime eventAt = event.getTimestamp() != null ? event.getTimestamp() : LocalDateTime.now();
+            latest.merge(event.getOrderId(), new OrderStatusUpdate(event.getOrderId(), status, eventAt),
+                    (current, candidate) -> candidate.getEventAt().isAfter(current.getEventAt()) ? candidate : current);
+        }
+        if (latest.isEmpty()) {
+            return 0;
+        }
+
+        int changedCount = 0;
+        for (Map.Entry<Integer, List<UUID>> shard : orderShards.groupByShard(latest.keySet()).entrySet()) {
+            List<OrderStatusUpdate> updates = shard.getValue().stream().map(latest::get).toList();
+            changedCount += orderShards.callOnShard(shard.getKey(), () -> transactionTemplate.execute(status -> {
+                List<UUID> changed = orderStatusUpdateRepository.updateStatuses(updates);
+                if (!changed.isEmpty()) {
+                    eventPublisher.publishEvent(new OrderStatusChangedEvent(changed));
+                }
+                return changed.size();
+            }));
+        }
+        log.info("Applied {} payment event(s) to {} order(s), {} changed", events.size(), latest.size(), changedCount);
+        return changedCount;
+    }
+}
@@ -0,0 +1,51 @@
+package com.swann.orderservice.sharding;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Consistent hash ring over shard indexes. Each shard owns many points on the
+ * ring and a key belongs to the shard of the next point at or after its hash.
+ * Points depend only on the shard index, so adding shard N takes about 1/(N+1)
+ * of the keys from the existing shards and moves none between them.
+ */
+public class ConsistentHashRing {
+
+    static final int POINTS_PER_SHARD = 512;
+
+    private final TreeMap<Long, Integer> ring = new TreeMap<>();
+
+    public ConsistentHashRing(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        for (int shard = 0; shard < shardCount; shard++) {
+            for (int point = 0; point < POINTS_PER_SHARD; point++) {
+                ring.put(mix(((long) shard << 32) | point), shard);
+            }
+        }
+    }
+
+    /**
+     * Get the shard that owns a key
+     *
+     * @param key the key, e.g. a customer ID
+     * @return the shard index
+     */
+    public int shardFor(UUID key) {
+        long hash = mix(key.getMostSignificantBits() ^ mix(key.getLeastSignificantBits()));
+        Map.Entry<Long, Integer> owner = ring.ceilingEntry(hash);
+        return owner != null ? owner.getValue() : ring.firstEntry().getValue();
+    }
+
+    // MurmurHash3 64-bit finalizer
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
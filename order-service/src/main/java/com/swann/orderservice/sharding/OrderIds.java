@@ -0,0 +1,69 @@
+package com.swann.orderservice.sharding;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Time-ordered order IDs that carry the shard they were stored on.
+ * Layout is a version 7 UUID: 48 bits of Unix milliseconds, then random bits,
+ * except that the top 10 bits after the variant hold the shard index.
+ * IDs of other versions (orders created before sharding) carry no hint.
+ */
+public final class OrderIds {
+
+    public static final int MAX_SHARDS = 1 << 10;
+
+    private static final int VERSION = 7;
+    private static final int SHARD_SHIFT = 52;
+    private static final long SHARD_MASK = MAX_SHARDS - 1;
+    private static final long VARIANT_BITS = 0x8000000000000000L;
+    private static final long RANDOM_MASK = (1L << SHARD_SHIFT) - 1;
+
+    private OrderIds() {
+    }
+
+    /**
+     * Create a new order ID for a shard
+     *
+     * @param shard the shard index
+     * @return a time-ordered ID with the shard encoded
+     */
+    public static UUID newOrderId(int shard) {
+        if (shard < 0 || shard >= MAX_SHARDS) {
+            throw new IllegalArgumentException("Shard index out of range: " + shard);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostSigBits = (System.currentTimeMillis() << 16) | ((long) VERSION << 12) | random.nextInt(1 << 12);
+        long leastSigBits = VARIANT_BITS | ((long) shard << SHARD_SHIFT) | (random.nextLong() & RANDOM_MASK);
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    /**
+     * Get the shard encoded in an order ID
+     *
+     * @param orderId the order ID
+     * @return the shard index, or empty if the ID was not created by {@link #newOrderId}
+     */
+    public static OptionalInt shardHint(UUID orderId) {
+        if (orderId.version() != VERSION || orderId.variant() != 2) {
+            return OptionalInt.empty();
+        }
+        return OptionalInt.of((int) ((orderId.getLeastSignificantBits() >>> SHARD_SHIFT) & SHARD_MASK));
+    }
+
+    /**
+     * Get the creation time encoded in an order ID
+     *
+     * @param orderId the order ID
+     * @return the time the ID was created, or empty if the ID was not created by {@link #newOrderId}
+     */
+    public static Optional<Instant> createdAt(UUID orderId) {
+        if (shardHint(orderId).isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(Instant.ofEpochMilli(orderId.getMostSignificantBits() >>> 16));
+    }
+}
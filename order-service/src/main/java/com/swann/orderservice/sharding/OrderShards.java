@@ -0,0 +1,139 @@
+package com.swann.orderservice.sharding;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Where orders live. A customer's orders all sit on the shard its ID hashes to,
+ * and each order ID carries that shard (see {@link OrderIds}), so lookups by
+ * customer or by order touch one shard. Work on a shard runs with the shard set
+ * for the current thread; start it outside any transaction, since a
+ * transaction's connection is bound to the shard of its first statement.
+ * <p>
+ * Changing the shard count reassigns some customers; their existing orders
+ * stay findable by ID but have to be moved for lookups by customer.
+ */
+public class OrderShards {
+
+    private final int count;
+    private final ConsistentHashRing ring;
+
+    public OrderShards(int count) {
+        if (count > OrderIds.MAX_SHARDS) {
+            throw new IllegalArgumentException("At most " + OrderIds.MAX_SHARDS + " shards are supported");
+        }
+        this.count = count;
+        this.ring = new ConsistentHashRing(count);
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Get the shard holding a customer's orders
+     *
+     * @param customerId the customer ID
+     * @return the shard index
+     */
+    public int shardOfCustomer(UUID customerId) {
+        return count == 1 ? ShardContext.DEFAULT_SHARD : ring.shardFor(customerId);
+    }
+
+    /**
+     * Get the shard an order was stored on
+     *
+     * @param orderId the order ID
+     * @return the shard index, or empty if the ID carries no usable hint
+     */
+    public OptionalInt shardOfOrder(UUID orderId) {
+        OptionalInt hint = OrderIds.shardHint(orderId);
+        if (hint.isPresent() && hint.getAsInt() >= count) {
+            return OptionalInt.empty();
+        }
+        return hint;
+    }
+
+    /**
+     * Run an action with a shard set for the current thread
+     *
+     * @param shard the shard index
+     * @param action the action
+     * @return the action's result
+     */
+    public <T> T callOnShard(int shard, Supplier<T> action) {
+        if (shard < 0 || shard >= count) {
+            throw new IllegalArgumentException("No shard " + shard + " among " + count);
+        }
+        Integer previous = ShardContext.set(shard);
+        try {
+            return action.get();
+        } finally {
+            ShardContext.restore(previous);
+        }
+    }
+
+    /**
+     * Run an action on every shard in turn
+     *
+     * @param action the action, run once per shard
+     */
+    public void runOnEachShard(Runnable action) {
+        for (int shard = 0; shard < count; shard++) {
+            callOnShard(shard, () -> {
+                action.run();
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Look up an order on the shard its ID names, or on each shard in turn
+     * until found when the ID carries no hint
+     *
+     * @param orderId the order ID
+     * @param lookup the lookup, run with the shard set
+     * @return the first result found
+     */
+    public <T> Optional<T> findOnShardOfOrder(UUID orderId, Supplier<Optional<T>> lookup) {
+        OptionalInt hint = shardOfOrder(orderId);
+        if (hint.isPresent()) {
+            return callOnShard(hint.getAsInt(), lookup);
+        }
+        for (int shard = 0; shard < count; shard++) {
+            Optional<T> found = callOnShard(shard, lookup);
+            if (found.isPresent()) {
+                return found;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Group order IDs by the shard to query for them
+     *
+     * @param orderIds the order IDs
+     * @return IDs per shard index, in encounter order; IDs without a hint are listed under every shard
+     */
+    public Map<Integer, List<UUID>> groupByShard(Collection<UUID> orderIds) {
+        Map<Integer, List<UUID>> byShard = new LinkedHashMap<>();
+        for (UUID orderId : orderIds) {
+            OptionalInt hint = shardOfOrder(orderId);
+            if (hint.isPresent()) {
+                byShard.computeIfAbsent(hint.getAsInt(), shard -> new ArrayList<>()).add(orderId);
+            } else {
+                for (int shard = 0; shard < count; shard++) {
+                    byShard.computeIfAbsent(shard, key -> new ArrayList<>()).add(orderId);
+                }
+            }
+        }
+        return byShard;
+    }
+}
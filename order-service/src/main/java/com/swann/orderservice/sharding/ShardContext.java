@@ -0,0 +1,39 @@
+package com.swann.orderservice.sharding;
+
+/**
+ * Shard of the code running on the current thread, set through {@link OrderShards}.
+ */
+public final class ShardContext {
+
+    /** Shard used when none was chosen; also holds orders created before sharding */
+    public static final int DEFAULT_SHARD = 0;
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    /**
+     * Get the shard chosen for the current thread
+     *
+     * @return the shard index, or the default shard if none was chosen
+     */
+    public static int current() {
+        Integer shard = CURRENT.get();
+        return shard != null ? shard : DEFAULT_SHARD;
+    }
+
+    static Integer set(int shard) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        return previous;
+    }
+
+    static void restore(Integer previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.swann.orderservice.sharding;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs the Flyway migrations on every shard. Flyway is configured with the
+ * routing data source, so each run reaches the shard set on the thread.
+ * Every shard ends on the same migration version, so Hibernate's validation
+ * of the default shard's schema stands for the others.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ShardMigrationStrategy implements FlywayMigrationStrategy {
+
+    private final OrderShards orderShards;
+
+    @Override
+    public void migrate(Flyway flyway) {
+        orderShards.runOnEachShard(() -> {
+            int applied = flyway.migrate().migrationsExecuted;
+            log.info("Applied {} migration(s) to shard {}", applied, ShardContext.current());
+        });
+    }
+}
@@ -0,0 +1,12 @@
+package com.swann.orderservice.storage;
+
+/**
+ * Where new orders keep their items, set by order.items.storage. Orders in
+ * either layout are always readable, so the mode can change at any time.
+ */
+public enum OrderItemStorage {
+    /** One order_items row per item, loaded with a second query on read */
+    TABLE,
+    /** A JSONB array in orders.items, written and read with the order row */
+    EMBEDDED
+}
@@ -0,0 +1,15 @@
+package db.migration;
+
+import com.swann.common.partition.MonthlyPartitionMigration;
+import com.swann.orderservice.partition.PartitionMaintenanceJob;
+
+/**
+ * Converts orders and order_items to monthly range partitions, keeping their
+ * rows as one partition. Runs on every shard with the other migrations.
+ */
+public class V4__Partition_orders_by_month extends MonthlyPartitionMigration {
+
+    public V4__Partition_orders_by_month() {
+        super(PartitionMaintenanceJob.TABLES);
+    }
+}
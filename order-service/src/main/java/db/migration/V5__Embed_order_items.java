@@ -0,0 +1,56 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * Moves the items of existing orders out of order_items onto the orders row
+ * as a JSONB array. Orders in either layout are readable, so this runs once per
+ * shard whatever order.items.storage is set to; orders created afterwards with
+ * table storage keep their item rows. Batches commit one at a time, outside a
+ * migration transaction, so a large table is not moved in one.
+ */
+public class V5__Embed_order_items extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 1000;
+
+    // Deletes a batch of orders' item rows and writes them to the orders as one JSONB array each
+    private static final String MOVE_ITEMS = "WITH batch AS ("
+            + " SELECT order_id FROM orders WHERE items IS NULL LIMIT ? FOR UPDATE"
+            + "), moved AS ("
+            + " DELETE FROM order_items i USING batch b WHERE i.order_id = b.order_id"
+            + " RETURNING i.order_id, i.order_item_id, i.product_id, i.quantity, i.unit_price"
+            + ") UPDATE orders o SET items = COALESCE((SELECT jsonb_agg(jsonb_build_object("
+            + "'orderItemId', m.order_item_id, 'productId', m.product_id, 'quantity', m.quantity, 'unitPrice', m.unit_price)"
+            + " ORDER BY m.order_item_id) FROM moved m WHERE m.order_id = o.order_id), '[]'::jsonb)"
+            + " FROM batch b WHERE o.order_id = b.order_id";
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) {
+        // Suppress close: the connection belongs to Flyway
+        moveItems(new JdbcTemplate(new SingleConnectionDataSource(context.getConnection(), true)));
+    }
+
+    /**
+     * Move the items of every order that has no embedded items yet. Orders
+     * without item rows get an empty array.
+     *
+     * @return the number of orders moved
+     */
+    public int moveItems(JdbcTemplate jdbcTemplate) {
+        int moved = 0;
+        int batch;
+        do {
+            batch = jdbcTemplate.update(MOVE_ITEMS, BATCH_SIZE);
+            moved += batch;
+        } while (batch > 0);
+        return moved;
+    }
+}
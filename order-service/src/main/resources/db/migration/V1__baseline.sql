@@ -0,0 +1,55 @@
+-- Schema as ddl-auto: update left it. spring.flyway.baseline-version is 0, so databases created
+-- that way run this too: IF NOT EXISTS skips the tables they have, and ADD COLUMN IF NOT EXISTS
+-- brings tables created before Flyway up to the columns added since.
+
+CREATE TABLE IF NOT EXISTS orders (
+    order_id         uuid          NOT NULL,
+    customer_id      uuid          NOT NULL,
+    idempotency_key  varchar(255),
+    total_amount     numeric(38,2) NOT NULL,
+    status           varchar(255)  NOT NULL,
+    payment_event_at timestamp(6),
+    created_at       timestamp(6)  NOT NULL,
+    updated_at       timestamp(6),
+    items            jsonb,
+    CONSTRAINT orders_pkey PRIMARY KEY (order_id)
+);
+
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS idempotency_key varchar(255);
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS payment_event_at timestamp(6);
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS items jsonb;
+
+CREATE INDEX IF NOT EXISTS idx_orders_customer_idempotency_key ON orders (customer_id, idempotency_key);
+
+CREATE TABLE IF NOT EXISTS order_items (
+    order_item_id uuid          NOT NULL,
+    order_id      uuid          NOT NULL,
+    product_id    uuid          NOT NULL,
+    quantity      integer       NOT NULL,
+    unit_price    numeric(38,2) NOT NULL,
+    created_at    timestamp(6),
+    CONSTRAINT order_items_pkey PRIMARY KEY (order_item_id)
+);
+
+ALTER TABLE order_items ADD COLUMN IF NOT EXISTS created_at timestamp(6);
+
+CREATE TABLE IF NOT EXISTS order_views (
+    order_id     uuid          NOT NULL,
+    customer_id  uuid          NOT NULL,
+    total_amount numeric(38,2) NOT NULL,
+    status       varchar(255)  NOT NULL,
+    items        jsonb         NOT NULL,
+    created_at   timestamp(6)  NOT NULL,
+    updated_at   timestamp(6),
+    CONSTRAINT order_views_pkey PRIMARY KEY (order_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_order_views_customer_id ON order_views (customer_id, created_at);
+
+CREATE TABLE IF NOT EXISTS order_idempotency_keys (
+    customer_id     uuid         NOT NULL,
+    idempotency_key varchar(255) NOT NULL,
+    order_id        uuid         NOT NULL,
+    created_at      timestamp(6) NOT NULL,
+    CONSTRAINT order_idempotency_keys_pkey PRIMARY KEY (customer_id, idempotency_key)
+);
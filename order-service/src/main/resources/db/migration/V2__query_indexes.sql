@@ -0,0 +1,14 @@
+-- Indexes for the repository queries; RepositoryQueryPlanTest fails if one of them seq-scans.
+-- orders.customer_id (findByCustomerId) is covered by idx_orders_customer_idempotency_key.
+
+-- Lazy load of an order's items, and the order_views backfill
+CREATE INDEX IF NOT EXISTS idx_order_items_order_id ON order_items (order_id);
+
+-- findContainingProduct, for orders whose items are still rows
+CREATE INDEX IF NOT EXISTS idx_order_items_product_id ON order_items (product_id);
+
+-- findContainingProduct, for embedded items; jsonb_path_ops is smaller and serves @> containment
+CREATE INDEX IF NOT EXISTS idx_orders_items ON orders USING GIN (items jsonb_path_ops);
+
+-- Nightly expiry of idempotency keys
+CREATE INDEX IF NOT EXISTS idx_order_idempotency_keys_created_at ON order_idempotency_keys (created_at);
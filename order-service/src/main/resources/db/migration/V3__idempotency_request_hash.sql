@@ -0,0 +1,3 @@
+-- Hash of the request that claimed each idempotency key, so a key reused for a different
+-- request is refused. Keys claimed before this column existed keep NULL and are not checked.
+ALTER TABLE order_idempotency_keys ADD COLUMN IF NOT EXISTS request_hash varchar(64);
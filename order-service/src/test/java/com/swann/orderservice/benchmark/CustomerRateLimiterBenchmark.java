@@ -0,0 +1,74 @@
+package com.swann.orderservice.benchmark;
+
+import com.swann.orderservice.ratelimit.CustomerRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission check cost with many active customers, admitted and refused.
+ * Run with: {@code ./mvnw test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.swann.orderservice.benchmark.CustomerRateLimiterBenchmark}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class CustomerRateLimiterBenchmark {
+
+    @Param({"1000", "100000"})
+    private int customers;
+
+    private CustomerRateLimiter admitting;
+    private CustomerRateLimiter refusing;
+    private UUID[] customerIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // A burst deep enough that spread-out customers never run dry
+        admitting = new CustomerRateLimiter(new SimpleMeterRegistry(), 1_000_000, 1_000_000, customers);
+        // One request a minute, so every customer is over the limit after setup
+        refusing = new CustomerRateLimiter(new SimpleMeterRegistry(), 1.0 / 60, 1, customers);
+        customerIds = new UUID[customers];
+        for (int i = 0; i < customers; i++) {
+            customerIds[i] = UUID.randomUUID();
+            admitting.tryAcquire(customerIds[i]);
+            refusing.tryAcquire(customerIds[i]);
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long acquireAdmitted() {
+        return admitting.tryAcquire(customerIds[ThreadLocalRandom.current().nextInt(customers)]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long acquireRefused() {
+        return refusing.tryAcquire(customerIds[ThreadLocalRandom.current().nextInt(customers)]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long acquireSingleCustomer() {
+        return admitting.tryAcquire(customerIds[0]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(CustomerRateLimiterBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,52 @@
+package com.swann.orderservice.consumer;
+
+import com.swann.orderservice.lookup.OrderIdFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.longThat;
+import static org.mockito.Mockito.*;
+
+class OrderCreatedEventConsumerTest {
+
+    private final OrderIdFilter orderIdFilter = new OrderIdFilter(new SimpleMeterRegistry(), 1_000, 0.01);
+
+    @Test
+    void onPartitionsAssigned_ShouldReadFromBeforeStartup() {
+        // Given
+        long before = System.currentTimeMillis();
+        OrderCreatedEventConsumer consumer = new OrderCreatedEventConsumer(orderIdFilter, 60_000);
+        TopicPartition partition = new TopicPartition("order-created", 0);
+        ConsumerSeekAware.ConsumerSeekCallback callback = mock(ConsumerSeekAware.ConsumerSeekCallback.class);
+
+        // When
+        consumer.onPartitionsAssigned(Map.of(partition, 42L), callback);
+
+        // Then
+        verify(callback).seekToTimestamp(eq(Set.of(partition)),
+                longThat(timestamp -> timestamp <= before - 60_000 + 1_000 && timestamp >= before - 60_000));
+    }
+
+    @Test
+    void handleOrderCreated_ShouldAddOrderIdFromKey() {
+        // Given
+        OrderCreatedEventConsumer consumer = new OrderCreatedEventConsumer(orderIdFilter, 60_000);
+        orderIdFilter.markLoaded();
+        UUID orderId = UUID.randomUUID();
+
+        // When
+        consumer.handleOrderCreated(new ConsumerRecord<>("order-created", 0, 0, orderId.toString(), new byte[0]));
+
+        // Then
+        assertTrue(orderIdFilter.mightExist(orderId));
+    }
+}
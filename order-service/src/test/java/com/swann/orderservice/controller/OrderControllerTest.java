@@ -1,32 +1,54 @@
 package com.swann.orderservice.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.swann.orderservice.cache.OrderResponseCache;
+import com.swann.orderservice.dto.BulkOrderLookupRequest;
 import com.swann.orderservice.dto.CreateOrderRequest;
 import com.swann.orderservice.dto.OrderResponse;
+import com.swann.orderservice.idempotency.IdempotencyKeyMismatchException;
+import com.swann.orderservice.idempotency.RequestInProgressException;
+import com.swann.orderservice.lookup.OrderIdFilter;
 import com.swann.orderservice.service.OrderService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -37,6 +59,17 @@ public class OrderControllerTest {
     @Mock
     private OrderService orderService;
 
+    @Spy
+    private OrderResponseCache orderResponseCache =
+            new OrderResponseCache(JsonMapper.builder().findAndAddModules().build(), 1_000_000, Duration.ofMinutes(10));
+
+    // Not loaded yet, so every ID passes until a test loads it
+    @Spy
+    private OrderIdFilter orderIdFilter = new OrderIdFilter(new SimpleMeterRegistry(), 1_000, 0.01);
+
+    @Spy
+    private ObjectMapper jsonMapper = JsonMapper.builder().findAndAddModules().build();
+
     @InjectMocks
     private OrderController orderController;
 
@@ -51,6 +84,7 @@ public class OrderControllerTest {
     void setUp() {
         objectMapper = new ObjectMapper();
         mockMvc = MockMvcBuilders.standaloneSetup(orderController).build();
+        ReflectionTestUtils.setField(orderController, "bulkLookupStreamThreshold", 200);
         orderId = UUID.randomUUID();
         customerId = UUID.randomUUID();
 
@@ -102,6 +136,42 @@ public class OrderControllerTest {
                 .andExpect(jsonPath("$.items[0].unitPrice").value(19.99));
     }
 
+    @Test
+    void createOrder_WithIdempotencyKey_ShouldPassKeyToService() throws Exception {
+        when(orderService.createOrder(any(CreateOrderRequest.class), eq("key-1"))).thenReturn(orderResponse);
+
+        mockMvc.perform(post("/orders")
+                .header("Idempotency-Key", "key-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createOrderRequest)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.orderId").value(orderId.toString()));
+    }
+
+    @Test
+    void createOrder_WhenSameKeyStillInProgress_ShouldReturnConflict() throws Exception {
+        when(orderService.createOrder(any(CreateOrderRequest.class), eq("key-1")))
+                .thenThrow(new RequestInProgressException("in progress"));
+
+        mockMvc.perform(post("/orders")
+                .header("Idempotency-Key", "key-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createOrderRequest)))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void createOrder_WhenKeyUsedForDifferentRequest_ShouldReturnUnprocessableEntity() throws Exception {
+        when(orderService.createOrder(any(CreateOrderRequest.class), eq("key-1")))
+                .thenThrow(new IdempotencyKeyMismatchException("different request"));
+
+        mockMvc.perform(post("/orders")
+                .header("Idempotency-Key", "key-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createOrderRequest)))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
     @Test
     void getOrderById_ShouldReturnOrder() throws Exception {
         when(orderService.getOrderById(orderId)).thenReturn(orderResponse);
@@ -114,6 +184,49 @@ public class OrderControllerTest {
                 .andExpect(jsonPath("$.status").value("PENDING"));
     }
 
+    @Test
+    void getOrderById_WhenOrderIsFinal_ShouldServeCachedBytesWithETag() throws Exception {
+        orderResponse.setStatus("PAID");
+        when(orderService.getOrderById(orderId)).thenReturn(orderResponse);
+
+        String etag = mockMvc.perform(get("/orders/{orderId}", orderId))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/orders/{orderId}", orderId))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(jsonPath("$.orderId").value(orderId.toString()))
+                .andExpect(jsonPath("$.status").value("PAID"));
+
+        mockMvc.perform(get("/orders/{orderId}", orderId).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag));
+
+        verify(orderService, times(1)).getOrderById(orderId);
+    }
+
+    @Test
+    void getOrderById_WhenOrderIsPending_ShouldNotCache() throws Exception {
+        when(orderService.getOrderById(orderId)).thenReturn(orderResponse);
+
+        mockMvc.perform(get("/orders/{orderId}", orderId)).andExpect(status().isOk());
+        mockMvc.perform(get("/orders/{orderId}", orderId)).andExpect(status().isOk());
+
+        verify(orderService, times(2)).getOrderById(orderId);
+    }
+
+    @Test
+    void getOrderById_WhenIdNotInFilter_ShouldReturnNotFoundWithoutLookup() throws Exception {
+        orderIdFilter.load(Stream.of(UUID.randomUUID()));
+
+        mockMvc.perform(get("/orders/{orderId}", orderId))
+                .andExpect(status().isNotFound());
+
+        verify(orderService, never()).getOrderById(any());
+    }
+
     @Test
     void getOrderById_WhenOrderNotFound_ShouldReturnNotFound() throws Exception {
         when(orderService.getOrderById(orderId)).thenThrow(new EntityNotFoundException("Order not found"));
@@ -144,4 +257,66 @@ public class OrderControllerTest {
         mockMvc.perform(get("/orders/customer/{customerId}", customerId))
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    void getOrdersContainingProduct_ShouldCapLimit() throws Exception {
+        UUID productId = UUID.randomUUID();
+        when(orderService.getOrdersContainingProduct(productId, OrderController.MAX_PRODUCT_ORDERS))
+                .thenReturn(List.of(orderResponse));
+
+        mockMvc.perform(get("/orders/product/{productId}", productId).param("limit", "1000000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].orderId").value(orderId.toString()));
+    }
+
+    @Test
+    void lookupOrders_ShouldReturnFoundOrdersKeyedByIdAndListMisses() throws Exception {
+        UUID unknownId = UUID.randomUUID();
+        when(orderService.getOrdersByIds(List.of(orderId, unknownId))).thenReturn(Map.of(orderId, orderResponse));
+
+        MvcResult result = mockMvc.perform(post("/orders/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new BulkOrderLookupRequest(List.of(orderId, unknownId, orderId)))))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        verify(orderService, never()).streamOrdersByIds(any(), any());
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orders['" + orderId + "'].status").value("PENDING"))
+                .andExpect(jsonPath("$.missing.length()").value(1))
+                .andExpect(jsonPath("$.missing[0]").value(unknownId.toString()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void lookupOrders_WhenManyIds_ShouldStreamChunks() throws Exception {
+        ReflectionTestUtils.setField(orderController, "bulkLookupStreamThreshold", 1);
+        UUID unknownId = UUID.randomUUID();
+        doAnswer(invocation -> {
+            Consumer<List<OrderResponse>> handler = invocation.getArgument(1);
+            handler.accept(List.of(orderResponse));
+            handler.accept(List.of());
+            return null;
+        }).when(orderService).streamOrdersByIds(any(), any());
+
+        MvcResult result = mockMvc.perform(post("/orders/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new BulkOrderLookupRequest(List.of(orderId, unknownId)))))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orders['" + orderId + "'].orderId").value(orderId.toString()))
+                .andExpect(jsonPath("$.missing[0]").value(unknownId.toString()));
+    }
+
+    @Test
+    void lookupOrders_WhenNoIds_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(post("/orders/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new BulkOrderLookupRequest(List.of()))))
+                .andExpect(status().isBadRequest());
+    }
 }
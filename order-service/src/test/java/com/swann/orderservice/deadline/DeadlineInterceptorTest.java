@@ -0,0 +1,120 @@
+package com.swann.orderservice.deadline;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeadlineInterceptorTest {
+
+    private DeadlineInterceptor interceptor;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() {
+        interceptor = new DeadlineInterceptor(Duration.ofSeconds(5), Duration.ofSeconds(30));
+        request = new MockHttpServletRequest("GET", "/orders/1");
+        response = new MockHttpServletResponse();
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestDeadline.clear();
+    }
+
+    @Test
+    void preHandle_WithoutHeader_ShouldUseEndpointDefault() throws Exception {
+        // When
+        boolean proceed = interceptor.preHandle(request, response, handler("annotated"));
+
+        // Then
+        assertTrue(proceed);
+        assertTrue(RequestDeadline.isActive());
+        assertTrue(RequestDeadline.remainingMillis() <= 2_000);
+        assertTrue(RequestDeadline.remainingMillis() > 1_000);
+    }
+
+    @Test
+    void preHandle_WithoutHeaderOrAnnotation_ShouldUseServiceDefault() throws Exception {
+        // When
+        interceptor.preHandle(request, response, handler("plain"));
+
+        // Then
+        assertTrue(RequestDeadline.remainingMillis() > 4_000);
+    }
+
+    @Test
+    void preHandle_WithHeader_ShouldUseClientTimeoutUpToMaximum() throws Exception {
+        // Given
+        request.addHeader(DeadlineInterceptor.TIMEOUT_HEADER, "600000");
+
+        // When
+        interceptor.preHandle(request, response, handler("annotated"));
+
+        // Then
+        assertTrue(RequestDeadline.remainingMillis() <= 30_000);
+        assertTrue(RequestDeadline.remainingMillis() > 29_000);
+    }
+
+    @Test
+    void preHandle_WithNoTimeLeft_ShouldRefuseRequest() throws Exception {
+        // Given
+        request.addHeader(DeadlineInterceptor.TIMEOUT_HEADER, "0");
+
+        // When
+        boolean proceed = interceptor.preHandle(request, response, handler("plain"));
+
+        // Then
+        assertFalse(proceed);
+        assertEquals(HttpStatus.GATEWAY_TIMEOUT.value(), response.getStatus());
+        assertFalse(RequestDeadline.isActive());
+    }
+
+    @Test
+    void preHandle_WithMalformedHeader_ShouldRejectRequest() throws Exception {
+        // Given
+        request.addHeader(DeadlineInterceptor.TIMEOUT_HEADER, "soon");
+
+        // When
+        boolean proceed = interceptor.preHandle(request, response, handler("plain"));
+
+        // Then
+        assertFalse(proceed);
+        assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatus());
+    }
+
+    @Test
+    void afterCompletion_ShouldClearDeadline() throws Exception {
+        // Given
+        interceptor.preHandle(request, response, handler("plain"));
+
+        // When
+        interceptor.afterCompletion(request, response, handler("plain"), null);
+
+        // Then
+        assertFalse(RequestDeadline.isActive());
+        assertEquals(Long.MAX_VALUE, RequestDeadline.remainingMillis());
+    }
+
+    private static HandlerMethod handler(String name) throws NoSuchMethodException {
+        return new HandlerMethod(new Handlers(), Handlers.class.getMethod(name));
+    }
+
+    public static class Handlers {
+
+        @RequestTimeout(millis = 2_000)
+        public void annotated() {
+        }
+
+        public void plain() {
+        }
+    }
+}
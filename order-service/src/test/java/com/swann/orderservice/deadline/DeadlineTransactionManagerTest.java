@@ -0,0 +1,68 @@
+package com.swann.orderservice.deadline;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class DeadlineTransactionManagerTest {
+
+    private EntityManagerFactory entityManagerFactory;
+    private DeadlineTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        entityManagerFactory = mock(EntityManagerFactory.class);
+        transactionManager = new DeadlineTransactionManager();
+        transactionManager.setEntityManagerFactory(entityManagerFactory);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestDeadline.clear();
+    }
+
+    @Test
+    void determineTimeout_OutsideRequest_ShouldKeepTransactionTimeout() {
+        // Given
+        DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+        definition.setTimeout(30);
+
+        // When / Then
+        assertEquals(30, transactionManager.determineTimeout(definition));
+        assertEquals(TransactionDefinition.TIMEOUT_DEFAULT, transactionManager.determineTimeout(new DefaultTransactionDefinition()));
+    }
+
+    @Test
+    void determineTimeout_InsideRequest_ShouldEndByDeadline() {
+        // Given
+        RequestDeadline.start(Duration.ofMillis(2_500));
+        DefaultTransactionDefinition longer = new DefaultTransactionDefinition();
+        longer.setTimeout(30);
+        DefaultTransactionDefinition shorter = new DefaultTransactionDefinition();
+        shorter.setTimeout(1);
+
+        // When / Then
+        assertEquals(3, transactionManager.determineTimeout(new DefaultTransactionDefinition()));
+        assertEquals(3, transactionManager.determineTimeout(longer));
+        assertEquals(1, transactionManager.determineTimeout(shorter));
+    }
+
+    @Test
+    void getTransaction_AfterDeadline_ShouldNotBegin() {
+        // Given
+        RequestDeadline.start(Duration.ZERO);
+
+        // When / Then
+        assertThrows(DeadlineExceededException.class, () -> transactionManager.getTransaction(new DefaultTransactionDefinition()));
+        verifyNoInteractions(entityManagerFactory);
+    }
+}
@@ -0,0 +1,50 @@
+package com.swann.orderservice.event;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SummaryHeadersProducerInterceptorTest {
+
+    private final SummaryHeadersProducerInterceptor interceptor = new SummaryHeadersProducerInterceptor();
+
+    @Test
+    void onSend_ShouldAddSummaryHeadersForOrderCreatedEvent() {
+        // Given
+        UUID orderId = UUID.randomUUID();
+        UUID customerId = UUID.randomUUID();
+        OrderCreatedEvent event = new OrderCreatedEvent(orderId, customerId, new BigDecimal("39.98"), "PENDING",
+                List.of(new OrderCreatedEvent.OrderItemDto(UUID.randomUUID(), 2, new BigDecimal("19.99"))));
+
+        // When
+        ProducerRecord<String, Object> record = interceptor.onSend(
+                new ProducerRecord<>("order-created", orderId.toString(), event));
+
+        // Then
+        assertEquals("ORDER_CREATED", header(record, EventHeaders.EVENT_TYPE));
+        assertEquals(orderId.toString(), header(record, EventHeaders.ORDER_ID));
+        assertEquals(customerId.toString(), header(record, EventHeaders.CUSTOMER_ID));
+        assertEquals("39.98", header(record, EventHeaders.TOTAL_AMOUNT));
+        assertEquals("PENDING", header(record, EventHeaders.STATUS));
+        assertEquals("1", header(record, EventHeaders.ITEM_COUNT));
+    }
+
+    @Test
+    void onSend_ShouldLeaveOtherValuesUntouched() {
+        // When
+        ProducerRecord<String, Object> record = interceptor.onSend(new ProducerRecord<>("other", "key", "value"));
+
+        // Then
+        assertFalse(record.headers().iterator().hasNext());
+    }
+
+    private static String header(ProducerRecord<String, Object> record, String name) {
+        return new String(record.headers().lastHeader(name).value(), StandardCharsets.UTF_8);
+    }
+}
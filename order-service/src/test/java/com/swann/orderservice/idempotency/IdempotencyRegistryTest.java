@@ -0,0 +1,129 @@
+package com.swann.orderservice.idempotency;
+
+import com.swann.orderservice.deadline.DeadlineExceededException;
+import com.swann.orderservice.deadline.RequestDeadline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyRegistryTest {
+
+    private IdempotencyRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new IdempotencyRegistry(new SimpleMeterRegistry(), 1000, 60_000, 5_000);
+    }
+
+    @Test
+    void execute_WhenDuplicateArrivesDuringFirstRequest_ShouldWaitAndShareResult() throws Exception {
+        // Given
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> registry.execute("key", () -> {
+            runs.incrementAndGet();
+            started.countDown();
+            await(release);
+            return "order-1";
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // When
+        CompletableFuture<String> duplicate = CompletableFuture.supplyAsync(() -> registry.execute("key", () -> {
+            runs.incrementAndGet();
+            return "order-2";
+        }));
+        release.countDown();
+
+        // Then
+        assertEquals("order-1", first.get(5, TimeUnit.SECONDS));
+        assertEquals("order-1", duplicate.get(5, TimeUnit.SECONDS));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void execute_WhenFirstAttemptFails_ShouldLetRetryRun() {
+        // Given
+        assertThrows(IllegalArgumentException.class, () -> registry.execute("key", () -> {
+            throw new IllegalArgumentException("boom");
+        }));
+
+        // When
+        String result = registry.execute("key", () -> "order-1");
+
+        // Then
+        assertEquals("order-1", result);
+    }
+
+    @Test
+    void execute_WhenKeyReusedForDifferentRequest_ShouldRefuseIt() {
+        // Given
+        registry.execute("key", "fingerprint-1", () -> "order-1");
+
+        // When & Then
+        assertEquals("order-1", registry.execute("key", "fingerprint-1", () -> "order-2"));
+        assertThrows(IdempotencyKeyMismatchException.class, () -> registry.execute("key", "fingerprint-2", () -> "order-2"));
+    }
+
+    @Test
+    void execute_WhenFirstRequestOutlastsWaitTimeout_ShouldThrowInProgress() throws Exception {
+        // Given
+        IdempotencyRegistry impatient = new IdempotencyRegistry(new SimpleMeterRegistry(), 1000, 60_000, 50);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture.runAsync(() -> impatient.execute("key", () -> {
+            started.countDown();
+            await(release);
+            return "order-1";
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        try {
+            // When & Then
+            assertThrows(RequestInProgressException.class, () -> impatient.execute("key", () -> "order-2"));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void execute_WhenCallerDeadlinePassesFirst_ShouldStopWaiting() throws Exception {
+        // Given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture.runAsync(() -> registry.execute("key", () -> {
+            started.countDown();
+            await(release);
+            return "order-1";
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        RequestDeadline.start(Duration.ofMillis(50));
+
+        try {
+            // When & Then
+            long waitStarted = System.nanoTime();
+            assertThrows(DeadlineExceededException.class, () -> registry.execute("key", () -> "order-2"));
+            assertTrue(System.nanoTime() - waitStarted < TimeUnit.SECONDS.toNanos(2));
+        } finally {
+            RequestDeadline.clear();
+            release.countDown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.swann.orderservice.idempotency;
+
+import com.swann.orderservice.dto.CreateOrderRequest;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestFingerprintTest {
+
+    private final UUID customerId = UUID.randomUUID();
+    private final UUID productId = UUID.randomUUID();
+
+    @Test
+    void of_ShouldIgnoreAmountScale() {
+        assertEquals(RequestFingerprint.of(request(2, "19.99", "39.98")), RequestFingerprint.of(request(2, "19.990", "39.980")));
+    }
+
+    @Test
+    void of_ShouldDifferWhenItemsDiffer() {
+        assertNotEquals(RequestFingerprint.of(request(2, "19.99", "39.98")), RequestFingerprint.of(request(3, "19.99", "39.98")));
+    }
+
+    private CreateOrderRequest request(int quantity, String unitPrice, String total) {
+        return new CreateOrderRequest(customerId,
+                List.of(new CreateOrderRequest.OrderItemRequest(productId, quantity, new BigDecimal(unitPrice))),
+                new BigDecimal(total));
+    }
+}
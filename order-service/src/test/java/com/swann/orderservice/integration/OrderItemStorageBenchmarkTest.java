@@ -0,0 +1,190 @@
+package com.swann.orderservice.integration;
+
+import com.swann.orderservice.TestcontainersConfiguration;
+import com.swann.orderservice.dto.CreateOrderRequest;
+import com.swann.orderservice.dto.OrderResponse;
+import com.swann.orderservice.model.Order;
+import com.swann.orderservice.repository.OrderRepository;
+import com.swann.orderservice.service.OrderService;
+import com.swann.orderservice.storage.OrderItemStorage;
+import db.migration.V5__Embed_order_items;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Writes and reads the same orders with items in order_items and embedded in
+ * orders.items, and asserts on the statements issued. Inserts per second and
+ * read latency are reported in the failure message. Reads load an order with
+ * its items through the write model.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(TestcontainersConfiguration.class)
+@ActiveProfiles("test")
+@EmbeddedKafka(partitions = 1, topics = {"order-created"})
+@DirtiesContext
+@Testcontainers
+public class OrderItemStorageBenchmarkTest {
+
+    private static final int ORDERS = 500;
+    private static final int ITEMS_PER_ORDER = 5;
+    private static final int READS = 2_000;
+    private static final int PRODUCTS = 200;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private List<UUID> productIds;
+    private Random random;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("TRUNCATE orders, order_items, order_views");
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        random = new Random(42);
+        productIds = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            productIds.add(UUID.randomUUID());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        useStorage(OrderItemStorage.TABLE);
+    }
+
+    @Test
+    void embeddedItemsShouldCutStatementsPerInsertAndRead() {
+        // Given
+        createOrders(OrderItemStorage.TABLE, 50);
+        createOrders(OrderItemStorage.EMBEDDED, 50);
+
+        // When
+        Run table = run(OrderItemStorage.TABLE);
+        Run embedded = run(OrderItemStorage.EMBEDDED);
+
+        // Then
+        String results = table.summary() + "\n" + embedded.summary();
+        assertTrue(embedded.insertStatements * 2 < table.insertStatements,
+                "expected at most half the insert statements:\n" + results);
+        assertTrue(embedded.readStatements < table.readStatements,
+                "expected fewer read statements:\n" + results);
+    }
+
+    @Test
+    void migrationShouldMoveItemsOntoOrdersAndKeepThemFindableByProduct() {
+        // Given
+        UUID productId = productIds.get(0);
+        List<UUID> orderIds = createOrders(OrderItemStorage.TABLE, 20);
+        assertEquals(20, orderService.getOrdersContainingProduct(productId, 100).size());
+
+        // When
+        int moved = new V5__Embed_order_items().moveItems(jdbcTemplate);
+
+        // Then
+        assertEquals(20, moved);
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from order_items", Integer.class));
+        List<OrderResponse> found = orderService.getOrdersContainingProduct(productId, 100);
+        assertEquals(20, found.size());
+        assertTrue(found.stream().allMatch(order -> order.getItems().size() == ITEMS_PER_ORDER));
+        assertTrue(orderIds.containsAll(found.stream().map(OrderResponse::getOrderId).toList()));
+        assertEquals(0, new V5__Embed_order_items().moveItems(jdbcTemplate));
+
+        String plan = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+            return String.join("\n", jdbcTemplate.queryForList("EXPLAIN SELECT order_id FROM orders"
+                    + " WHERE items @> jsonb_build_array(jsonb_build_object('productId', '" + productId + "'))", String.class));
+        });
+        assertTrue(plan.contains("Bitmap Index Scan"), plan);
+    }
+
+    private Run run(OrderItemStorage storage) {
+        statistics.clear();
+        long started = System.nanoTime();
+        List<UUID> orderIds = createOrders(storage, ORDERS);
+        double insertSeconds = (System.nanoTime() - started) / 1e9;
+        long insertStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        long[] latencies = new long[READS];
+        for (int i = 0; i < READS; i++) {
+            UUID orderId = orderIds.get(random.nextInt(orderIds.size()));
+            long readStarted = System.nanoTime();
+            Integer items = transactionTemplate.execute(status -> {
+                Order order = orderRepository.findById(orderId).orElseThrow();
+                return order.getItems() != null ? order.getItems().size() : order.getOrderItems().size();
+            });
+            latencies[i] = System.nanoTime() - readStarted;
+            assertEquals(ITEMS_PER_ORDER, items);
+        }
+        Arrays.sort(latencies);
+        return new Run(storage, ORDERS / insertSeconds, insertStatements, statistics.getPrepareStatementCount(),
+                latencies[READS / 2], latencies[READS * 99 / 100]);
+    }
+
+    private List<UUID> createOrders(OrderItemStorage storage, int count) {
+        useStorage(storage);
+        List<UUID> orderIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            List<CreateOrderRequest.OrderItemRequest> items = new ArrayList<>();
+            // The first product is in every order so the migration test can search for it
+            items.add(new CreateOrderRequest.OrderItemRequest(productIds.get(0), 1, new BigDecimal("9.99")));
+            for (int j = 1; j < ITEMS_PER_ORDER; j++) {
+                items.add(new CreateOrderRequest.OrderItemRequest(
+                        productIds.get(1 + random.nextInt(PRODUCTS - 1)), 1 + random.nextInt(3), new BigDecimal("9.99")));
+            }
+            OrderResponse order = orderService.createOrder(new CreateOrderRequest(UUID.randomUUID(), items, new BigDecimal("49.95")));
+            orderIds.add(order.getOrderId());
+        }
+        return orderIds;
+    }
+
+    private void useStorage(OrderItemStorage storage) {
+        ReflectionTestUtils.setField(AopTestUtils.getTargetObject(orderService), "itemStorage", storage);
+    }
+
+    private record Run(OrderItemStorage storage, double insertsPerSecond, long insertStatements, long readStatements,
+                       long readP50Nanos, long readP99Nanos) {
+
+        String summary() {
+            return String.format("%-8s %8.0f inserts/s, %5d insert statements, %5d read statements, read p50 %.2f ms, p99 %.2f ms",
+                    storage, insertsPerSecond, insertStatements, readStatements, readP50Nanos / 1e6, readP99Nanos / 1e6);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.swann.orderservice.integration;
+
+import com.swann.orderservice.dto.CreateOrderRequest;
+import com.swann.orderservice.dto.OrderResponse;
+import com.swann.orderservice.sharding.OrderIds;
+import com.swann.orderservice.sharding.OrderShards;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs order-service against two Postgres containers as shards.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@EmbeddedKafka(partitions = 1, topics = {"order-created"})
+@DirtiesContext
+@Testcontainers
+public class OrderShardingIntegrationTest {
+
+    @Container
+    static final PostgreSQLContainer<?> FIRST_SHARD = new PostgreSQLContainer<>(DockerImageName.parse("postgres:latest"));
+
+    @Container
+    static final PostgreSQLContainer<?> SECOND_SHARD = new PostgreSQLContainer<>(DockerImageName.parse("postgres:latest"));
+
+    @DynamicPropertySource
+    static void shardProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", FIRST_SHARD::getJdbcUrl);
+        registry.add("spring.datasource.username", FIRST_SHARD::getUsername);
+        registry.add("spring.datasource.password", FIRST_SHARD::getPassword);
+        registry.add("order.sharding.urls", () -> FIRST_SHARD.getJdbcUrl() + "," + SECOND_SHARD.getJdbcUrl());
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private OrderShards orderShards;
+
+    private String baseUrl;
+    private List<JdbcTemplate> shardDatabases;
+
+    @BeforeEach
+    void setUp() {
+        baseUrl = "http://localhost:" + port + "/orders";
+        shardDatabases = List.of(jdbc(FIRST_SHARD), jdbc(SECOND_SHARD));
+    }
+
+    @Test
+    void shouldStoreEachCustomersOrdersOnItsShardOnly() {
+        assertEquals(2, orderShards.getCount());
+
+        for (int shard = 0; shard < 2; shard++) {
+            // Given
+            UUID customerId = customerOnShard(shard);
+
+            // When
+            ResponseEntity<OrderResponse> created = restTemplate.postForEntity(baseUrl, orderRequest(customerId), OrderResponse.class);
+
+            // Then
+            assertEquals(HttpStatus.CREATED, created.getStatusCode());
+            UUID orderId = created.getBody().getOrderId();
+            assertEquals(OptionalInt.of(shard), OrderIds.shardHint(orderId));
+            assertEquals(1, countOrders(shard, orderId));
+            assertEquals(0, countOrders(1 - shard, orderId));
+
+            ResponseEntity<OrderResponse> byId = restTemplate.getForEntity(baseUrl + "/" + orderId, OrderResponse.class);
+            assertEquals(HttpStatus.OK, byId.getStatusCode());
+            assertEquals(customerId, byId.getBody().getCustomerId());
+
+            ResponseEntity<OrderResponse[]> byCustomer = restTemplate.getForEntity(baseUrl + "/customer/" + customerId, OrderResponse[].class);
+            assertEquals(HttpStatus.OK, byCustomer.getStatusCode());
+            assertEquals(1, byCustomer.getBody().length);
+            assertEquals(orderId, byCustomer.getBody()[0].getOrderId());
+        }
+    }
+
+    private UUID customerOnShard(int shard) {
+        UUID customerId;
+        do {
+            customerId = UUID.randomUUID();
+        } while (orderShards.shardOfCustomer(customerId) != shard);
+        return customerId;
+    }
+
+    private int countOrders(int shard, UUID orderId) {
+        return shardDatabases.get(shard).queryForObject(
+                "select count(*) from orders o join order_views v on v.order_id = o.order_id where o.order_id = ?",
+                Integer.class, orderId);
+    }
+
+    private static CreateOrderRequest orderRequest(UUID customerId) {
+        CreateOrderRequest.OrderItemRequest item = new CreateOrderRequest.OrderItemRequest(
+                UUID.randomUUID(),
+                1,
+                new BigDecimal("9.99")
+        );
+        return new CreateOrderRequest(customerId, Collections.singletonList(item), new BigDecimal("9.99"));
+    }
+
+    private static JdbcTemplate jdbc(PostgreSQLContainer<?> container) {
+        return new JdbcTemplate(new DriverManagerDataSource(
+                container.getJdbcUrl(), container.getUsername(), container.getPassword()));
+    }
+}
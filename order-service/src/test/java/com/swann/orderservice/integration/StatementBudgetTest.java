@@ -0,0 +1,76 @@
+package com.swann.orderservice.integration;
+
+import com.swann.orderservice.TestcontainersConfiguration;
+import com.swann.orderservice.dto.CreateOrderRequest;
+import com.swann.orderservice.dto.OrderResponse;
+import com.swann.orderservice.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static com.swann.common.sqlstats.StatementBudget.assertAtMost;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Statements each order operation may run. A change that adds a round trip,
+ * or loads items one order at a time, fails here before it shows up in
+ * production latency.
+ */
+@SpringBootTest
+@Import(TestcontainersConfiguration.class)
+@ActiveProfiles("test")
+@EmbeddedKafka(partitions = 1, topics = {"order-created"})
+@DirtiesContext
+@Testcontainers
+public class StatementBudgetTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Test
+    void createOrder_ShouldInsertOrderItemAndView() {
+        // Given
+        CreateOrderRequest request = orderRequest(UUID.randomUUID());
+
+        // When / Then
+        OrderResponse order = assertAtMost(3, () -> orderService.createOrder(request));
+        assertNotNull(order.getOrderId());
+    }
+
+    @Test
+    void getOrderById_ShouldReadOneView() {
+        // Given
+        UUID orderId = orderService.createOrder(orderRequest(UUID.randomUUID())).getOrderId();
+
+        // When / Then
+        OrderResponse order = assertAtMost(1, () -> orderService.getOrderById(orderId));
+        assertEquals(1, order.getItems().size());
+    }
+
+    @Test
+    void getOrdersByCustomerId_ShouldNotQueryPerOrder() {
+        // Given
+        UUID customerId = UUID.randomUUID();
+        for (int i = 0; i < 10; i++) {
+            orderService.createOrder(orderRequest(customerId));
+        }
+
+        // When / Then
+        List<OrderResponse> orders = assertAtMost(1, () -> orderService.getOrdersByCustomerId(customerId));
+        assertEquals(10, orders.size());
+    }
+
+    private static CreateOrderRequest orderRequest(UUID customerId) {
+        CreateOrderRequest.OrderItemRequest item = new CreateOrderRequest.OrderItemRequest(UUID.randomUUID(), 1, new BigDecimal("9.99"));
+        return new CreateOrderRequest(customerId, List.of(item), new BigDecimal("9.99"));
+    }
+}
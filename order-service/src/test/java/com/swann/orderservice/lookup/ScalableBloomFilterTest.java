@@ -0,0 +1,67 @@
+package com.swann.orderservice.lookup;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScalableBloomFilterTest {
+
+    @Test
+    void shouldContainEveryAddedIdAcrossStages() {
+        // Given
+        ScalableBloomFilter filter = new ScalableBloomFilter(1_000, 0.01);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            filter.add(id);
+        }
+
+        // Then
+        assertTrue(filter.getStageCount() > 1);
+        for (UUID id : ids) {
+            assertTrue(filter.mightContain(id));
+        }
+    }
+
+    @Test
+    void shouldKeepFalsePositivesNearTheTarget() {
+        // Given
+        ScalableBloomFilter filter = new ScalableBloomFilter(1_000, 0.01);
+        for (int i = 0; i < 20_000; i++) {
+            filter.add(UUID.randomUUID());
+        }
+
+        // When
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain(UUID.randomUUID())) {
+                falsePositives++;
+            }
+        }
+
+        // Then
+        double observed = (double) falsePositives / probes;
+        assertTrue(observed < 0.02, "observed false-positive rate " + observed);
+        assertTrue(filter.expectedFalsePositiveRate() <= 0.01 * 1.5);
+    }
+
+    @Test
+    void shouldNotCountTheSameIdTwice() {
+        // Given
+        ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01);
+        UUID id = UUID.randomUUID();
+
+        // When
+        filter.add(id);
+        filter.add(id);
+
+        // Then
+        assertEquals(1, filter.getApproximateElementCount());
+    }
+}
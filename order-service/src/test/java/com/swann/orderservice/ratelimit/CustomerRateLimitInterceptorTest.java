@@ -0,0 +1,89 @@
+package com.swann.orderservice.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.swann.orderservice.cache.OrderResponseCache;
+import com.swann.orderservice.controller.OrderController;
+import com.swann.orderservice.dto.CreateOrderRequest;
+import com.swann.orderservice.dto.OrderResponse;
+import com.swann.orderservice.lookup.OrderIdFilter;
+import com.swann.orderservice.service.OrderService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class CustomerRateLimitInterceptorTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    private MockMvc mockMvc;
+    private OrderService orderService;
+
+    @BeforeEach
+    void setUp() {
+        orderService = mock(OrderService.class);
+        OrderController controller = new OrderController(orderService,
+                new OrderResponseCache(objectMapper, 1_000_000, Duration.ofMinutes(10)),
+                new OrderIdFilter(new SimpleMeterRegistry(), 1_000, 0.01),
+                objectMapper);
+        // One request per second, bursts of 2
+        CustomerRateLimiter rateLimiter = new CustomerRateLimiter(new SimpleMeterRegistry(), 1, 2, 1_000);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .addInterceptors(new CustomerRateLimitInterceptor(rateLimiter))
+                .setControllerAdvice(new CustomerRateLimitBodyAdvice(rateLimiter), new CustomerRateLimitExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void getOrdersByCustomerId_WhenOverRate_ShouldReturn429WithRetryAfter() throws Exception {
+        // Given
+        UUID customerId = UUID.randomUUID();
+        when(orderService.getOrdersByCustomerId(customerId)).thenReturn(List.of(new OrderResponse()));
+        mockMvc.perform(get("/orders/customer/{customerId}", customerId)).andExpect(status().isOk());
+        mockMvc.perform(get("/orders/customer/{customerId}", customerId)).andExpect(status().isOk());
+
+        // When / Then
+        mockMvc.perform(get("/orders/customer/{customerId}", customerId))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"));
+        mockMvc.perform(get("/orders/customer/{customerId}", UUID.randomUUID())).andExpect(status().isNotFound());
+        verify(orderService, times(2)).getOrdersByCustomerId(customerId);
+    }
+
+    @Test
+    void createOrder_WhenOverRate_ShouldReturn429BeforeController() throws Exception {
+        // Given
+        UUID customerId = UUID.randomUUID();
+        CreateOrderRequest request = new CreateOrderRequest(customerId,
+                List.of(new CreateOrderRequest.OrderItemRequest(UUID.randomUUID(), 1, new BigDecimal("9.99"))), new BigDecimal("9.99"));
+        String body = objectMapper.writeValueAsString(request);
+        when(orderService.createOrder(any(CreateOrderRequest.class))).thenReturn(new OrderResponse());
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/orders").contentType(MediaType.APPLICATION_JSON).content(body)).andExpect(status().isCreated());
+        }
+
+        // When / Then
+        mockMvc.perform(post("/orders").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+        verify(orderService, times(2)).createOrder(any(CreateOrderRequest.class));
+    }
+}
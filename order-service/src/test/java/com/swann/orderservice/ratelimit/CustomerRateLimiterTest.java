@@ -0,0 +1,114 @@
+package com.swann.orderservice.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicLong clock;
+    private CustomerRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        clock = new AtomicLong(-5 * SECOND);
+        // 10 per second, bursts of 5
+        rateLimiter = new CustomerRateLimiter(meterRegistry, 10, 5, 1_000, clock::get);
+    }
+
+    @Test
+    void tryAcquire_ShouldAllowBurstThenRefuseWithWait() {
+        // Given
+        UUID customerId = UUID.randomUUID();
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, rateLimiter.tryAcquire(customerId));
+        }
+
+        // When
+        long wait = rateLimiter.tryAcquire(customerId);
+
+        // Then
+        assertEquals(SECOND / 10, wait);
+        assertEquals(1.0, meterRegistry.get("order.rate-limit.rejected").counter().count());
+    }
+
+    @Test
+    void tryAcquire_ShouldRefillAtSteadyRate() {
+        // Given
+        UUID customerId = UUID.randomUUID();
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.tryAcquire(customerId);
+        }
+
+        // When
+        clock.addAndGet(SECOND / 10);
+
+        // Then
+        assertEquals(0, rateLimiter.tryAcquire(customerId));
+        assertTrue(rateLimiter.tryAcquire(customerId) > 0);
+
+        clock.addAndGet(SECOND);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, rateLimiter.tryAcquire(customerId));
+        }
+        assertTrue(rateLimiter.tryAcquire(customerId) > 0);
+    }
+
+    @Test
+    void tryAcquire_ShouldKeepCustomersApart() {
+        // Given
+        UUID abusive = UUID.randomUUID();
+        for (int i = 0; i < 100; i++) {
+            rateLimiter.tryAcquire(abusive);
+        }
+
+        // When / Then
+        assertTrue(rateLimiter.tryAcquire(abusive) > 0);
+        assertEquals(0, rateLimiter.tryAcquire(UUID.randomUUID()));
+    }
+
+    @Test
+    void tryAcquire_WhenConcurrent_ShouldGrantExactlyTheBurst() throws Exception {
+        // Given
+        UUID customerId = UUID.randomUUID();
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        for (int thread = 0; thread < 8; thread++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < 1_000; i++) {
+                    if (rateLimiter.tryAcquire(customerId) == 0) {
+                        granted.incrementAndGet();
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Then
+        assertEquals(5, granted.get());
+    }
+}
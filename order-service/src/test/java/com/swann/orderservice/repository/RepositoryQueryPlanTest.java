@@ -0,0 +1,245 @@
+package com.swann.orderservice.repository;
+
+import com.swann.orderservice.TestcontainersConfiguration;
+import com.swann.orderservice.dto.CreateOrderRequest;
+import com.swann.orderservice.dto.OrderStatusUpdate;
+import com.swann.orderservice.service.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs every repository query, records the SQL it sends and fails if the plan
+ * of any of it reads a large table with a sequential scan. Sequential scans are
+ * disabled while planning, so one still in the plan means no index fits.
+ * Plans are generic, as for a prepared statement, so no data is needed; that
+ * takes EXPLAIN (GENERIC_PLAN) from PostgreSQL 16.
+ */
+@SpringBootTest
+@Import({TestcontainersConfiguration.class, RepositoryQueryPlanTest.RecorderConfiguration.class})
+@ActiveProfiles("test")
+@EmbeddedKafka(partitions = 1, topics = {"order-created"})
+@DirtiesContext
+@Testcontainers
+public class RepositoryQueryPlanTest {
+
+    private static final Set<String> LARGE_TABLES = Set.of("orders", "order_items", "order_views", "order_idempotency_keys");
+    private static final Pattern SEQ_SCAN = Pattern.compile("Seq Scan on (\\w+)");
+
+    @Autowired
+    private StatementRecorder statementRecorder;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderViewRepository orderViewRepository;
+
+    @Autowired
+    private OrderIdempotencyKeyRepository orderIdempotencyKeyRepository;
+
+    @Autowired
+    private OrderStatusUpdateRepository orderStatusUpdateRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID orderId;
+    private UUID customerId;
+    private UUID productId;
+
+    @BeforeEach
+    void setUp() {
+        customerId = UUID.randomUUID();
+        productId = UUID.randomUUID();
+        CreateOrderRequest.OrderItemRequest item = new CreateOrderRequest.OrderItemRequest(productId, 1, new BigDecimal("9.99"));
+        orderId = orderService.createOrder(new CreateOrderRequest(customerId, List.of(item), new BigDecimal("9.99"))).getOrderId();
+    }
+
+    @Test
+    void repositoryQueriesShouldNotSeqScanLargeTables() {
+        // Given
+        // streamAllOrderIds and backfillMissingViews read whole tables on purpose and are left out
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("OrderRepository.findById with items", () ->
+                orderRepository.findById(orderId).orElseThrow().getOrderItems().size());
+        queries.put("OrderRepository.findByCustomerId", () -> orderRepository.findByCustomerId(customerId));
+        queries.put("OrderRepository.findByCustomerIdAndIdempotencyKey", () ->
+                orderRepository.findByCustomerIdAndIdempotencyKey(customerId, "key"));
+        queries.put("OrderRepository.findIdsContainingProduct", () -> orderRepository.findIdsContainingProduct(productId.toString(), 10));
+        queries.put("OrderViewRepository.findById", () -> orderViewRepository.findById(orderId));
+        queries.put("OrderViewRepository.findByCustomerIdOrderByCreatedAtDesc", () ->
+                orderViewRepository.findByCustomerIdOrderByCreatedAtDesc(customerId));
+        queries.put("OrderViewRepository.findByOrderIdIn", () -> orderViewRepository.findByOrderIdIn(List.of(orderId, UUID.randomUUID())));
+        queries.put("OrderIdempotencyKeyRepository.deleteByCreatedAtBefore", () ->
+                orderIdempotencyKeyRepository.deleteByCreatedAtBefore(LocalDateTime.now().minusYears(1)));
+        queries.put("OrderStatusUpdateRepository.updateStatuses", () ->
+                orderStatusUpdateRepository.updateStatuses(List.of(new OrderStatusUpdate(orderId, "PAID", LocalDateTime.now()))));
+
+        // When
+        List<String> failures = new ArrayList<>();
+        queries.forEach((name, query) -> {
+            for (String sql : record(query)) {
+                String plan = explain(sql);
+                Matcher scan = SEQ_SCAN.matcher(plan);
+                while (scan.find()) {
+                    if (isLargeTable(scan.group(1))) {
+                        failures.add(name + " scans " + scan.group(1) + ":\n" + sql + "\n" + plan);
+                    }
+                }
+            }
+        });
+
+        // Then
+        assertTrue(failures.isEmpty(), String.join("\n\n", failures));
+    }
+
+    private List<String> record(Runnable query) {
+        return transactionTemplate.execute(status -> {
+            statementRecorder.start();
+            try {
+                query.run();
+            } finally {
+                statementRecorder.stop();
+                status.setRollbackOnly();
+            }
+            List<String> statements = statementRecorder.drain();
+            assertFalse(statements.isEmpty(), "query sent no statement");
+            return statements;
+        });
+    }
+
+    private String explain(String sql) {
+        return transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+            return String.join("\n", jdbcTemplate.queryForList("EXPLAIN (GENERIC_PLAN) " + numberParameters(sql), String.class));
+        });
+    }
+
+    private static boolean isLargeTable(String relation) {
+        // Partitions are named after their table: orders_p202401, orders_legacy
+        return LARGE_TABLES.stream().anyMatch(table -> relation.equals(table) || relation.startsWith(table + "_"));
+    }
+
+    // JDBC ? placeholders become $1, $2, ... outside string literals
+    private static String numberParameters(String sql) {
+        StringBuilder numbered = new StringBuilder(sql.length() + 16);
+        boolean inLiteral = false;
+        int parameter = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '\'') {
+                inLiteral = !inLiteral;
+            }
+            if (c == '?' && !inLiteral) {
+                numbered.append('$').append(++parameter);
+            } else {
+                numbered.append(c);
+            }
+        }
+        return numbered.toString();
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class RecorderConfiguration {
+
+        @Bean
+        static StatementRecorder statementRecorder() {
+            return new StatementRecorder();
+        }
+    }
+
+    /**
+     * Wraps the application's data source and records the SQL of statements
+     * prepared while recording is on.
+     */
+    static class StatementRecorder implements BeanPostProcessor {
+
+        private final List<String> statements = new CopyOnWriteArrayList<>();
+        private volatile boolean recording;
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!"dataSource".equals(beanName) || !(bean instanceof DataSource dataSource)) {
+                return bean;
+            }
+            return new DelegatingDataSource(dataSource) {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    return recording(super.getConnection());
+                }
+
+                @Override
+                public Connection getConnection(String username, String password) throws SQLException {
+                    return recording(super.getConnection(username, password));
+                }
+            };
+        }
+
+        void start() {
+            statements.clear();
+            recording = true;
+        }
+
+        void stop() {
+            recording = false;
+        }
+
+        List<String> drain() {
+            List<String> drained = List.copyOf(statements);
+            statements.clear();
+            return drained;
+        }
+
+        private Connection recording(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if (recording && method.getName().startsWith("prepare") && args != null && args[0] instanceof String sql) {
+                            statements.add(sql);
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException();
+                        }
+                    });
+        }
+    }
+}
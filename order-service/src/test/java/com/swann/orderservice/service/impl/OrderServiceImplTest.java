@@ -1,29 +1,62 @@
 package com.swann.orderservice.service.impl;
 
+import com.swann.common.datasource.WorkloadRoutingDataSource;
+import com.swann.common.datasource.WorkloadType;
 import com.swann.orderservice.config.KafkaConfig;
+import com.swann.orderservice.deadline.DeadlineExceededException;
+import com.swann.orderservice.deadline.RequestDeadline;
 import com.swann.orderservice.dto.CreateOrderRequest;
 import com.swann.orderservice.dto.OrderResponse;
 import com.swann.orderservice.event.OrderCreatedEvent;
+import com.swann.orderservice.idempotency.IdempotencyKeyMismatchException;
+import com.swann.orderservice.idempotency.IdempotencyRegistry;
+import com.swann.orderservice.idempotency.RequestFingerprint;
+import com.swann.orderservice.lookup.OrderIdFilter;
 import com.swann.orderservice.model.Order;
+import com.swann.orderservice.model.OrderIdempotencyKey;
 import com.swann.orderservice.model.OrderItem;
+import com.swann.orderservice.model.OrderView;
+import com.swann.orderservice.repository.OrderIdempotencyKeyRepository;
 import com.swann.orderservice.repository.OrderRepository;
+import com.swann.orderservice.repository.OrderViewRepository;
+import com.swann.orderservice.sharding.OrderIds;
+import com.swann.orderservice.sharding.OrderShards;
+import com.swann.orderservice.sharding.ShardContext;
+import com.swann.orderservice.storage.OrderItemStorage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.sql.DataSource;
 import java.math.BigDecimal;
+import java.sql.Connection;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,9 +65,28 @@ class OrderServiceImplTest {
     @Mock
     private OrderRepository orderRepository;
 
+    @Mock
+    private OrderViewRepository orderViewRepository;
+
+    @Mock
+    private OrderIdempotencyKeyRepository orderIdempotencyKeyRepository;
+
     @Mock
     private KafkaTemplate<String, Object> kafkaTemplate;
 
+    @Spy
+    private IdempotencyRegistry idempotencyRegistry = new IdempotencyRegistry(new SimpleMeterRegistry(), 1000, 60_000, 1_000);
+
+    // Runs callbacks directly
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @Mock
+    private OrderIdFilter orderIdFilter;
+
+    @Spy
+    private OrderShards orderShards = new OrderShards(1);
+
     @InjectMocks
     private OrderServiceImpl orderService;
 
@@ -54,10 +106,13 @@ class OrderServiceImplTest {
     private UUID customerId;
     private UUID productId;
     private Order order;
+    private OrderView orderView;
     private CreateOrderRequest createOrderRequest;
 
     @BeforeEach
     void setUp() {
+        ReflectionTestUtils.setField(orderService, "bulkLookupChunkSize", 2);
+        ReflectionTestUtils.setField(orderService, "itemStorage", OrderItemStorage.TABLE);
         orderId = UUID.randomUUID();
         customerId = UUID.randomUUID();
         productId = UUID.randomUUID();
@@ -82,6 +137,22 @@ class OrderServiceImplTest {
 
         orderItem.setOrder(order);
 
+        // Setup read model row
+        orderView = OrderView.builder()
+                .orderId(orderId)
+                .customerId(customerId)
+                .totalAmount(new BigDecimal("39.98"))
+                .status("PENDING")
+                .createdAt(order.getCreatedAt())
+                .updatedAt(order.getUpdatedAt())
+                .items(Collections.singletonList(OrderResponse.OrderItemResponse.builder()
+                        .orderItemId(orderItem.getOrderItemId())
+                        .productId(productId)
+                        .quantity(2)
+                        .unitPrice(new BigDecimal("19.99"))
+                        .build()))
+                .build();
+
         // Setup create order request
         CreateOrderRequest.OrderItemRequest itemRequest = new CreateOrderRequest.OrderItemRequest(
                 productId,
@@ -144,16 +215,163 @@ class OrderServiceImplTest {
         assertEquals(new BigDecimal("19.99"), response.getItems().get(0).getUnitPrice());
     }
 
+    @Test
+    void createOrder_WithEmbeddedStorage_ShouldKeepItemsOnOrderRow() {
+        // Given
+        ReflectionTestUtils.setField(orderService, "itemStorage", OrderItemStorage.EMBEDDED);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order savedOrder = invocation.getArgument(0);
+            savedOrder.setOrderId(orderId);
+            return savedOrder;
+        });
+
+        // When
+        OrderResponse response = orderService.createOrder(createOrderRequest);
+
+        // Then
+        verify(orderRepository).save(orderCaptor.capture());
+        Order capturedOrder = orderCaptor.getValue();
+        assertTrue(capturedOrder.getOrderItems().isEmpty());
+        assertEquals(1, capturedOrder.getItems().size());
+        assertNotNull(capturedOrder.getItems().get(0).getOrderItemId());
+        assertEquals(productId, capturedOrder.getItems().get(0).getProductId());
+
+        verify(orderViewRepository).save(argThat(view -> view.getItems().equals(capturedOrder.getItems())));
+        verify(kafkaTemplate).send(anyString(), anyString(), valueCaptor.capture());
+        assertEquals(productId, ((OrderCreatedEvent) valueCaptor.getValue()).getItems().get(0).getProductId());
+        assertEquals(capturedOrder.getItems(), response.getItems());
+    }
+
+    @Test
+    void createOrder_WhenEventNotAcknowledgedBeforeDeadline_ShouldFailButKeepOrder() {
+        // Given
+        PlatformTransactionManager transactionManager = transactionTemplate.getTransactionManager();
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order savedOrder = invocation.getArgument(0);
+            savedOrder.setOrderId(orderId);
+            return savedOrder;
+        });
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(new CompletableFuture<>());
+        RequestDeadline.start(Duration.ofMillis(50));
+
+        // When / Then
+        try {
+            assertThrows(DeadlineExceededException.class, () -> orderService.createOrder(createOrderRequest));
+        } finally {
+            RequestDeadline.clear();
+        }
+        InOrder publishedAfterCommit = inOrder(transactionManager, kafkaTemplate);
+        publishedAfterCommit.verify(transactionManager).commit(any());
+        publishedAfterCommit.verify(kafkaTemplate).send(eq(KafkaConfig.ORDER_CREATED_TOPIC), eq(orderId.toString()), any());
+        verify(transactionManager, never()).rollback(any());
+    }
+
+    @Test
+    void createOrder_WhenDeadlinePassed_ShouldRollBackAndNotPublish() {
+        // Given
+        PlatformTransactionManager transactionManager = transactionTemplate.getTransactionManager();
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order savedOrder = invocation.getArgument(0);
+            savedOrder.setOrderId(orderId);
+            return savedOrder;
+        });
+        RequestDeadline.start(Duration.ZERO);
+
+        // When / Then
+        try {
+            assertThrows(DeadlineExceededException.class, () -> orderService.createOrder(createOrderRequest));
+        } finally {
+            RequestDeadline.clear();
+        }
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), any());
+    }
+
+    @Test
+    void createOrder_WithIdempotencyKey_ShouldCreateOrderOnlyOnce() {
+        // Given
+        when(orderRepository.findByCustomerIdAndIdempotencyKey(customerId, "key-1")).thenReturn(Optional.empty());
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order savedOrder = invocation.getArgument(0);
+            savedOrder.setOrderId(orderId);
+            return savedOrder;
+        });
+
+        // When
+        OrderResponse first = orderService.createOrder(createOrderRequest, "key-1");
+        OrderResponse second = orderService.createOrder(createOrderRequest, "key-1");
+
+        // Then
+        assertSame(first, second);
+        verify(orderRepository).save(orderCaptor.capture());
+        assertEquals("key-1", orderCaptor.getValue().getIdempotencyKey());
+        verify(orderIdempotencyKeyRepository).save(argThat(claim -> orderId.equals(claim.getOrderId())
+                && "key-1".equals(claim.getKey().getIdempotencyKey())
+                && RequestFingerprint.of(createOrderRequest).equals(claim.getRequestHash())));
+        verify(orderRepository).flush();
+        verify(kafkaTemplate, times(1)).send(anyString(), anyString(), any());
+    }
+
+    @Test
+    void createOrder_WhenKeyAlreadyStored_ShouldReturnStoredOrder() {
+        // Given
+        order.setIdempotencyKey("key-1");
+        when(orderRepository.findByCustomerIdAndIdempotencyKey(customerId, "key-1")).thenReturn(Optional.of(order));
+
+        // When
+        OrderResponse response = orderService.createOrder(createOrderRequest, "key-1");
+
+        // Then
+        assertEquals(orderId, response.getOrderId());
+        verify(orderRepository, never()).save(any());
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), any());
+    }
+
+    @Test
+    void createOrder_WhenStoredKeyWasForDifferentRequest_ShouldRefuseIt() {
+        // Given
+        order.setIdempotencyKey("key-1");
+        when(orderRepository.findByCustomerIdAndIdempotencyKey(customerId, "key-1")).thenReturn(Optional.of(order));
+        when(orderIdempotencyKeyRepository.findById(new OrderIdempotencyKey.Key(customerId, "key-1")))
+                .thenReturn(Optional.of(OrderIdempotencyKey.builder()
+                        .key(new OrderIdempotencyKey.Key(customerId, "key-1"))
+                        .orderId(orderId)
+                        .requestHash("0".repeat(64))
+                        .build()));
+
+        // When & Then
+        assertThrows(IdempotencyKeyMismatchException.class, () -> orderService.createOrder(createOrderRequest, "key-1"));
+        verify(orderRepository, never()).save(any());
+    }
+
+    @Test
+    void createOrder_WhenAnotherInstanceStoredKeyFirst_ShouldReturnItsOrder() {
+        // Given
+        when(orderRepository.findByCustomerIdAndIdempotencyKey(customerId, "key-1"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(order));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        doThrow(new DataIntegrityViolationException("order_idempotency_keys_pkey")).when(orderRepository).flush();
+
+        // When
+        OrderResponse response = orderService.createOrder(createOrderRequest, "key-1");
+
+        // Then
+        assertEquals(orderId, response.getOrderId());
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), any());
+    }
+
     @Test
     void getOrderById_ShouldReturnOrder() {
         // Given
-        when(orderRepository.findById(orderId)).thenReturn(Optional.of(order));
+        when(orderViewRepository.findById(orderId)).thenReturn(Optional.of(orderView));
 
         // When
         OrderResponse response = orderService.getOrderById(orderId);
 
         // Then
-        verify(orderRepository).findById(orderId);
+        verify(orderViewRepository).findById(orderId);
         assertEquals(orderId, response.getOrderId());
         assertEquals(customerId, response.getCustomerId());
         assertEquals(new BigDecimal("39.98"), response.getTotalAmount());
@@ -167,23 +385,56 @@ class OrderServiceImplTest {
     @Test
     void getOrderById_WhenOrderNotFound_ShouldThrowException() {
         // Given
-        when(orderRepository.findById(orderId)).thenReturn(Optional.empty());
+        when(orderViewRepository.findById(orderId)).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThrows(EntityNotFoundException.class, () -> orderService.getOrderById(orderId));
+        verify(orderViewRepository).findById(orderId);
+    }
+
+    @Test
+    void getOrderById_WithShardHint_ShouldQueryOnlyThatShard() {
+        // Given
+        ReflectionTestUtils.setField(orderService, "orderShards", new OrderShards(2));
+        UUID shardedOrderId = OrderIds.newOrderId(1);
+        List<Integer> queriedShards = new ArrayList<>();
+        when(orderViewRepository.findById(shardedOrderId)).thenAnswer(invocation -> {
+            queriedShards.add(ShardContext.current());
+            return Optional.of(orderView);
+        });
+
+        // When
+        orderService.getOrderById(shardedOrderId);
+
+        // Then
+        assertEquals(List.of(1), queriedShards);
+    }
+
+    @Test
+    void getOrderById_WithoutShardHint_ShouldTryEveryShard() {
+        // Given
+        ReflectionTestUtils.setField(orderService, "orderShards", new OrderShards(2));
+        List<Integer> queriedShards = new ArrayList<>();
+        when(orderViewRepository.findById(orderId)).thenAnswer(invocation -> {
+            queriedShards.add(ShardContext.current());
+            return Optional.empty();
+        });
 
         // When & Then
         assertThrows(EntityNotFoundException.class, () -> orderService.getOrderById(orderId));
-        verify(orderRepository).findById(orderId);
+        assertEquals(List.of(0, 1), queriedShards);
     }
 
     @Test
     void getOrdersByCustomerId_ShouldReturnOrders() {
         // Given
-        when(orderRepository.findByCustomerId(customerId)).thenReturn(Collections.singletonList(order));
+        when(orderViewRepository.findByCustomerIdOrderByCreatedAtDesc(customerId)).thenReturn(Collections.singletonList(orderView));
 
         // When
         List<OrderResponse> responses = orderService.getOrdersByCustomerId(customerId);
 
         // Then
-        verify(orderRepository).findByCustomerId(customerId);
+        verify(orderViewRepository).findByCustomerIdOrderByCreatedAtDesc(customerId);
         assertEquals(1, responses.size());
         OrderResponse response = responses.get(0);
         assertEquals(orderId, response.getOrderId());
@@ -199,13 +450,114 @@ class OrderServiceImplTest {
     @Test
     void getOrdersByCustomerId_WhenNoOrders_ShouldReturnEmptyList() {
         // Given
-        when(orderRepository.findByCustomerId(customerId)).thenReturn(Collections.emptyList());
+        when(orderViewRepository.findByCustomerIdOrderByCreatedAtDesc(customerId)).thenReturn(Collections.emptyList());
 
         // When
         List<OrderResponse> responses = orderService.getOrdersByCustomerId(customerId);
 
         // Then
-        verify(orderRepository).findByCustomerId(customerId);
+        verify(orderViewRepository).findByCustomerIdOrderByCreatedAtDesc(customerId);
+        assertTrue(responses.isEmpty());
+    }
+
+    @Test
+    void viewReads_ShouldRunOnInteractivePoolNotWritePool() throws Exception {
+        // Given - the application's read/write split over one mock per workload pool
+        Map<WorkloadType, DataSource> pools = new EnumMap<>(WorkloadType.class);
+        for (WorkloadType workload : WorkloadType.values()) {
+            DataSource pool = mock(DataSource.class);
+            lenient().when(pool.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+            pools.put(workload, pool);
+        }
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(new WorkloadRoutingDataSource(pools, false));
+        dataSource.setReadOnlyDataSource(new WorkloadRoutingDataSource(pools, true));
+        dataSource.setDefaultAutoCommit(true);
+        dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        clearInvocations(pools.values().toArray());
+        OrderServiceImpl service = new OrderServiceImpl(orderRepository, orderIdempotencyKeyRepository, orderViewRepository,
+                kafkaTemplate, idempotencyRegistry, new TransactionTemplate(new DataSourceTransactionManager(dataSource)),
+                orderIdFilter, orderShards);
+        ReflectionTestUtils.setField(service, "bulkLookupChunkSize", 2);
+        // Each lookup runs a statement on the transaction's connection, as the repository would
+        when(orderViewRepository.findById(orderId)).thenAnswer(invocation -> {
+            DataSourceUtils.getConnection(dataSource).createStatement();
+            return Optional.of(orderView);
+        });
+        when(orderViewRepository.findByCustomerIdOrderByCreatedAtDesc(customerId)).thenAnswer(invocation -> {
+            DataSourceUtils.getConnection(dataSource).createStatement();
+            return List.of(orderView);
+        });
+        when(orderViewRepository.findByOrderIdIn(List.of(orderId))).thenAnswer(invocation -> {
+            DataSourceUtils.getConnection(dataSource).createStatement();
+            return List.of(orderView);
+        });
+
+        // When
+        service.getOrderById(orderId);
+        service.getOrdersByCustomerId(customerId);
+        service.getOrdersByIds(List.of(orderId));
+
+        // Then
+        verify(pools.get(WorkloadType.INTERACTIVE), times(3)).getConnection();
+        verify(pools.get(WorkloadType.WRITE), never()).getConnection();
+    }
+
+    @Test
+    void getOrdersByIds_ShouldQueryOncePerChunkAndDeduplicate() {
+        // Given
+        UUID secondId = UUID.randomUUID();
+        UUID thirdId = UUID.randomUUID();
+        when(orderViewRepository.findByOrderIdIn(List.of(orderId, secondId))).thenReturn(Collections.singletonList(orderView));
+        when(orderViewRepository.findByOrderIdIn(List.of(thirdId))).thenReturn(Collections.emptyList());
+
+        // When
+        Map<UUID, OrderResponse> found = orderService.getOrdersByIds(List.of(orderId, secondId, orderId, thirdId));
+
+        // Then
+        verify(orderViewRepository, times(2)).findByOrderIdIn(any());
+        assertEquals(1, found.size());
+        assertEquals(1, found.get(orderId).getItems().size());
+        assertEquals(productId, found.get(orderId).getItems().get(0).getProductId());
+    }
+
+    @Test
+    void getOrdersContainingProduct_ShouldMergeShardsNewestFirst() {
+        // Given
+        ReflectionTestUtils.setField(orderService, "orderShards", new OrderShards(2));
+        OrderView older = OrderView.builder()
+                .orderId(UUID.randomUUID())
+                .customerId(customerId)
+                .totalAmount(new BigDecimal("19.99"))
+                .status("PAID")
+                .items(orderView.getItems())
+                .createdAt(orderView.getCreatedAt().minusDays(1))
+                .updatedAt(orderView.getUpdatedAt())
+                .build();
+        when(orderRepository.findIdsContainingProduct(productId.toString(), 2)).thenAnswer(invocation ->
+                ShardContext.current() == 0 ? List.of(older.getOrderId()) : List.of(orderId));
+        when(orderViewRepository.findByOrderIdIn(List.of(older.getOrderId()))).thenReturn(List.of(older));
+        when(orderViewRepository.findByOrderIdIn(List.of(orderId))).thenReturn(List.of(orderView));
+
+        // When
+        List<OrderResponse> responses = orderService.getOrdersContainingProduct(productId, 2);
+
+        // Then
+        verify(orderRepository, times(2)).findIdsContainingProduct(productId.toString(), 2);
+        verify(orderRepository, never()).findById(any());
+        assertEquals(List.of(orderId, older.getOrderId()), responses.stream().map(OrderResponse::getOrderId).toList());
+        assertEquals(productId, responses.get(1).getItems().get(0).getProductId());
+    }
+
+    @Test
+    void getOrdersContainingProduct_WhenNoMatches_ShouldNotReadViews() {
+        // Given
+        when(orderRepository.findIdsContainingProduct(productId.toString(), 5)).thenReturn(List.of());
+
+        // When
+        List<OrderResponse> responses = orderService.getOrdersContainingProduct(productId, 5);
+
+        // Then
         assertTrue(responses.isEmpty());
+        verifyNoInteractions(orderViewRepository);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,157 @@
+package com.swann.orderservice.service.impl;
+
+import com.swann.orderservice.dto.OrderStatusUpdate;
+import com.swann.orderservice.event.OrderStatusChangedEvent;
+import com.swann.orderservice.event.PaymentProcessedEvent;
+import com.swann.orderservice.repository.OrderStatusUpdateRepository;
+import com.swann.orderservice.sharding.OrderIds;
+import com.swann.orderservice.sharding.OrderShards;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderStatusProjectionServiceImplTest {
+
+    @Mock
+    private OrderStatusUpdateRepository orderStatusUpdateRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    // Runs callbacks directly
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @Spy
+    private OrderShards orderShards = new OrderShards(1);
+
+    @InjectMocks
+    private OrderStatusProjectionServiceImpl projectionService;
+
+    @Captor
+    private ArgumentCaptor<List<OrderStatusUpdate>> updatesCaptor;
+
+    private UUID orderId;
+    private UUID otherOrderId;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        orderId = UUID.randomUUID();
+        otherOrderId = UUID.randomUUID();
+        now = LocalDateTime.now();
+    }
+
+    @Test
+    void applyPaymentOutcomes_ShouldCollapseToNewestEventPerOrder() {
+        // Given
+        when(orderStatusUpdateRepository.updateStatuses(any())).thenReturn(List.of(orderId, otherOrderId));
+
+        // When
+        int changed = projectionService.applyPaymentOutcomes(List.of(
+                event(orderId, "FAILED", now),
+                event(otherOrderId, "COMPLETED", now),
+                event(orderId, "COMPLETED", now.plusSeconds(1)),
+                event(orderId, "DECLINED", now.minusSeconds(1))));
+
+        // Then
+        assertEquals(2, changed);
+        verify(orderStatusUpdateRepository).updateStatuses(updatesCaptor.capture());
+        List<OrderStatusUpdate> updates = updatesCaptor.getValue();
+        assertEquals(2, updates.size());
+        assertEquals(orderId, updates.get(0).getOrderId());
+        assertEquals("PAID", updates.get(0).getStatus());
+        assertEquals(now.plusSeconds(1), updates.get(0).getEventAt());
+        assertEquals("PAID", updates.get(1).getStatus());
+        verify(eventPublisher).publishEvent(any(OrderStatusChangedEvent.class));
+    }
+
+    @Test
+    void applyPaymentOutcomes_ShouldMapFailedPaymentsToPaymentFailed() {
+        // Given
+        when(orderStatusUpdateRepository.updateStatuses(any())).thenReturn(List.of(orderId));
+
+        // When
+        projectionService.applyPaymentOutcomes(List.of(event(orderId, "REJECTED", now)));
+
+        // Then
+        verify(orderStatusUpdateRepository).updateStatuses(updatesCaptor.capture());
+        assertEquals("PAYMENT_FAILED", updatesCaptor.getValue().get(0).getStatus());
+    }
+
+    @Test
+    void applyPaymentOutcomes_WhenNoFinalOutcomes_ShouldNotTouchDatabase() {
+        // When
+        int changed = projectionService.applyPaymentOutcomes(List.of(event(orderId, "PENDING", now)));
+
+        // Then
+        assertEquals(0, changed);
+        verifyNoInteractions(orderStatusUpdateRepository, eventPublisher);
+    }
+
+    @Test
+    void applyPaymentOutcomes_WhenNothingChanged_ShouldNotPublishEvent() {
+        // Given
+        when(orderStatusUpdateRepository.updateStatuses(any())).thenReturn(List.of());
+
+        // When
+        int changed = projectionService.applyPaymentOutcomes(List.of(event(orderId, "COMPLETED", now)));
+
+        // Then
+        assertEquals(0, changed);
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void applyPaymentOutcomes_ShouldUpdateEachShardSeparately() {
+        // Given
+        ReflectionTestUtils.setField(projectionService, "orderShards", new OrderShards(2));
+        UUID firstShardOrderId = OrderIds.newOrderId(0);
+        UUID secondShardOrderId = OrderIds.newOrderId(1);
+        when(orderStatusUpdateRepository.updateStatuses(any()))
+                .thenReturn(List.of(firstShardOrderId))
+                .thenReturn(List.of(secondShardOrderId));
+
+        // When
+        int changed = projectionService.applyPaymentOutcomes(List.of(
+                event(firstShardOrderId, "COMPLETED", now),
+                event(secondShardOrderId, "FAILED", now)));
+
+        // Then
+        assertEquals(2, changed);
+        verify(orderStatusUpdateRepository, times(2)).updateStatuses(updatesCaptor.capture());
+        assertEquals(firstShardOrderId, updatesCaptor.getAllValues().get(0).get(0).getOrderId());
+        assertEquals(secondShardOrderId, updatesCaptor.getAllValues().get(1).get(0).getOrderId());
+        verify(eventPublisher, times(2)).publishEvent(any(OrderStatusChangedEvent.class));
+    }
+
+    private static PaymentProcessedEvent event(UUID orderId, String status, LocalDateTime timestamp) {
+        PaymentProcessedEvent event = new PaymentProcessedEvent();
+        event.setPaymentId(UUID.randomUUID());
+        event.setOrderId(orderId);
+        event.setAmount(new BigDecimal("39.98"));
+        event.setStatus(status);
+        event.setTimestamp(timestamp);
+        return event;
+    }
+}
@@ -0,0 +1,98 @@
+package com.swann.orderservice.sharding;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderShardsTest {
+
+    @Test
+    void orderIdsShouldCarryTheirShardAndSortByCreationTime() throws InterruptedException {
+        // Given
+        UUID first = OrderIds.newOrderId(3);
+        Thread.sleep(2);
+        UUID second = OrderIds.newOrderId(1023);
+
+        // Then
+        assertEquals(7, first.version());
+        assertEquals(2, first.variant());
+        assertEquals(OptionalInt.of(3), OrderIds.shardHint(first));
+        assertEquals(OptionalInt.of(1023), OrderIds.shardHint(second));
+        assertTrue(Long.compareUnsigned(first.getMostSignificantBits(), second.getMostSignificantBits()) < 0);
+        assertEquals(OptionalInt.empty(), OrderIds.shardHint(UUID.randomUUID()));
+        assertThrows(IllegalArgumentException.class, () -> OrderIds.newOrderId(OrderIds.MAX_SHARDS));
+    }
+
+    @Test
+    void shouldSpreadCustomersEvenlyAcrossShards() {
+        // Given
+        OrderShards shards = new OrderShards(4);
+        int[] customersPerShard = new int[4];
+
+        // When
+        for (int i = 0; i < 40_000; i++) {
+            customersPerShard[shards.shardOfCustomer(UUID.randomUUID())]++;
+        }
+
+        // Then
+        for (int count : customersPerShard) {
+            assertTrue(count > 8_000 && count < 12_000, "Uneven spread: " + count);
+        }
+    }
+
+    @Test
+    void addingAShardShouldOnlyMoveCustomersOntoIt() {
+        // Given
+        OrderShards before = new OrderShards(4);
+        OrderShards after = new OrderShards(5);
+        List<UUID> customers = IntStream.range(0, 20_000).mapToObj(i -> UUID.randomUUID()).toList();
+
+        // When
+        long moved = customers.stream()
+                .filter(customerId -> before.shardOfCustomer(customerId) != after.shardOfCustomer(customerId))
+                .peek(customerId -> assertEquals(4, after.shardOfCustomer(customerId)))
+                .count();
+
+        // Then
+        assertTrue(moved > 2_500 && moved < 5_500, "Moved " + moved + " of 20000");
+    }
+
+    @Test
+    void shouldFindHintedOrdersOnTheirShardAndOthersOnEachShardInTurn() {
+        // Given
+        OrderShards shards = new OrderShards(3);
+        UUID hinted = OrderIds.newOrderId(2);
+        UUID legacy = UUID.randomUUID();
+
+        // When
+        Optional<Integer> hintedShard = shards.findOnShardOfOrder(hinted, () -> Optional.of(ShardContext.current()));
+        Optional<Integer> legacyShard = shards.findOnShardOfOrder(legacy,
+                () -> ShardContext.current() == 1 ? Optional.of(1) : Optional.empty());
+        Map<Integer, List<UUID>> grouped = shards.groupByShard(List.of(hinted, legacy));
+
+        // Then
+        assertEquals(Optional.of(2), hintedShard);
+        assertEquals(Optional.of(1), legacyShard);
+        assertEquals(List.of(legacy), grouped.get(0));
+        assertEquals(List.of(legacy), grouped.get(1));
+        assertEquals(List.of(hinted, legacy), grouped.get(2));
+        assertEquals(ShardContext.DEFAULT_SHARD, ShardContext.current());
+    }
+
+    @Test
+    void shouldIgnoreHintsBeyondTheConfiguredShards() {
+        // Given
+        OrderShards shards = new OrderShards(2);
+
+        // Then
+        assertEquals(OptionalInt.empty(), shards.shardOfOrder(OrderIds.newOrderId(5)));
+        assertThrows(IllegalArgumentException.class, () -> shards.callOnShard(2, () -> null));
+    }
+}
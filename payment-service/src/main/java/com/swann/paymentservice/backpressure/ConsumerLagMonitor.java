@@ -0,0 +1,177 @@
+package com.swann.paymentservice.backpressure;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.MemberToRemove;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.admin.RemoveMembersFromConsumerGroupOptions;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Periodically reads committed and end offsets for the payment consumer group and
+ * keeps the per-partition lag, so backpressure and scaling decisions never call
+ * the broker themselves.
+ */
+@Component
+@Slf4j
+public class ConsumerLagMonitor implements DisposableBean {
+
+    private static final long ADMIN_TIMEOUT_SECONDS = 5;
+
+    private final AdminClient adminClient;
+    private final String groupId;
+    private final Map<TopicPartition, Long> lagByPartition = new ConcurrentHashMap<>();
+    private final Map<String, Long> committedByTopic = new ConcurrentHashMap<>();
+    private final Map<String, Double> processingRateByTopic = new ConcurrentHashMap<>();
+    private final Map<String, Integer> partitionsByTopic = new ConcurrentHashMap<>();
+    private volatile long totalLag;
+    private volatile long lastRefreshMillis;
+
+    public ConsumerLagMonitor(KafkaAdmin kafkaAdmin, MeterRegistry meterRegistry,
+                              @Value("${payment.backpressure.lag.group-id:payment-service-group}") String groupId) {
+        this.adminClient = AdminClient.create(kafkaAdmin.getConfigurationProperties());
+        this.groupId = groupId;
+        Gauge.builder("payment.kafka.consumer.lag", this, ConsumerLagMonitor::getTotalLag)
+                .tag("group", groupId)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${payment.backpressure.lag.refresh-interval-ms:5000}")
+    public void refresh() {
+        try {
+            Map<TopicPartition, OffsetAndMetadata> committed = adminClient.listConsumerGroupOffsets(groupId)
+                    .partitionsToOffsetAndMetadata()
+                    .get(ADMIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (committed.isEmpty()) {
+                return;
+            }
+            Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> ends = adminClient
+                    .listOffsets(committed.keySet().stream().collect(Collectors.toMap(Function.identity(), tp -> OffsetSpec.latest())))
+                    .all()
+                    .get(ADMIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+            long now = System.currentTimeMillis();
+            long total = 0;
+            Map<String, Long> committedSums = new HashMap<>();
+            for (Map.Entry<TopicPartition, OffsetAndMetadata> entry : committed.entrySet()) {
+                ListOffsetsResult.ListOffsetsResultInfo end = ends.get(entry.getKey());
+                if (end == null || entry.getValue() == null) {
+                    continue;
+                }
+                long lag = Math.max(0, end.offset() - entry.getValue().offset());
+                lagByPartition.put(entry.getKey(), lag);
+                committedSums.merge(entry.getKey().topic(), entry.getValue().offset(), Long::sum);
+                total += lag;
+            }
+            lagByPartition.keySet().retainAll(committed.keySet());
+
+            // Processing rate is how fast the committed offsets moved since the previous refresh
+            for (Map.Entry<String, Long> entry : committedSums.entrySet()) {
+                Long previous = committedByTopic.put(entry.getKey(), entry.getValue());
+                if (previous != null && lastRefreshMillis > 0 && now > lastRefreshMillis) {
+                    double perSecond = Math.max(0, entry.getValue() - previous) * 1000.0 / (now - lastRefreshMillis);
+                    processingRateByTopic.put(entry.getKey(), perSecond);
+                }
+            }
+            refreshPartitionCounts(committedSums.keySet());
+
+            totalLag = total;
+            lastRefreshMillis = now;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Failed to read consumer lag for group {}: {}", groupId, e.getMessage());
+        }
+    }
+
+    /**
+     * @return lag summed over all partitions of the topic, or 0 if the topic is unknown
+     */
+    public long getLag(String topic) {
+        return lagByPartition.entrySet().stream()
+                .filter(entry -> entry.getKey().topic().equals(topic))
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+    }
+
+    /**
+     * @return records per second the group committed on the topic between the last two refreshes
+     */
+    public double getProcessingRate(String topic) {
+        return processingRateByTopic.getOrDefault(topic, 0.0);
+    }
+
+    /**
+     * @return the number of partitions of the topic, or 0 if not known yet
+     */
+    public int getPartitionCount(String topic) {
+        return partitionsByTopic.getOrDefault(topic, 0);
+    }
+
+    public long getTotalLag() {
+        return totalLag;
+    }
+
+    public long getLastRefreshMillis() {
+        return lastRefreshMillis;
+    }
+
+    /**
+     * Remove static members from the group. A static member that stops does not
+     * leave the group, so its partitions stay assigned to it until the session
+     * times out unless it is removed.
+     *
+     * @param groupInstanceIds the group.instance.id of each member to remove
+     */
+    public void removeStaticMembers(Collection<String> groupInstanceIds) {
+        if (groupInstanceIds.isEmpty()) {
+            return;
+        }
+        try {
+            adminClient.removeMembersFromConsumerGroup(groupId, new RemoveMembersFromConsumerGroupOptions(
+                            groupInstanceIds.stream().map(MemberToRemove::new).toList()))
+                    .all()
+                    .get(ADMIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            log.info("Removed static members {} from group {}", groupInstanceIds, groupId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // Also raised when a member already left; the session timeout is the fallback either way
+            log.warn("Failed to remove static members {} from group {}: {}", groupInstanceIds, groupId, e.getMessage());
+        }
+    }
+
+    private void refreshPartitionCounts(Set<String> topics)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        Map<String, TopicDescription> descriptions = adminClient.describeTopics(topics)
+                .allTopicNames()
+                .get(ADMIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        descriptions.forEach((topic, description) -> partitionsByTopic.put(topic, description.partitions().size()));
+    }
+
+    @Override
+    public void destroy() {
+        adminClient.close();
+    }
+}
@@ -0,0 +1,145 @@
+package com.swann.paymentservice.backpressure;
+
+import com.swann.common.datasource.WorkloadPools;
+import com.swann.common.datasource.WorkloadType;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps Kafka consumption from piling up on the database. Samples the consumer
+ * workload's Hikari pool, the one the listeners run their transactions on, and
+ * pauses the listed listener containers while their threads queue for
+ * connections or acquisition gets slow; resumes only after the pool has stayed
+ * healthy for several samples in a row, so it does not flap. Paused containers
+ * keep their partitions, they just stop fetching.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "payment.backpressure.enabled", havingValue = "true", matchIfMissing = true)
+public class DbAdmissionController {
+
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final MeterRegistry meterRegistry;
+    private final HikariDataSource dataSource;
+    private final List<String> listenerIds;
+    private final int pausePendingThreads;
+    private final double pauseAcquireMillis;
+    private final int resumePendingThreads;
+    private final double resumeAcquireMillis;
+    private final int resumeAfterSamples;
+    private final Counter pauses;
+
+    private volatile boolean paused;
+    private int healthySamples;
+    private long lastAcquireCount;
+    private double lastAcquireTotalMillis;
+
+    public DbAdmissionController(KafkaListenerEndpointRegistry listenerRegistry,
+                                 WorkloadPools workloadPools,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${payment.backpressure.listener-ids:orderCreatedListener}") List<String> listenerIds,
+                                 @Value("${payment.backpressure.pause-pending-threads:2}") int pausePendingThreads,
+                                 @Value("${payment.backpressure.pause-acquire-ms:50}") double pauseAcquireMillis,
+                                 @Value("${payment.backpressure.resume-pending-threads:0}") int resumePendingThreads,
+                                 @Value("${payment.backpressure.resume-acquire-ms:10}") double resumeAcquireMillis,
+                                 @Value("${payment.backpressure.resume-after-samples:8}") int resumeAfterSamples) {
+        this.listenerRegistry = listenerRegistry;
+        this.meterRegistry = meterRegistry;
+        this.dataSource = workloadPools.get(WorkloadType.CONSUMER);
+        this.listenerIds = listenerIds;
+        this.pausePendingThreads = pausePendingThreads;
+        this.pauseAcquireMillis = pauseAcquireMillis;
+        this.resumePendingThreads = resumePendingThreads;
+        this.resumeAcquireMillis = resumeAcquireMillis;
+        this.resumeAfterSamples = resumeAfterSamples;
+        this.pauses = Counter.builder("payment.backpressure.pauses").register(meterRegistry);
+        Gauge.builder("payment.backpressure.paused", this, controller -> controller.isPaused() ? 1 : 0)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${payment.backpressure.sample-interval-ms:250}")
+    public void sample() {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        if (pool == null) {
+            return; // pool not started yet
+        }
+        evaluate(pool.getThreadsAwaitingConnection(), recentAcquireMillis());
+    }
+
+    /**
+     * Apply one sample of pool pressure
+     *
+     * @param pendingThreads threads waiting for a connection right now
+     * @param acquireMillis mean connection acquisition time since the previous sample
+     */
+    void evaluate(int pendingThreads, double acquireMillis) {
+        if (!paused) {
+            if (pendingThreads >= pausePendingThreads || acquireMillis >= pauseAcquireMillis) {
+                log.warn("Pausing Kafka listeners {}: {} thread(s) waiting for a connection, acquisition {} ms",
+                        listenerIds, pendingThreads, String.format("%.1f", acquireMillis));
+                setPaused(true);
+                pauses.increment();
+            }
+            return;
+        }
+        if (pendingThreads <= resumePendingThreads && acquireMillis <= resumeAcquireMillis) {
+            if (++healthySamples >= resumeAfterSamples) {
+                log.info("Resuming Kafka listeners {}", listenerIds);
+                setPaused(false);
+            }
+        } else {
+            healthySamples = 0;
+        }
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    private void setPaused(boolean pause) {
+        for (String listenerId : listenerIds) {
+            MessageListenerContainer container = listenerRegistry.getListenerContainer(listenerId);
+            if (container == null) {
+                continue;
+            }
+            if (pause) {
+                container.pause();
+            } else {
+                container.resume();
+            }
+        }
+        paused = pause;
+        healthySamples = 0;
+    }
+
+    private double recentAcquireMillis() {
+        // Registered by Spring Boot's Hikari metrics binding
+        Timer acquire = meterRegistry.find("hikaricp.connections.acquire")
+                .tag("pool", dataSource.getPoolName())
+                .timer();
+        if (acquire == null) {
+            return 0;
+        }
+        long count = acquire.count();
+        double totalMillis = acquire.totalTime(TimeUnit.MILLISECONDS);
+        long deltaCount = count - lastAcquireCount;
+        double deltaMillis = totalMillis - lastAcquireTotalMillis;
+        lastAcquireCount = count;
+        lastAcquireTotalMillis = totalMillis;
+        return deltaCount > 0 ? deltaMillis / deltaCount : 0;
+    }
+}
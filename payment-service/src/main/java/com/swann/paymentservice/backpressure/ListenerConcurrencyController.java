@@ -0,0 +1,222 @@
+package com.swann.paymentservice.backpressure;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Adjusts the number of consumer threads of a listener container to its lag.
+ * Scales up one thread at a time while the backlog would take longer than the
+ * target to drain at the observed processing rate, and down once the lag is
+ * small again. Both directions need several agreeing evaluations and a cooldown
+ * since the last change; the count never exceeds the partition count, since
+ * extra consumers would sit idle, nor the size of the consumer connection pool,
+ * since they would wait for a connection. Consumers use static membership, so
+ * those dropped by scaling down are removed from the group explicitly; otherwise
+ * their partitions would stall until the session timeout.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "payment.scaling.enabled", havingValue = "true", matchIfMissing = true)
+public class ListenerConcurrencyController {
+
+    private static final int MAX_DECISIONS = 20;
+
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final ConsumerLagMonitor lagMonitor;
+    private final ObjectProvider<DbAdmissionController> admissionController;
+    private final String listenerId;
+    private final String topic;
+    private final int minConcurrency;
+    private final int maxConcurrency;
+    private final double scaleUpDrainSeconds;
+    private final long scaleDownLag;
+    private final int scaleUpAfter;
+    private final int scaleDownAfter;
+    private final long cooldownMillis;
+    private final Deque<Decision> decisions = new ArrayDeque<>();
+
+    private int upStreak;
+    private int downStreak;
+    private long lastChangeMillis;
+
+    public ListenerConcurrencyController(KafkaListenerEndpointRegistry listenerRegistry,
+                                         ConsumerLagMonitor lagMonitor,
+                                         ObjectProvider<DbAdmissionController> admissionController,
+                                         @Value("${payment.scaling.listener-id:orderCreatedListener}") String listenerId,
+                                         @Value("${payment.scaling.topic:order-created}") String topic,
+                                         @Value("${payment.scaling.min-concurrency:1}") int minConcurrency,
+                                         @Value("${payment.scaling.max-concurrency:6}") int maxConcurrency,
+                                         @Value("${payment.datasource.pools.consumer:${payment.scaling.max-concurrency:6}}") int consumerPoolSize,
+                                         @Value("${payment.scaling.scale-up-drain-seconds:30}") double scaleUpDrainSeconds,
+                                         @Value("${payment.scaling.scale-down-lag:100}") long scaleDownLag,
+                                         @Value("${payment.scaling.scale-up-after:2}") int scaleUpAfter,
+                                         @Value("${payment.scaling.scale-down-after:6}") int scaleDownAfter,
+                                         @Value("${payment.scaling.cooldown-ms:60000}") long cooldownMillis) {
+        this.listenerRegistry = listenerRegistry;
+        this.lagMonitor = lagMonitor;
+        this.admissionController = admissionController;
+        this.listenerId = listenerId;
+        this.topic = topic;
+        this.minConcurrency = minConcurrency;
+        this.maxConcurrency = Math.max(minConcurrency, Math.min(maxConcurrency, consumerPoolSize));
+        this.scaleUpDrainSeconds = scaleUpDrainSeconds;
+        this.scaleDownLag = scaleDownLag;
+        this.scaleUpAfter = scaleUpAfter;
+        this.scaleDownAfter = scaleDownAfter;
+        this.cooldownMillis = cooldownMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${payment.scaling.interval-ms:10000}", initialDelayString = "${payment.scaling.interval-ms:10000}")
+    public void adjust() {
+        ConcurrentMessageListenerContainer<?, ?> container = getContainer();
+        if (container == null || !container.isRunning()) {
+            return;
+        }
+        DbAdmissionController admission = admissionController.getIfAvailable();
+        if (admission != null && admission.isPaused()) {
+            return; // the database is the bottleneck, more consumers would make it worse
+        }
+
+        int current = container.getConcurrency();
+        int target = evaluate(lagMonitor.getLag(topic), lagMonitor.getProcessingRate(topic),
+                lagMonitor.getPartitionCount(topic), current, System.currentTimeMillis());
+        if (target == current) {
+            return;
+        }
+        log.info("Changing concurrency of listener {} from {} to {}", listenerId, current, target);
+        // Concurrency only applies on start; stop() commits and releases the partitions first
+        container.stop(() -> {
+            container.setConcurrency(target);
+            if (target < current) {
+                lagMonitor.removeStaticMembers(staticMemberIds(instanceId(container), target, current));
+            }
+            container.start();
+        });
+    }
+
+    /**
+     * The container suffixes the group.instance.id with each consumer's index
+     *
+     * @param instanceId the group.instance.id of the container
+     * @param from the first index, inclusive
+     * @param to the last index, exclusive
+     * @return the group.instance.id of the consumers in the range
+     */
+    static List<String> staticMemberIds(String instanceId, int from, int to) {
+        return IntStream.range(from, to).mapToObj(index -> instanceId + "-" + index).toList();
+    }
+
+    private static String instanceId(ConcurrentMessageListenerContainer<?, ?> container) {
+        return container.getContainerProperties().getKafkaConsumerProperties()
+                .getProperty(ConsumerConfig.GROUP_INSTANCE_ID_CONFIG);
+    }
+
+    /**
+     * Decide the concurrency for one observation
+     *
+     * @param lag records behind on the topic
+     * @param processingRate records per second processed recently
+     * @param partitions partitions of the topic, 0 if unknown
+     * @param current the current concurrency
+     * @param nowMillis the current time
+     * @return the concurrency to run with, {@code current} to leave it unchanged
+     */
+    synchronized int evaluate(long lag, double processingRate, int partitions, int current, long nowMillis) {
+        int ceiling = Math.min(maxConcurrency, partitions > 0 ? partitions : current);
+        double drainSeconds = processingRate > 0 ? lag / processingRate : (lag > 0 ? Double.POSITIVE_INFINITY : 0);
+        boolean coolingDown = nowMillis - lastChangeMillis < cooldownMillis;
+
+        if (lag > scaleDownLag && drainSeconds > scaleUpDrainSeconds && current < ceiling) {
+            downStreak = 0;
+            if (++upStreak >= scaleUpAfter && !coolingDown) {
+                return change(current, current + 1, lag, processingRate, nowMillis,
+                        String.format("backlog needs %.0fs to drain", Math.min(drainSeconds, 1e9)));
+            }
+        } else if (lag <= scaleDownLag && current > minConcurrency) {
+            upStreak = 0;
+            if (++downStreak >= scaleDownAfter && !coolingDown) {
+                return change(current, current - 1, lag, processingRate, nowMillis, "lag below " + scaleDownLag);
+            }
+        } else if (current > ceiling) {
+            upStreak = 0;
+            downStreak = 0;
+            return change(current, Math.max(minConcurrency, ceiling), lag, processingRate, nowMillis, "above partition count");
+        } else {
+            upStreak = 0;
+            downStreak = 0;
+        }
+        return current;
+    }
+
+    public synchronized List<Decision> getDecisions() {
+        return new ArrayList<>(decisions);
+    }
+
+    public String getListenerId() {
+        return listenerId;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public int getMinConcurrency() {
+        return minConcurrency;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * @return the container's current concurrency, or 0 if the container does not exist
+     */
+    public int getCurrentConcurrency() {
+        ConcurrentMessageListenerContainer<?, ?> container = getContainer();
+        return container == null ? 0 : container.getConcurrency();
+    }
+
+    private int change(int from, int to, long lag, double processingRate, long nowMillis, String reason) {
+        upStreak = 0;
+        downStreak = 0;
+        lastChangeMillis = nowMillis;
+        if (decisions.size() == MAX_DECISIONS) {
+            decisions.removeFirst();
+        }
+        decisions.addLast(new Decision(Instant.ofEpochMilli(nowMillis), from, to, lag, processingRate, reason));
+        return to;
+    }
+
+    private ConcurrentMessageListenerContainer<?, ?> getContainer() {
+        MessageListenerContainer container = listenerRegistry.getListenerContainer(listenerId);
+        return container instanceof ConcurrentMessageListenerContainer<?, ?> concurrent ? concurrent : null;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Decision {
+        private Instant at;
+        private int from;
+        private int to;
+        private long lag;
+        private double processingRate;
+        private String reason;
+    }
+}
@@ -0,0 +1,39 @@
+package com.swann.paymentservice.backpressure;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code /actuator/listenerconcurrency}: current consumer threads of the scaled
+ * listener, the inputs the controller sees, and its recent decisions.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "payment.scaling.enabled", havingValue = "true", matchIfMissing = true)
+@Endpoint(id = "listenerconcurrency")
+public class ListenerConcurrencyEndpoint {
+
+    private final ListenerConcurrencyController controller;
+    private final ConsumerLagMonitor lagMonitor;
+
+    @ReadOperation
+    public Map<String, Object> concurrency() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("listenerId", controller.getListenerId());
+        body.put("topic", controller.getTopic());
+        body.put("concurrency", controller.getCurrentConcurrency());
+        body.put("minConcurrency", controller.getMinConcurrency());
+        body.put("maxConcurrency", controller.getMaxConcurrency());
+        body.put("partitions", lagMonitor.getPartitionCount(controller.getTopic()));
+        body.put("lag", lagMonitor.getLag(controller.getTopic()));
+        body.put("processingRate", lagMonitor.getProcessingRate(controller.getTopic()));
+        body.put("decisions", controller.getDecisions());
+        return body;
+    }
+}
@@ -0,0 +1,105 @@
+package com.swann.paymentservice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.swann.paymentservice.dto.PaymentResponse;
+import com.swann.paymentservice.model.PaymentStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Positive/negative cache for payment lookups by order ID.
+ * Misses are cached as {@link Optional#empty()} with a short TTL so the burst of
+ * lookups right after checkout does not reach the database; saving a payment
+ * replaces the negative entry straight away. A PENDING payment gets the same
+ * short TTL, since the gateway can settle it on another instance at any time.
+ */
+@Component
+public class PaymentLookupCache implements MeterBinder {
+
+    private final Cache<UUID, Optional<PaymentResponse>> cache;
+
+    @Autowired
+    public PaymentLookupCache(@Value("${payment.lookup-cache.maximum-size:100000}") long maximumSize,
+                              @Value("${payment.lookup-cache.positive-ttl-ms:600000}") long positiveTtlMillis,
+                              @Value("${payment.lookup-cache.negative-ttl-ms:2000}") long negativeTtlMillis) {
+        this(maximumSize, Duration.ofMillis(positiveTtlMillis), Duration.ofMillis(negativeTtlMillis));
+    }
+
+    public PaymentLookupCache(long maximumSize, Duration positiveTtl, Duration negativeTtl) {
+        this(maximumSize, positiveTtl, negativeTtl, Ticker.systemTicker());
+    }
+
+    PaymentLookupCache(long maximumSize, Duration positiveTtl, Duration negativeTtl, Ticker ticker) {
+        long positiveNanos = positiveTtl.toNanos();
+        long negativeNanos = negativeTtl.toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<UUID, Optional<PaymentResponse>>() {
+                    @Override
+                    public long expireAfterCreate(UUID key, Optional<PaymentResponse> value, long currentTime) {
+                        return isFinal(value) ? positiveNanos : negativeNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(UUID key, Optional<PaymentResponse> value, long currentTime, long currentDuration) {
+                        return isFinal(value) ? positiveNanos : negativeNanos;
+                    }
+
+                    @Override
+                    public long expireAfterRead(UUID key, Optional<PaymentResponse> value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .ticker(ticker)
+                .recordStats()
+                .build();
+    }
+
+    private static boolean isFinal(Optional<PaymentResponse> value) {
+        return value.isPresent() && !PaymentStatus.PENDING.equals(value.get().getStatus());
+    }
+
+    /**
+     * Look up a payment, loading and caching the result on a miss
+     *
+     * @param orderId the order ID
+     * @param loader loads the payment from the database
+     * @return the payment, or empty if none exists yet
+     */
+    public Optional<PaymentResponse> get(UUID orderId, Function<UUID, Optional<PaymentResponse>> loader) {
+        Optional<PaymentResponse> cached = cache.getIfPresent(orderId);
+        if (cached != null) {
+            return cached;
+        }
+        Optional<PaymentResponse> loaded = loader.apply(orderId);
+        // putIfAbsent so a payment saved while we were loading is not overwritten by a stale miss
+        Optional<PaymentResponse> raced = cache.asMap().putIfAbsent(orderId, loaded);
+        return raced != null ? raced : loaded;
+    }
+
+    /**
+     * Cache a saved payment, replacing any earlier entry for its order
+     *
+     * @param payment the saved payment
+     */
+    public void put(PaymentResponse payment) {
+        cache.put(payment.getOrderId(), Optional.of(payment));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "paymentLookup");
+    }
+}
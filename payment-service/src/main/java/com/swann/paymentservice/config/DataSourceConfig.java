@@ -0,0 +1,119 @@
+package com.swann.paymentservice.config;
+
+import com.swann.common.datasource.ReadYourWritesFilter;
+import com.swann.common.datasource.ReplicaLagMonitor;
+import com.swann.common.datasource.ReplicaRoutingDataSource;
+import com.swann.common.datasource.Workload;
+import com.swann.common.datasource.WorkloadInterceptor;
+import com.swann.common.datasource.WorkloadPools;
+import com.swann.common.datasource.WorkloadRoutingDataSource;
+import com.swann.common.datasource.WorkloadType;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Role;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Connection pools per workload on the primary, plus an optional read replica.
+ * Read-only transactions go to the interactive pool, or to the replica when
+ * payment.datasource.replica.url is set; writes to the write pool; code marked
+ * {@link Workload} to its own pool. The lazy proxy defers fetching a connection
+ * until the first statement, by which time the transaction has marked it
+ * read-only.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    public WorkloadPools workloadPools(DataSourceProperties properties,
+                                       ObjectProvider<JdbcConnectionDetails> connectionDetails,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${spring.datasource.hikari.connection-timeout:30000}") long connectionTimeoutMillis,
+                                       @Value("${payment.datasource.pools.interactive:4}") int interactiveSize,
+                                       @Value("${payment.datasource.pools.write:3}") int writeSize,
+                                       @Value("${payment.datasource.pools.consumer:${payment.scaling.max-concurrency:6}}") int consumerSize,
+                                       @Value("${payment.datasource.pools.batch:5}") int batchSize) {
+        // Connection details from a service connection (e.g. Testcontainers) win over spring.datasource
+        JdbcConnectionDetails details = connectionDetails.getIfAvailable();
+        Map<WorkloadType, Integer> sizes = Map.of(WorkloadType.INTERACTIVE, interactiveSize, WorkloadType.WRITE, writeSize,
+                WorkloadType.CONSUMER, consumerSize, WorkloadType.BATCH, batchSize);
+        return WorkloadPools.create(List.of(details != null ? details.getJdbcUrl() : properties.determineUrl()),
+                details != null ? details.getUsername() : properties.determineUsername(),
+                details != null ? details.getPassword() : properties.determinePassword(),
+                connectionTimeoutMillis, sizes, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "payment.datasource.replica", name = "url")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Value("${payment.datasource.replica.url}") String url,
+                                              @Value("${payment.datasource.replica.maximum-pool-size:5}") int maximumPoolSize) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(properties.determineUsername());
+        dataSource.setPassword(properties.determinePassword());
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        dataSource.setConnectionTimeout(Duration.ofSeconds(5).toMillis());
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "payment.datasource.replica", name = "url")
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                               @Value("${payment.datasource.replica.max-staleness-ms:2000}") long maxStalenessMillis,
+                                               @Value("${payment.datasource.replica.lag-check-interval-ms:1000}") long checkIntervalMillis,
+                                               MeterRegistry meterRegistry) {
+        return new ReplicaLagMonitor(replicaDataSource, Duration.ofMillis(maxStalenessMillis),
+                Duration.ofMillis(checkIntervalMillis), "payment", meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(WorkloadPools workloadPools,
+                                 @Qualifier("replicaDataSource") ObjectProvider<DataSource> replicaDataSource,
+                                 ObjectProvider<ReplicaLagMonitor> replicaLagMonitor,
+                                 MeterRegistry meterRegistry) {
+        Map<WorkloadType, DataSource> readTargets = new EnumMap<>(workloadPools.asMap());
+        ReplicaLagMonitor lagMonitor = replicaLagMonitor.getIfAvailable();
+        if (lagMonitor != null) {
+            // The interactive pool stays the fallback while the replica is stale
+            readTargets.put(WorkloadType.INTERACTIVE, new ReplicaRoutingDataSource(
+                    workloadPools.get(WorkloadType.INTERACTIVE), replicaDataSource.getObject(), lagMonitor, "payment", meterRegistry));
+        }
+        LazyConnectionDataSourceProxy dataSource =
+                new LazyConnectionDataSourceProxy(new WorkloadRoutingDataSource(workloadPools.asMap(), false));
+        dataSource.setReadOnlyDataSource(new WorkloadRoutingDataSource(readTargets, true));
+        return dataSource;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "payment.datasource.replica", name = "url")
+    public ReadYourWritesFilter readYourWritesFilter(@Value("${payment.datasource.replica.read-your-writes-ms:5000}") long windowMillis) {
+        return new ReadYourWritesFilter(Duration.ofMillis(windowMillis));
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor workloadAdvisor() {
+        return WorkloadInterceptor.advisor();
+    }
+}
@@ -1,7 +1,10 @@
 package com.swann.paymentservice.config;
 
+import com.swann.common.kafka.TopicPartitionFinder;
+import com.swann.paymentservice.consumer.DrainingRebalanceListener;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.CooperativeStickyAssignor;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
@@ -16,6 +19,7 @@ import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 @Configuration
 public class KafkaConfig {
@@ -23,6 +27,13 @@ public class KafkaConfig {
     @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
     private String bootstrapServers;
 
+    // Stable per instance (pod or container name), so a restart rejoins without a rebalance
+    @Value("${payment.kafka.instance-id:${HOSTNAME:}}")
+    private String instanceId;
+
+    @Value("${payment.kafka.session-timeout-ms:30000}")
+    private int sessionTimeoutMillis;
+
     public static final String ORDER_CREATED_TOPIC = "order-created";
     public static final String PAYMENT_PROCESSED_TOPIC = "payment-processed";
 
@@ -52,13 +63,7 @@ public class KafkaConfig {
     // Consumer configuration
     @Bean
     public ConsumerFactory<String, Object> consumerFactory() {
-        Map<String, Object> configProps = new HashMap<>();
-        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, "payment-service-group");
-        configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
-        configProps.put(JsonDeserializer.TRUSTED_PACKAGES, "com.swann.*");
-        return new DefaultKafkaConsumerFactory<>(configProps);
+        return new DefaultKafkaConsumerFactory<>(consumerProperties());
     }
 
     @Bean
@@ -67,4 +72,56 @@ public class KafkaConfig {
         factory.setConsumerFactory(consumerFactory());
         return factory;
     }
-}
\ No newline at end of file
+
+    /**
+     * For listeners that every instance runs over all partitions, assigned
+     * explicitly. Their consumers have no group.id, so the container commits
+     * nothing.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> broadcastListenerContainerFactory() {
+        Map<String, Object> configProps = consumerProperties();
+        configProps.remove(ConsumerConfig.GROUP_ID_CONFIG);
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(configProps));
+        return factory;
+    }
+
+    @Bean
+    public TopicPartitionFinder topicPartitionFinder(KafkaAdmin kafkaAdmin) {
+        return new TopicPartitionFinder(kafkaAdmin);
+    }
+
+    /**
+     * For the order-created listener, the only one whose consumers scale and
+     * should survive restarts without a rebalance. The consumer factory is not
+     * a bean, so {@link #consumerFactory()} stays the only one.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> orderCreatedListenerContainerFactory(DrainingRebalanceListener rebalanceListener) {
+        Map<String, Object> configProps = consumerProperties();
+        // Incremental rebalances: only partitions that move are revoked, the rest keep flowing
+        configProps.put(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG, CooperativeStickyAssignor.class.getName());
+        configProps.put(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, sessionTimeoutMillis);
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(configProps));
+        factory.getContainerProperties().setConsumerRebalanceListener(rebalanceListener);
+        // Static membership; the container suffixes the ID per consumer thread. Set on the container so the
+        // concurrency controller can name the members it drops. Without HOSTNAME a random ID keeps local
+        // instances from fencing each other, at the cost of a rebalance on restart
+        factory.getContainerProperties().getKafkaConsumerProperties().setProperty(ConsumerConfig.GROUP_INSTANCE_ID_CONFIG,
+                instanceId.isBlank() ? "payment-service-" + UUID.randomUUID() : instanceId);
+        return factory;
+    }
+
+    private Map<String, Object> consumerProperties() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, "payment-service-group");
+        configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+        configProps.put(JsonDeserializer.TRUSTED_PACKAGES, "com.swann.*");
+        return configProps;
+    }
+}
@@ -0,0 +1,63 @@
+package com.swann.paymentservice.config;
+
+import com.swann.paymentservice.gateway.CircuitBreaker;
+import com.swann.paymentservice.gateway.ResilientPaymentGateway;
+import com.swann.paymentservice.gateway.SimulatedPaymentGateway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class PaymentGatewayConfig {
+
+    @Value("${payment.gateway.max-in-flight:200}")
+    private int maxInFlight;
+
+    @Value("${payment.gateway.timeout-ms:2000}")
+    private long timeoutMillis;
+
+    @Value("${payment.gateway.callback-threads:4}")
+    private int callbackThreads;
+
+    @Value("${payment.gateway.circuit-breaker.window-size:50}")
+    private int windowSize;
+
+    @Value("${payment.gateway.circuit-breaker.minimum-calls:20}")
+    private int minimumCalls;
+
+    @Value("${payment.gateway.circuit-breaker.failure-rate-threshold:0.5}")
+    private double failureRateThreshold;
+
+    @Value("${payment.gateway.circuit-breaker.open-duration-ms:10000}")
+    private long openDurationMillis;
+
+    @Value("${payment.gateway.circuit-breaker.half-open-permits:5}")
+    private int halfOpenPermits;
+
+    @Bean
+    public SimulatedPaymentGateway simulatedPaymentGateway(
+            @Value("${payment.gateway.simulator.latency-median-ms:120}") long latencyMedianMillis,
+            @Value("${payment.gateway.simulator.latency-p99-ms:800}") long latencyP99Millis,
+            @Value("${payment.gateway.simulator.failure-rate:0.01}") double failureRate,
+            @Value("${payment.gateway.simulator.hang-rate:0.001}") double hangRate,
+            @Value("${payment.gateway.simulator.decline-rate:0.03}") double declineRate) {
+        return new SimulatedPaymentGateway(latencyMedianMillis, latencyP99Millis, failureRate, hangRate, declineRate);
+    }
+
+    @Bean
+    @Primary
+    public ResilientPaymentGateway paymentGateway(SimulatedPaymentGateway simulatedPaymentGateway) {
+        return new ResilientPaymentGateway(
+                simulatedPaymentGateway,
+                maxInFlight,
+                new CircuitBreaker(windowSize, minimumCalls, failureRateThreshold,
+                        Duration.ofMillis(openDurationMillis), halfOpenPermits),
+                Duration.ofMillis(timeoutMillis),
+                Executors.newFixedThreadPool(callbackThreads, new CustomizableThreadFactory("payment-gateway-callback-")));
+    }
+}
@@ -0,0 +1,87 @@
+package com.swann.paymentservice.consumer;
+
+import com.swann.paymentservice.gateway.InFlightAuthorizations;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finishes gateway confirmations started by this instance before revoked
+ * partitions are committed and handed over, so the new owner neither redelivers
+ * the records nor finds their payments stuck in PENDING. With cooperative
+ * assignment only the partitions that actually move are revoked and the
+ * consumer keeps processing the rest; the time from revocation to the next
+ * assignment is recorded as the rebalance pause.
+ */
+@Component
+@Slf4j
+public class DrainingRebalanceListener implements ConsumerAwareRebalanceListener {
+
+    private final InFlightAuthorizations inFlightAuthorizations;
+    private final Duration drainTimeout;
+    private final Timer drainTimer;
+    private final Timer pauseTimer;
+    private final Counter revokedPartitions;
+    private final Counter lostPartitions;
+    private final Map<Consumer<?, ?>, Long> revokedAt = new ConcurrentHashMap<>();
+
+    public DrainingRebalanceListener(InFlightAuthorizations inFlightAuthorizations, MeterRegistry meterRegistry,
+                                     @Value("${payment.kafka.rebalance.drain-timeout-ms:3000}") long drainTimeoutMillis) {
+        this.inFlightAuthorizations = inFlightAuthorizations;
+        this.drainTimeout = Duration.ofMillis(drainTimeoutMillis);
+        this.drainTimer = Timer.builder("payment.kafka.rebalance.drain").register(meterRegistry);
+        this.pauseTimer = Timer.builder("payment.kafka.rebalance.pause").register(meterRegistry);
+        this.revokedPartitions = Counter.builder("payment.kafka.rebalance.partitions").tag("change", "revoked").register(meterRegistry);
+        this.lostPartitions = Counter.builder("payment.kafka.rebalance.partitions").tag("change", "lost").register(meterRegistry);
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (partitions.isEmpty()) {
+            return;
+        }
+        long started = System.nanoTime();
+        revokedAt.put(consumer, started);
+        revokedPartitions.increment(partitions.size());
+
+        // Records already returned by poll() have been handled by now; wait for the
+        // confirmations they started, then let the container commit their offsets
+        int remaining = inFlightAuthorizations.awaitAll(drainTimeout);
+        drainTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        if (remaining > 0) {
+            log.warn("Releasing partitions {} with {} gateway confirmation(s) still in flight", partitions, remaining);
+        } else {
+            log.info("Drained in-flight work before releasing partitions {}", partitions);
+        }
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        Long started = revokedAt.remove(consumer);
+        if (started != null) {
+            pauseTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+        if (!partitions.isEmpty()) {
+            log.info("Partitions assigned: {}", partitions);
+        }
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        revokedAt.remove(consumer);
+        lostPartitions.increment(partitions.size());
+        log.warn("Partitions lost without a clean revoke: {}", partitions);
+    }
+}
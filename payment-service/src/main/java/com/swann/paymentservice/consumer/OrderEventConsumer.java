@@ -1,21 +1,40 @@
 package com.swann.paymentservice.consumer;
 
+import com.swann.common.datasource.Workload;
+import com.swann.common.datasource.WorkloadType;
 import com.swann.paymentservice.config.KafkaConfig;
 import com.swann.paymentservice.event.OrderCreatedEvent;
+import com.swann.paymentservice.event.OrderEventProjection;
+import com.swann.paymentservice.service.DuplicatePaymentException;
 import com.swann.paymentservice.service.PaymentService;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
 @Component
-@RequiredArgsConstructor
 @Slf4j
+@Workload(WorkloadType.CONSUMER)
 public class OrderEventConsumer {
 
     private final PaymentService paymentService;
+    private final Counter redeliveries;
 
-    @KafkaListener(topics = KafkaConfig.ORDER_CREATED_TOPIC, groupId = "payment-service-group")
+    public OrderEventConsumer(PaymentService paymentService, MeterRegistry meterRegistry) {
+        this.paymentService = paymentService;
+        this.redeliveries = Counter.builder("payment.kafka.redeliveries")
+                .tag("topic", KafkaConfig.ORDER_CREATED_TOPIC)
+                .register(meterRegistry);
+    }
+
+    // Payments only need the summary fields, so the items list is never decoded
+    @KafkaListener(id = "orderCreatedListener", topics = KafkaConfig.ORDER_CREATED_TOPIC, groupId = "payment-service-group",
+            containerFactory = "orderCreatedListenerContainerFactory",
+            properties = {
+                    "value.deserializer=com.swann.paymentservice.event.OrderCreatedEventDeserializer",
+                    OrderEventProjection.CONFIG + "=SUMMARY"
+            })
     public void handleOrderCreatedEvent(OrderCreatedEvent event) {
         log.info("Received order created event for order: {}", event.getOrderId());
         
@@ -28,9 +47,13 @@ public class OrderEventConsumer {
             );
             
             log.info("Successfully processed payment for order: {}", event.getOrderId());
+        } catch (DuplicatePaymentException e) {
+            // Already handled, most likely before a rebalance or restart
+            redeliveries.increment();
+            log.info("Skipping redelivered order created event for order: {}", event.getOrderId());
         } catch (Exception e) {
             log.error("Failed to process payment for order: {}", event.getOrderId(), e);
             // In a real application, we would implement retry logic or dead letter queue
         }
     }
-}
\ No newline at end of file
+}
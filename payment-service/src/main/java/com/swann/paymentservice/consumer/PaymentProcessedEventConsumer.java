@@ -0,0 +1,49 @@
+package com.swann.paymentservice.consumer;
+
+import com.swann.paymentservice.cache.PaymentLookupCache;
+import com.swann.paymentservice.config.KafkaConfig;
+import com.swann.paymentservice.dto.PaymentResponse;
+import com.swann.paymentservice.event.PaymentProcessedEvent;
+import com.swann.paymentservice.notification.PaymentStatusNotifier;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.stereotype.Component;
+
+/**
+ * Wakes requests parked on this instance and caches the final payment when
+ * another instance saved it. The listener is assigned every partition directly,
+ * without a consumer group, so each instance sees every event and nothing is
+ * committed.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentProcessedEventConsumer {
+
+    private final PaymentStatusNotifier paymentStatusNotifier;
+    private final PaymentLookupCache paymentLookupCache;
+
+    @KafkaListener(topicPartitions = @TopicPartition(topic = KafkaConfig.PAYMENT_PROCESSED_TOPIC,
+            partitions = "#{@topicPartitionFinder.partitions('" + KafkaConfig.PAYMENT_PROCESSED_TOPIC + "')}"),
+            containerFactory = "broadcastListenerContainerFactory")
+    public void handlePaymentProcessedEvent(PaymentProcessedEvent event) {
+        log.debug("Received payment processed event for order: {}", event.getOrderId());
+
+        PaymentResponse payment = PaymentResponse.builder()
+                .paymentId(event.getPaymentId())
+                .orderId(event.getOrderId())
+                .amount(event.getAmount())
+                .status(event.getStatus())
+                .createdAt(event.getCreatedAt() != null ? event.getCreatedAt() : event.getTimestamp())
+                .updatedAt(event.getTimestamp())
+                .build();
+
+        // The event is sent before the saving transaction commits, so invalidating would let a
+        // lookup re-read and cache the old state; the status in the event is final, so cache it
+        paymentLookupCache.put(payment);
+
+        paymentStatusNotifier.notifyWaiters(payment);
+    }
+}
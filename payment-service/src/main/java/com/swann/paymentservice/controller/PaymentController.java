@@ -1,22 +1,35 @@
 package com.swann.paymentservice.controller;
 
 import com.swann.paymentservice.dto.PaymentResponse;
+import com.swann.paymentservice.model.PaymentStatus;
+import com.swann.paymentservice.notification.PaymentStatusNotifier;
 import com.swann.paymentservice.service.PaymentService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @RestController
 @RequestMapping("/payments")
@@ -25,7 +38,16 @@ import java.util.UUID;
 @Tag(name = "Payment Management", description = "APIs for managing payments in the e-commerce system")
 public class PaymentController {
 
+    private static final ResponseEntity<PaymentResponse> NOT_FOUND = ResponseEntity.notFound().build();
+    // Backstop for a stream whose timeout event could not be scheduled or sent
+    private static final long STREAM_TIMEOUT_GRACE_MILLIS = 5000;
+
     private final PaymentService paymentService;
+    private final PaymentStatusNotifier paymentStatusNotifier;
+    private final TaskScheduler taskScheduler;
+
+    @Value("${payment.notifications.max-wait-ms:30000}")
+    private long maxWaitMillis;
 
     @Operation(summary = "Get payment by order ID", description = "Retrieves payment information for a specific order")
     @ApiResponses(value = {
@@ -36,12 +58,100 @@ public class PaymentController {
     @GetMapping("/order/{orderId}")
     public ResponseEntity<PaymentResponse> getPaymentByOrderId(@Parameter(description = "Unique identifier of the order") @PathVariable UUID orderId) {
         log.info("Received request to get payment for order: {}", orderId);
+        Optional<PaymentResponse> payment = paymentService.findPaymentByOrderId(orderId);
+        if (payment.isEmpty()) {
+            log.debug("Payment not found for order: {}", orderId);
+            return NOT_FOUND;
+        }
+        return ResponseEntity.ok(payment.get());
+    }
+
+    @Operation(summary = "Wait for payment by order ID", description = "Long-polls until the payment for the order reaches a final status or the timeout elapses")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Payment found and returned"),
+        @ApiResponse(responseCode = "404", description = "No final payment status before the timeout"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/order/{orderId}/await")
+    public DeferredResult<ResponseEntity<PaymentResponse>> awaitPaymentByOrderId(
+            @Parameter(description = "Unique identifier of the order") @PathVariable UUID orderId,
+            @Parameter(description = "Maximum time to wait in milliseconds") @RequestParam(required = false) Long timeoutMs) {
+        log.info("Received request to await payment for order: {}", orderId);
+        DeferredResult<ResponseEntity<PaymentResponse>> result =
+                new DeferredResult<>(resolveTimeout(timeoutMs), NOT_FOUND);
+
+        // Register before the lookup so a payment saved in between is not missed
+        Runnable unregister = paymentStatusNotifier.register(orderId, payment -> result.setResult(ResponseEntity.ok(payment)));
+        result.onCompletion(unregister);
+
+        findFinalPayment(orderId).ifPresent(payment -> result.setResult(ResponseEntity.ok(payment)));
+        return result;
+    }
+
+    @Operation(summary = "Stream payment status by order ID", description = "Server-Sent Events stream that emits the payment once it reaches a final status and then completes; "
+            + "if none does in time, it emits a timeout event carrying the payment so far, or just the order ID")
+    @GetMapping(value = "/order/{orderId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamPaymentByOrderId(
+            @Parameter(description = "Unique identifier of the order") @PathVariable UUID orderId,
+            @Parameter(description = "Maximum time to wait in milliseconds") @RequestParam(required = false) Long timeoutMs) {
+        log.info("Received request to stream payment for order: {}", orderId);
+        long timeoutMillis = resolveTimeout(timeoutMs);
+        SseEmitter emitter = new SseEmitter(timeoutMillis + STREAM_TIMEOUT_GRACE_MILLIS);
+        AtomicBoolean sent = new AtomicBoolean();
+
+        Runnable unregister = paymentStatusNotifier.register(orderId, payment -> sendPayment(emitter, sent, payment));
+        // The emitter refuses to send once its own timeout fires, so the timeout event comes from a timer
+        ScheduledFuture<?> timeout = taskScheduler.schedule(() -> sendTimeout(emitter, sent, orderId),
+                Instant.now().plusMillis(timeoutMillis));
+        emitter.onCompletion(() -> {
+            unregister.run();
+            timeout.cancel(false);
+        });
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> unregister.run());
+
+        findFinalPayment(orderId).ifPresent(payment -> sendPayment(emitter, sent, payment));
+        return emitter;
+    }
+
+    private Optional<PaymentResponse> findFinalPayment(UUID orderId) {
+        // A PENDING payment is still waiting on the gateway; keep waiting for its confirmation
+        return paymentService.findPaymentByOrderId(orderId)
+                .filter(payment -> !PaymentStatus.PENDING.equals(payment.getStatus()));
+    }
+
+    private void sendPayment(SseEmitter emitter, AtomicBoolean sent, PaymentResponse payment) {
+        if (!sent.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            emitter.send(SseEmitter.event().name("payment").data(payment, MediaType.APPLICATION_JSON));
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void sendTimeout(SseEmitter emitter, AtomicBoolean sent, UUID orderId) {
+        if (!sent.compareAndSet(false, true)) {
+            return;
+        }
+        // Clients ignore events without data, so the event always carries some
+        Object current = paymentService.findPaymentByOrderId(orderId)
+                .<Object>map(payment -> payment)
+                .orElse(Map.of("orderId", orderId));
         try {
-            PaymentResponse response = paymentService.getPaymentByOrderId(orderId);
-            return ResponseEntity.ok(response);
-        } catch (EntityNotFoundException e) {
-            log.warn("Payment not found for order: {}", orderId);
-            return ResponseEntity.notFound().build();
+            emitter.send(SseEmitter.event().name("timeout").data(current, MediaType.APPLICATION_JSON));
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    private long resolveTimeout(Long requestedMillis) {
+        if (requestedMillis == null || requestedMillis <= 0) {
+            return maxWaitMillis;
         }
+        return Math.min(requestedMillis, maxWaitMillis);
     }
-}
\ No newline at end of file
+}
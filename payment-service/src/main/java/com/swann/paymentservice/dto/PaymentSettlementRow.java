@@ -0,0 +1,17 @@
+package com.swann.paymentservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * Narrow projection of a payment streamed by the settlement job; avoids
+ * materializing managed {@code Payment} entities.
+ */
+@Getter
+@AllArgsConstructor
+public class PaymentSettlementRow {
+    private String status;
+    private BigDecimal amount;
+}
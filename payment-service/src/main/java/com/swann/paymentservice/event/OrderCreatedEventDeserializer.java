@@ -0,0 +1,108 @@
+package com.swann.paymentservice.event;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.JacksonUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Decodes {@link OrderCreatedEvent} only as far as the listener's
+ * {@link OrderEventProjection} requires. In {@code SUMMARY} mode the payload is
+ * not read at all when the producer sent the summary headers; in {@code ITEMS}
+ * mode the payload is streamed and everything except {@code items} is skipped.
+ * Records without the headers fall back to a full decode. The producer's type
+ * header is ignored, since the producing class does not exist in this service.
+ */
+public class OrderCreatedEventDeserializer implements Deserializer<OrderCreatedEvent> {
+
+    private static final TypeReference<List<OrderCreatedEvent.OrderItemDto>> ITEM_LIST = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper = JacksonUtils.enhancedObjectMapper();
+    private OrderEventProjection projection = OrderEventProjection.FULL;
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object configured = configs.get(OrderEventProjection.CONFIG);
+        if (configured != null) {
+            projection = OrderEventProjection.valueOf(configured.toString().trim().toUpperCase());
+        }
+    }
+
+    @Override
+    public OrderCreatedEvent deserialize(String topic, byte[] data) {
+        return deserialize(topic, null, data);
+    }
+
+    @Override
+    public OrderCreatedEvent deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            OrderCreatedEvent summary = projection == OrderEventProjection.FULL ? null : fromHeaders(headers);
+            if (summary == null) {
+                return objectMapper.readValue(data, OrderCreatedEvent.class);
+            }
+            if (projection == OrderEventProjection.ITEMS) {
+                summary.setItems(readItems(data));
+            }
+            return summary;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new SerializationException("Failed to decode order created event from " + topic, e);
+        }
+    }
+
+    private OrderCreatedEvent fromHeaders(Headers headers) {
+        if (headers == null) {
+            return null;
+        }
+        String orderId = header(headers, EventHeaders.ORDER_ID);
+        String totalAmount = header(headers, EventHeaders.TOTAL_AMOUNT);
+        if (orderId == null || totalAmount == null) {
+            return null;
+        }
+        OrderCreatedEvent event = new OrderCreatedEvent();
+        event.setEventType(header(headers, EventHeaders.EVENT_TYPE));
+        event.setOrderId(UUID.fromString(orderId));
+        String customerId = header(headers, EventHeaders.CUSTOMER_ID);
+        event.setCustomerId(customerId == null ? null : UUID.fromString(customerId));
+        event.setTotalAmount(new BigDecimal(totalAmount));
+        event.setStatus(header(headers, EventHeaders.STATUS));
+        return event;
+    }
+
+    private List<OrderCreatedEvent.OrderItemDto> readItems(byte[] data) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(data)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("items".equals(field)) {
+                    return parser.currentToken() == JsonToken.VALUE_NULL ? null : objectMapper.readValue(parser, ITEM_LIST);
+                }
+                parser.skipChildren();
+            }
+            return null;
+        }
+    }
+
+    private static String header(Headers headers, String name) {
+        Header header = headers.lastHeader(name);
+        return header == null || header.value() == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,16 @@
+package com.swann.paymentservice.event;
+
+/**
+ * Parts of an {@link OrderCreatedEvent} a listener needs decoded.
+ */
+public enum OrderEventProjection {
+    /** Summary fields only, taken from the headers; {@code items} is left null */
+    SUMMARY,
+    /** Summary fields plus {@code items}; the rest of the payload is skipped */
+    ITEMS,
+    /** The whole payload */
+    FULL;
+
+    /** Consumer property selecting the projection, set per listener */
+    public static final String CONFIG = "order-created.projection";
+}
@@ -5,6 +5,7 @@ import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Data
@@ -15,12 +16,14 @@ public class PaymentProcessedEvent extends BaseEvent {
     private UUID orderId;
     private BigDecimal amount;
     private String status;
+    private LocalDateTime createdAt;
 
-    public PaymentProcessedEvent(UUID paymentId, UUID orderId, BigDecimal amount, String status) {
+    public PaymentProcessedEvent(UUID paymentId, UUID orderId, BigDecimal amount, String status, LocalDateTime createdAt) {
         super("PAYMENT_PROCESSED");
         this.paymentId = paymentId;
         this.orderId = orderId;
         this.amount = amount;
         this.status = status;
+        this.createdAt = createdAt;
     }
 }
\ No newline at end of file
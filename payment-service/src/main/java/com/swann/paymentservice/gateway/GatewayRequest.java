@@ -0,0 +1,19 @@
+package com.swann.paymentservice.gateway;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Getter
+@Builder
+@AllArgsConstructor
+public class GatewayRequest {
+    /** Sent as the gateway idempotency key, so retries never charge twice */
+    private UUID paymentId;
+    private UUID orderId;
+    private UUID customerId;
+    private BigDecimal amount;
+}
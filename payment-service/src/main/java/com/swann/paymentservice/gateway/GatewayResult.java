@@ -0,0 +1,22 @@
+package com.swann.paymentservice.gateway;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class GatewayResult {
+
+    public enum Outcome {
+        APPROVED,
+        DECLINED
+    }
+
+    private Outcome outcome;
+    private String reference;
+    private String message;
+
+    public boolean isApproved() {
+        return outcome == Outcome.APPROVED;
+    }
+}
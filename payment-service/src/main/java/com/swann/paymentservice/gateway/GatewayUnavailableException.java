@@ -0,0 +1,11 @@
+package com.swann.paymentservice.gateway;
+
+/**
+ * Raised without calling the gateway when its bulkhead is full or its circuit is open.
+ */
+public class GatewayUnavailableException extends RuntimeException {
+
+    public GatewayUnavailableException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,70 @@
+package com.swann.paymentservice.gateway;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Gateway authorizations started by this instance whose confirmation has not been
+ * written yet. Lets the consumer finish them before giving its partitions away,
+ * instead of leaving the payments PENDING for the recovery job.
+ */
+@Component
+public class InFlightAuthorizations {
+
+    private final Set<CompletableFuture<?>> inFlight = ConcurrentHashMap.newKeySet();
+
+    public InFlightAuthorizations(MeterRegistry meterRegistry) {
+        Gauge.builder("payment.gateway.confirmations.in.flight", inFlight, Set::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Track a confirmation until it completes
+     *
+     * @param confirmation completes once the final status is written
+     */
+    public void track(CompletableFuture<?> confirmation) {
+        inFlight.add(confirmation);
+        confirmation.whenComplete((result, error) -> inFlight.remove(confirmation));
+    }
+
+    /**
+     * Wait for every confirmation in flight right now
+     *
+     * @param timeout the longest time to wait
+     * @return the number still unfinished when the timeout elapsed
+     */
+    public int awaitAll(Duration timeout) {
+        CompletableFuture<?>[] snapshot = inFlight.toArray(CompletableFuture<?>[]::new);
+        if (snapshot.length == 0) {
+            return 0;
+        }
+        try {
+            CompletableFuture.allOf(snapshot).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // Failures are handled by the confirmation itself; only count what is left
+        }
+        int remaining = 0;
+        for (CompletableFuture<?> future : snapshot) {
+            if (!future.isDone()) {
+                remaining++;
+            }
+        }
+        return remaining;
+    }
+
+    public int size() {
+        return inFlight.size();
+    }
+}
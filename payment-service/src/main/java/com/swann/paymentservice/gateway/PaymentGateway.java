@@ -0,0 +1,20 @@
+package com.swann.paymentservice.gateway;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface PaymentGateway {
+
+    /**
+     * Authorize a payment without blocking the caller. Many calls may be in flight
+     * at once; the future completes exceptionally on transport errors and timeouts.
+     *
+     * @param request the authorization request
+     * @return the gateway's decision
+     */
+    CompletableFuture<GatewayResult> authorize(GatewayRequest request);
+
+    /**
+     * @return name used for metrics and logs
+     */
+    String getName();
+}
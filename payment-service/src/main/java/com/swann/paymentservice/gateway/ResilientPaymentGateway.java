@@ -0,0 +1,99 @@
+package com.swann.paymentservice.gateway;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Guards a {@link PaymentGateway} with a bulkhead (bounded in-flight calls, rejected
+ * rather than queued when full), a circuit breaker and a per-call timeout.
+ * Completions are handed to a small callback pool so follow-up work never runs on
+ * the gateway's I/O or timer threads.
+ */
+@Slf4j
+public class ResilientPaymentGateway implements PaymentGateway, MeterBinder, AutoCloseable {
+
+    private final PaymentGateway delegate;
+    private final Semaphore bulkhead;
+    private final int maxInFlight;
+    private final CircuitBreaker circuitBreaker;
+    private final Duration timeout;
+    private final ExecutorService callbackExecutor;
+    private Timer latency;
+
+    public ResilientPaymentGateway(PaymentGateway delegate, int maxInFlight, CircuitBreaker circuitBreaker,
+                                   Duration timeout, ExecutorService callbackExecutor) {
+        this.delegate = delegate;
+        this.bulkhead = new Semaphore(maxInFlight);
+        this.maxInFlight = maxInFlight;
+        this.circuitBreaker = circuitBreaker;
+        this.timeout = timeout;
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    @Override
+    public CompletableFuture<GatewayResult> authorize(GatewayRequest request) {
+        if (!bulkhead.tryAcquire()) {
+            return CompletableFuture.failedFuture(new GatewayUnavailableException(
+                    "Gateway " + getName() + " bulkhead full (" + maxInFlight + " in flight)"));
+        }
+        if (!circuitBreaker.tryAcquirePermission()) {
+            bulkhead.release();
+            return CompletableFuture.failedFuture(new GatewayUnavailableException("Gateway " + getName() + " circuit open"));
+        }
+
+        long started = System.nanoTime();
+        CompletableFuture<GatewayResult> call;
+        try {
+            call = delegate.authorize(request);
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        return call.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenCompleteAsync((result, error) -> {
+                    bulkhead.release();
+                    if (latency != null) {
+                        latency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                    }
+                    // A decline is a healthy answer; only errors and timeouts count against the circuit
+                    if (error == null) {
+                        circuitBreaker.onSuccess();
+                    } else {
+                        circuitBreaker.onFailure();
+                        log.debug("Gateway {} call for order {} failed", getName(), request.getOrderId(), error);
+                    }
+                }, callbackExecutor);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        latency = Timer.builder("payment.gateway.latency")
+                .tag("gateway", getName())
+                .publishPercentileHistogram()
+                .register(registry);
+        Gauge.builder("payment.gateway.in.flight", bulkhead, b -> maxInFlight - b.availablePermits())
+                .tag("gateway", getName())
+                .register(registry);
+        Gauge.builder("payment.gateway.circuit.open", circuitBreaker, cb -> cb.getState() == CircuitBreaker.State.CLOSED ? 0 : 1)
+                .tag("gateway", getName())
+                .register(registry);
+    }
+
+    @Override
+    public void close() {
+        callbackExecutor.shutdown();
+    }
+}
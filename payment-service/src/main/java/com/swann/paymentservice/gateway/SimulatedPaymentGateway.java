@@ -0,0 +1,73 @@
+package com.swann.paymentservice.gateway;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local stand-in for a card gateway, for development and load tests.
+ * Latency is log-normal, fitted to the configured median and p99; each call
+ * independently fails, hangs (never answers, so the caller's timeout fires) or is
+ * declined with the configured probabilities. Calls are completed from one timer
+ * thread, so any number can be in flight at once.
+ */
+public class SimulatedPaymentGateway implements PaymentGateway, AutoCloseable {
+
+    // z-score of the 99th percentile of the standard normal distribution
+    private static final double Z_99 = 2.3263;
+
+    private final double mu;
+    private final double sigma;
+    private final double failureRate;
+    private final double hangRate;
+    private final double declineRate;
+    private final ScheduledExecutorService scheduler;
+
+    public SimulatedPaymentGateway(long latencyMedianMillis, long latencyP99Millis,
+                                   double failureRate, double hangRate, double declineRate) {
+        this.mu = Math.log(Math.max(1, latencyMedianMillis));
+        this.sigma = Math.max(0, Math.log((double) Math.max(latencyP99Millis, latencyMedianMillis) / Math.max(1, latencyMedianMillis)) / Z_99);
+        this.failureRate = failureRate;
+        this.hangRate = hangRate;
+        this.declineRate = declineRate;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "gateway-simulator");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public CompletableFuture<GatewayResult> authorize(GatewayRequest request) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        CompletableFuture<GatewayResult> result = new CompletableFuture<>();
+        double roll = random.nextDouble();
+        if (roll < hangRate) {
+            return result;
+        }
+        long latencyMillis = Math.round(Math.exp(mu + sigma * random.nextGaussian()));
+        scheduler.schedule(() -> {
+            if (roll < hangRate + failureRate) {
+                result.completeExceptionally(new IllegalStateException("Simulated gateway error for order " + request.getOrderId()));
+            } else if (roll < hangRate + failureRate + declineRate) {
+                result.complete(new GatewayResult(GatewayResult.Outcome.DECLINED, null, "Simulated decline"));
+            } else {
+                result.complete(new GatewayResult(GatewayResult.Outcome.APPROVED, "sim-" + UUID.randomUUID(), null));
+            }
+        }, latencyMillis, TimeUnit.MILLISECONDS);
+        return result;
+    }
+
+    @Override
+    public String getName() {
+        return "simulator";
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
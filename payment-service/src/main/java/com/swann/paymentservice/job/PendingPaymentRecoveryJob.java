@@ -0,0 +1,44 @@
+package com.swann.paymentservice.job;
+
+import com.swann.common.datasource.Workload;
+import com.swann.common.datasource.WorkloadType;
+import com.swann.paymentservice.service.PaymentService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Re-drives payments left PENDING by a crash between the authorize and confirm
+ * phases, by a gateway that was unavailable, or by a call whose outcome is unknown
+ * because it timed out or failed in transport. The gateway idempotency key is the
+ * payment ID, so a retry never charges twice, and each payment is claimed before
+ * it is retried, so only one instance retries it per run.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@Workload(WorkloadType.BATCH)
+public class PendingPaymentRecoveryJob {
+
+    private final PaymentService paymentService;
+
+    @Value("${payment.gateway.recovery.stale-after-ms:300000}")
+    private long staleAfterMillis;
+
+    @Scheduled(fixedDelayString = "${payment.gateway.recovery.interval-ms:60000}")
+    public void retryStalePayments() {
+        try {
+            int retried = paymentService.retryPendingPayments(LocalDateTime.now().minus(Duration.ofMillis(staleAfterMillis)));
+            if (retried > 0) {
+                log.info("Retried {} pending payment(s)", retried);
+            }
+        } catch (RuntimeException e) {
+            log.error("Pending payment recovery run failed", e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.swann.paymentservice.job;
+
+import com.swann.common.datasource.Workload;
+import com.swann.common.datasource.WorkloadType;
+import com.swann.paymentservice.service.SettlementService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Nightly settlement of the last few days. Days that were checkpointed by an
+ * earlier run are skipped, so a run that died half way finishes the rest; days
+ * that still had pending payments were not checkpointed and are settled again.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "payment.settlement.enabled", havingValue = "true", matchIfMissing = true)
+@Workload(WorkloadType.BATCH)
+public class SettlementJob {
+
+    private final SettlementService settlementService;
+
+    @Value("${payment.settlement.lookback-days:7}")
+    private int lookbackDays;
+
+    @Scheduled(cron = "${payment.settlement.cron:0 15 0 * * *}")
+    public void settleRecentDays() {
+        LocalDate to = LocalDate.now().minusDays(1);
+        LocalDate from = to.minusDays(lookbackDays - 1L);
+        try {
+            int settled = settlementService.settle(from, to);
+            log.info("Settlement run finished, {} day(s) settled", settled);
+        } catch (RuntimeException e) {
+            log.error("Settlement run failed, completed days are checkpointed and will be skipped next run", e);
+        }
+    }
+}
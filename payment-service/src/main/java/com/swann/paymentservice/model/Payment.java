@@ -9,7 +9,11 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = {
+        @Index(name = "idx_payments_order_id", columnList = "order_id"),
+        @Index(name = "idx_payments_status_updated_at", columnList = "status, updated_at"),
+        @Index(name = "idx_payments_created_at", columnList = "created_at")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -21,15 +25,23 @@ public class Payment {
     @Column(name = "payment_id", updatable = false, nullable = false)
     private UUID paymentId;
 
-    @Column(name = "order_id", nullable = false, unique = true)
+    // Not unique: payments is partitioned by created_at, and PostgreSQL only enforces uniqueness per
+    // partition. One payment per order is kept by PaymentOrderClaim, inserted in the same transaction.
+    @Column(name = "order_id", nullable = false)
     private UUID orderId;
 
+    @Column(name = "customer_id")
+    private UUID customerId;
+
     @Column(name = "amount", nullable = false)
     private BigDecimal amount;
 
     @Column(name = "status", nullable = false)
     private String status;
 
+    @Column(name = "gateway_reference")
+    private String gatewayReference;
+
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
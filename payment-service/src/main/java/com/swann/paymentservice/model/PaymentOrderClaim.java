@@ -0,0 +1,51 @@
+package com.swann.paymentservice.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Claim of an order by its payment. The payments table is partitioned by
+ * month and cannot hold a unique order_id without created_at, so this small
+ * unpartitioned table keeps one payment per order across instances. Claims
+ * outlive archived payment partitions, so a late redelivery is still refused.
+ */
+@Entity
+@Table(name = "payment_order_claims")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentOrderClaim implements Persistable<UUID> {
+    @Id
+    @Column(name = "order_id", updatable = false, nullable = false)
+    private UUID orderId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // A claim is only ever inserted; a second claim must fail on the primary key rather than merge
+    @Transient
+    @Builder.Default
+    private boolean newClaim = true;
+
+    @Override
+    public UUID getId() {
+        return orderId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newClaim;
+    }
+
+    @PostLoad
+    @PostPersist
+    protected void markNotNew() {
+        newClaim = false;
+    }
+}
@@ -0,0 +1,16 @@
+package com.swann.paymentservice.model;
+
+/**
+ * Values of {@link Payment#getStatus()}. {@link #PENDING} is the only non-terminal status.
+ */
+public final class PaymentStatus {
+
+    public static final String PENDING = "PENDING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String DECLINED = "DECLINED";
+    public static final String FAILED = "FAILED";
+    public static final String REJECTED = "REJECTED";
+
+    private PaymentStatus() {
+    }
+}
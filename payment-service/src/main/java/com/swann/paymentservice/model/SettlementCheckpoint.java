@@ -0,0 +1,35 @@
+package com.swann.paymentservice.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Marks a day whose settlements are complete, so an interrupted run resumes
+ * with the remaining days instead of starting over.
+ */
+@Entity
+@Table(name = "settlement_checkpoints")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SettlementCheckpoint {
+    @Id
+    @Column(name = "settlement_date", updatable = false, nullable = false)
+    private LocalDate settlementDate;
+
+    @Column(name = "payment_count", nullable = false)
+    private Long paymentCount;
+
+    @Column(name = "completed_at", nullable = false)
+    private LocalDateTime completedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        completedAt = LocalDateTime.now();
+    }
+}
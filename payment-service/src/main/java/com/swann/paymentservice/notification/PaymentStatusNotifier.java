@@ -0,0 +1,69 @@
+package com.swann.paymentservice.notification;
+
+import com.swann.paymentservice.dto.PaymentResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * In-process registry of requests parked until the payment for an order reaches a
+ * final status.
+ * Waiters are completed once and then dropped, so duplicate signals (local commit
+ * plus the payment-processed echo from Kafka) are harmless.
+ */
+@Component
+@Slf4j
+public class PaymentStatusNotifier {
+
+    private final ConcurrentMap<UUID, List<Consumer<PaymentResponse>>> waiters = new ConcurrentHashMap<>();
+
+    /**
+     * Register a callback for the payment of an order
+     *
+     * @param orderId the order ID
+     * @param callback invoked with the payment once it reaches a final status
+     * @return a handle that removes the callback again
+     */
+    public Runnable register(UUID orderId, Consumer<PaymentResponse> callback) {
+        waiters.compute(orderId, (id, current) -> {
+            List<Consumer<PaymentResponse>> updated = current == null ? new ArrayList<>(1) : new ArrayList<>(current);
+            updated.add(callback);
+            return updated;
+        });
+        return () -> waiters.computeIfPresent(orderId, (id, current) -> {
+            List<Consumer<PaymentResponse>> updated = new ArrayList<>(current);
+            updated.remove(callback);
+            return updated.isEmpty() ? null : updated;
+        });
+    }
+
+    /**
+     * Complete and drop every waiter for the payment's order
+     *
+     * @param payment the saved payment
+     */
+    public void notifyWaiters(PaymentResponse payment) {
+        List<Consumer<PaymentResponse>> callbacks = waiters.remove(payment.getOrderId());
+        if (callbacks == null) {
+            return;
+        }
+        log.debug("Notifying {} waiter(s) for order: {}", callbacks.size(), payment.getOrderId());
+        for (Consumer<PaymentResponse> callback : callbacks) {
+            try {
+                callback.accept(payment);
+            } catch (RuntimeException e) {
+                log.warn("Failed to notify waiter for order: {}", payment.getOrderId(), e);
+            }
+        }
+    }
+
+    public int getWaitingOrderCount() {
+        return waiters.size();
+    }
+}
@@ -0,0 +1,86 @@
+package com.swann.paymentservice.partition;
+
+import com.swann.common.datasource.Workload;
+import com.swann.common.datasource.WorkloadType;
+import com.swann.common.partition.PartitionManager;
+import com.swann.common.partition.PartitionedTable;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Keeps payments partitioned by created_at month. The table is converted by a
+ * Flyway migration; this job only creates partitions a few months ahead, on
+ * startup and nightly, and nightly archives partitions that have left the hot
+ * window. One instance does the work; others skip.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "payment.partitioning.enabled", havingValue = "true", matchIfMissing = true)
+@Workload(WorkloadType.BATCH)
+public class PartitionMaintenanceJob implements ApplicationRunner {
+
+    // Converted from plain tables by the V4 migration
+    public static final List<PartitionedTable> TABLES = List.of(
+            new PartitionedTable("payments", "created_at", List.of("payment_id", "created_at"), List.of()));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${payment.partitioning.premake-months:3}")
+    private int premakeMonths;
+
+    @Value("${payment.partitioning.hot-months:12}")
+    private int hotMonths;
+
+    @Value("${payment.partitioning.archive-tablespace:}")
+    private String archiveTablespace;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        // Only creates partitions, so a restart never detaches anything
+        maintainPartitions(false);
+    }
+
+    @Scheduled(cron = "${payment.partitioning.cron:0 45 1 * * *}")
+    public void maintainPartitions() {
+        maintainPartitions(true);
+    }
+
+    private void maintainPartitions(boolean archive) {
+        YearMonth month = YearMonth.now();
+        try {
+            transactionTemplate.executeWithoutResult(status -> maintain(month, archive));
+        } catch (RuntimeException e) {
+            log.error("Partition maintenance failed, retrying next run", e);
+        }
+    }
+
+    private void maintain(YearMonth month, boolean archive) {
+        PartitionManager partitions = new PartitionManager(jdbcTemplate);
+        if (!partitions.tryLock()) {
+            log.info("Partition maintenance running elsewhere, skipping");
+            return;
+        }
+        LocalDate nextMonth = month.plusMonths(1).atDay(1);
+        LocalDate cutoff = month.minusMonths(hotMonths - 1L).atDay(1);
+        for (PartitionedTable table : TABLES) {
+            partitions.createPartitions(table, nextMonth, month.plusMonths(premakeMonths).atDay(1));
+            if (archive) {
+                partitions.archivePartitions(table, cutoff, archiveTablespace);
+            }
+        }
+    }
+}
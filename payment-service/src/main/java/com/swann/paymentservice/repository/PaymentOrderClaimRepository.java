@@ -0,0 +1,11 @@
+package com.swann.paymentservice.repository;
+
+import com.swann.paymentservice.model.PaymentOrderClaim;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface PaymentOrderClaimRepository extends JpaRepository<PaymentOrderClaim, UUID> {
+}
@@ -1,11 +1,23 @@
 package com.swann.paymentservice.repository;
 
+import com.swann.paymentservice.dto.PaymentSettlementRow;
 import com.swann.paymentservice.model.Payment;
+import com.swann.paymentservice.model.PaymentStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, UUID> {
@@ -17,4 +29,65 @@ public interface PaymentRepository extends JpaRepository<Payment, UUID> {
      * @return optional payment
      */
     Optional<Payment> findByOrderId(UUID orderId);
-}
\ No newline at end of file
+
+    /**
+     * Stream status and amount of payments created in a time slice through a
+     * server-side cursor. Must be called inside a transaction and the stream closed.
+     *
+     * @param from start of the slice, inclusive
+     * @param to end of the slice, exclusive
+     * @return stream of settlement rows
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.swann.paymentservice.dto.PaymentSettlementRow(p.status, p.amount) "
+            + "from Payment p where p.createdAt >= :from and p.createdAt < :to")
+    Stream<PaymentSettlementRow> streamSettlementRows(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Find payments still in a status that were last touched before a cut-off
+     *
+     * @param status the payment status
+     * @param updatedBefore the cut-off
+     * @param pageable page size, oldest first
+     * @return matching payments
+     */
+    List<Payment> findByStatusAndUpdatedAtBeforeOrderByUpdatedAtAsc(String status, LocalDateTime updatedBefore, Pageable pageable);
+
+    /**
+     * Claim a pending payment for a retry by moving its update timestamp on, but
+     * only if nobody touched it since it was read. Of several instances retrying
+     * the same payment, exactly one succeeds.
+     *
+     * @param paymentId the payment ID
+     * @param seenUpdatedAt the update timestamp the payment was read with
+     * @param claimedAt the new update timestamp
+     * @param createdFrom no later than the payment's creation; limits the update to the partitions that can hold it
+     * @return 1 if the payment was claimed, 0 if it changed or is no longer pending
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Payment p set p.updatedAt = :claimedAt "
+            + "where p.paymentId = :paymentId and p.status = '" + PaymentStatus.PENDING + "' "
+            + "and p.updatedAt = :seenUpdatedAt and p.createdAt >= :createdFrom")
+    int claimPending(@Param("paymentId") UUID paymentId, @Param("seenUpdatedAt") LocalDateTime seenUpdatedAt,
+                     @Param("claimedAt") LocalDateTime claimedAt, @Param("createdFrom") LocalDateTime createdFrom);
+
+    /**
+     * Move a payment out of PENDING. Does nothing if another confirmation got there first.
+     *
+     * @param paymentId the payment ID
+     * @param status the final status
+     * @param gatewayReference the gateway's reference, if any
+     * @param updatedAt the update timestamp
+     * @param createdFrom no later than the payment's creation; limits the update to the partitions that can hold it
+     * @return 1 if the payment was updated, 0 if it was no longer pending
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Payment p set p.status = :status, p.gatewayReference = :gatewayReference, p.updatedAt = :updatedAt "
+            + "where p.paymentId = :paymentId and p.status = '" + PaymentStatus.PENDING + "' and p.createdAt >= :createdFrom")
+    int confirmPending(@Param("paymentId") UUID paymentId, @Param("status") String status,
+                       @Param("gatewayReference") String gatewayReference, @Param("updatedAt") LocalDateTime updatedAt,
+                       @Param("createdFrom") LocalDateTime createdFrom);
+}
@@ -0,0 +1,11 @@
+package com.swann.paymentservice.repository;
+
+import com.swann.paymentservice.model.SettlementCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+
+@Repository
+public interface SettlementCheckpointRepository extends JpaRepository<SettlementCheckpoint, LocalDate> {
+}
@@ -0,0 +1,35 @@
+package com.swann.paymentservice.repository;
+
+import com.swann.paymentservice.model.Settlement;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface SettlementRepository extends JpaRepository<Settlement, UUID> {
+
+    /**
+     * Find settlements for a range of days
+     *
+     * @param from the first day, inclusive
+     * @param to the last day, inclusive
+     * @return settlements ordered by day and status
+     */
+    List<Settlement> findBySettlementDateBetweenOrderBySettlementDateAscStatusAsc(LocalDate from, LocalDate to);
+
+    /**
+     * Delete the settlements of a day so it can be written again
+     *
+     * @param settlementDate the day
+     * @return number of deleted rows
+     */
+    @Modifying
+    @Query("delete from Settlement s where s.settlementDate = :settlementDate")
+    int deleteBySettlementDate(@Param("settlementDate") LocalDate settlementDate);
+}
@@ -0,0 +1,75 @@
+package com.swann.paymentservice.risk;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Hot-path velocity check for payments: no database access, no allocation for
+ * customers already being tracked.
+ * <p>
+ * Counters are kept per instance and only see the payments of the order-created
+ * partitions this instance consumes. The configured limits are for the whole
+ * service, so each instance enforces its share of them; see {@link VelocityLimits#perInstance}.
+ */
+@Component
+@Slf4j
+public class PaymentVelocityGuard {
+
+    private final VelocityCounterStore store;
+    private final VelocityLimits limits;
+    private final Clock clock;
+    private final Map<VelocityCounterStore.Window, Counter> rejections = new EnumMap<>(VelocityCounterStore.Window.class);
+
+    public PaymentVelocityGuard(MeterRegistry meterRegistry,
+                                @Value("${payment.risk.velocity.stripes:64}") int stripes,
+                                @Value("${payment.risk.velocity.max-per-minute:5}") int maxPerMinute,
+                                @Value("${payment.risk.velocity.max-per-hour:30}") int maxPerHour,
+                                @Value("${payment.risk.velocity.max-per-day:100}") int maxPerDay,
+                                @Value("${payment.risk.velocity.instances:1}") int instances) {
+        this.clock = Clock.systemUTC();
+        this.store = new VelocityCounterStore(stripes, clock.instant().getEpochSecond());
+        this.limits = new VelocityLimits(maxPerMinute, maxPerHour, maxPerDay).perInstance(instances);
+        for (VelocityCounterStore.Window window : VelocityCounterStore.Window.values()) {
+            rejections.put(window, Counter.builder("payment.risk.velocity.rejections")
+                    .tag("window", window.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        Gauge.builder("payment.risk.velocity.customers", store, VelocityCounterStore::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Record a payment attempt for a customer
+     *
+     * @param customerId the customer ID
+     * @return the window whose limit is exceeded, or null if the payment may proceed
+     */
+    public VelocityCounterStore.Window recordAndCheck(UUID customerId) {
+        if (customerId == null) {
+            return null;
+        }
+        VelocityCounterStore.Window breached = store.recordAndCheck(customerId, clock.millis() / 1000, limits);
+        if (breached != null) {
+            rejections.get(breached).increment();
+        }
+        return breached;
+    }
+
+    @Scheduled(fixedDelayString = "${payment.risk.velocity.eviction-interval-ms:600000}")
+    public void evictIdleCustomers() {
+        int evicted = store.evictIdle(clock.millis() / 1000);
+        if (evicted > 0) {
+            log.info("Evicted {} idle customer(s) from velocity counters", evicted);
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.swann.paymentservice.risk;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * In-memory sliding-window payment counters per customer.
+ * <p>
+ * Customers are spread over lock stripes. Each stripe is an open-addressing table
+ * keyed by the two halves of the customer UUID, with every customer's ring buckets
+ * stored as one row of a shared {@code int[]} arena, so recording a payment for a
+ * known customer neither allocates nor touches a boxed value. Windows slide at
+ * bucket granularity: the last minute in 10s buckets, the last hour in 5m buckets
+ * and the last day in 1h buckets.
+ */
+public class VelocityCounterStore {
+
+    public enum Window {
+        MINUTE(10, 6),
+        HOUR(300, 12),
+        DAY(3600, 24);
+
+        private final int bucketSeconds;
+        private final int buckets;
+
+        Window(int bucketSeconds, int buckets) {
+            this.bucketSeconds = bucketSeconds;
+            this.buckets = buckets;
+        }
+    }
+
+    private static final Window[] WINDOWS = Window.values();
+    // Row layout: one last-tick slot per window, then each window's ring of counts
+    private static final int[] COUNT_OFFSET = new int[WINDOWS.length];
+    private static final int ROW_SIZE;
+
+    static {
+        int offset = WINDOWS.length;
+        for (Window window : WINDOWS) {
+            COUNT_OFFSET[window.ordinal()] = offset;
+            offset += window.buckets;
+        }
+        ROW_SIZE = offset;
+    }
+
+    private static final int INITIAL_ROWS = 16;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final long epochBaseSeconds;
+
+    public VelocityCounterStore(int stripeCount, long epochBaseSeconds) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.stripeMask = size - 1;
+        this.epochBaseSeconds = epochBaseSeconds;
+    }
+
+    /**
+     * Record a payment and report the first window whose limit it exceeds.
+     * Rejected attempts are counted too, so a customer hammering the limit stays blocked.
+     *
+     * @param customerId the customer ID
+     * @param epochSecond the payment time
+     * @param limits per-window limits
+     * @return the breached window, or null if the payment is within every limit
+     */
+    public Window recordAndCheck(UUID customerId, long epochSecond, VelocityLimits limits) {
+        long msb = customerId.getMostSignificantBits();
+        long lsb = customerId.getLeastSignificantBits();
+        long hash = mix(msb, lsb);
+        Stripe stripe = stripes[(int) (hash >>> 48) & stripeMask];
+        synchronized (stripe) {
+            int base = stripe.findOrInsert(msb, lsb, (int) hash, epochSecond, this) * ROW_SIZE;
+            int[] arena = stripe.arena;
+            Window breached = null;
+            for (Window window : WINDOWS) {
+                int tick = tick(window, epochSecond);
+                int bucket = advance(arena, base, window, tick);
+                arena[base + COUNT_OFFSET[window.ordinal()] + bucket]++;
+                if (breached == null && sum(arena, base, window) > limits.get(window)) {
+                    breached = window;
+                }
+            }
+            return breached;
+        }
+    }
+
+    /**
+     * Count payments in a window without recording one
+     *
+     * @param customerId the customer ID
+     * @param window the window
+     * @param epochSecond the current time
+     * @return the number of payments in the window
+     */
+    public int count(UUID customerId, Window window, long epochSecond) {
+        long msb = customerId.getMostSignificantBits();
+        long lsb = customerId.getLeastSignificantBits();
+        long hash = mix(msb, lsb);
+        Stripe stripe = stripes[(int) (hash >>> 48) & stripeMask];
+        synchronized (stripe) {
+            int row = stripe.find(msb, lsb, (int) hash);
+            if (row < 0) {
+                return 0;
+            }
+            int base = row * ROW_SIZE;
+            advance(stripe.arena, base, window, tick(window, epochSecond));
+            return sum(stripe.arena, base, window);
+        }
+    }
+
+    /**
+     * Drop customers without payments in the last day
+     *
+     * @param epochSecond the current time
+     * @return the number of customers removed
+     */
+    public int evictIdle(long epochSecond) {
+        int dayTick = tick(Window.DAY, epochSecond);
+        int evicted = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                evicted += stripe.retainActiveSince(dayTick - Window.DAY.buckets + 1);
+            }
+        }
+        return evicted;
+    }
+
+    public long size() {
+        long size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size;
+            }
+        }
+        return size;
+    }
+
+    public long memoryBytes() {
+        long bytes = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                bytes += 4L * stripe.arena.length + 8L * (stripe.msb.length + stripe.lsb.length) + 4L * stripe.index.length;
+            }
+        }
+        return bytes;
+    }
+
+    private int tick(Window window, long epochSecond) {
+        return (int) ((epochSecond - epochBaseSeconds) / window.bucketSeconds);
+    }
+
+    /**
+     * Move a window's ring forward to {@code tick}, zeroing buckets that fell out of it.
+     * Late events (tick before the ring head) count into the head bucket.
+     *
+     * @return the bucket index to increment
+     */
+    private static int advance(int[] arena, int base, Window window, int tick) {
+        int lastTick = arena[base + window.ordinal()];
+        int offset = base + COUNT_OFFSET[window.ordinal()];
+        int buckets = window.buckets;
+        if (tick <= lastTick) {
+            return Math.floorMod(lastTick, buckets);
+        }
+        if (tick - lastTick >= buckets) {
+            Arrays.fill(arena, offset, offset + buckets, 0);
+        } else {
+            for (int t = lastTick + 1; t <= tick; t++) {
+                arena[offset + Math.floorMod(t, buckets)] = 0;
+            }
+        }
+        arena[base + window.ordinal()] = tick;
+        return Math.floorMod(tick, buckets);
+    }
+
+    private static int sum(int[] arena, int base, Window window) {
+        int offset = base + COUNT_OFFSET[window.ordinal()];
+        int total = 0;
+        for (int i = 0; i < window.buckets; i++) {
+            total += arena[offset + i];
+        }
+        return total;
+    }
+
+    private static long mix(long msb, long lsb) {
+        long h = msb * 0x9E3779B97F4A7C15L ^ lsb;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private void initRow(int[] arena, int base, long epochSecond) {
+        for (Window window : WINDOWS) {
+            arena[base + window.ordinal()] = tick(window, epochSecond);
+        }
+    }
+
+    /**
+     * One lock stripe: customer keys by row, row data in {@link #arena} and a
+     * linear-probing index holding {@code row + 1} (0 marks an empty slot).
+     */
+    private static final class Stripe {
+
+        private long[] msb = new long[INITIAL_ROWS];
+        private long[] lsb = new long[INITIAL_ROWS];
+        private int[] arena = new int[INITIAL_ROWS * ROW_SIZE];
+        private int[] index = new int[INITIAL_ROWS * 2];
+        private int size;
+
+        int find(long keyMsb, long keyLsb, int hash) {
+            int mask = index.length - 1;
+            for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+                int entry = index[slot];
+                if (entry == 0) {
+                    return -1;
+                }
+                int row = entry - 1;
+                if (msb[row] == keyMsb && lsb[row] == keyLsb) {
+                    return row;
+                }
+            }
+        }
+
+        int findOrInsert(long keyMsb, long keyLsb, int hash, long epochSecond, VelocityCounterStore store) {
+            int mask = index.length - 1;
+            int slot = hash & mask;
+            for (; ; slot = (slot + 1) & mask) {
+                int entry = index[slot];
+                if (entry == 0) {
+                    break;
+                }
+                int row = entry - 1;
+                if (msb[row] == keyMsb && lsb[row] == keyLsb) {
+                    return row;
+                }
+            }
+            if (size == msb.length) {
+                growRows();
+            }
+            int row = size++;
+            msb[row] = keyMsb;
+            lsb[row] = keyLsb;
+            store.initRow(arena, row * ROW_SIZE, epochSecond);
+            index[slot] = row + 1;
+            if (size * 2 > index.length) {
+                rebuildIndex(index.length * 2);
+            }
+            return row;
+        }
+
+        int retainActiveSince(int oldestDayTick) {
+            int kept = 0;
+            for (int row = 0; row < size; row++) {
+                int base = row * ROW_SIZE;
+                if (arena[base + Window.DAY.ordinal()] >= oldestDayTick) {
+                    if (kept != row) {
+                        msb[kept] = msb[row];
+                        lsb[kept] = lsb[row];
+                        System.arraycopy(arena, base, arena, kept * ROW_SIZE, ROW_SIZE);
+                    }
+                    kept++;
+                }
+            }
+            int evicted = size - kept;
+            if (evicted > 0) {
+                Arrays.fill(arena, kept * ROW_SIZE, size * ROW_SIZE, 0);
+                size = kept;
+                int capacity = INITIAL_ROWS * 2;
+                while (size * 2 > capacity) {
+                    capacity <<= 1;
+                }
+                rebuildIndex(Math.min(capacity * 2, index.length));
+            }
+            return evicted;
+        }
+
+        private void growRows() {
+            int rows = msb.length * 2;
+            msb = Arrays.copyOf(msb, rows);
+            lsb = Arrays.copyOf(lsb, rows);
+            arena = Arrays.copyOf(arena, rows * ROW_SIZE);
+        }
+
+        private void rebuildIndex(int capacity) {
+            int[] rebuilt = new int[capacity];
+            int mask = capacity - 1;
+            for (int row = 0; row < size; row++) {
+                int slot = (int) mix(msb[row], lsb[row]) & mask;
+                while (rebuilt[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                rebuilt[slot] = row + 1;
+            }
+            index = rebuilt;
+        }
+    }
+}
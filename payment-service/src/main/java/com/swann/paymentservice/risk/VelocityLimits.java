@@ -0,0 +1,44 @@
+package com.swann.paymentservice.risk;
+
+/**
+ * Maximum number of payments per customer in each velocity window.
+ */
+public final class VelocityLimits {
+
+    private final int perMinute;
+    private final int perHour;
+    private final int perDay;
+
+    public VelocityLimits(int perMinute, int perHour, int perDay) {
+        this.perMinute = perMinute;
+        this.perHour = perHour;
+        this.perDay = perDay;
+    }
+
+    /**
+     * Share of these limits enforced by one of {@code instances} payment-service instances.
+     * order-created is keyed by order ID, so a customer's payments spread evenly over
+     * the instances and each one sees about 1/N of them. Rounded up, never below 1.
+     *
+     * @param instances number of running instances
+     * @return the per-instance limits
+     */
+    public VelocityLimits perInstance(int instances) {
+        if (instances <= 1) {
+            return this;
+        }
+        return new VelocityLimits(share(perMinute, instances), share(perHour, instances), share(perDay, instances));
+    }
+
+    private static int share(int limit, int instances) {
+        return Math.max(1, (limit + instances - 1) / instances);
+    }
+
+    public int get(VelocityCounterStore.Window window) {
+        return switch (window) {
+            case MINUTE -> perMinute;
+            case HOUR -> perHour;
+            case DAY -> perDay;
+        };
+    }
+}
@@ -0,0 +1,12 @@
+package com.swann.paymentservice.service;
+
+/**
+ * Thrown when a payment already exists for the order, typically because the
+ * order-created event was delivered again.
+ */
+public class DuplicatePaymentException extends IllegalStateException {
+
+    public DuplicatePaymentException(String message) {
+        super(message);
+    }
+}
@@ -2,6 +2,7 @@ package com.swann.paymentservice.service;
 
 import com.swann.paymentservice.dto.PaymentResponse;
 
+import java.util.Optional;
 import java.util.UUID;
 
 public interface PaymentService {
@@ -15,11 +16,28 @@ public interface PaymentService {
     PaymentResponse getPaymentByOrderId(UUID orderId);
     
     /**
-     * Process payment for an order (called by Kafka consumer)
+     * Find payment by order ID without treating a miss as an error
+     * 
+     * @param orderId the order ID
+     * @return the payment response, or empty if no payment exists yet
+     */
+    Optional<PaymentResponse> findPaymentByOrderId(UUID orderId);
+    
+    /**
+     * Process payment for an order (called by Kafka consumer). The payment is saved as
+     * PENDING and confirmed asynchronously once the gateway answers.
      * 
      * @param orderId the order ID
      * @param amount the payment amount
-     * @return the payment response
+     * @return the payment response, PENDING unless rejected up front
      */
     PaymentResponse processPayment(UUID orderId, UUID customerId, java.math.BigDecimal amount);
+    
+    /**
+     * Send payments stuck in PENDING to the gateway again
+     * 
+     * @param updatedBefore only payments not touched since this time are retried
+     * @return the number of payments retried
+     */
+    int retryPendingPayments(java.time.LocalDateTime updatedBefore);
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.swann.paymentservice.service;
+
+import java.time.LocalDate;
+
+public interface SettlementService {
+
+    /**
+     * Settle every day in the range that has no checkpoint yet. Days are
+     * checkpointed only once none of their payments is pending.
+     *
+     * @param from the first day, inclusive
+     * @param to the last day, inclusive
+     * @return the number of days settled by this run
+     */
+    int settle(LocalDate from, LocalDate to);
+}
@@ -1,65 +1,230 @@
 package com.swann.paymentservice.service.impl;
 
+import com.swann.paymentservice.cache.PaymentLookupCache;
 import com.swann.paymentservice.config.KafkaConfig;
 import com.swann.paymentservice.dto.PaymentResponse;
 import com.swann.paymentservice.event.PaymentProcessedEvent;
+import com.swann.paymentservice.gateway.GatewayRequest;
+import com.swann.paymentservice.gateway.GatewayResult;
+import com.swann.paymentservice.gateway.GatewayUnavailableException;
+import com.swann.paymentservice.gateway.InFlightAuthorizations;
+import com.swann.paymentservice.gateway.PaymentGateway;
 import com.swann.paymentservice.model.Payment;
+import com.swann.paymentservice.model.PaymentOrderClaim;
+import com.swann.paymentservice.model.PaymentStatus;
+import com.swann.paymentservice.notification.PaymentStatusNotifier;
+import com.swann.paymentservice.repository.PaymentOrderClaimRepository;
 import com.swann.paymentservice.repository.PaymentRepository;
+import com.swann.paymentservice.risk.PaymentVelocityGuard;
+import com.swann.paymentservice.risk.VelocityCounterStore;
+import com.swann.paymentservice.service.DuplicatePaymentException;
 import com.swann.paymentservice.service.PaymentService;
+import com.swann.paymentservice.support.TransactionHooks;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletionException;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class PaymentServiceImpl implements PaymentService {
 
+    private static final int RECOVERY_BATCH_SIZE = 100;
+
     private final PaymentRepository paymentRepository;
+    private final PaymentOrderClaimRepository paymentOrderClaimRepository;
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final PaymentStatusNotifier paymentStatusNotifier;
+    private final PaymentLookupCache paymentLookupCache;
+    private final PaymentVelocityGuard paymentVelocityGuard;
+    private final PaymentGateway paymentGateway;
+    private final InFlightAuthorizations inFlightAuthorizations;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
-    @Transactional(readOnly = true)
     public PaymentResponse getPaymentByOrderId(UUID orderId) {
-        log.info("Getting payment for order: {}", orderId);
-        
-        Payment payment = paymentRepository.findByOrderId(orderId)
+        return findPaymentByOrderId(orderId)
                 .orElseThrow(() -> new EntityNotFoundException("Payment not found for order ID: " + orderId));
+    }
+
+    @Override
+    public Optional<PaymentResponse> findPaymentByOrderId(UUID orderId) {
+        log.debug("Finding payment for order: {}", orderId);
         
-        return mapToPaymentResponse(payment);
+        // No surrounding transaction: cache hits never touch the pool, misses use the repository's own read-only one
+        return paymentLookupCache.get(orderId, id -> paymentRepository.findByOrderId(id).map(this::mapToPaymentResponse));
     }
 
     @Override
-    @Transactional
     public PaymentResponse processPayment(UUID orderId, UUID customerId, BigDecimal amount) {
         log.info("Processing payment for order: {}", orderId);
         
+        // Authorize phase: record the attempt and commit before the gateway is called,
+        // so no connection is held while waiting for it
+        Payment savedPayment = transactionTemplate.execute(status -> createPayment(orderId, customerId, amount));
+        PaymentResponse response = mapToPaymentResponse(savedPayment);
+        
+        if (PaymentStatus.PENDING.equals(savedPayment.getStatus())) {
+            paymentLookupCache.put(response);
+            authorizeWithGateway(savedPayment);
+        }
+        
+        return response;
+    }
+
+    @Override
+    public int retryPendingPayments(LocalDateTime updatedBefore) {
+        List<Payment> stale = paymentRepository.findByStatusAndUpdatedAtBeforeOrderByUpdatedAtAsc(
+                PaymentStatus.PENDING, updatedBefore, PageRequest.of(0, RECOVERY_BATCH_SIZE));
+        int retried = 0;
+        for (Payment payment : stale) {
+            if (!claimForRetry(payment)) {
+                log.debug("Pending payment {} was claimed or confirmed elsewhere", payment.getPaymentId());
+                continue;
+            }
+            log.info("Retrying gateway authorization for pending payment: {}", payment.getPaymentId());
+            authorizeWithGateway(payment);
+            retried++;
+        }
+        return retried;
+    }
+
+    private boolean claimForRetry(Payment payment) {
+        // Moving updated_at on also keeps the payment out of other instances' next recovery runs
+        LocalDateTime claimedAt = LocalDateTime.now();
+        LocalDateTime createdFrom = payment.getCreatedAt().minusSeconds(1);
+        Integer claimed = transactionTemplate.execute(tx -> paymentRepository.claimPending(
+                payment.getPaymentId(), payment.getUpdatedAt(), claimedAt, createdFrom));
+        if (claimed == null || claimed == 0) {
+            return false;
+        }
+        payment.setUpdatedAt(claimedAt);
+        return true;
+    }
+
+    private Payment createPayment(UUID orderId, UUID customerId, BigDecimal amount) {
         // Check if payment already exists
         paymentRepository.findByOrderId(orderId).ifPresent(existingPayment -> {
             log.warn("Payment already exists for order: {}", orderId);
-            throw new IllegalStateException("Payment already processed for order: " + orderId);
+            throw new DuplicatePaymentException("Payment already processed for order: " + orderId);
         });
         
+        // The check above can race another instance; the claim's primary key cannot
+        try {
+            paymentOrderClaimRepository.saveAndFlush(PaymentOrderClaim.builder()
+                    .orderId(orderId)
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Payment already claimed for order: {}", orderId);
+            throw new DuplicatePaymentException("Payment already processed for order: " + orderId);
+        }
+        
+        // Reject customers paying faster than the velocity limits allow
+        VelocityCounterStore.Window breachedWindow = paymentVelocityGuard.recordAndCheck(customerId);
+        if (breachedWindow != null) {
+            log.warn("Rejecting payment for order: {}, customer {} exceeded the {} velocity limit", orderId, customerId, breachedWindow);
+        }
+        
         // Create new payment
         Payment payment = Payment.builder()
                 .orderId(orderId)
+                .customerId(customerId)
                 .amount(amount)
-                .status("COMPLETED") // Simplified for demo purposes
+                .status(breachedWindow == null ? PaymentStatus.PENDING : PaymentStatus.REJECTED)
                 .build();
         
         // Save payment
         Payment savedPayment = paymentRepository.save(payment);
         
-        // Publish payment processed event
-        publishPaymentProcessedEvent(savedPayment);
+        // A rejection is final straight away; pending payments are announced once the gateway answers
+        if (PaymentStatus.REJECTED.equals(savedPayment.getStatus())) {
+            publishFinalStatus(savedPayment);
+        }
         
-        return mapToPaymentResponse(savedPayment);
+        return savedPayment;
+    }
+
+    private void authorizeWithGateway(Payment payment) {
+        GatewayRequest request = GatewayRequest.builder()
+                .paymentId(payment.getPaymentId())
+                .orderId(payment.getOrderId())
+                .customerId(payment.getCustomerId())
+                .amount(payment.getAmount())
+                .build();
+        
+        inFlightAuthorizations.track(paymentGateway.authorize(request).whenComplete((result, error) -> {
+            try {
+                confirmPayment(payment, result, error);
+            } catch (RuntimeException e) {
+                // Left PENDING; the recovery job retries it with the same idempotency key
+                log.error("Failed to confirm payment: {}", payment.getPaymentId(), e);
+            }
+        }));
+    }
+
+    private void confirmPayment(Payment payment, GatewayResult result, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof GatewayUnavailableException) {
+            // Never reached the gateway; leave it PENDING for the recovery job
+            log.warn("Gateway unavailable for payment: {}, will retry: {}", payment.getPaymentId(), cause.getMessage());
+            return;
+        }
+        if (cause != null) {
+            // Timed out or lost in transport: the gateway may well have charged the customer, so this is
+            // not a failure. Leave it PENDING; the recovery job asks again with the same idempotency key
+            log.warn("Gateway outcome unknown for payment: {}, will retry", payment.getPaymentId(), cause);
+            return;
+        }
+        
+        String status;
+        String reference = null;
+        if (result.isApproved()) {
+            status = PaymentStatus.COMPLETED;
+            reference = result.getReference();
+        } else {
+            log.info("Payment declined by gateway: {}, reason: {}", payment.getPaymentId(), result.getMessage());
+            status = PaymentStatus.DECLINED;
+        }
+        
+        // Confirm phase: a short second transaction that only moves the payment out of PENDING once
+        String gatewayReference = reference;
+        transactionTemplate.executeWithoutResult(tx -> {
+            LocalDateTime now = LocalDateTime.now();
+            // The margin covers created_at being stored at coarser precision than the entity holds
+            LocalDateTime createdFrom = payment.getCreatedAt().minusSeconds(1);
+            if (paymentRepository.confirmPending(payment.getPaymentId(), status, gatewayReference, now, createdFrom) == 0) {
+                log.debug("Payment {} was already confirmed", payment.getPaymentId());
+                return;
+            }
+            payment.setStatus(status);
+            payment.setGatewayReference(gatewayReference);
+            payment.setUpdatedAt(now);
+            publishFinalStatus(payment);
+        });
+    }
+
+    private void publishFinalStatus(Payment payment) {
+        publishPaymentProcessedEvent(payment);
+        
+        // Replace any cached entry and wake requests parked on this payment once it is visible to readers
+        PaymentResponse response = mapToPaymentResponse(payment);
+        TransactionHooks.afterCommit(() -> {
+            paymentLookupCache.put(response);
+            paymentStatusNotifier.notifyWaiters(response);
+        });
     }
     
     private void publishPaymentProcessedEvent(Payment payment) {
@@ -67,7 +232,8 @@ public class PaymentServiceImpl implements PaymentService {
                 payment.getPaymentId(),
                 payment.getOrderId(),
                 payment.getAmount(),
-                payment.getStatus()
+                payment.getStatus(),
+                payment.getCreatedAt()
         );
         
         log.info("Publishing payment processed event for payment: {}", payment.getPaymentId());
@@ -84,4 +250,4 @@ public class PaymentServiceImpl implements PaymentService {
                 .updatedAt(payment.getUpdatedAt())
                 .build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,182 @@
+package com.swann.paymentservice.service.impl;
+
+import com.swann.common.datasource.WorkloadContext;
+import com.swann.common.datasource.WorkloadType;
+import com.swann.paymentservice.dto.PaymentSettlementRow;
+import com.swann.paymentservice.model.PaymentStatus;
+import com.swann.paymentservice.model.Settlement;
+import com.swann.paymentservice.model.SettlementCheckpoint;
+import com.swann.paymentservice.repository.PaymentRepository;
+import com.swann.paymentservice.repository.SettlementCheckpointRepository;
+import com.swann.paymentservice.repository.SettlementRepository;
+import com.swann.paymentservice.service.SettlementService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
+
+/**
+ * Aggregates payments into per-day, per-status settlements.
+ * Days are settled in parallel on a dedicated fork/join pool, under the caller's
+ * workload and no more at once than its connection pool holds; each day streams its
+ * payments through a server-side cursor, sums amounts as exact scaled longs and
+ * writes its settlements and checkpoint in one transaction. A day that still has
+ * PENDING payments is not checkpointed, so it is settled again once they resolve.
+ */
+@Service
+@Slf4j
+public class SettlementServiceImpl implements SettlementService {
+
+    static final int AMOUNT_SCALE = 2;
+
+    private final PaymentRepository paymentRepository;
+    private final SettlementRepository settlementRepository;
+    private final SettlementCheckpointRepository settlementCheckpointRepository;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final int parallelism;
+
+    public SettlementServiceImpl(PaymentRepository paymentRepository,
+                                 SettlementRepository settlementRepository,
+                                 SettlementCheckpointRepository settlementCheckpointRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${payment.settlement.parallelism:4}") int parallelism,
+                                 @Value("${payment.datasource.pools.batch:5}") int batchPoolSize) {
+        this.paymentRepository = paymentRepository;
+        this.settlementRepository = settlementRepository;
+        this.settlementCheckpointRepository = settlementCheckpointRepository;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        // Each day holds a batch connection; days beyond the pool's size would only wait for one
+        this.parallelism = Math.max(1, Math.min(parallelism, batchPoolSize));
+    }
+
+    @Override
+    public int settle(LocalDate from, LocalDate to) {
+        List<LocalDate> days = from.datesUntil(to.plusDays(1)).toList();
+        Set<LocalDate> completed = new HashSet<>();
+        settlementCheckpointRepository.findAllById(days)
+                .forEach(checkpoint -> completed.add(checkpoint.getSettlementDate()));
+
+        List<LocalDate> pending = days.stream().filter(day -> !completed.contains(day)).toList();
+        if (pending.isEmpty()) {
+            log.info("Settlements from {} to {} are already complete", from, to);
+            return 0;
+        }
+
+        log.info("Settling {} day(s) from {} to {}, {} already checkpointed", pending.size(), from, to, completed.size());
+        // The pool's threads do not inherit the caller's workload, so each task declares it again
+        WorkloadType workload = WorkloadContext.current();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new SettleDaysTask(pending, 0, pending.size(), workload));
+        } finally {
+            pool.shutdown();
+        }
+        return pending.size();
+    }
+
+    private void settleDay(LocalDate day) {
+        DailyTotals totals = readTransaction.execute(status -> {
+            DailyTotals dailyTotals = new DailyTotals();
+            try (Stream<PaymentSettlementRow> rows = paymentRepository.streamSettlementRows(
+                    day.atStartOfDay(), day.plusDays(1).atStartOfDay())) {
+                rows.forEach(row -> dailyTotals.add(row.getStatus(), row.getAmount()));
+            }
+            return dailyTotals;
+        });
+
+        writeTransaction.executeWithoutResult(status -> {
+            settlementRepository.deleteBySettlementDate(day);
+            settlementRepository.saveAll(totals.toSettlements(day));
+            if (!totals.hasPending()) {
+                settlementCheckpointRepository.save(SettlementCheckpoint.builder()
+                        .settlementDate(day)
+                        .paymentCount(totals.paymentCount)
+                        .build());
+            }
+        });
+        if (totals.hasPending()) {
+            log.info("Settled {} payment(s) for {}, not checkpointed while some are pending", totals.paymentCount, day);
+        } else {
+            log.info("Settled {} payment(s) for {}", totals.paymentCount, day);
+        }
+    }
+
+    /**
+     * Splits the pending days in halves until each task owns a single day.
+     */
+    private class SettleDaysTask extends RecursiveAction {
+
+        private final List<LocalDate> days;
+        private final int start;
+        private final int end;
+        private final WorkloadType workload;
+
+        SettleDaysTask(List<LocalDate> days, int start, int end, WorkloadType workload) {
+            this.days = days;
+            this.start = start;
+            this.end = end;
+            this.workload = workload;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start == 1) {
+                WorkloadContext.runAs(workload, () -> settleDay(days.get(start)));
+                return;
+            }
+            int middle = (start + end) >>> 1;
+            invokeAll(new SettleDaysTask(days, start, middle, workload), new SettleDaysTask(days, middle, end, workload));
+        }
+    }
+
+    /**
+     * Per-status count and amount, kept as longs scaled by {@link #AMOUNT_SCALE}
+     * so sums are exact and overflow fails loudly.
+     */
+    static final class DailyTotals {
+
+        private final Map<String, long[]> byStatus = new TreeMap<>();
+        private long paymentCount;
+
+        void add(String status, BigDecimal amount) {
+            // Rounding rather than failing: one odd amount must not abort the whole day
+            long scaled = amount.setScale(AMOUNT_SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+            long[] totals = byStatus.computeIfAbsent(status, key -> new long[2]);
+            totals[0]++;
+            totals[1] = Math.addExact(totals[1], scaled);
+            paymentCount++;
+        }
+
+        boolean hasPending() {
+            return byStatus.containsKey(PaymentStatus.PENDING);
+        }
+
+        List<Settlement> toSettlements(LocalDate day) {
+            List<Settlement> settlements = new ArrayList<>(byStatus.size());
+            byStatus.forEach((status, totals) -> settlements.add(Settlement.builder()
+                    .settlementDate(day)
+                    .status(status)
+                    .paymentCount(totals[0])
+                    .totalAmount(BigDecimal.valueOf(totals[1], AMOUNT_SCALE))
+                    .build()));
+            return settlements;
+        }
+    }
+}
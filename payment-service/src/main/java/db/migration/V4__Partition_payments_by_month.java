@@ -0,0 +1,15 @@
+package db.migration;
+
+import com.swann.common.partition.MonthlyPartitionMigration;
+import com.swann.paymentservice.partition.PartitionMaintenanceJob;
+
+/**
+ * Converts payments to monthly range partitions, keeping its rows as one
+ * partition.
+ */
+public class V4__Partition_payments_by_month extends MonthlyPartitionMigration {
+
+    public V4__Partition_payments_by_month() {
+        super(PartitionMaintenanceJob.TABLES);
+    }
+}
@@ -0,0 +1,38 @@
+-- Schema as ddl-auto: update left it. spring.flyway.baseline-version is 0, so databases created
+-- that way run this too: IF NOT EXISTS skips the tables they have, and ADD COLUMN IF NOT EXISTS
+-- brings tables created before Flyway up to the columns added since.
+
+CREATE TABLE IF NOT EXISTS payments (
+    payment_id        uuid          NOT NULL,
+    order_id          uuid          NOT NULL,
+    customer_id       uuid,
+    amount            numeric(38,2) NOT NULL,
+    status            varchar(255)  NOT NULL,
+    gateway_reference varchar(255),
+    created_at        timestamp(6)  NOT NULL,
+    updated_at        timestamp(6),
+    CONSTRAINT payments_pkey PRIMARY KEY (payment_id)
+);
+
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS customer_id uuid;
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS gateway_reference varchar(255);
+
+CREATE INDEX IF NOT EXISTS idx_payments_order_id ON payments (order_id);
+
+CREATE TABLE IF NOT EXISTS settlements (
+    settlement_id   uuid          NOT NULL,
+    settlement_date date          NOT NULL,
+    status          varchar(255)  NOT NULL,
+    payment_count   bigint        NOT NULL,
+    total_amount    numeric(38,2) NOT NULL,
+    created_at      timestamp(6)  NOT NULL,
+    CONSTRAINT settlements_pkey PRIMARY KEY (settlement_id),
+    CONSTRAINT uk_settlements_date_status UNIQUE (settlement_date, status)
+);
+
+CREATE TABLE IF NOT EXISTS settlement_checkpoints (
+    settlement_date date         NOT NULL,
+    payment_count   bigint       NOT NULL,
+    completed_at    timestamp(6) NOT NULL,
+    CONSTRAINT settlement_checkpoints_pkey PRIMARY KEY (settlement_date)
+);
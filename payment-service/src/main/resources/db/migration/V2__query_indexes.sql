@@ -0,0 +1,7 @@
+-- Indexes for the repository queries; RepositoryQueryPlanTest fails if one of them seq-scans.
+
+-- Pending payment recovery: oldest stale payments in a status
+CREATE INDEX IF NOT EXISTS idx_payments_status_updated_at ON payments (status, updated_at);
+
+-- Settlement streams one day at a time; partitions are a month wide
+CREATE INDEX IF NOT EXISTS idx_payments_created_at ON payments (created_at);
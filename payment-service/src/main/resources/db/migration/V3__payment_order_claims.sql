@@ -0,0 +1,12 @@
+-- One payment per order. payments is partitioned by created_at and cannot enforce a unique
+-- order_id, so createPayment claims the order here in the same transaction first.
+CREATE TABLE IF NOT EXISTS payment_order_claims (
+    order_id   uuid         NOT NULL,
+    created_at timestamp(6) NOT NULL,
+    CONSTRAINT payment_order_claims_pkey PRIMARY KEY (order_id)
+);
+
+-- Claim the orders already paid
+INSERT INTO payment_order_claims (order_id, created_at)
+SELECT order_id, min(created_at) FROM payments GROUP BY order_id
+ON CONFLICT (order_id) DO NOTHING;
@@ -0,0 +1,90 @@
+package com.swann.paymentservice.backpressure;
+
+import com.swann.common.datasource.WorkloadPools;
+import com.swann.common.datasource.WorkloadType;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DbAdmissionControllerTest {
+
+    @Mock
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Mock
+    private WorkloadPools workloadPools;
+
+    @Mock
+    private MessageListenerContainer container;
+
+    private SimpleMeterRegistry meterRegistry;
+    private DbAdmissionController controller;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        when(workloadPools.get(WorkloadType.CONSUMER)).thenReturn(mock(HikariDataSource.class));
+        when(listenerRegistry.getListenerContainer("orderCreatedListener")).thenReturn(container);
+        controller = new DbAdmissionController(listenerRegistry, workloadPools, meterRegistry,
+                List.of("orderCreatedListener"), 2, 50, 0, 10, 3);
+    }
+
+    @Test
+    void evaluate_WhenThreadsQueueForConnections_ShouldPauseListeners() {
+        // When
+        controller.evaluate(2, 0);
+
+        // Then
+        assertTrue(controller.isPaused());
+        verify(container).pause();
+        assertEquals(1.0, meterRegistry.get("payment.backpressure.paused").gauge().value());
+        assertEquals(1.0, meterRegistry.get("payment.backpressure.pauses").counter().count());
+    }
+
+    @Test
+    void evaluate_WhenAcquisitionIsSlow_ShouldPauseListeners() {
+        // When
+        controller.evaluate(0, 75);
+
+        // Then
+        assertTrue(controller.isPaused());
+        verify(container).pause();
+    }
+
+    @Test
+    void evaluate_ShouldResumeOnlyAfterConsecutiveHealthySamples() {
+        // Given
+        controller.evaluate(3, 0);
+
+        // When - a relapse in between restarts the count
+        controller.evaluate(0, 1);
+        controller.evaluate(0, 1);
+        controller.evaluate(1, 1);
+        controller.evaluate(0, 1);
+        controller.evaluate(0, 1);
+
+        // Then
+        assertTrue(controller.isPaused());
+        verify(container, never()).resume();
+
+        // When
+        controller.evaluate(0, 1);
+
+        // Then
+        assertFalse(controller.isPaused());
+        verify(container).resume();
+        assertEquals(0.0, meterRegistry.get("payment.backpressure.paused").gauge().value());
+    }
+}
@@ -0,0 +1,158 @@
+package com.swann.paymentservice.backpressure;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ListenerConcurrencyControllerTest {
+
+    private static final long COOLDOWN = 60_000;
+
+    @Mock
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Mock
+    private ConsumerLagMonitor lagMonitor;
+
+    @Mock
+    private ObjectProvider<DbAdmissionController> admissionController;
+
+    private ListenerConcurrencyController controller;
+
+    @BeforeEach
+    void setUp() {
+        controller = new ListenerConcurrencyController(listenerRegistry, lagMonitor, admissionController,
+                "orderCreatedListener", "order-created", 1, 6, 6, 30, 100, 2, 3, COOLDOWN);
+    }
+
+    @Test
+    void evaluate_WhenBacklogDrainsTooSlowly_ShouldScaleUpAfterConsecutiveSamples() {
+        // When - 10,000 behind at 50/s is 200s to drain
+        int first = controller.evaluate(10_000, 50, 6, 1, COOLDOWN);
+        int second = controller.evaluate(10_000, 50, 6, 1, COOLDOWN + 10_000);
+
+        // Then
+        assertEquals(1, first);
+        assertEquals(2, second);
+        assertEquals(1, controller.getDecisions().size());
+        assertEquals(2, controller.getDecisions().get(0).getTo());
+    }
+
+    @Test
+    void evaluate_WhenBacklogDrainsQuickly_ShouldNotScaleUp() {
+        // When - 1,000 behind at 100/s is 10s to drain
+        controller.evaluate(1_000, 100, 6, 1, COOLDOWN);
+        int concurrency = controller.evaluate(1_000, 100, 6, 1, COOLDOWN + 10_000);
+
+        // Then
+        assertEquals(1, concurrency);
+        assertTrue(controller.getDecisions().isEmpty());
+    }
+
+    @Test
+    void evaluate_ShouldNotExceedPartitionCount() {
+        // When
+        controller.evaluate(10_000, 0, 2, 2, COOLDOWN);
+        int concurrency = controller.evaluate(10_000, 0, 2, 2, COOLDOWN + 10_000);
+
+        // Then
+        assertEquals(2, concurrency);
+    }
+
+    @Test
+    void evaluate_ShouldNotExceedConsumerPoolSize() {
+        // Given - two connections for up to six consumers
+        controller = new ListenerConcurrencyController(listenerRegistry, lagMonitor, admissionController,
+                "orderCreatedListener", "order-created", 1, 6, 2, 30, 100, 2, 3, COOLDOWN);
+
+        // When
+        controller.evaluate(10_000, 0, 6, 2, COOLDOWN);
+        int concurrency = controller.evaluate(10_000, 0, 6, 2, COOLDOWN + 10_000);
+
+        // Then
+        assertEquals(2, concurrency);
+        assertEquals(2, controller.getMaxConcurrency());
+    }
+
+    @Test
+    void evaluate_ShouldWaitForCooldownBetweenChanges() {
+        // Given
+        controller.evaluate(10_000, 50, 6, 1, COOLDOWN);
+        controller.evaluate(10_000, 50, 6, 1, COOLDOWN + 1_000);
+
+        // When
+        controller.evaluate(10_000, 50, 6, 2, COOLDOWN + 2_000);
+        int duringCooldown = controller.evaluate(10_000, 50, 6, 2, COOLDOWN + 3_000);
+        int afterCooldown = controller.evaluate(10_000, 50, 6, 2, 2 * COOLDOWN + 1_000);
+
+        // Then
+        assertEquals(2, duringCooldown);
+        assertEquals(3, afterCooldown);
+    }
+
+    @Test
+    void evaluate_WhenLagStaysLow_ShouldScaleDown() {
+        // When
+        controller.evaluate(20, 10, 6, 3, COOLDOWN);
+        controller.evaluate(20, 10, 6, 3, COOLDOWN + 10_000);
+        int concurrency = controller.evaluate(20, 10, 6, 3, COOLDOWN + 20_000);
+
+        // Then
+        assertEquals(2, concurrency);
+        assertEquals("lag below 100", controller.getDecisions().get(0).getReason());
+    }
+
+    @Test
+    void evaluate_WhenLagBetweenThresholds_ShouldHoldSteady() {
+        // When - too much lag to scale down, drains fast enough not to scale up
+        for (int i = 0; i < 10; i++) {
+            assertEquals(3, controller.evaluate(500, 100, 6, 3, COOLDOWN + i * 10_000L));
+        }
+
+        // Then
+        assertTrue(controller.getDecisions().isEmpty());
+    }
+
+    @Test
+    void adjust_WhenScalingDown_ShouldRemoveDroppedStaticMembers() {
+        // Given
+        ConcurrentMessageListenerContainer<?, ?> container = mock(ConcurrentMessageListenerContainer.class);
+        ContainerProperties containerProperties = new ContainerProperties("order-created");
+        containerProperties.getKafkaConsumerProperties().setProperty(ConsumerConfig.GROUP_INSTANCE_ID_CONFIG, "payment-service-1");
+        when(listenerRegistry.getListenerContainer("orderCreatedListener")).thenReturn(container);
+        when(container.getContainerProperties()).thenReturn(containerProperties);
+        when(container.isRunning()).thenReturn(true);
+        when(container.getConcurrency()).thenReturn(3);
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(container).stop(any(Runnable.class));
+        when(lagMonitor.getLag("order-created")).thenReturn(20L);
+        when(lagMonitor.getProcessingRate("order-created")).thenReturn(10.0);
+        when(lagMonitor.getPartitionCount("order-created")).thenReturn(6);
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            controller.adjust();
+        }
+
+        // Then
+        verify(container).setConcurrency(2);
+        verify(lagMonitor).removeStaticMembers(List.of("payment-service-1-2"));
+        verify(container).start();
+    }
+}
@@ -0,0 +1,70 @@
+package com.swann.paymentservice.benchmark;
+
+import com.swann.paymentservice.risk.VelocityCounterStore;
+import com.swann.paymentservice.risk.VelocityLimits;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Velocity check cost with millions of tracked customers.
+ * Run with: {@code ./mvnw test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.swann.paymentservice.benchmark.VelocityCounterStoreBenchmark}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class VelocityCounterStoreBenchmark {
+
+    private static final long BASE = 1_700_000_000L;
+
+    @Param({"1000000", "4000000"})
+    private int customers;
+
+    private VelocityCounterStore store;
+    private VelocityLimits limits;
+    private UUID[] customerIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = new VelocityCounterStore(64, BASE);
+        limits = new VelocityLimits(5, 30, 100);
+        customerIds = new UUID[customers];
+        for (int i = 0; i < customers; i++) {
+            customerIds[i] = UUID.randomUUID();
+            store.recordAndCheck(customerIds[i], BASE, limits);
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public VelocityCounterStore.Window recordKnownCustomer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        UUID customerId = customerIds[random.nextInt(customers)];
+        return store.recordAndCheck(customerId, BASE + random.nextInt(86_400), limits);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int countKnownCustomer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return store.count(customerIds[random.nextInt(customers)], VelocityCounterStore.Window.HOUR, BASE);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(VelocityCounterStoreBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,46 @@
+package com.swann.paymentservice.cache;
+
+import com.swann.paymentservice.dto.PaymentResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentLookupCacheTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final PaymentLookupCache cache =
+            new PaymentLookupCache(100, Duration.ofMinutes(10), Duration.ofSeconds(2), nanos::get);
+
+    @Test
+    void put_WhenPending_ShouldExpireAfterNegativeTtl() {
+        // Given
+        UUID orderId = UUID.randomUUID();
+        cache.put(PaymentResponse.builder().orderId(orderId).status("PENDING").build());
+
+        // When
+        nanos.addAndGet(Duration.ofSeconds(3).toNanos());
+        Optional<PaymentResponse> found = cache.get(orderId, id -> Optional.empty());
+
+        // Then
+        assertTrue(found.isEmpty());
+    }
+
+    @Test
+    void put_WhenFinal_ShouldOutliveNegativeTtl() {
+        // Given
+        UUID orderId = UUID.randomUUID();
+        cache.put(PaymentResponse.builder().orderId(orderId).status("COMPLETED").build());
+
+        // When
+        nanos.addAndGet(Duration.ofSeconds(3).toNanos());
+        Optional<PaymentResponse> found = cache.get(orderId, id -> Optional.empty());
+
+        // Then
+        assertEquals("COMPLETED", found.orElseThrow().getStatus());
+    }
+}
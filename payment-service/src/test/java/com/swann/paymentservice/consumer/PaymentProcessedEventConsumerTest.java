@@ -0,0 +1,66 @@
+package com.swann.paymentservice.consumer;
+
+import com.swann.paymentservice.cache.PaymentLookupCache;
+import com.swann.paymentservice.dto.PaymentResponse;
+import com.swann.paymentservice.event.PaymentProcessedEvent;
+import com.swann.paymentservice.model.PaymentStatus;
+import com.swann.paymentservice.notification.PaymentStatusNotifier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentProcessedEventConsumerTest {
+
+    private PaymentLookupCache paymentLookupCache;
+    private PaymentProcessedEventConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        paymentLookupCache = new PaymentLookupCache(1000, Duration.ofMinutes(10), Duration.ofSeconds(2));
+        consumer = new PaymentProcessedEventConsumer(new PaymentStatusNotifier(), paymentLookupCache);
+    }
+
+    @Test
+    void handlePaymentProcessedEvent_ShouldReplaceCachedMissWithFinalPayment() {
+        // Given
+        UUID orderId = UUID.randomUUID();
+        LocalDateTime createdAt = LocalDateTime.now().minusSeconds(3);
+        assertTrue(paymentLookupCache.get(orderId, id -> Optional.empty()).isEmpty());
+
+        // When
+        consumer.handlePaymentProcessedEvent(new PaymentProcessedEvent(UUID.randomUUID(), orderId,
+                new BigDecimal("99.99"), PaymentStatus.COMPLETED, createdAt));
+
+        // Then
+        Optional<PaymentResponse> cached = paymentLookupCache.get(orderId, id -> fail("should not reload"));
+        assertTrue(cached.isPresent());
+        assertEquals(PaymentStatus.COMPLETED, cached.get().getStatus());
+        assertEquals(createdAt, cached.get().getCreatedAt());
+    }
+
+    @Test
+    void handlePaymentProcessedEvent_WhenLookupReadBeforeCommit_ShouldKeepFinalPayment() {
+        // Given
+        UUID orderId = UUID.randomUUID();
+        PaymentProcessedEvent event = new PaymentProcessedEvent(UUID.randomUUID(), orderId,
+                new BigDecimal("99.99"), PaymentStatus.DECLINED, LocalDateTime.now());
+
+        // When - the lookup reads the old state, then the event arrives before it caches it
+        Optional<PaymentResponse> looked = paymentLookupCache.get(orderId, id -> {
+            consumer.handlePaymentProcessedEvent(event);
+            return Optional.empty();
+        });
+
+        // Then
+        assertEquals(PaymentStatus.DECLINED, looked.orElseThrow().getStatus());
+        assertEquals(PaymentStatus.DECLINED,
+                paymentLookupCache.get(orderId, id -> Optional.empty()).orElseThrow().getStatus());
+    }
+}
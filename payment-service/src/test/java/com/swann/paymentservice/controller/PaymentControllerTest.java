@@ -1,24 +1,38 @@
 package com.swann.paymentservice.controller;
 
 import com.swann.paymentservice.dto.PaymentResponse;
+import com.swann.paymentservice.notification.PaymentStatusNotifier;
 import com.swann.paymentservice.service.PaymentService;
-import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ScheduledFuture;
 
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,6 +43,12 @@ class PaymentControllerTest {
     @Mock
     private PaymentService paymentService;
 
+    @Spy
+    private PaymentStatusNotifier paymentStatusNotifier = new PaymentStatusNotifier();
+
+    @Mock
+    private TaskScheduler taskScheduler;
+
     @InjectMocks
     private PaymentController paymentController;
 
@@ -38,6 +58,7 @@ class PaymentControllerTest {
 
     @BeforeEach
     void setUp() {
+        ReflectionTestUtils.setField(paymentController, "maxWaitMillis", 5000L);
         mockMvc = MockMvcBuilders.standaloneSetup(paymentController).build();
         
         paymentId = UUID.randomUUID();
@@ -55,7 +76,7 @@ class PaymentControllerTest {
 
     @Test
     void getPaymentByOrderId_ShouldReturnPayment() throws Exception {
-        when(paymentService.getPaymentByOrderId(orderId)).thenReturn(paymentResponse);
+        when(paymentService.findPaymentByOrderId(orderId)).thenReturn(Optional.of(paymentResponse));
 
         mockMvc.perform(get("/payments/order/{orderId}", orderId))
                 .andExpect(status().isOk())
@@ -67,9 +88,59 @@ class PaymentControllerTest {
 
     @Test
     void getPaymentByOrderId_WhenPaymentNotFound_ShouldReturnNotFound() throws Exception {
-        when(paymentService.getPaymentByOrderId(orderId)).thenThrow(new EntityNotFoundException("Payment not found"));
+        when(paymentService.findPaymentByOrderId(orderId)).thenReturn(Optional.empty());
 
         mockMvc.perform(get("/payments/order/{orderId}", orderId))
                 .andExpect(status().isNotFound());
     }
-}
\ No newline at end of file
+
+    @Test
+    void awaitPaymentByOrderId_WhenPaymentExists_ShouldReturnImmediately() throws Exception {
+        when(paymentService.findPaymentByOrderId(orderId)).thenReturn(Optional.of(paymentResponse));
+
+        MvcResult result = mockMvc.perform(get("/payments/order/{orderId}/await", orderId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.paymentId").value(paymentId.toString()))
+                .andExpect(jsonPath("$.status").value("COMPLETED"));
+    }
+
+    @Test
+    void awaitPaymentByOrderId_WhenPaymentSavedLater_ShouldReturnPayment() throws Exception {
+        when(paymentService.findPaymentByOrderId(orderId)).thenReturn(Optional.empty());
+
+        MvcResult result = mockMvc.perform(get("/payments/order/{orderId}/await", orderId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        paymentStatusNotifier.notifyWaiters(paymentResponse);
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.paymentId").value(paymentId.toString()))
+                .andExpect(jsonPath("$.orderId").value(orderId.toString()));
+    }
+
+    @Test
+    void streamPaymentByOrderId_WhenTimedOut_ShouldSendTimeoutEventWithCurrentPayment() throws Exception {
+        // Given
+        paymentResponse.setStatus("PENDING");
+        when(paymentService.findPaymentByOrderId(orderId)).thenReturn(Optional.of(paymentResponse));
+        ArgumentCaptor<Runnable> timeout = ArgumentCaptor.forClass(Runnable.class);
+        doReturn(mock(ScheduledFuture.class)).when(taskScheduler).schedule(timeout.capture(), any(Instant.class));
+        MvcResult result = mockMvc.perform(get("/payments/order/{orderId}/stream", orderId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // When
+        timeout.getValue().run();
+
+        // Then
+        String body = result.getResponse().getContentAsString();
+        assertTrue(body.contains("event:timeout"), body);
+        assertTrue(body.contains("\"status\":\"PENDING\""), body);
+    }
+}
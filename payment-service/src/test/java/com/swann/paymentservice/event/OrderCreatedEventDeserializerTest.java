@@ -0,0 +1,121 @@
+package com.swann.paymentservice.event;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderCreatedEventDeserializerTest {
+
+    private UUID orderId;
+    private UUID customerId;
+    private UUID productId;
+    private byte[] payload;
+    private Headers headers;
+
+    @BeforeEach
+    void setUp() {
+        orderId = UUID.randomUUID();
+        customerId = UUID.randomUUID();
+        productId = UUID.randomUUID();
+        payload = ("{\"eventId\":\"" + UUID.randomUUID() + "\",\"eventType\":\"ORDER_CREATED\","
+                + "\"orderId\":\"" + orderId + "\",\"customerId\":\"" + customerId + "\","
+                + "\"totalAmount\":39.98,\"status\":\"PENDING\","
+                + "\"items\":[{\"productId\":\"" + productId + "\",\"quantity\":2,\"unitPrice\":19.99}],"
+                + "\"trailing\":{\"nested\":[1,2,3]}}").getBytes(StandardCharsets.UTF_8);
+
+        headers = new RecordHeaders();
+        headers.add(EventHeaders.EVENT_TYPE, bytes("ORDER_CREATED"));
+        headers.add(EventHeaders.ORDER_ID, bytes(orderId.toString()));
+        headers.add(EventHeaders.CUSTOMER_ID, bytes(customerId.toString()));
+        headers.add(EventHeaders.TOTAL_AMOUNT, bytes("39.98"));
+        headers.add(EventHeaders.STATUS, bytes("PENDING"));
+        headers.add(EventHeaders.ITEM_COUNT, bytes("1"));
+    }
+
+    @Test
+    void deserialize_InSummaryMode_ShouldUseHeadersAndSkipItems() {
+        // Given
+        OrderCreatedEventDeserializer deserializer = deserializer("SUMMARY");
+
+        // When - the payload is not valid JSON, proving it is never read
+        OrderCreatedEvent event = deserializer.deserialize("order-created", headers, bytes("not json"));
+
+        // Then
+        assertEquals(orderId, event.getOrderId());
+        assertEquals(customerId, event.getCustomerId());
+        assertEquals(new BigDecimal("39.98"), event.getTotalAmount());
+        assertEquals("PENDING", event.getStatus());
+        assertNull(event.getItems());
+    }
+
+    @Test
+    void deserialize_InSummaryModeWithoutHeaders_ShouldFallBackToFullDecode() {
+        // Given
+        OrderCreatedEventDeserializer deserializer = deserializer("SUMMARY");
+
+        // When
+        OrderCreatedEvent event = deserializer.deserialize("order-created", new RecordHeaders(), payload);
+
+        // Then
+        assertEquals(orderId, event.getOrderId());
+        assertEquals(1, event.getItems().size());
+    }
+
+    @Test
+    void deserialize_InItemsMode_ShouldReadOnlyItemsFromPayload() {
+        // Given
+        OrderCreatedEventDeserializer deserializer = deserializer("ITEMS");
+
+        // When
+        OrderCreatedEvent event = deserializer.deserialize("order-created", headers, payload);
+
+        // Then
+        assertEquals(orderId, event.getOrderId());
+        assertEquals(1, event.getItems().size());
+        assertEquals(productId, event.getItems().get(0).getProductId());
+        assertEquals(2, event.getItems().get(0).getQuantity());
+        assertEquals(new BigDecimal("19.99"), event.getItems().get(0).getUnitPrice());
+    }
+
+    @Test
+    void deserialize_InFullMode_ShouldDecodeWholePayload() {
+        // Given
+        OrderCreatedEventDeserializer deserializer = deserializer("FULL");
+
+        // When
+        OrderCreatedEvent event = deserializer.deserialize("order-created", headers, payload);
+
+        // Then
+        assertEquals(orderId, event.getOrderId());
+        assertEquals("ORDER_CREATED", event.getEventType());
+        assertEquals(1, event.getItems().size());
+    }
+
+    @Test
+    void deserialize_WhenPayloadIsMalformed_ShouldThrowSerializationException() {
+        // Given
+        OrderCreatedEventDeserializer deserializer = deserializer("FULL");
+
+        // When & Then
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("order-created", headers, bytes("{")));
+    }
+
+    private static OrderCreatedEventDeserializer deserializer(String projection) {
+        OrderCreatedEventDeserializer deserializer = new OrderCreatedEventDeserializer();
+        deserializer.configure(Map.of(OrderEventProjection.CONFIG, projection), false);
+        return deserializer;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,61 @@
+package com.swann.paymentservice.gateway;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InFlightAuthorizationsTest {
+
+    private InFlightAuthorizations inFlightAuthorizations;
+
+    @BeforeEach
+    void setUp() {
+        inFlightAuthorizations = new InFlightAuthorizations(new SimpleMeterRegistry());
+    }
+
+    @Test
+    void track_ShouldForgetCompletedConfirmations() {
+        // Given
+        CompletableFuture<Void> confirmation = new CompletableFuture<>();
+        inFlightAuthorizations.track(confirmation);
+        assertEquals(1, inFlightAuthorizations.size());
+
+        // When
+        confirmation.complete(null);
+
+        // Then
+        assertEquals(0, inFlightAuthorizations.size());
+    }
+
+    @Test
+    void awaitAll_ShouldWaitForConfirmationsToFinish() {
+        // Given
+        inFlightAuthorizations.track(CompletableFuture.runAsync(() -> { },
+                CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS)));
+        inFlightAuthorizations.track(CompletableFuture.failedFuture(new IllegalStateException("declined")));
+
+        // When
+        int remaining = inFlightAuthorizations.awaitAll(Duration.ofSeconds(5));
+
+        // Then
+        assertEquals(0, remaining);
+    }
+
+    @Test
+    void awaitAll_WhenTimeoutElapses_ShouldReportUnfinished() {
+        // Given
+        inFlightAuthorizations.track(new CompletableFuture<>());
+
+        // When
+        int remaining = inFlightAuthorizations.awaitAll(Duration.ofMillis(20));
+
+        // Then
+        assertEquals(1, remaining);
+    }
+}
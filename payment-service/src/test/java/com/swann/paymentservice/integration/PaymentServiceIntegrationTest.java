@@ -28,7 +28,11 @@ import java.util.concurrent.TimeUnit;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.awaitility.Awaitility.await;
 
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "payment.gateway.simulator.failure-rate=0",
+        "payment.gateway.simulator.hang-rate=0",
+        "payment.gateway.simulator.decline-rate=0"
+})
 @Import(com.swann.paymentservice.TestcontainersConfiguration.class)
 @ActiveProfiles("test")
 @EmbeddedKafka(partitions = 1, topics = {"order-created", "payment-processed"})
@@ -86,10 +90,10 @@ public class PaymentServiceIntegrationTest {
         kafkaTemplate.send("order-created", orderId.toString(), event);
 
         // Then
-        // Wait for the payment to be processed
+        // Wait for the gateway to confirm the payment
         await().atMost(10, TimeUnit.SECONDS).until(() -> {
             List<Payment> payments = paymentRepository.findAll();
-            return !payments.isEmpty();
+            return !payments.isEmpty() && !"PENDING".equals(payments.get(0).getStatus());
         });
 
         // Verify the payment was created
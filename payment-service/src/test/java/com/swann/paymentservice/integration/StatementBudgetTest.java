@@ -0,0 +1,68 @@
+package com.swann.paymentservice.integration;
+
+import com.swann.paymentservice.dto.PaymentResponse;
+import com.swann.paymentservice.model.Payment;
+import com.swann.paymentservice.repository.PaymentRepository;
+import com.swann.paymentservice.service.PaymentService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.UUID;
+
+import static com.swann.common.sqlstats.StatementBudget.assertAtMost;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Statements each payment lookup may run. Repeated lookups, including of
+ * orders without a payment, are answered from the lookup cache.
+ */
+@SpringBootTest
+@Import(com.swann.paymentservice.TestcontainersConfiguration.class)
+@ActiveProfiles("test")
+@EmbeddedKafka(partitions = 1, topics = {"order-created", "payment-processed"})
+@DirtiesContext
+@Testcontainers
+public class StatementBudgetTest {
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Test
+    void findPaymentByOrderId_ShouldQueryOnceThenUseCache() {
+        // Given
+        UUID orderId = UUID.randomUUID();
+        paymentRepository.save(Payment.builder()
+                .orderId(orderId)
+                .customerId(UUID.randomUUID())
+                .amount(new BigDecimal("99.99"))
+                .status("COMPLETED")
+                .build());
+
+        // When / Then
+        Optional<PaymentResponse> first = assertAtMost(1, () -> paymentService.findPaymentByOrderId(orderId));
+        Optional<PaymentResponse> second = assertAtMost(0, () -> paymentService.findPaymentByOrderId(orderId));
+        assertTrue(first.isPresent());
+        assertEquals(first, second);
+    }
+
+    @Test
+    void findPaymentByOrderId_WhenNoPayment_ShouldCacheTheMiss() {
+        // Given
+        UUID orderId = UUID.randomUUID();
+
+        // When / Then
+        assertTrue(assertAtMost(1, () -> paymentService.findPaymentByOrderId(orderId)).isEmpty());
+        assertTrue(assertAtMost(0, () -> paymentService.findPaymentByOrderId(orderId)).isEmpty());
+    }
+}
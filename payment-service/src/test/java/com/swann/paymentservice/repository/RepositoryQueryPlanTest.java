@@ -0,0 +1,229 @@
+package com.swann.paymentservice.repository;
+
+import com.swann.paymentservice.TestcontainersConfiguration;
+import com.swann.paymentservice.dto.PaymentSettlementRow;
+import com.swann.paymentservice.model.PaymentStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs every repository query, records the SQL it sends and fails if the plan
+ * of any of it reads a large table with a sequential scan. Sequential scans are
+ * disabled while planning, so one still in the plan means no index fits.
+ * Plans are generic, as for a prepared statement, so no data is needed; that
+ * takes EXPLAIN (GENERIC_PLAN) from PostgreSQL 16.
+ */
+@SpringBootTest
+@Import({TestcontainersConfiguration.class, RepositoryQueryPlanTest.RecorderConfiguration.class})
+@ActiveProfiles("test")
+@EmbeddedKafka(partitions = 1, topics = {"order-created", "payment-processed"})
+@DirtiesContext
+@Testcontainers
+public class RepositoryQueryPlanTest {
+
+    private static final Set<String> LARGE_TABLES = Set.of("payments");
+    private static final Pattern SEQ_SCAN = Pattern.compile("Seq Scan on (\\w+)");
+
+    @Autowired
+    private StatementRecorder statementRecorder;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private SettlementRepository settlementRepository;
+
+    @Autowired
+    private SettlementCheckpointRepository settlementCheckpointRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void repositoryQueriesShouldNotSeqScanLargeTables() {
+        // Given
+        LocalDate day = LocalDate.now().minusDays(1);
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("PaymentRepository.findById", () -> paymentRepository.findById(UUID.randomUUID()));
+        queries.put("PaymentRepository.findByOrderId", () -> paymentRepository.findByOrderId(UUID.randomUUID()));
+        queries.put("PaymentRepository.streamSettlementRows", () -> {
+            try (Stream<PaymentSettlementRow> rows = paymentRepository.streamSettlementRows(day.atStartOfDay(), day.plusDays(1).atStartOfDay())) {
+                rows.count();
+            }
+        });
+        queries.put("PaymentRepository.findByStatusAndUpdatedAtBeforeOrderByUpdatedAtAsc", () ->
+                paymentRepository.findByStatusAndUpdatedAtBeforeOrderByUpdatedAtAsc(PaymentStatus.PENDING, now, PageRequest.of(0, 100)));
+        queries.put("PaymentRepository.confirmPending", () ->
+                paymentRepository.confirmPending(UUID.randomUUID(), PaymentStatus.COMPLETED, "ref", now, now.minusMinutes(1)));
+        queries.put("SettlementRepository.findBySettlementDateBetweenOrderBySettlementDateAscStatusAsc", () ->
+                settlementRepository.findBySettlementDateBetweenOrderBySettlementDateAscStatusAsc(day.minusDays(7), day));
+        queries.put("SettlementRepository.deleteBySettlementDate", () -> settlementRepository.deleteBySettlementDate(day));
+        queries.put("SettlementCheckpointRepository.findById", () -> settlementCheckpointRepository.findById(day));
+
+        // When
+        List<String> failures = new ArrayList<>();
+        queries.forEach((name, query) -> {
+            for (String sql : record(query)) {
+                String plan = explain(sql);
+                Matcher scan = SEQ_SCAN.matcher(plan);
+                while (scan.find()) {
+                    if (isLargeTable(scan.group(1))) {
+                        failures.add(name + " scans " + scan.group(1) + ":\n" + sql + "\n" + plan);
+                    }
+                }
+            }
+        });
+
+        // Then
+        assertTrue(failures.isEmpty(), String.join("\n\n", failures));
+    }
+
+    private List<String> record(Runnable query) {
+        return transactionTemplate.execute(status -> {
+            statementRecorder.start();
+            try {
+                query.run();
+            } finally {
+                statementRecorder.stop();
+                status.setRollbackOnly();
+            }
+            List<String> statements = statementRecorder.drain();
+            assertFalse(statements.isEmpty(), "query sent no statement");
+            return statements;
+        });
+    }
+
+    private String explain(String sql) {
+        return transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+            return String.join("\n", jdbcTemplate.queryForList("EXPLAIN (GENERIC_PLAN) " + numberParameters(sql), String.class));
+        });
+    }
+
+    private static boolean isLargeTable(String relation) {
+        // Partitions are named after their table: payments_p202401, payments_legacy
+        return LARGE_TABLES.stream().anyMatch(table -> relation.equals(table) || relation.startsWith(table + "_"));
+    }
+
+    // JDBC ? placeholders become $1, $2, ... outside string literals
+    private static String numberParameters(String sql) {
+        StringBuilder numbered = new StringBuilder(sql.length() + 16);
+        boolean inLiteral = false;
+        int parameter = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '\'') {
+                inLiteral = !inLiteral;
+            }
+            if (c == '?' && !inLiteral) {
+                numbered.append('$').append(++parameter);
+            } else {
+                numbered.append(c);
+            }
+        }
+        return numbered.toString();
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class RecorderConfiguration {
+
+        @Bean
+        static StatementRecorder statementRecorder() {
+            return new StatementRecorder();
+        }
+    }
+
+    /**
+     * Wraps the application's data source and records the SQL of statements
+     * prepared while recording is on.
+     */
+    static class StatementRecorder implements BeanPostProcessor {
+
+        private final List<String> statements = new CopyOnWriteArrayList<>();
+        private volatile boolean recording;
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!"dataSource".equals(beanName) || !(bean instanceof DataSource dataSource)) {
+                return bean;
+            }
+            return new DelegatingDataSource(dataSource) {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    return recording(super.getConnection());
+                }
+
+                @Override
+                public Connection getConnection(String username, String password) throws SQLException {
+                    return recording(super.getConnection(username, password));
+                }
+            };
+        }
+
+        void start() {
+            statements.clear();
+            recording = true;
+        }
+
+        void stop() {
+            recording = false;
+        }
+
+        List<String> drain() {
+            List<String> drained = List.copyOf(statements);
+            statements.clear();
+            return drained;
+        }
+
+        private Connection recording(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if (recording && method.getName().startsWith("prepare") && args != null && args[0] instanceof String sql) {
+                            statements.add(sql);
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException();
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.swann.paymentservice.risk;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VelocityCounterStoreTest {
+
+    private static final long BASE = 1_700_000_000L;
+
+    private VelocityCounterStore store;
+    private VelocityLimits limits;
+    private UUID customerId;
+
+    @BeforeEach
+    void setUp() {
+        store = new VelocityCounterStore(4, BASE);
+        limits = new VelocityLimits(3, 10, 20);
+        customerId = UUID.randomUUID();
+    }
+
+    @Test
+    void recordAndCheck_WhenMinuteLimitExceeded_ShouldReportMinuteWindow() {
+        assertNull(store.recordAndCheck(customerId, BASE, limits));
+        assertNull(store.recordAndCheck(customerId, BASE + 1, limits));
+        assertNull(store.recordAndCheck(customerId, BASE + 2, limits));
+
+        assertEquals(VelocityCounterStore.Window.MINUTE, store.recordAndCheck(customerId, BASE + 3, limits));
+        assertEquals(4, store.count(customerId, VelocityCounterStore.Window.MINUTE, BASE + 3));
+    }
+
+    @Test
+    void recordAndCheck_ShouldSlideMinuteWindowButKeepHourAndDay() {
+        for (int i = 0; i < 3; i++) {
+            store.recordAndCheck(customerId, BASE + i, limits);
+        }
+
+        assertNull(store.recordAndCheck(customerId, BASE + 120, limits));
+        assertEquals(1, store.count(customerId, VelocityCounterStore.Window.MINUTE, BASE + 120));
+        assertEquals(4, store.count(customerId, VelocityCounterStore.Window.HOUR, BASE + 120));
+        assertEquals(4, store.count(customerId, VelocityCounterStore.Window.DAY, BASE + 120));
+    }
+
+    @Test
+    void recordAndCheck_WhenHourLimitExceeded_ShouldReportHourWindow() {
+        VelocityCounterStore.Window breached = null;
+        for (int i = 0; i < 11; i++) {
+            breached = store.recordAndCheck(customerId, BASE + i * 120L, limits);
+        }
+
+        assertEquals(VelocityCounterStore.Window.HOUR, breached);
+    }
+
+    @Test
+    void recordAndCheck_ShouldKeepCustomersIndependentAcrossGrowth() {
+        UUID[] customers = new UUID[10_000];
+        for (int i = 0; i < customers.length; i++) {
+            customers[i] = UUID.randomUUID();
+            store.recordAndCheck(customers[i], BASE, limits);
+        }
+        store.recordAndCheck(customers[42], BASE, limits);
+
+        assertEquals(10_000, store.size());
+        assertEquals(2, store.count(customers[42], VelocityCounterStore.Window.MINUTE, BASE));
+        assertEquals(1, store.count(customers[9_999], VelocityCounterStore.Window.MINUTE, BASE));
+        assertEquals(0, store.count(UUID.randomUUID(), VelocityCounterStore.Window.MINUTE, BASE));
+    }
+
+    @Test
+    void evictIdle_ShouldDropCustomersIdleForADay() {
+        UUID activeCustomer = UUID.randomUUID();
+        store.recordAndCheck(customerId, BASE, limits);
+        store.recordAndCheck(activeCustomer, BASE + 86_400, limits);
+
+        int evicted = store.evictIdle(BASE + 2 * 86_400 - 1);
+
+        assertEquals(1, evicted);
+        assertEquals(1, store.size());
+        assertEquals(0, store.count(customerId, VelocityCounterStore.Window.DAY, BASE + 2 * 86_400 - 1));
+        assertEquals(1, store.count(activeCustomer, VelocityCounterStore.Window.DAY, BASE + 2 * 86_400 - 1));
+    }
+
+    @Test
+    void perInstance_ShouldDivideLimitsRoundingUpAndNeverBelowOne() {
+        VelocityLimits service = new VelocityLimits(5, 30, 100);
+        VelocityLimits perInstance = service.perInstance(3);
+
+        assertEquals(2, perInstance.get(VelocityCounterStore.Window.MINUTE));
+        assertEquals(10, perInstance.get(VelocityCounterStore.Window.HOUR));
+        assertEquals(34, perInstance.get(VelocityCounterStore.Window.DAY));
+        assertEquals(1, service.perInstance(10).get(VelocityCounterStore.Window.MINUTE));
+        assertSame(service, service.perInstance(1));
+    }
+}
@@ -1,10 +1,22 @@
 package com.swann.paymentservice.service;
 
+import com.swann.paymentservice.cache.PaymentLookupCache;
 import com.swann.paymentservice.config.KafkaConfig;
 import com.swann.paymentservice.dto.PaymentResponse;
 import com.swann.paymentservice.event.PaymentProcessedEvent;
+import com.swann.paymentservice.gateway.GatewayRequest;
+import com.swann.paymentservice.gateway.GatewayResult;
+import com.swann.paymentservice.gateway.GatewayUnavailableException;
+import com.swann.paymentservice.gateway.InFlightAuthorizations;
+import com.swann.paymentservice.gateway.PaymentGateway;
 import com.swann.paymentservice.model.Payment;
+import com.swann.paymentservice.model.PaymentOrderClaim;
+import com.swann.paymentservice.model.PaymentStatus;
+import com.swann.paymentservice.notification.PaymentStatusNotifier;
+import com.swann.paymentservice.repository.PaymentOrderClaimRepository;
 import com.swann.paymentservice.repository.PaymentRepository;
+import com.swann.paymentservice.risk.PaymentVelocityGuard;
+import com.swann.paymentservice.risk.VelocityCounterStore;
 import com.swann.paymentservice.service.impl.PaymentServiceImpl;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,18 +24,32 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,9 +58,31 @@ class PaymentServiceImplTest {
     @Mock
     private PaymentRepository paymentRepository;
 
+    @Mock
+    private PaymentOrderClaimRepository paymentOrderClaimRepository;
+
     @Mock
     private KafkaTemplate<String, Object> kafkaTemplate;
 
+    @Mock
+    private PaymentStatusNotifier paymentStatusNotifier;
+
+    @Mock
+    private PaymentVelocityGuard paymentVelocityGuard;
+
+    @Mock
+    private PaymentGateway paymentGateway;
+
+    @Mock
+    private InFlightAuthorizations inFlightAuthorizations;
+
+    // Runs callbacks directly; with no synchronization active, after-commit hooks run immediately
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @Spy
+    private PaymentLookupCache paymentLookupCache = new PaymentLookupCache(1000, Duration.ofMinutes(10), Duration.ofSeconds(2));
+
     @InjectMocks
     private PaymentServiceImpl paymentService;
 
@@ -98,25 +146,76 @@ class PaymentServiceImplTest {
     }
 
     @Test
-    void processPayment_ShouldCreatePaymentAndPublishEvent() {
+    void findPaymentByOrderId_WhenMissIsCached_ShouldNotQueryAgain() {
+        // Given
+        when(paymentRepository.findByOrderId(orderId)).thenReturn(Optional.empty());
+
+        // When
+        Optional<PaymentResponse> first = paymentService.findPaymentByOrderId(orderId);
+        Optional<PaymentResponse> second = paymentService.findPaymentByOrderId(orderId);
+
+        // Then
+        assertTrue(first.isEmpty());
+        assertTrue(second.isEmpty());
+        verify(paymentRepository, times(1)).findByOrderId(orderId);
+    }
+
+    @Test
+    void processPayment_ShouldReplaceCachedMiss() {
         // Given
         when(paymentRepository.findByOrderId(orderId)).thenReturn(Optional.empty());
+        when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> {
+            Payment savedPayment = invocation.getArgument(0);
+            savedPayment.setPaymentId(paymentId);
+            savedPayment.setCreatedAt(LocalDateTime.now());
+            return savedPayment;
+        });
+        when(paymentGateway.authorize(any(GatewayRequest.class))).thenReturn(approved());
+        assertTrue(paymentService.findPaymentByOrderId(orderId).isEmpty());
+
+        // When
+        paymentService.processPayment(orderId, customerId, new BigDecimal("39.98"));
+        Optional<PaymentResponse> response = paymentService.findPaymentByOrderId(orderId);
+
+        // Then
+        assertTrue(response.isPresent());
+        assertEquals(paymentId, response.get().getPaymentId());
+        verify(paymentRepository, times(2)).findByOrderId(orderId);
+    }
+
+    @Test
+    void processPayment_ShouldSavePendingThenConfirmAndPublishEvent() {
+        // Given
+        AtomicReference<String> savedStatus = new AtomicReference<>();
+        when(paymentRepository.findByOrderId(orderId)).thenReturn(Optional.empty());
         when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> {
             Payment savedPayment = invocation.getArgument(0);
             savedPayment.setPaymentId(paymentId); // Simulate ID generation
+            savedPayment.setCreatedAt(LocalDateTime.now());
+            savedStatus.set(savedPayment.getStatus());
             return savedPayment;
         });
+        when(paymentGateway.authorize(any(GatewayRequest.class))).thenReturn(approved());
+        when(paymentRepository.confirmPending(eq(paymentId), eq(PaymentStatus.COMPLETED), eq("gw-ref"), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(1);
 
         // When
         PaymentResponse response = paymentService.processPayment(orderId, customerId, new BigDecimal("39.98"));
 
         // Then
         verify(paymentRepository).findByOrderId(orderId);
-        verify(paymentRepository).save(paymentCaptor.capture());
+        InOrder claimFirst = inOrder(paymentOrderClaimRepository, paymentRepository);
+        claimFirst.verify(paymentOrderClaimRepository).saveAndFlush(argThat(claim -> orderId.equals(claim.getOrderId())));
+        claimFirst.verify(paymentRepository).save(paymentCaptor.capture());
         Payment capturedPayment = paymentCaptor.getValue();
         assertEquals(orderId, capturedPayment.getOrderId());
+        assertEquals(customerId, capturedPayment.getCustomerId());
         assertEquals(new BigDecimal("39.98"), capturedPayment.getAmount());
-        assertEquals("COMPLETED", capturedPayment.getStatus());
+        assertEquals(PaymentStatus.PENDING, savedStatus.get());
+
+        verify(paymentGateway).authorize(argThat(request -> paymentId.equals(request.getPaymentId())
+                && orderId.equals(request.getOrderId())));
+        verify(inFlightAuthorizations).track(any());
 
         verify(kafkaTemplate).send(topicCaptor.capture(), keyCaptor.capture(), valueCaptor.capture());
         assertEquals(KafkaConfig.PAYMENT_PROCESSED_TOPIC, topicCaptor.getValue());
@@ -128,11 +227,168 @@ class PaymentServiceImplTest {
         assertEquals(new BigDecimal("39.98"), event.getAmount());
         assertEquals("COMPLETED", event.getStatus());
 
+        verify(paymentStatusNotifier).notifyWaiters(argThat(payment -> "COMPLETED".equals(payment.getStatus())));
+
         // Verify response
         assertEquals(paymentId, response.getPaymentId());
         assertEquals(orderId, response.getOrderId());
         assertEquals(new BigDecimal("39.98"), response.getAmount());
-        assertEquals("COMPLETED", response.getStatus());
+        assertEquals("PENDING", response.getStatus());
+    }
+
+    @Test
+    void processPayment_WhenGatewayDeclines_ShouldConfirmDeclined() {
+        // Given
+        when(paymentRepository.findByOrderId(orderId)).thenReturn(Optional.empty());
+        when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> {
+            Payment savedPayment = invocation.getArgument(0);
+            savedPayment.setPaymentId(paymentId);
+            savedPayment.setCreatedAt(LocalDateTime.now());
+            return savedPayment;
+        });
+        when(paymentGateway.authorize(any(GatewayRequest.class))).thenReturn(
+                CompletableFuture.completedFuture(new GatewayResult(GatewayResult.Outcome.DECLINED, null, "Insufficient funds")));
+        when(paymentRepository.confirmPending(eq(paymentId), eq(PaymentStatus.DECLINED), isNull(), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(1);
+
+        // When
+        paymentService.processPayment(orderId, customerId, new BigDecimal("39.98"));
+
+        // Then
+        verify(kafkaTemplate).send(anyString(), anyString(), valueCaptor.capture());
+        assertEquals("DECLINED", ((PaymentProcessedEvent) valueCaptor.getValue()).getStatus());
+        assertEquals("DECLINED", paymentService.findPaymentByOrderId(orderId).orElseThrow().getStatus());
+    }
+
+    @Test
+    void processPayment_WhenGatewayUnavailable_ShouldLeavePaymentPending() {
+        // Given
+        when(paymentRepository.findByOrderId(orderId)).thenReturn(Optional.empty());
+        when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> {
+            Payment savedPayment = invocation.getArgument(0);
+            savedPayment.setPaymentId(paymentId);
+            savedPayment.setCreatedAt(LocalDateTime.now());
+            return savedPayment;
+        });
+        when(paymentGateway.authorize(any(GatewayRequest.class))).thenReturn(
+                CompletableFuture.failedFuture(new GatewayUnavailableException("circuit open")));
+
+        // When
+        PaymentResponse response = paymentService.processPayment(orderId, customerId, new BigDecimal("39.98"));
+
+        // Then
+        assertEquals("PENDING", response.getStatus());
+        verify(paymentRepository, never()).confirmPending(any(), any(), any(), any(), any());
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), any());
+        verify(paymentStatusNotifier, never()).notifyWaiters(any());
+    }
+
+    @Test
+    void processPayment_WhenGatewayTimesOut_ShouldLeavePaymentPending() {
+        // Given
+        when(paymentRepository.findByOrderId(orderId)).thenReturn(Optional.empty());
+        when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> {
+            Payment savedPayment = invocation.getArgument(0);
+            savedPayment.setPaymentId(paymentId);
+            savedPayment.setCreatedAt(LocalDateTime.now());
+            return savedPayment;
+        });
+        when(paymentGateway.authorize(any(GatewayRequest.class))).thenReturn(
+                CompletableFuture.failedFuture(new TimeoutException()));
+
+        // When
+        PaymentResponse response = paymentService.processPayment(orderId, customerId, new BigDecimal("39.98"));
+
+        // Then - the gateway may have charged; only the recovery job's retry can tell
+        assertEquals("PENDING", response.getStatus());
+        verify(paymentRepository, never()).confirmPending(any(), any(), any(), any(), any());
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), any());
+    }
+
+    @Test
+    void processPayment_WhenGatewayConnectionFails_ShouldLeavePaymentPending() {
+        // Given
+        when(paymentRepository.findByOrderId(orderId)).thenReturn(Optional.empty());
+        when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> {
+            Payment savedPayment = invocation.getArgument(0);
+            savedPayment.setPaymentId(paymentId);
+            savedPayment.setCreatedAt(LocalDateTime.now());
+            return savedPayment;
+        });
+        when(paymentGateway.authorize(any(GatewayRequest.class))).thenReturn(
+                CompletableFuture.failedFuture(new IllegalStateException("connection reset")));
+
+        // When
+        paymentService.processPayment(orderId, customerId, new BigDecimal("39.98"));
+
+        // Then
+        verify(paymentRepository, never()).confirmPending(any(), any(), any(), any(), any());
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), any());
+    }
+
+    @Test
+    void retryPendingPayments_ShouldResendStalePaymentsToGateway() {
+        // Given
+        payment.setStatus(PaymentStatus.PENDING);
+        LocalDateTime cutOff = LocalDateTime.now().minusMinutes(5);
+        when(paymentRepository.findByStatusAndUpdatedAtBeforeOrderByUpdatedAtAsc(eq(PaymentStatus.PENDING), eq(cutOff), any(Pageable.class)))
+                .thenReturn(List.of(payment));
+        when(paymentRepository.claimPending(eq(paymentId), eq(payment.getUpdatedAt()), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(1);
+        when(paymentGateway.authorize(any(GatewayRequest.class))).thenReturn(approved());
+        when(paymentRepository.confirmPending(eq(paymentId), eq(PaymentStatus.COMPLETED), eq("gw-ref"), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(0); // Confirmed by the original call in the meantime
+
+        // When
+        int retried = paymentService.retryPendingPayments(cutOff);
+
+        // Then
+        assertEquals(1, retried);
+        verify(paymentGateway).authorize(argThat(request -> paymentId.equals(request.getPaymentId())));
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), any());
+    }
+
+    @Test
+    void retryPendingPayments_WhenClaimedByAnotherInstance_ShouldSkipPayment() {
+        // Given
+        payment.setStatus(PaymentStatus.PENDING);
+        LocalDateTime cutOff = LocalDateTime.now().minusMinutes(5);
+        when(paymentRepository.findByStatusAndUpdatedAtBeforeOrderByUpdatedAtAsc(eq(PaymentStatus.PENDING), eq(cutOff), any(Pageable.class)))
+                .thenReturn(List.of(payment));
+        when(paymentRepository.claimPending(eq(paymentId), eq(payment.getUpdatedAt()), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(0);
+
+        // When
+        int retried = paymentService.retryPendingPayments(cutOff);
+
+        // Then
+        assertEquals(0, retried);
+        verify(paymentGateway, never()).authorize(any(GatewayRequest.class));
+    }
+
+    @Test
+    void processPayment_WhenVelocityLimitExceeded_ShouldRejectPayment() {
+        // Given
+        when(paymentRepository.findByOrderId(orderId)).thenReturn(Optional.empty());
+        when(paymentVelocityGuard.recordAndCheck(customerId)).thenReturn(VelocityCounterStore.Window.MINUTE);
+        when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> {
+            Payment savedPayment = invocation.getArgument(0);
+            savedPayment.setPaymentId(paymentId);
+            savedPayment.setCreatedAt(LocalDateTime.now());
+            return savedPayment;
+        });
+
+        // When
+        PaymentResponse response = paymentService.processPayment(orderId, customerId, new BigDecimal("39.98"));
+
+        // Then
+        verify(paymentRepository).save(paymentCaptor.capture());
+        assertEquals("REJECTED", paymentCaptor.getValue().getStatus());
+        verify(kafkaTemplate).send(topicCaptor.capture(), keyCaptor.capture(), valueCaptor.capture());
+        PaymentProcessedEvent event = (PaymentProcessedEvent) valueCaptor.getValue();
+        assertEquals("REJECTED", event.getStatus());
+        assertEquals("REJECTED", response.getStatus());
+        verify(paymentGateway, never()).authorize(any());
     }
 
     @Test
@@ -141,9 +397,29 @@ class PaymentServiceImplTest {
         when(paymentRepository.findByOrderId(orderId)).thenReturn(Optional.of(payment));
 
         // When & Then
-        assertThrows(IllegalStateException.class, () -> paymentService.processPayment(orderId, customerId, new BigDecimal("39.98")));
+        assertThrows(DuplicatePaymentException.class, () -> paymentService.processPayment(orderId, customerId, new BigDecimal("39.98")));
         verify(paymentRepository).findByOrderId(orderId);
         verify(paymentRepository, never()).save(any());
         verify(kafkaTemplate, never()).send(anyString(), anyString(), any());
+        verify(paymentStatusNotifier, never()).notifyWaiters(any());
+        verify(paymentVelocityGuard, never()).recordAndCheck(any());
+    }
+
+    @Test
+    void processPayment_WhenOrderClaimedConcurrently_ShouldThrowException() {
+        // Given - another instance claimed the order after the existence check
+        when(paymentRepository.findByOrderId(orderId)).thenReturn(Optional.empty());
+        when(paymentOrderClaimRepository.saveAndFlush(any(PaymentOrderClaim.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key value violates unique constraint"));
+
+        // When & Then
+        assertThrows(DuplicatePaymentException.class, () -> paymentService.processPayment(orderId, customerId, new BigDecimal("39.98")));
+        verify(paymentRepository, never()).save(any());
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), any());
+        verify(paymentVelocityGuard, never()).recordAndCheck(any());
+    }
+
+    private static CompletableFuture<GatewayResult> approved() {
+        return CompletableFuture.completedFuture(new GatewayResult(GatewayResult.Outcome.APPROVED, "gw-ref", null));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,170 @@
+package com.swann.paymentservice.service;
+
+import com.swann.common.datasource.WorkloadContext;
+import com.swann.common.datasource.WorkloadType;
+import com.swann.paymentservice.dto.PaymentSettlementRow;
+import com.swann.paymentservice.model.Settlement;
+import com.swann.paymentservice.model.SettlementCheckpoint;
+import com.swann.paymentservice.repository.PaymentRepository;
+import com.swann.paymentservice.repository.SettlementCheckpointRepository;
+import com.swann.paymentservice.repository.SettlementRepository;
+import com.swann.paymentservice.service.impl.SettlementServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SettlementServiceImplTest {
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @Mock
+    private SettlementRepository settlementRepository;
+
+    @Mock
+    private SettlementCheckpointRepository settlementCheckpointRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Captor
+    private ArgumentCaptor<List<Settlement>> settlementsCaptor;
+
+    @Captor
+    private ArgumentCaptor<SettlementCheckpoint> checkpointCaptor;
+
+    private SettlementServiceImpl settlementService;
+
+    private LocalDate day;
+
+    @BeforeEach
+    void setUp() {
+        settlementService = new SettlementServiceImpl(paymentRepository, settlementRepository,
+                settlementCheckpointRepository, transactionManager, 2, 2);
+        day = LocalDate.of(2026, 1, 15);
+    }
+
+    @Test
+    void settle_ShouldAggregateExactTotalsPerStatusAndCheckpointDay() {
+        // Given
+        when(settlementCheckpointRepository.findAllById(List.of(day))).thenReturn(Collections.emptyList());
+        when(paymentRepository.streamSettlementRows(day.atStartOfDay(), day.plusDays(1).atStartOfDay()))
+                .thenReturn(Stream.of(
+                        new PaymentSettlementRow("COMPLETED", new BigDecimal("0.10")),
+                        new PaymentSettlementRow("COMPLETED", new BigDecimal("0.20")),
+                        new PaymentSettlementRow("FAILED", new BigDecimal("39.98"))));
+
+        // When
+        int settled = settlementService.settle(day, day);
+
+        // Then
+        assertEquals(1, settled);
+        verify(settlementRepository).deleteBySettlementDate(day);
+        verify(settlementRepository).saveAll(settlementsCaptor.capture());
+        List<Settlement> settlements = settlementsCaptor.getValue();
+        assertEquals(2, settlements.size());
+        assertEquals("COMPLETED", settlements.get(0).getStatus());
+        assertEquals(2L, settlements.get(0).getPaymentCount());
+        assertEquals(new BigDecimal("0.30"), settlements.get(0).getTotalAmount());
+        assertEquals("FAILED", settlements.get(1).getStatus());
+        assertEquals(new BigDecimal("39.98"), settlements.get(1).getTotalAmount());
+
+        verify(settlementCheckpointRepository).save(checkpointCaptor.capture());
+        assertEquals(day, checkpointCaptor.getValue().getSettlementDate());
+        assertEquals(3L, checkpointCaptor.getValue().getPaymentCount());
+    }
+
+    @Test
+    void settle_WhenDaysAreCheckpointed_ShouldOnlySettleRemainingDays() {
+        // Given
+        LocalDate nextDay = day.plusDays(1);
+        when(settlementCheckpointRepository.findAllById(List.of(day, nextDay)))
+                .thenReturn(List.of(SettlementCheckpoint.builder().settlementDate(day).paymentCount(5L).build()));
+        when(paymentRepository.streamSettlementRows(nextDay.atStartOfDay(), nextDay.plusDays(1).atStartOfDay()))
+                .thenReturn(Stream.empty());
+
+        // When
+        int settled = settlementService.settle(day, nextDay);
+
+        // Then
+        assertEquals(1, settled);
+        verify(paymentRepository, never()).streamSettlementRows(day.atStartOfDay(), nextDay.atStartOfDay());
+        verify(settlementRepository, never()).deleteBySettlementDate(day);
+        verify(settlementRepository).deleteBySettlementDate(nextDay);
+        verify(settlementCheckpointRepository).save(any(SettlementCheckpoint.class));
+    }
+
+    @Test
+    void settle_WhenDayHasPendingPayments_ShouldWriteTotalsWithoutCheckpoint() {
+        // Given
+        when(settlementCheckpointRepository.findAllById(List.of(day))).thenReturn(Collections.emptyList());
+        when(paymentRepository.streamSettlementRows(day.atStartOfDay(), day.plusDays(1).atStartOfDay()))
+                .thenReturn(Stream.of(
+                        new PaymentSettlementRow("COMPLETED", new BigDecimal("10.00")),
+                        new PaymentSettlementRow("PENDING", new BigDecimal("5.00"))));
+
+        // When
+        int settled = settlementService.settle(day, day);
+
+        // Then
+        assertEquals(1, settled);
+        verify(settlementRepository).saveAll(settlementsCaptor.capture());
+        assertEquals(2, settlementsCaptor.getValue().size());
+        verify(settlementCheckpointRepository, never()).save(any(SettlementCheckpoint.class));
+    }
+
+    @Test
+    void settle_WhenAmountHasMoreThanTwoDecimals_ShouldRoundInsteadOfFailing() {
+        // Given
+        when(settlementCheckpointRepository.findAllById(List.of(day))).thenReturn(Collections.emptyList());
+        when(paymentRepository.streamSettlementRows(day.atStartOfDay(), day.plusDays(1).atStartOfDay()))
+                .thenReturn(Stream.of(
+                        new PaymentSettlementRow("COMPLETED", new BigDecimal("10.005")),
+                        new PaymentSettlementRow("COMPLETED", new BigDecimal("0.015"))));
+
+        // When
+        settlementService.settle(day, day);
+
+        // Then
+        verify(settlementRepository).saveAll(settlementsCaptor.capture());
+        assertEquals(new BigDecimal("10.02"), settlementsCaptor.getValue().get(0).getTotalAmount());
+        verify(settlementCheckpointRepository).save(any(SettlementCheckpoint.class));
+    }
+
+    @Test
+    void settle_ShouldSettleEachDayUnderTheCallersWorkload() {
+        // Given
+        LocalDate nextDay = day.plusDays(1);
+        Queue<WorkloadType> workloads = new ConcurrentLinkedQueue<>();
+        when(settlementCheckpointRepository.findAllById(List.of(day, nextDay))).thenReturn(Collections.emptyList());
+        when(paymentRepository.streamSettlementRows(any(), any())).thenAnswer(invocation -> {
+            workloads.add(WorkloadContext.current());
+            return Stream.empty();
+        });
+
+        // When
+        WorkloadContext.runAs(WorkloadType.BATCH, () -> settlementService.settle(day, nextDay));
+
+        // Then
+        assertEquals(List.of(WorkloadType.BATCH, WorkloadType.BATCH), List.copyOf(workloads));
+        assertNull(WorkloadContext.current());
+    }
+}
@@ -17,6 +17,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -41,6 +42,17 @@ public class ProductController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    @Operation(summary = "Get all products", description = "Retrieves the product catalog ordered by name")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Products returned"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping
+    public ResponseEntity<List<ProductResponse>> getAllProducts() {
+        log.info("Received request to get all products");
+        return ResponseEntity.ok(productService.getAllProducts());
+    }
+
     @Operation(summary = "Get product by ID", description = "Retrieves a specific product by its unique identifier")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Product found and returned"),
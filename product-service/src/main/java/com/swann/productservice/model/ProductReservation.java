@@ -8,7 +8,10 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "product_reservations")
+@Table(name = "product_reservations", indexes = {
+        @Index(name = "idx_product_reservations_order_id", columnList = "order_id"),
+        @Index(name = "idx_product_reservations_product_id", columnList = "product_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -23,7 +26,7 @@ public class ProductReservation {
     private UUID orderId;
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "product_id", nullable = false)
+    @JoinColumn(name = "product_id", nullable = false, foreignKey = @ForeignKey(name = "fk_product_reservations_product"))
     private Product product;
 
     @Column(name = "quantity", nullable = false)
@@ -1,11 +1,25 @@
 package com.swann.productservice.repository;
 
 import com.swann.productservice.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, UUID> {
-}
\ No newline at end of file
+
+    /**
+     * Find all products ordered by name. The result is held in the query cache
+     * until this instance next writes the products table, or for at most the
+     * region's expiry.
+     *
+     * @return list of products
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Product> findAllByOrderByNameAsc();
+}
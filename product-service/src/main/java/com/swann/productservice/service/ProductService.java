@@ -4,6 +4,7 @@ import com.swann.productservice.dto.CreateProductRequest;
 import com.swann.productservice.dto.ProductResponse;
 import com.swann.productservice.dto.UpdateProductStockRequest;
 
+import java.util.List;
 import java.util.UUID;
 
 public interface ProductService {
@@ -24,6 +25,13 @@ public interface ProductService {
      */
     ProductResponse getProductById(UUID productId);
     
+    /**
+     * Get all products in the catalog
+     * 
+     * @return list of product responses, ordered by name
+     */
+    List<ProductResponse> getAllProducts();
+    
     /**
      * Update product stock
      * 
@@ -12,7 +12,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -50,6 +52,16 @@ public class ProductServiceImpl implements ProductService {
         return mapToProductResponse(product);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductResponse> getAllProducts() {
+        log.info("Getting all products");
+        
+        return productRepository.findAllByOrderByNameAsc().stream()
+                .map(this::mapToProductResponse)
+                .collect(Collectors.toList());
+    }
+
     @Override
     @Transactional
     public ProductResponse updateProductStock(UUID productId, UpdateProductStockRequest request) {
@@ -0,0 +1,23 @@
+-- Schema as ddl-auto: update left it. spring.flyway.baseline-version is 0, so databases created
+-- that way run this too; IF NOT EXISTS skips the tables they have, whose columns are unchanged.
+
+CREATE TABLE IF NOT EXISTS products (
+    product_id uuid          NOT NULL,
+    name       varchar(255)  NOT NULL,
+    price      numeric(38,2) NOT NULL,
+    stock      integer       NOT NULL,
+    created_at timestamp(6)  NOT NULL,
+    updated_at timestamp(6),
+    CONSTRAINT products_pkey PRIMARY KEY (product_id)
+);
+
+CREATE TABLE IF NOT EXISTS product_reservations (
+    reservation_id uuid         NOT NULL,
+    order_id       uuid         NOT NULL,
+    product_id     uuid         NOT NULL,
+    quantity       integer      NOT NULL,
+    status         varchar(255) NOT NULL,
+    created_at     timestamp(6) NOT NULL,
+    CONSTRAINT product_reservations_pkey PRIMARY KEY (reservation_id),
+    CONSTRAINT fk_product_reservations_product FOREIGN KEY (product_id) REFERENCES products (product_id)
+);
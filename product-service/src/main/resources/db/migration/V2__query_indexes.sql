@@ -0,0 +1,5 @@
+-- Reservations are looked up by the order they were made for
+CREATE INDEX IF NOT EXISTS idx_product_reservations_order_id ON product_reservations (order_id);
+
+-- Backs the foreign key, so updating or deleting a product does not scan every reservation
+CREATE INDEX IF NOT EXISTS idx_product_reservations_product_id ON product_reservations (product_id);
@@ -18,6 +18,7 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -84,6 +85,16 @@ class ProductControllerTest {
                 .andExpect(jsonPath("$.stock").value(100));
     }
 
+    @Test
+    void getAllProducts_ShouldReturnCatalog() throws Exception {
+        when(productService.getAllProducts()).thenReturn(List.of(productResponse));
+
+        mockMvc.perform(get("/products"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].productId").value(productId.toString()))
+                .andExpect(jsonPath("$[0].name").value("Test Product"));
+    }
+
     @Test
     void getProductById_ShouldReturnProduct() throws Exception {
         when(productService.getProductById(productId)).thenReturn(productResponse);
@@ -0,0 +1,125 @@
+package com.swann.productservice.integration;
+
+import com.swann.productservice.dto.CreateProductRequest;
+import com.swann.productservice.dto.ProductResponse;
+import com.swann.productservice.dto.UpdateProductStockRequest;
+import com.swann.productservice.repository.ProductRepository;
+import com.swann.productservice.service.ProductService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the same catalog traffic with and without the second-level and query
+ * caches and compares JDBC statements issued. The mix is 90% product lookups,
+ * 8% catalog listings and 2% stock updates over a small hot set of products.
+ */
+@SpringBootTest
+@Import(com.swann.productservice.TestcontainersConfiguration.class)
+@ActiveProfiles("test")
+@EmbeddedKafka(partitions = 1)
+@DirtiesContext
+@Testcontainers
+public class ProductCacheBenchmarkTest {
+
+    private static final int PRODUCTS = 50;
+    private static final int OPERATIONS = 5_000;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private SessionFactory sessionFactory;
+    private Statistics statistics;
+    private List<UUID> productIds;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAll();
+        sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        statistics = sessionFactory.getStatistics();
+
+        productIds = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            ProductResponse product = productService.createProduct(
+                    new CreateProductRequest("Product " + i, new BigDecimal("9.99"), 100));
+            productIds.add(product.getProductId());
+        }
+    }
+
+    @Test
+    void cachesShouldCutDatabaseRoundTripsOnReadHeavyMix() {
+        // Given
+        long uncached = runMix(true);
+        long cached = runMix(false);
+
+        // Then
+        assertTrue(cached * 5 < uncached, () -> String.format(
+                "expected at least 5x fewer statements, got %d cached vs %d uncached"
+                        + " (second-level cache hits %d, misses %d; query cache hits %d, misses %d)",
+                cached, uncached, statistics.getSecondLevelCacheHitCount(), statistics.getSecondLevelCacheMissCount(),
+                statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount()));
+        assertTrue(statistics.getSecondLevelCacheHitCount() > statistics.getSecondLevelCacheMissCount());
+        assertTrue(statistics.getQueryCacheHitCount() > 0);
+    }
+
+    @Test
+    void stockUpdateShouldBeVisibleThroughBothCaches() {
+        // Given
+        UUID productId = productIds.get(0);
+        productService.getProductById(productId);
+        productService.getAllProducts();
+
+        // When
+        productService.updateProductStock(productId, new UpdateProductStockRequest(7));
+
+        // Then
+        assertEquals(7, productService.getProductById(productId).getStock());
+        assertEquals(7, productService.getAllProducts().stream()
+                .filter(product -> product.getProductId().equals(productId))
+                .findFirst().orElseThrow().getStock());
+    }
+
+    private long runMix(boolean bypassCaches) {
+        sessionFactory.getCache().evictAllRegions();
+        statistics.clear();
+        Random random = new Random(42);
+        for (int i = 0; i < OPERATIONS; i++) {
+            if (bypassCaches) {
+                sessionFactory.getCache().evictAllRegions();
+            }
+            UUID productId = productIds.get(random.nextInt(PRODUCTS));
+            int roll = random.nextInt(100);
+            if (roll < 90) {
+                productService.getProductById(productId);
+            } else if (roll < 98) {
+                productService.getAllProducts();
+            } else {
+                productService.updateProductStock(productId, new UpdateProductStockRequest(random.nextInt(100)));
+            }
+        }
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,77 @@
+package com.swann.productservice.integration;
+
+import com.swann.productservice.dto.CreateProductRequest;
+import com.swann.productservice.dto.ProductResponse;
+import com.swann.productservice.dto.UpdateProductStockRequest;
+import com.swann.productservice.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static com.swann.common.sqlstats.StatementBudget.assertAtMost;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Statements each catalog operation may run. Repeated reads are served by the
+ * second-level and query caches and must not reach the database.
+ */
+@SpringBootTest
+@Import(com.swann.productservice.TestcontainersConfiguration.class)
+@ActiveProfiles("test")
+@EmbeddedKafka(partitions = 1)
+@DirtiesContext
+@Testcontainers
+public class StatementBudgetTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Test
+    void createProduct_ShouldInsertOnce() {
+        // When / Then
+        ProductResponse product = assertAtMost(1, () ->
+                productService.createProduct(new CreateProductRequest("Budget product", new BigDecimal("9.99"), 10)));
+        assertNotNull(product.getProductId());
+    }
+
+    @Test
+    void getProductById_WhenRepeated_ShouldHitCache() {
+        // Given
+        ProductResponse created = productService.createProduct(new CreateProductRequest("Cached product", new BigDecimal("9.99"), 10));
+        assertAtMost(1, () -> productService.getProductById(created.getProductId()));
+
+        // When / Then
+        ProductResponse product = assertAtMost(0, () -> productService.getProductById(created.getProductId()));
+        assertEquals(created.getProductId(), product.getProductId());
+    }
+
+    @Test
+    void getAllProducts_WhenRepeated_ShouldHitQueryCache() {
+        // Given
+        productService.createProduct(new CreateProductRequest("Listed product", new BigDecimal("9.99"), 10));
+        assertAtMost(1, () -> productService.getAllProducts());
+
+        // When / Then
+        List<ProductResponse> products = assertAtMost(0, () -> productService.getAllProducts());
+        assertFalse(products.isEmpty());
+    }
+
+    @Test
+    void updateProductStock_ShouldReadAndUpdateOnce() {
+        // Given
+        ProductResponse created = productService.createProduct(new CreateProductRequest("Stocked product", new BigDecimal("9.99"), 10));
+
+        // When / Then
+        ProductResponse updated = assertAtMost(2, () ->
+                productService.updateProductStock(created.getProductId(), new UpdateProductStockRequest(5)));
+        assertEquals(5, updated.getStock());
+    }
+}
@@ -18,6 +18,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -117,6 +119,21 @@ class ProductServiceImplTest {
         verify(productRepository).findById(productId);
     }
 
+    @Test
+    void getAllProducts_ShouldReturnCatalogInRepositoryOrder() {
+        // Given
+        when(productRepository.findAllByOrderByNameAsc()).thenReturn(Collections.singletonList(product));
+
+        // When
+        List<ProductResponse> responses = productService.getAllProducts();
+
+        // Then
+        verify(productRepository).findAllByOrderByNameAsc();
+        assertEquals(1, responses.size());
+        assertEquals(productId, responses.get(0).getProductId());
+        assertEquals("Test Product", responses.get(0).getName());
+    }
+
     @Test
     void updateProductStock_ShouldUpdateStock() {
         // Given